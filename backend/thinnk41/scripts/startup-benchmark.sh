@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Cold start of each packaged form of the service, started RUNS times apiece:
+#   jar     target/thinnk41-0.0.1-SNAPSHOT.jar             mvn -Pstartup-benchmark -DskipTests package
+#   cds     target/cds/ with its class data sharing archive mvn -Pcds,startup-benchmark -DskipTests package
+#   native  target/thinnk41                                 mvn -Pnative -DskipTests package (unverified:
+#                                                           never built or measured)
+# Forms that have not been built are skipped. For every start it prints the time to the
+# "Ready to serve" log line, the time until GET /api/departments first answers 200 and the
+# resident set size right after that request.
+#
+# Without arguments every start gets a fresh in-memory H2 database in MySQL mode, migrated by
+# Flyway on startup, which needs H2 packaged in by the startup-benchmark profile. Arguments
+# replace that datasource, e.g. to measure against a real MySQL server.
+#
+# Usage: scripts/startup-benchmark.sh [application arguments, e.g. --spring.datasource.url=...]
+# Environment: RUNS (default 5), PORT (default 8080), JAVA (default java on the PATH)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+JAVA=${JAVA:-java}
+JAR=target/thinnk41-0.0.1-SNAPSHOT.jar
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+measure() {
+    local mode=$1
+    shift
+    for run in $(seq "$RUNS"); do
+        local start now pid status rss ready
+        start=$(date +%s%N)
+        "$@" --server.port="$PORT" "${APP_ARGS[@]}" > "$LOG" 2>&1 &
+        pid=$!
+        until status=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/api/departments") && [ "$status" = 200 ]; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$mode did not start:" >&2
+                tail -n 20 "$LOG" >&2
+                return 1
+            fi
+            sleep 0.02
+        done
+        now=$(date +%s%N)
+        rss=$(awk '/^VmRSS:/ { print int($2 / 1024) }' "/proc/$pid/status")
+        ready=$(sed -n 's/.*Ready to serve \([0-9]*\) ms.*/\1/p' "$LOG")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        printf '%-8s %4d %10s %14d %8d\n' "$mode" "$run" "${ready:-?}" $(((now - start) / 1000000)) "$rss"
+    done
+}
+
+if [ $# -gt 0 ]; then
+    APP_ARGS=("$@")
+else
+    APP_ARGS=(
+        "--spring.datasource.url=jdbc:h2:mem:ecommerce_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+        --spring.datasource.username=sa
+        --spring.datasource.password=
+        --spring.datasource.driver-class-name=org.h2.Driver
+    )
+fi
+printf '%-8s %4s %10s %14s %8s\n' mode run 'ready ms' 'first req ms' 'RSS MB'
+if [ -f "$JAR" ]; then
+    measure jar "$JAVA" -jar "$JAR"
+fi
+if [ -f target/cds/application.jsa ]; then
+    measure cds "$JAVA" -XX:SharedArchiveFile=target/cds/application.jsa -Xshare:auto -jar target/cds/"$(basename "$JAR")"
+fi
+if [ -x target/thinnk41 ]; then
+    measure native target/thinnk41
+fi
@@ -0,0 +1,74 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.admission.AdaptiveConcurrencyLimit;
+import com.ecommerce.thinnk41.admission.ClientRateLimiter;
+import com.ecommerce.thinnk41.admission.RouteClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What admission control adds to a request: classifying the route, taking from the client's
+ * rate limit allowance (spread over many clients, so the cache is exercised) and a permit from
+ * the concurrency limit, from several threads at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AdmissionBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private String[] clients;
+
+    private ClientRateLimiter rateLimiter;
+
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
+    @Setup
+    public void setUp() {
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+        // generous enough that nothing is rejected, so every call takes the admitting path
+        rateLimiter = new ClientRateLimiter(1_000_000, 1_000_000, 100_000);
+        concurrencyLimit = new AdaptiveConcurrencyLimit(1_000, 1_000, 1_000, TimeUnit.MILLISECONDS.toNanos(100), 1.5, System.nanoTime());
+    }
+
+    @Benchmark
+    public RouteClass classify() {
+        return RouteClass.of(ThreadLocalRandom.current().nextBoolean() ? "/api/products/search" : "/api/products/42");
+    }
+
+    @Benchmark
+    public long rateLimit() {
+        return rateLimiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(CLIENTS)], System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean concurrencyLimit() {
+        long start = System.nanoTime();
+        boolean acquired = concurrencyLimit.tryAcquire();
+        if (acquired) {
+            long end = System.nanoTime();
+            concurrencyLimit.release(end - start, end);
+        }
+        return acquired;
+    }
+}
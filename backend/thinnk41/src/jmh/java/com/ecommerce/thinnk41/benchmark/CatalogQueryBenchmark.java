@@ -0,0 +1,125 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.search.ProductSearchIndex;
+import com.ecommerce.thinnk41.service.DepartmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository queries and the department counts against an embedded database
+ * seeded with a synthetic catalog of each size. Page numbers are drawn at random
+ * from the first few pages so the same rows are not served from a warm buffer every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogQueryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = 50;
+
+    @Param({"10000", "100000", "1000000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductRepository productRepository;
+
+    private DepartmentService departmentService;
+
+    private ProductSearchIndex productSearchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SyntheticCatalog.start("benchmark_" + catalogSize, catalogSize);
+        productRepository = context.getBean(ProductRepository.class);
+        departmentService = context.getBean(DepartmentService.class);
+        productSearchIndex = context.getBean(ProductSearchIndex.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DepartmentWithProductCountDTO> departmentsWithProductCount() {
+        return departmentService.getAllDepartmentsWithProductCount();
+    }
+
+    @Benchmark
+    public Page<Product> findAll() {
+        return productRepository.findAll(randomPage());
+    }
+
+    @Benchmark
+    public Page<Product> findByCategory() {
+        return productRepository.findByCategory("Jeans", randomPage());
+    }
+
+    @Benchmark
+    public Page<Product> findByBrand() {
+        return productRepository.findByBrand(SyntheticCatalog.brand(7), randomPage());
+    }
+
+    @Benchmark
+    public Page<Product> findByDepartmentId() {
+        return productRepository.findByDepartmentId(1, randomPage());
+    }
+
+    @Benchmark
+    public Page<Product> findByDepartmentName() {
+        return productRepository.findByDepartmentName("Women", randomPage());
+    }
+
+    @Benchmark
+    public Page<Object[]> findProductsWithDepartmentNamesByCategory() {
+        return productRepository.findProductsWithDepartmentNamesByCategory("Jeans", randomPage());
+    }
+
+    @Benchmark
+    public Page<Product> searchByNameLike() {
+        return productRepository.findByNameContainingIgnoreCase("slim", randomPage());
+    }
+
+    @Benchmark
+    public List<Product> searchByNameIndex() {
+        // the index lookup plus loading the page by id, as ProductService.searchProductsByName does
+        int[] ranked = productSearchIndex.search("slim");
+        Pageable page = randomPage();
+        int from = (int) Math.min(page.getOffset(), ranked.length);
+        int to = Math.min(from + PAGE_SIZE, ranked.length);
+        List<Integer> ids = Arrays.stream(ranked, from, to).boxed().toList();
+        return productRepository.findAllById(ids);
+    }
+
+    private static Pageable randomPage() {
+        return PageRequest.of(ThreadLocalRandom.current().nextInt(PAGES), PAGE_SIZE);
+    }
+}
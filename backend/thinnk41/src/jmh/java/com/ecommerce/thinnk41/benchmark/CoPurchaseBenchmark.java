@@ -0,0 +1,86 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.related.CoOccurrenceBuilder;
+import com.ecommerce.thinnk41.related.CoOccurrenceCounts;
+import com.ecommerce.thinnk41.related.RelatedTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the related products table from orders the size of the full dataset (about 125k
+ * orders, 181k order items, 29k products). A split size above the order count counts everything
+ * in one task, for comparison with the fork/join split. The setup prints the heap the counts and
+ * the table hold.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CoPurchaseBenchmark {
+
+    private static final int ORDERS = 125_000;
+    private static final int PRODUCTS = 29_120;
+    private static final int TOP_K = 20;
+    private static final int MAX_BASKET_SIZE = 50;
+
+    @Param({"10000", "1000000"})
+    private int splitSize;
+
+    private int[][] orders;
+
+    private CoOccurrenceCounts counts;
+
+    private RelatedTable table;
+
+    @Setup
+    public void setUp() {
+        orders = SyntheticCatalog.orders(ORDERS, PRODUCTS);
+        counts = CoOccurrenceBuilder.count(orders, MAX_BASKET_SIZE, splitSize);
+        table = RelatedTable.build(counts, TOP_K);
+        long items = 0;
+        for (int[] order : orders) {
+            items += order.length;
+        }
+        System.out.printf("%n%d orders, %d items: %d pairs over %d products, counts %d KB; "
+                        + "table %d products, %d partners, %d KB%n",
+                orders.length, items, counts.getPairCount(), counts.getProductCount(), counts.footprintBytes() / 1024,
+                table.getProductCount(), table.getPartnerCount(), table.footprintBytes() / 1024);
+    }
+
+    @Benchmark
+    public CoOccurrenceCounts count() {
+        return CoOccurrenceBuilder.count(orders, MAX_BASKET_SIZE, splitSize);
+    }
+
+    @Benchmark
+    public RelatedTable rank() {
+        return RelatedTable.build(counts, TOP_K);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public float lookup() {
+        int row = table.find(1 + ThreadLocalRandom.current().nextInt(PRODUCTS));
+        float total = 0;
+        if (row >= 0) {
+            for (int i = table.from(row); i < table.to(row); i++) {
+                total += table.score(i) + table.partner(i);
+            }
+        }
+        return total;
+    }
+}
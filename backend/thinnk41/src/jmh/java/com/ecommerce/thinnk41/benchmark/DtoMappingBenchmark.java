@@ -0,0 +1,64 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.dto.ProductWithDepartmentDTO;
+import com.ecommerce.thinnk41.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping, per product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DtoMappingBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+
+    private Product[] products;
+
+    private Object[][] rows;
+
+    @Setup
+    public void setUp() {
+        List<Product> catalog = SyntheticCatalog.products(PRODUCTS);
+        products = catalog.toArray(new Product[0]);
+        rows = new Object[PRODUCTS][];
+        for (int i = 0; i < PRODUCTS; i++) {
+            rows[i] = new Object[]{products[i], products[i].getDepartment().getName()};
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PRODUCTS)
+    public void productDtoFromEntity(Blackhole blackhole) {
+        for (Product product : products) {
+            blackhole.consume(ProductDTO.fromEntity(product));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PRODUCTS)
+    public void productWithDepartmentDtoFromObjectArray(Blackhole blackhole) {
+        for (Object[] row : rows) {
+            blackhole.consume(ProductWithDepartmentDTO.fromObjectArray(row));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.dto.CompactProductPageDTO;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization time of a product page in each negotiable encoding. The payload size of each
+ * combination is printed once per trial, since it does not vary between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PayloadEncodingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    private String encoding;
+
+    private ObjectMapper mapper;
+
+    private Object body;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<ProductDTO> content = SyntheticCatalog.products(pageSize).stream().map(ProductDTO::fromEntity).toList();
+        Page<ProductDTO> page = new PageImpl<>(content, PageRequest.of(0, pageSize), 100_000);
+        // JSON keeps the Page layout; the binary formats get the compact side-table layout
+        switch (encoding) {
+            case "cbor" -> {
+                mapper = Jackson2ObjectMapperBuilder.cbor().build();
+                body = CompactProductPageDTO.fromPage(page);
+            }
+            case "smile" -> {
+                mapper = Jackson2ObjectMapperBuilder.smile().build();
+                body = CompactProductPageDTO.fromPage(page);
+            }
+            default -> {
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+                body = page;
+            }
+        }
+        System.out.printf("%n%s, page of %d: %d bytes%n", encoding, pageSize, encode().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        if (!encoding.equals("json-gzip")) {
+            return mapper.writeValueAsBytes(body);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(gzip, body);
+        }
+        return bytes.toByteArray();
+    }
+}
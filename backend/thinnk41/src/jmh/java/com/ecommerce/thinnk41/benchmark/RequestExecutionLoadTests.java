@@ -0,0 +1,146 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.Thinnk41Application;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares throughput and tail latency of the platform-thread and virtual-thread request modes
+ * under a burst of concurrent listing requests. Runs with the JMH benchmarks under
+ * {@code mvn verify -Pbenchmark}; the comparison table is logged, the assertions only check
+ * that overload was shed cleanly.
+ */
+@Tag("benchmark")
+class RequestExecutionLoadTests {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestExecutionLoadTests.class);
+
+    private static final int PRODUCTS = 5_000;
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 2_000);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+
+    @Test
+    void comparesPlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("Request execution modes:\nmode      requests  ok      503     other  req/s     p50 ms  p99 ms\n{}\n{}",
+                platform, virtual);
+
+        for (Result result : List.of(platform, virtual)) {
+            assertThat(result.ok + result.rejected + result.other).isEqualTo(REQUESTS);
+            // overload must surface as fast 503s, never as errors or timeouts
+            assertThat(result.other).isZero();
+            assertThat(result.ok).isPositive();
+            assertThat(result.throughput).isPositive();
+            assertThat(result.p50).isLessThanOrEqualTo(result.p99);
+        }
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        // command-line arguments, so they win over the test application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Thinnk41Application.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load_" + mode + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=200",
+                        "--spring.datasource.hikari.maximum-pool-size=10",
+                        "--catalog.bulkhead.max-concurrent-calls=10",
+                        "--catalog.bulkhead.max-wait=500ms",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false")) {
+            seed(context.getBean(JdbcTemplate.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(mode, "http://localhost:" + port + "/api/products?size=20&page=");
+        }
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO departments (name) VALUES ('Women')");
+        Integer departmentId = jdbcTemplate.queryForObject("SELECT id FROM departments WHERE name = 'Women'", Integer.class);
+        List<Object[]> rows = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            rows.add(new Object[]{"SKU-" + i, "Product " + i, "Jeans", "Brand " + (i % 50), 10 + i % 90, departmentId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (sku, name, category, brand, retail_price, department_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private Result load(String mode, String url) throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger other = new AtomicInteger();
+        long[] latencies = new long[REQUESTS];
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(10)).build()) {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                int request = i;
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(
+                                HttpRequest.newBuilder(URI.create(url + (request % (PRODUCTS / 20))))
+                                        .timeout(Duration.ofSeconds(30)).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        } else if (response.statusCode() == 503 && response.headers().firstValue("Retry-After").isPresent()) {
+                            rejected.incrementAndGet();
+                        } else {
+                            other.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        other.incrementAndGet();
+                    } finally {
+                        latencies[request] = System.nanoTime() - sent;
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result(mode, ok.get(), rejected.get(), other.get(), REQUESTS * 1e9 / elapsed,
+                    latencies[REQUESTS / 2] / 1e6, latencies[(int) (REQUESTS * 0.99)] / 1e6);
+        }
+    }
+
+    private record Result(String mode, int ok, int rejected, int other, double throughput, double p50, double p99) {
+
+        @Override
+        public String toString() {
+            return String.format("%-9s %-9d %-7d %-7d %-6d %-9.0f %-7.1f %.1f",
+                    mode, ok + rejected + other, ok, rejected, other, throughput, p50, p99);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.thinnk41.benchmark;
+
+import com.ecommerce.thinnk41.Thinnk41Application;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.facet.CatalogFacetIndex;
+import com.ecommerce.thinnk41.search.ProductSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic catalog shaped like the dataset: two departments, a few dozen
+ * categories, a long tail of brands and short descriptive product names.
+ */
+final class SyntheticCatalog {
+
+    static final String[] DEPARTMENTS = {"Women", "Men"};
+    static final String[] CATEGORIES = {
+            "Jeans", "Tops & Tees", "Sweaters", "Fashion Hoodies & Sweatshirts", "Pants", "Shorts",
+            "Intimates", "Sleep & Lounge", "Swim", "Accessories", "Outerwear & Coats", "Active",
+            "Dresses", "Skirts", "Socks", "Suits & Sport Coats", "Blazers & Jackets", "Underwear",
+            "Leggings", "Maternity", "Plus", "Jumpsuits & Rompers", "Clothing Sets", "Pants & Capris"
+    };
+    static final int BRANDS = 2_000;
+
+    private static final String[] ADJECTIVES = {
+            "Slim", "Classic", "Relaxed", "Vintage", "Stretch", "Cotton", "Wool", "Denim", "Knit",
+            "Fleece", "Linen", "Striped", "Printed", "Cropped", "Oversized", "Lightweight"
+    };
+    private static final String[] NOUNS = {
+            "Fit", "Crew", "V-Neck", "Pullover", "Cardigan", "Chino", "Cargo", "Bootcut", "Jogger",
+            "Polo", "Henley", "Tank", "Wrap", "Midi", "Maxi", "Bomber"
+    };
+
+    private SyntheticCatalog() {
+    }
+
+    static String brand(int i) {
+        return "Brand " + i;
+    }
+
+    /**
+     * Build detached product entities, for the mapping benchmarks
+     */
+    static List<Product> products(int count) {
+        List<Department> departments = new ArrayList<>();
+        for (int i = 0; i < DEPARTMENTS.length; i++) {
+            departments.add(new Department(i + 1, DEPARTMENTS[i], DEPARTMENTS[i] + " clothing", null));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Object[] row = row(random, i);
+            Product product = new Product();
+            product.setId(i + 1);
+            product.setSku((String) row[0]);
+            product.setName((String) row[1]);
+            product.setCategory((String) row[2]);
+            product.setBrand((String) row[3]);
+            product.setCost((BigDecimal) row[4]);
+            product.setRetailPrice((BigDecimal) row[5]);
+            product.setDepartment(departments.get((Integer) row[6] - 1));
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * The product ids of each order, shaped like the dataset's order_items: mostly one or two
+     * items per order, popular products bought far more often than the long tail
+     */
+    static int[][] orders(int count, int products) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[][] orders = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int roll = random.nextInt(100);
+            int[] items = new int[roll < 65 ? 1 : roll < 90 ? 2 : roll < 97 ? 3 : 4];
+            for (int j = 0; j < items.length; j++) {
+                double u = random.nextDouble();
+                items[j] = 1 + (int) (products * u * u);
+            }
+            orders[i] = items;
+        }
+        return orders;
+    }
+
+    /**
+     * Start the application against a fresh embedded database and load {@code count} products into it
+     */
+    static ConfigurableApplicationContext start(String databaseName, int count) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Thinnk41Application.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        seed(context.getBean(JdbcTemplate.class), count);
+        // the in-memory indexes were built on startup, before the rows existed
+        context.getBean(ProductSearchIndex.class).rebuild();
+        context.getBean(CatalogFacetIndex.class).rebuild();
+        return context;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int count) {
+        for (int i = 0; i < DEPARTMENTS.length; i++) {
+            jdbcTemplate.update("INSERT INTO departments (id, name, description) VALUES (?, ?, ?)",
+                    i + 1, DEPARTMENTS[i], DEPARTMENTS[i] + " clothing");
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            batch.add(row(random, i));
+            if (batch.size() == 10_000 || i == count - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (sku, name, category, brand, cost, retail_price, department_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static Object[] row(SplittableRandom random, int i) {
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + category;
+        // a skewed brand distribution, like the real catalog's long tail
+        int brand = (int) Math.min(BRANDS - 1, Math.abs(random.nextGaussian()) * BRANDS / 4);
+        BigDecimal retailPrice = BigDecimal.valueOf(500 + random.nextInt(20_000), 2);
+        BigDecimal cost = retailPrice.multiply(BigDecimal.valueOf(40 + random.nextInt(30), 2)).setScale(2, RoundingMode.HALF_UP);
+        int department = 1 + random.nextInt(DEPARTMENTS.length);
+        return new Object[]{String.format("SKU%08d", i), name, category, brand(brand), cost, retailPrice, department};
+    }
+}
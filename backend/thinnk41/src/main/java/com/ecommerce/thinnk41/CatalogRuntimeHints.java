@@ -0,0 +1,30 @@
+package com.ecommerce.thinnk41;
+
+import com.ecommerce.thinnk41.dto.CompactProductDTO;
+import com.ecommerce.thinnk41.dto.CompactProductPageDTO;
+import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
+import com.ecommerce.thinnk41.dto.ProductUpdateDTO;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection the AOT processing cannot infer for a native image.
+ *
+ * Entities, repositories, their projections and the DTOs controllers declare as return or body
+ * types are registered by Spring's own processing. What is left are the types only reached by
+ * name: DTOs built by JPQL constructor expressions, read through an ObjectMapper reader, or
+ * swapped into the response by a body advice; binding hints cover their constructors too.
+ *
+ * No entity is proxied (to-one associations are eager and nothing calls getReference), so
+ * Hibernate needs no bytecode enhancement at build time.
+ */
+class CatalogRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                CompactProductDTO.class, CompactProductPageDTO.class, DepartmentWithProductCountDTO.class,
+                ProductUpdateDTO.class);
+    }
+}
@@ -2,8 +2,12 @@ package com.ecommerce.thinnk41;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(CatalogRuntimeHints.class)
 public class Thinnk41Application {
 
 	public static void main(String[] args) {
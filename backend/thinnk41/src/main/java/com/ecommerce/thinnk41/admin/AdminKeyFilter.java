@@ -0,0 +1,66 @@
+package com.ecommerce.thinnk41.admin;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+
+/**
+ * Guards the write and maintenance endpoints under /api/admin: a request gets through only with an
+ * X-Admin-Key header matching one of the configured keys, so with no keys configured they are
+ * closed. Runs after admission control, so a client guessing keys is rate limited like any other.
+ * The admin controllers set no CORS headers; they are meant for back-office jobs, not browsers.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class AdminKeyFilter extends OncePerRequestFilter {
+
+    public static final String ADMIN_PATH = "/api/admin/";
+
+    public static final String ADMIN_KEY_HEADER = "X-Admin-Key";
+
+    @Value("${catalog.admin.api-keys:}")
+    private Set<String> adminKeys;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().substring(request.getContextPath().length()).startsWith(ADMIN_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isAdmin(request.getHeader(ADMIN_KEY_HEADER))) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Unauthorized\",\"message\":\"A valid " + ADMIN_KEY_HEADER + " is required\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private boolean isAdmin(String key) {
+        if (key == null || key.isEmpty()) {
+            return false;
+        }
+        byte[] given = key.getBytes(StandardCharsets.UTF_8);
+        boolean match = false;
+        // compares against every key in constant time, so timing does not tell how much of a key was right
+        for (String adminKey : adminKeys) {
+            match |= !adminKey.isEmpty() && MessageDigest.isEqual(given, adminKey.getBytes(StandardCharsets.UTF_8));
+        }
+        return match;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommerce.thinnk41.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that follows latency, in the style of the gradient limiters: requests over
+ * the limit are turned away at once instead of queueing behind the database.
+ *
+ * Latencies are summed over short windows. At the end of each window the window's average is
+ * compared with a slow moving average of earlier windows; while they agree (within the tolerance)
+ * the limit grows by about its square root, and as the short average climbs above the long one
+ * the limit is scaled down by their ratio, to half at most per window. Windows in which fewer
+ * than half the permits were used say nothing about capacity and leave the limit alone.
+ *
+ * Acquiring and releasing are atomic increments; whichever release ends a window recomputes the
+ * limit, having won a compare-and-set on the window's end, so the averages have a single writer.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    private static final int MIN_SAMPLES = 10;
+    private static final double SMOOTHING = 0.2;
+    // the long average spans about this many windows
+    private static final double LONG_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final AtomicLong windowEnd;
+
+    private volatile int limit;
+
+    private volatile double longLatency;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowNanos, double tolerance, long now) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowEnd = new AtomicLong(now + windowNanos);
+    }
+
+    /**
+     * Take a permit if fewer than the limit are out; every permit taken must be released
+     */
+    public boolean tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        if (current > peakInFlight.get()) {
+            peakInFlight.accumulateAndGet(current, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * Give back a permit and record how long its request took
+     *
+     * @param now System.nanoTime() at release
+     */
+    public void release(long latencyNanos, long now) {
+        inFlight.decrementAndGet();
+        latencySum.add(latencyNanos);
+        samples.increment();
+        long end = windowEnd.get();
+        if (now - end >= 0 && samples.sum() >= MIN_SAMPLES && windowEnd.compareAndSet(end, now + windowNanos)) {
+            update();
+        }
+    }
+
+    private void update() {
+        long count = samples.sumThenReset();
+        double shortLatency = (double) latencySum.sumThenReset() / Math.max(1, count);
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (shortLatency <= 0) {
+            return;
+        }
+        double baseline = longLatency == 0 ? shortLatency : longLatency + (shortLatency - longLatency) * 2 / (LONG_WINDOWS + 1);
+        if (baseline / shortLatency > 2) {
+            // latency has dropped well below the baseline after a slow stretch; let the baseline catch up faster
+            baseline *= 0.95;
+        }
+        longLatency = baseline;
+
+        int current = limit;
+        if (peak < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / shortLatency));
+        double target = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, Math.round(smoothed)));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
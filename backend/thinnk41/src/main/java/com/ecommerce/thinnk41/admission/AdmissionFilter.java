@@ -0,0 +1,193 @@
+package com.ecommerce.thinnk41.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Admission control in front of the API, before any other filter touches the request.
+ *
+ * Every client gets a {@link ClientRateLimiter} allowance per {@link RouteClass}: a client is its
+ * X-API-Key header when that is one of the configured keys, otherwise its address (the proxy's
+ * unless server.forward-headers-strategy is set). Unknown keys count against the address, so
+ * sending a fresh key with every request neither escapes the limit nor fills the limiter. Past
+ * its allowance it gets a 429 with the time until the next request would pass. Requests within
+ * their allowance must then get a permit from the {@link AdaptiveConcurrencyLimit}, which sheds
+ * with a 503 once latency shows the database is falling behind. Rejections carry the CORS header
+ * the controllers would have set, so a browser client can read the status and Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.admission.api-keys:}")
+    private Set<String> apiKeys;
+
+    // searches are what scrapers hammer, bulk calls are few and heavy
+    @Value("${catalog.admission.rate-limit.search.per-second:10}")
+    private double searchPerSecond;
+
+    @Value("${catalog.admission.rate-limit.search.burst:20}")
+    private int searchBurst;
+
+    @Value("${catalog.admission.rate-limit.bulk.per-second:1}")
+    private double bulkPerSecond;
+
+    @Value("${catalog.admission.rate-limit.bulk.burst:5}")
+    private int bulkBurst;
+
+    @Value("${catalog.admission.rate-limit.default.per-second:50}")
+    private double defaultPerSecond;
+
+    @Value("${catalog.admission.rate-limit.default.burst:100}")
+    private int defaultBurst;
+
+    @Value("${catalog.admission.rate-limit.max-clients:100000}")
+    private long maxClients;
+
+    @Value("${catalog.admission.concurrency.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${catalog.admission.concurrency.min-limit:10}")
+    private int minLimit;
+
+    @Value("${catalog.admission.concurrency.max-limit:500}")
+    private int maxLimit;
+
+    @Value("${catalog.admission.concurrency.window:100ms}")
+    private Duration window;
+
+    @Value("${catalog.admission.concurrency.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${catalog.admission.concurrency.retry-after:1s}")
+    private Duration shedRetryAfter;
+
+    private final ClientRateLimiter[] rateLimiters = new ClientRateLimiter[RouteClass.values().length];
+
+    private final Counter[] admitted = new Counter[RouteClass.values().length];
+
+    private final Counter[] rateLimited = new Counter[RouteClass.values().length];
+
+    private final Counter[] shed = new Counter[RouteClass.values().length];
+
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
+    @PostConstruct
+    void init() {
+        rateLimiters[RouteClass.SEARCH.ordinal()] = new ClientRateLimiter(searchPerSecond, searchBurst, maxClients);
+        rateLimiters[RouteClass.BULK.ordinal()] = new ClientRateLimiter(bulkPerSecond, bulkBurst, maxClients);
+        rateLimiters[RouteClass.DEFAULT.ordinal()] = new ClientRateLimiter(defaultPerSecond, defaultBurst, maxClients);
+        for (RouteClass route : RouteClass.values()) {
+            admitted[route.ordinal()] = outcome(route, "admitted");
+            rateLimited[route.ordinal()] = outcome(route, "rate_limited");
+            shed[route.ordinal()] = outcome(route, "shed");
+            Gauge.builder("catalog.admission.clients", rateLimiters[route.ordinal()], ClientRateLimiter::getClientCount)
+                    .description("Clients with a rate limit allowance in use")
+                    .tag("route", route.getTag())
+                    .register(meterRegistry);
+        }
+        concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, window.toNanos(), tolerance,
+                System.nanoTime());
+        Gauge.builder("catalog.admission.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Requests allowed in flight at once")
+                .register(meterRegistry);
+        Gauge.builder("catalog.admission.concurrency.active", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests in flight")
+                .register(meterRegistry);
+    }
+
+    private Counter outcome(RouteClass route, String outcome) {
+        return Counter.builder("catalog.admission.requests")
+                .description("API requests by admission outcome")
+                .tag("route", route.getTag())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || HttpMethod.OPTIONS.matches(request.getMethod()) || !path(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RouteClass route = RouteClass.of(path(request));
+        long start = System.nanoTime();
+        long wait = rateLimiters[route.ordinal()].tryAcquire(client(request), start);
+        if (wait > 0) {
+            rateLimited[route.ordinal()].increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests", "Rate limit exceeded for this client", wait);
+            return;
+        }
+        if (route == RouteClass.BULK) {
+            admitted[route.ordinal()].increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            shed[route.ordinal()].increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Service unavailable", "Server is at capacity, retry later",
+                    shedRetryAfter.toNanos());
+            return;
+        }
+        admitted[route.ordinal()].increment();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            concurrencyLimit.release(end - start, end);
+        }
+    }
+
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && !apiKey.isEmpty() && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String error, String message, long retryAfterNanos)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (retryAfterNanos + 999_999_999) / 1_000_000_000)));
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\",\"message\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.thinnk41.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client rate limits with the generic cell rate algorithm: a token bucket kept as the one
+ * number it implies, the time at which the client's bucket would be full again. A request is
+ * admitted when that time is no more than burst - 1 intervals ahead of now, and pushes it one
+ * interval further. Each client is a single AtomicLong updated with compare-and-set, so no lock
+ * is taken on the request path.
+ *
+ * A client idle for longer than a full bucket takes to refill is indistinguishable from a new
+ * one, so its state expires after that; the number of clients tracked is bounded as well.
+ */
+public final class ClientRateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final Cache<String, AtomicLong> arrivals;
+
+    public ClientRateLimiter(double perSecond, int burst, long maxClients) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate must be positive and burst at least 1");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / perSecond);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.arrivals = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos(Math.max(toleranceNanos + intervalNanos, 1_000_000_000L)))
+                .maximumSize(maxClients)
+                .build();
+    }
+
+    /**
+     * Take one request from a client's allowance
+     *
+     * @param now System.nanoTime() of the request
+     * @return 0 when admitted, otherwise how many nanoseconds until the client would be admitted
+     */
+    public long tryAcquire(String client, long now) {
+        AtomicLong arrival = arrivals.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long full = arrival.get();
+            // a bucket that refilled long ago starts from now
+            long start = full - now > 0 ? full : now;
+            long wait = start - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(full, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Clients with a bucket that has not refilled yet, approximately
+     */
+    public long getClientCount() {
+        return arrivals.estimatedSize();
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.thinnk41.admission;
+
+/**
+ * Groups of API routes that share a per-client rate limit. A route belongs to a class when its
+ * path equals one of the class's paths or continues it with a slash.
+ */
+public enum RouteClass {
+
+    /**
+     * Free-text and faceted lookups, the first thing a scraper walks
+     */
+    SEARCH("search", "/api/products/search", "/api/products/suggest", "/api/products/filter", "/api/products/browse"),
+
+    /**
+     * Requests that read or write many rows at once; they are rate limited only, not counted
+     * against the concurrency limit, as an export streams for far longer than any other request
+     */
+    BULK("bulk", "/api/products/export", "/api/admin/products/updates", "/api/products/fulfillment",
+            "/api/admin/sales/rollups/backfill", "/api/admin/sales/rollups/catch-up"),
+
+    /**
+     * Everything else, including the storefront's batch product lookups (/api/products/batch)
+     */
+    DEFAULT("default");
+
+    private final String tag;
+    private final String[] paths;
+
+    RouteClass(String tag, String... paths) {
+        this.tag = tag;
+        this.paths = paths;
+    }
+
+    /**
+     * The metric tag and property name of the class
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    public static RouteClass of(String path) {
+        for (RouteClass route : values()) {
+            for (String prefix : route.paths) {
+                if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                    return route;
+                }
+            }
+        }
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ecommerce.thinnk41.cache;
+
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.event.DepartmentChangedEvent;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded read-through cache of product DTOs keyed by id and by SKU.
+ *
+ * Caffeine's W-TinyLFU policy keeps the hot SKUs resident. A miss puts a pending future in the
+ * cache and the caller that put it runs the loader on its own thread, outside the map: a load
+ * that waits for a bulkhead permit or the database would otherwise hold the map's bin lock and,
+ * on a virtual thread, pin its carrier. Concurrent callers for the same key wait on that future,
+ * so a burst of misses on one product is still a single database load. Cached DTOs are shared
+ * between requests and must be treated as read-only. Entries, pending loads included, are
+ * dropped after the transaction that changed the product or its department commits; a product
+ * is evicted by key, using the SKU it was cached under to catch a changed SKU.
+ */
+@Component
+public class ProductCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.cache.products.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${catalog.cache.products.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    private AsyncCache<Integer, Optional<ProductDTO>> byId;
+
+    private AsyncCache<String, Optional<ProductDTO>> bySku;
+
+    /** The SKU each product in bySku is cached under */
+    private final Map<Integer, String> skuById = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        byId = newCache().buildAsync();
+        bySku = newCache()
+                .removalListener((String sku, Optional<ProductDTO> dto, RemovalCause cause) -> {
+                    if (dto != null && dto.isPresent()) {
+                        skuById.remove(dto.get().getId(), sku);
+                    }
+                })
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "products.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, bySku, "products.bySku");
+    }
+
+    /**
+     * Get a product by ID, loading it at most once per key on a miss
+     */
+    public Optional<ProductDTO> getById(Integer id, Function<Integer, Optional<ProductDTO>> loader) {
+        return get(byId, id, loader);
+    }
+
+    /**
+     * Get a product by SKU, loading it at most once per key on a miss
+     */
+    public Optional<ProductDTO> getBySku(String sku, Function<String, Optional<ProductDTO>> loader) {
+        Optional<ProductDTO> product = get(bySku, sku, loader);
+        product.ifPresent(dto -> skuById.put(dto.getId(), sku));
+        return product;
+    }
+
+    /**
+     * Get several products by ID; the keys that miss are loaded together in one call
+     */
+    public Map<Integer, Optional<ProductDTO>> getAllById(Collection<Integer> ids,
+            Function<Set<? extends Integer>, Map<Integer, Optional<ProductDTO>>> loader) {
+        return join(byId.getAll(ids, (missing, executor) -> CompletableFuture.completedFuture(loader.apply(missing))));
+    }
+
+    /**
+     * Get several products by SKU; the keys that miss are loaded together in one call
+     */
+    public Map<String, Optional<ProductDTO>> getAllBySku(Collection<String> skus,
+            Function<Set<? extends String>, Map<String, Optional<ProductDTO>>> loader) {
+        Map<String, Optional<ProductDTO>> products =
+                join(bySku.getAll(skus, (missing, executor) -> CompletableFuture.completedFuture(loader.apply(missing))));
+        products.forEach((sku, product) -> product.ifPresent(dto -> skuById.put(dto.getId(), sku)));
+        return products;
+    }
+
+    /**
+     * Drop every cached entry that refers to the given product
+     */
+    public void evictProduct(Integer productId, String sku) {
+        byId.synchronous().invalidate(productId);
+        if (sku != null) {
+            bySku.synchronous().invalidate(sku);
+        }
+        // the product's SKU may have changed, so also drop the entry under the one it was cached by
+        String cachedSku = skuById.remove(productId);
+        if (cachedSku != null && !cachedSku.equals(sku)) {
+            bySku.synchronous().invalidate(cachedSku);
+        }
+    }
+
+    /**
+     * Drop every cached product that embeds the given department
+     */
+    public void evictDepartment(Integer departmentId) {
+        removeIf(byId, dto -> belongsTo(dto, departmentId));
+        removeIf(bySku, dto -> belongsTo(dto, departmentId));
+    }
+
+    public void evictAll() {
+        byId.synchronous().invalidateAll();
+        bySku.synchronous().invalidateAll();
+        skuById.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evictProduct(event.getProduct().getId(), event.getProduct().getSku());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        evictDepartment(event.getDepartment().getId());
+    }
+
+    private Caffeine<Object, Object> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+    }
+
+    private static <K> Optional<ProductDTO> get(AsyncCache<K, Optional<ProductDTO>> cache, K key,
+            Function<K, Optional<ProductDTO>> loader) {
+        CompletableFuture<Optional<ProductDTO>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<ProductDTO>> future = cache.get(key, (k, executor) -> pending);
+        if (future == pending) {
+            // a failed future is dropped from the cache, so the next caller loads again
+            try {
+                pending.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return join(future);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <K> void removeIf(AsyncCache<K, Optional<ProductDTO>> cache, Predicate<Optional<ProductDTO>> stale) {
+        // a load still in flight may have read the row before the change, so it goes too
+        cache.asMap().values().removeIf(future -> !future.isDone()
+                || future.isCompletedExceptionally()
+                || stale.test(future.join()));
+    }
+
+    private static boolean belongsTo(Optional<ProductDTO> dto, Integer departmentId) {
+        return dto.isPresent()
+                && dto.get().getDepartment() != null
+                && departmentId.equals(dto.get().getDepartment().getId());
+    }
+}
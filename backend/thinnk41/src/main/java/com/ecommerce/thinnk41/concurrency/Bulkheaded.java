@@ -0,0 +1,20 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the public methods of a bean (or a single method) inside the {@link DatabaseBulkhead}.
+ * A method-level annotation overrides the type-level one, so {@code exempt = true} lets
+ * a method that mostly avoids the database opt out and take a permit only where it needs one.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Bulkheaded {
+
+    boolean exempt() default false;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent identical calls of a read-only query method share one execution through
+ * {@link SingleFlight}. Callers get the same result object, so it must not be modified.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesced {
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import com.ecommerce.thinnk41.routing.ReplicaRoutingContext;
+import com.ecommerce.thinnk41.versioning.CatalogVersions;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes {@link Coalesced} methods through {@link SingleFlight}. Runs ahead of the bulkhead and
+ * the transaction advice, so callers that join a flight hold neither a permit nor a connection.
+ *
+ * Calls are identical when they have the same method and arguments, the same primary/replica
+ * routing and the same global catalog version; any catalog change therefore starts a new flight
+ * and retires reused results. Calls made inside a caller's transaction run on their own, since
+ * their result has to reflect that transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CoalescingAspect {
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Value("${catalog.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Around("execution(public * *(..)) && @annotation(com.ecommerce.thinnk41.concurrency.Coalesced)")
+    public Object aroundCoalesced(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Method method = signature.getMethod();
+        List<Object> key = Arrays.asList(method, Arrays.asList(joinPoint.getArgs()),
+                ReplicaRoutingContext.isPinnedToPrimary(), catalogVersions.getGlobalVersion());
+        return singleFlight.execute(signature.getDeclaringType().getSimpleName() + "." + method.getName(),
+                key, joinPoint::proceed);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import com.ecommerce.thinnk41.exception.BulkheadRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many threads can be inside database-bound service calls at once.
+ *
+ * With virtual threads the web tier accepts far more concurrent requests than the connection
+ * pool can serve. Without a bound they would all queue inside Hikari until its connection
+ * timeout and then fail together; here they queue on a fair semaphore sized to the pool
+ * instead, and a caller that cannot get a permit within {@code max-wait} fails fast with a 503.
+ * Permits are reentrant per thread, so a service calling another service takes only one.
+ */
+@Component
+public class DatabaseBulkhead {
+
+    private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.bulkhead.max-concurrent-calls:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrentCalls;
+
+    @Value("${catalog.bulkhead.max-wait:500ms}")
+    private Duration maxWait;
+
+    @Value("${catalog.bulkhead.retry-after:1s}")
+    private Duration retryAfter;
+
+    private Semaphore permits;
+
+    private Timer waitTimer;
+
+    private Counter rejections;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrentCalls, true);
+        waitTimer = Timer.builder("catalog.db.bulkhead.wait")
+                .description("Time spent waiting for a database bulkhead permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        rejections = Counter.builder("catalog.db.bulkhead.rejected")
+                .description("Calls rejected because no permit was free within the maximum wait")
+                .register(meterRegistry);
+        Gauge.builder("catalog.db.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Free database bulkhead permits")
+                .register(meterRegistry);
+        Gauge.builder("catalog.db.bulkhead.queued", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a database bulkhead permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a call while holding a permit
+     */
+    public <T> T call(Supplier<T> call) {
+        boolean acquired = acquire();
+        try {
+            return call.get();
+        } finally {
+            if (acquired) {
+                release();
+            }
+        }
+    }
+
+    /**
+     * Take a permit, waiting at most {@code max-wait}. Returns false when the calling thread
+     * already holds one (or the bulkhead is disabled) and there is nothing to release.
+     */
+    public boolean acquire() {
+        if (!enabled || HOLDING.get() != null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejections.increment();
+            throw new BulkheadRejectedException("Database is saturated, retry later", retryAfter);
+        }
+        HOLDING.set(Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * Give back the permit taken by {@link #acquire()}
+     */
+    public void release() {
+        HOLDING.remove();
+        permits.release();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+}
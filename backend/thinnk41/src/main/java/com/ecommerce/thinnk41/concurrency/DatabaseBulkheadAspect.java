@@ -0,0 +1,43 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the {@link DatabaseBulkhead} to {@link Bulkheaded} beans. Runs ahead of the
+ * transaction advice so a waiting caller never holds a connection, and after the
+ * {@link CoalescingAspect} so only the call that actually runs takes a permit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DatabaseBulkheadAspect {
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Around("execution(public * *(..)) && (@within(com.ecommerce.thinnk41.concurrency.Bulkheaded) " +
+            "|| @annotation(com.ecommerce.thinnk41.concurrency.Bulkheaded))")
+    public Object aroundBulkheaded(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Bulkheaded bulkheaded = AnnotatedElementUtils.findMergedAnnotation(signature.getMethod(), Bulkheaded.class);
+        if (bulkheaded != null && bulkheaded.exempt()) {
+            return joinPoint.proceed();
+        }
+        boolean acquired = databaseBulkhead.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (acquired) {
+                databaseBulkhead.release();
+            }
+        }
+    }
+}
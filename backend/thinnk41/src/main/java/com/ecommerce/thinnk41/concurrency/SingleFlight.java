@@ -0,0 +1,119 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Collapses identical concurrent calls into one execution.
+ *
+ * The first caller for a key runs the call on its own thread; callers arriving while it is in flight
+ * wait for it and get the same result or exception. With a non-zero {@code reuse-window} a finished
+ * result is also handed to identical calls for that long afterwards. Keys are expected to carry
+ * whatever makes a result stale (see {@link CoalescingAspect}), so the window only bounds memory.
+ */
+@Component
+public class SingleFlight {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.coalescing.reuse-window:0s}")
+    private Duration reuseWindow;
+
+    @Value("${catalog.coalescing.reuse-maximum-size:1000}")
+    private long reuseMaximumSize;
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    // null when results are not reused
+    private Cache<Object, Result> recent;
+
+    @PostConstruct
+    void init() {
+        if (!reuseWindow.isZero()) {
+            recent = Caffeine.newBuilder()
+                    .expireAfterWrite(reuseWindow)
+                    .maximumSize(reuseMaximumSize)
+                    .build();
+        }
+    }
+
+    /**
+     * Run a call, or join an identical one already in flight
+     *
+     * @param name the method name reported in metrics
+     */
+    public Object execute(String name, Object key, Call call) throws Throwable {
+        if (recent != null) {
+            Result result = recent.getIfPresent(key);
+            if (result != null) {
+                count(name, "reused");
+                return result.value;
+            }
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            count(name, "coalesced");
+            return await(leader);
+        }
+        count(name, "executed");
+        try {
+            Object value = call.run();
+            // cache before leaving the in-flight map, so no identical call slips through in between
+            if (recent != null) {
+                recent.put(key, new Result(value));
+            }
+            flight.complete(value);
+            return value;
+        } catch (Throwable t) {
+            flight.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> leader) throws Throwable {
+        try {
+            return leader.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void count(String name, String outcome) {
+        counters.computeIfAbsent(name + '/' + outcome, key -> Counter.builder("catalog.coalescing.calls")
+                .description("Coalesced query calls by whether they ran, joined one in flight or reused a result")
+                .tag("method", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)).increment();
+    }
+
+    @FunctionalInterface
+    public interface Call {
+        Object run() throws Throwable;
+    }
+
+    private static final class Result {
+        private final Object value;
+
+        private Result(Object value) {
+            this.value = value;
+        }
+    }
+}
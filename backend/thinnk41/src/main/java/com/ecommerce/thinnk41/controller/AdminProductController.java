@@ -0,0 +1,24 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.dto.ProductUpdateReportDTO;
+import com.ecommerce.thinnk41.update.ProductUpdateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/products")
+public class AdminProductController {
+
+    @Autowired
+    private ProductUpdateService productUpdateService;
+
+    @PostMapping(value = "/updates", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ProductUpdateReportDTO> updateProducts(InputStream updates) throws IOException {
+        return ResponseEntity.ok(productUpdateService.apply(updates));
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.dto.OrderItemDTO;
+import com.ecommerce.thinnk41.sales.SalesRollupReport;
+import com.ecommerce.thinnk41.sales.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/admin/sales")
+public class AdminSalesController {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @PostMapping("/order-items")
+    public ResponseEntity<SalesRollupReport> appendOrderItems(@RequestBody List<OrderItemDTO> items) {
+        return ResponseEntity.ok(salesRollupService.appendOrderItems(
+                items.stream().map(OrderItemDTO::toEntity).collect(Collectors.toList())));
+    }
+
+    @PostMapping("/order-items/{id}/return")
+    public ResponseEntity<Void> recordReturn(@PathVariable Integer id) {
+        return salesRollupService.recordReturn(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/rollups/catch-up")
+    public ResponseEntity<SalesRollupReport> catchUp() {
+        return ResponseEntity.ok(salesRollupService.catchUp());
+    }
+
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<SalesRollupReport> backfill() {
+        return ResponseEntity.ok(salesRollupService.backfill());
+    }
+}
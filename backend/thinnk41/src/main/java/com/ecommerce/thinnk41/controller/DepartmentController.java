@@ -1,9 +1,9 @@
 package com.ecommerce.thinnk41.controller;
 
 import com.ecommerce.thinnk41.dto.DepartmentDTO;
+import com.ecommerce.thinnk41.dto.DepartmentProductPageDTO;
 import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
 import com.ecommerce.thinnk41.dto.ProductDTO;
-import com.ecommerce.thinnk41.entity.Department;
 import com.ecommerce.thinnk41.service.DepartmentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -30,28 +30,26 @@ public class DepartmentController {
 
     @GetMapping("/{id}")
     public ResponseEntity<DepartmentDTO> getDepartmentById(@PathVariable Integer id) {
-        return departmentService.getDepartmentById(id)
-                .map(DepartmentDTO::fromEntity)
+        return departmentService.getDepartmentSummaryById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/name/{name}")
     public ResponseEntity<DepartmentDTO> getDepartmentByName(@PathVariable String name) {
-        return departmentService.getDepartmentByName(name)
-                .map(DepartmentDTO::fromEntity)
+        return departmentService.getDepartmentSummaryByName(name)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/{id}/products")
-    public ResponseEntity<Object> getProductsByDepartmentId(
+    public ResponseEntity<DepartmentProductPageDTO> getProductsByDepartmentId(
             @PathVariable Integer id,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
         // First check if department exists
-        Department department = departmentService.getDepartmentById(id).orElse(null);
+        DepartmentDTO department = departmentService.getDepartmentSummaryById(id).orElse(null);
         if (department == null) {
             return ResponseEntity.notFound().build();
         }
@@ -59,12 +57,6 @@ public class DepartmentController {
         // Get products for this department
         Page<ProductDTO> products = departmentService.getProductsByDepartmentId(id, page, size);
         
-        return ResponseEntity.ok(Map.of(
-            "department", department.getName(),
-            "products", products.getContent(),
-            "totalElements", products.getTotalElements(),
-            "totalPages", products.getTotalPages(),
-            "currentPage", products.getNumber()
-        ));
+        return ResponseEntity.ok(DepartmentProductPageDTO.fromPage(department.getName(), products));
     }
 } 
\ No newline at end of file
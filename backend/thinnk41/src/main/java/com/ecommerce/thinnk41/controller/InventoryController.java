@@ -0,0 +1,56 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.dto.ReservationDTO;
+import com.ecommerce.thinnk41.dto.ReservationRequestDTO;
+import com.ecommerce.thinnk41.dto.StockLevelDTO;
+import com.ecommerce.thinnk41.inventory.InventoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/inventory")
+@CrossOrigin(origins = "*")
+public class InventoryController {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @GetMapping("/{productId}")
+    public ResponseEntity<StockLevelDTO> getStockLevel(@PathVariable Integer productId) {
+        return ResponseEntity.ok(inventoryService.getStockLevel(productId));
+    }
+
+    @PostMapping("/{productId}/reservations")
+    public ResponseEntity<ReservationDTO> reserve(@PathVariable Integer productId,
+                                                  @RequestBody(required = false) ReservationRequestDTO request) {
+        int quantity = request != null ? request.getQuantity() : 1;
+        return ResponseEntity.status(HttpStatus.CREATED).body(inventoryService.reserve(productId, quantity));
+    }
+
+    @GetMapping("/reservations/{id}")
+    public ResponseEntity<ReservationDTO> getReservation(@PathVariable UUID id) {
+        return inventoryService.getReservation(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reservations/{id}/confirm")
+    public ResponseEntity<ReservationDTO> confirm(@PathVariable UUID id) {
+        return inventoryService.confirm(id)
+                .map(reservation -> reservation.isDurable()
+                        ? ResponseEntity.ok(reservation)
+                        : ResponseEntity.accepted().body(reservation))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reservations/{id}/release")
+    public ResponseEntity<ReservationDTO> release(@PathVariable UUID id) {
+        return inventoryService.release(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
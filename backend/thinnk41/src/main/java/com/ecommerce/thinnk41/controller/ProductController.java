@@ -1,14 +1,41 @@
 package com.ecommerce.thinnk41.controller;
 
+import com.ecommerce.thinnk41.dto.CursorPageDTO;
+import com.ecommerce.thinnk41.dto.FacetedProductPageDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentBulkDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentBulkRequestDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentQuoteDTO;
+import com.ecommerce.thinnk41.dto.ProductBatchDTO;
+import com.ecommerce.thinnk41.dto.ProductBatchRequestDTO;
 import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.dto.RelatedProductDTO;
+import com.ecommerce.thinnk41.dto.SuggestionDTO;
 import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import com.ecommerce.thinnk41.export.ExportFormat;
+import com.ecommerce.thinnk41.export.ExportSlot;
+import com.ecommerce.thinnk41.export.ProductExportFilter;
+import com.ecommerce.thinnk41.export.ProductExportService;
+import com.ecommerce.thinnk41.facet.FacetQuery;
+import com.ecommerce.thinnk41.fulfillment.FulfillmentService;
 import com.ecommerce.thinnk41.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,6 +46,12 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private FulfillmentService fulfillmentService;
+
     @GetMapping
     public ResponseEntity<Page<ProductDTO>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
@@ -28,10 +61,125 @@ public class ProductController {
         return ResponseEntity.ok(productDTOs);
     }
 
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProductsAsNdjson(
+            @RequestParam(required = false) Integer departmentId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+            NativeWebRequest request) {
+        return export(new ProductExportFilter(departmentId, category, brand, updatedSince), ExportFormat.NDJSON, request);
+    }
+
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportProductsAsCsv(
+            @RequestParam(required = false) Integer departmentId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+            NativeWebRequest request) {
+        return export(new ProductExportFilter(departmentId, category, brand, updatedSince), ExportFormat.CSV, request);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchDTO> getProductsBatch(@RequestBody ProductBatchRequestDTO request) {
+        return ResponseEntity.ok(productService.getProductsBatch(request.getIds(), request.getSkus()));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<ProductBatchDTO> getProductsBatch(
+            @RequestParam(required = false) List<Integer> ids,
+            @RequestParam(required = false) List<String> skus) {
+        return ResponseEntity.ok(productService.getProductsBatch(ids, skus));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return productService.suggest(prefix, limit)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<FacetedProductPageDTO> filterProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<Integer> departmentId,
+            @RequestParam(required = false) List<Integer> distributionCenterId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "50") int facetLimit) {
+        if (page < 0) {
+            throw new InvalidRequestException("page must be >= 0");
+        }
+        FacetQuery query = new FacetQuery(category, brand, departmentId, distributionCenterId,
+                minPrice, maxPrice, page, size, facetLimit);
+        return productService.filterProducts(query)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping("/browse")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> browseProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Integer departmentId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "price") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.browseProducts(category, brand, departmentId, minPrice, maxPrice,
+                after, sort, direction, size));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Integer id) {
-        return productService.getProductById(id)
-                .map(ProductDTO::fromEntity)
+        return productService.getProductDtoById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedProductDTO>> getRelatedProducts(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "10") int limit) {
+        return productService.getRelatedProducts(id, limit)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping("/{id}/fulfillment")
+    public ResponseEntity<FulfillmentQuoteDTO> getFulfillmentQuote(
+            @PathVariable Integer id,
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "3") int k) {
+        if (!fulfillmentService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return fulfillmentService.quote(id, lat, lon, k)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/fulfillment")
+    public ResponseEntity<FulfillmentBulkDTO> getFulfillmentQuotes(@RequestBody FulfillmentBulkRequestDTO request) {
+        if (!fulfillmentService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        int k = request.getK() != null ? request.getK() : 3;
+        return ResponseEntity.ok(fulfillmentService.quoteAll(request.getPairs(), k));
+    }
+
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<ProductDTO> getProductBySku(@PathVariable String sku) {
+        return productService.getProductDtoBySku(sku)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -85,4 +233,81 @@ public class ProductController {
         Page<ProductDTO> productDTOs = products.map(ProductDTO::fromEntity);
         return ResponseEntity.ok(productDTOs);
     }
-} 
\ No newline at end of file
+
+    // Cursor mode: passing "after" (empty for the first slice) switches a listing to keyset pagination
+
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> scrollAllProducts(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollAllProducts(after, sort, direction, size));
+    }
+
+    @GetMapping(value = "/category/{category}", params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> scrollProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollProductsByCategory(category, after, sort, direction, size));
+    }
+
+    @GetMapping(value = "/brand/{brand}", params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> scrollProductsByBrand(
+            @PathVariable String brand,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollProductsByBrand(brand, after, sort, direction, size));
+    }
+
+    @GetMapping(value = "/search", params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> scrollSearchResults(
+            @RequestParam String name,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return productService.scrollSearchResults(name, after, size)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping(value = "/department/{departmentId}", params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> scrollProductsByDepartmentId(
+            @PathVariable Integer departmentId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollProductsByDepartmentId(departmentId, after, sort, direction, size));
+    }
+
+    @GetMapping(value = "/department/name/{departmentName}", params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> scrollProductsByDepartmentName(
+            @PathVariable String departmentName,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.scrollProductsByDepartmentName(departmentName, after, sort, direction, size));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(ProductExportFilter filter, ExportFormat format, NativeWebRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(format.getMediaType());
+        if (format == ExportFormat.CSV) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\"");
+        }
+        ExportSlot slot = productExportService.reserve();
+        // the body may never run: the async dispatch can be rejected, time out or lose its client first
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(slot, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                slot.close();
+            }
+        });
+        return response.body(out -> productExportService.export(filter, format, out, slot));
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.dto.SalesRollupDTO;
+import com.ecommerce.thinnk41.sales.RollupDimension;
+import com.ecommerce.thinnk41.sales.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sales")
+@CrossOrigin(origins = "*")
+public class SalesController {
+
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @GetMapping("/rollups")
+    public ResponseEntity<List<SalesRollupDTO>> getRollups(
+            @RequestParam(defaultValue = "department") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer departmentId,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(defaultValue = "100") int limit) {
+        List<SalesRollupDTO> rollups = salesRollupService.getRollups(RollupDimension.fromName(groupBy),
+                from != null ? from : EARLIEST, to != null ? to : LATEST, departmentId, category, brand, limit);
+        return ResponseEntity.ok(rollups);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A product that refers to its department by id, for the compact page layout.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactProductDTO {
+    private Integer id;
+    private BigDecimal cost;
+    private String category;
+    private String name;
+    private String brand;
+    private BigDecimal retailPrice;
+    private Integer departmentId;
+    private String sku;
+    private Integer distributionCenterId;
+    
+    public static CompactProductDTO fromProductDTO(ProductDTO product) {
+        return new CompactProductDTO(product.getId(), product.getCost(), product.getCategory(), product.getName(),
+                product.getBrand(), product.getRetailPrice(),
+                product.getDepartment() != null ? product.getDepartment().getId() : null,
+                product.getSku(), product.getDistributionCenterId());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of products with each department emitted once in a side table and referenced by id,
+ * plus only the paging fields a client needs. Offset pages fill in the page number and totals,
+ * cursor slices fill in {@code hasNext} and {@code nextCursor}.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactProductPageDTO {
+    private List<CompactProductDTO> content;
+    private List<DepartmentDTO> departments;
+    private Integer page;
+    private int size;
+    private Long totalElements;
+    private Integer totalPages;
+    private Boolean hasNext;
+    private String nextCursor;
+    
+    public static CompactProductPageDTO fromPage(Page<ProductDTO> page) {
+        CompactProductPageDTO dto = fromContent(page.getContent());
+        dto.setPage(page.getNumber());
+        dto.setSize(page.getSize());
+        dto.setTotalElements(page.getTotalElements());
+        dto.setTotalPages(page.getTotalPages());
+        return dto;
+    }
+    
+    public static CompactProductPageDTO fromCursorPage(CursorPageDTO<ProductDTO> page) {
+        CompactProductPageDTO dto = fromContent(page.getContent());
+        dto.setSize(page.getSize());
+        dto.setHasNext(page.isHasNext());
+        dto.setNextCursor(page.getNextCursor());
+        return dto;
+    }
+    
+    public static CompactProductPageDTO fromDepartmentPage(DepartmentProductPageDTO page) {
+        CompactProductPageDTO dto = fromContent(page.getProducts());
+        dto.setPage(page.getCurrentPage());
+        dto.setSize(page.getSize());
+        dto.setTotalElements(page.getTotalElements());
+        dto.setTotalPages(page.getTotalPages());
+        return dto;
+    }
+    
+    private static CompactProductPageDTO fromContent(List<ProductDTO> products) {
+        List<CompactProductDTO> content = new ArrayList<>(products.size());
+        Map<Integer, DepartmentDTO> departments = new LinkedHashMap<>();
+        for (ProductDTO product : products) {
+            content.add(CompactProductDTO.fromProductDTO(product));
+            if (product.getDepartment() != null) {
+                departments.putIfAbsent(product.getDepartment().getId(), product.getDepartment());
+            }
+        }
+        CompactProductPageDTO dto = new CompactProductPageDTO();
+        dto.setContent(content);
+        dto.setDepartments(new ArrayList<>(departments.values()));
+        return dto;
+    }
+}
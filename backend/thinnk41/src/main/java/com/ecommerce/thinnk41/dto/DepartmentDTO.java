@@ -1,19 +1,18 @@
 package com.ecommerce.thinnk41.dto;
 
 import com.ecommerce.thinnk41.entity.Department;
-import lombok.Data;
+import lombok.Value;
 
-@Data
+/**
+ * A department as served from the product cache; immutable, since cached instances are shared by every reader.
+ */
+@Value
 public class DepartmentDTO {
-    private Integer id;
-    private String name;
-    private String description;
+    Integer id;
+    String name;
+    String description;
     
     public static DepartmentDTO fromEntity(Department department) {
-        DepartmentDTO dto = new DepartmentDTO();
-        dto.setId(department.getId());
-        dto.setName(department.getName());
-        dto.setDescription(department.getDescription());
-        return dto;
+        return new DepartmentDTO(department.getId(), department.getName(), department.getDescription());
     }
-} 
\ No newline at end of file
+} 
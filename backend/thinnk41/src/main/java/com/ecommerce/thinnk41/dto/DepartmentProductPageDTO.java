@@ -0,0 +1,31 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * A page of one department's products, named by the department. The requested page size is
+ * only carried over to the compact layout; the JSON shape stays what the frontend reads.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepartmentProductPageDTO {
+    private String department;
+    private List<ProductDTO> products;
+    private long totalElements;
+    private int totalPages;
+    private int currentPage;
+    @JsonIgnore
+    private int size;
+    
+    public static DepartmentProductPageDTO fromPage(String department, Page<ProductDTO> page) {
+        return new DepartmentProductPageDTO(department, page.getContent(), page.getTotalElements(),
+                page.getTotalPages(), page.getNumber(), page.getSize());
+    }
+}
@@ -1,9 +1,13 @@
 package com.ecommerce.thinnk41.dto;
 
 import com.ecommerce.thinnk41.entity.Department;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class DepartmentWithProductCountDTO {
     private Integer id;
     private String name;
@@ -18,4 +22,4 @@ public class DepartmentWithProductCountDTO {
         dto.setProductCount(productCount);
         return dto;
     }
-} 
\ No newline at end of file
+} 
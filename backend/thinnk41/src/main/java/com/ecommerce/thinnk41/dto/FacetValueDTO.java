@@ -0,0 +1,14 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetValueDTO {
+    private String value;
+    private String label;
+    private long count;
+}
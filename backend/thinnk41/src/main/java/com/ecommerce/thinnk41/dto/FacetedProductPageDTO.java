@@ -0,0 +1,28 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of filtered products plus the facet counts for every dimension.
+ * The counts for a dimension apply all the other filters but not its own,
+ * so they show what selecting another value would return.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductPageDTO {
+    private List<ProductDTO> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private Map<String, List<FacetValueDTO>> facets;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
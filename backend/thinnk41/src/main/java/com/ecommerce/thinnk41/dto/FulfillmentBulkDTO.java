@@ -0,0 +1,19 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Quotes for a bulk fulfillment request, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FulfillmentBulkDTO {
+    private List<FulfillmentQuoteDTO> results;
+    private int found;
+    private int missing;
+}
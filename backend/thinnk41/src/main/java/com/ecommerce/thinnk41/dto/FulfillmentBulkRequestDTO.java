@@ -0,0 +1,15 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FulfillmentBulkRequestDTO {
+    private List<FulfillmentPairDTO> pairs;
+    private Integer k;
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A distribution center that can ship a product, with its great-circle distance from the
+ * destination. {@code units} is the unsold stock there, absent for products without inventory records.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FulfillmentCenterDTO {
+    private Integer centerId;
+    private String name;
+    private double latitude;
+    private double longitude;
+    private double distanceKm;
+    private Integer units;
+}
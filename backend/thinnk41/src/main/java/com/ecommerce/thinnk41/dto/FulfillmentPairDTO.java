@@ -0,0 +1,19 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One destination and product to quote: either a userId (their address coordinates are used)
+ * or an explicit latitude and longitude.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FulfillmentPairDTO {
+    private Integer userId;
+    private Integer productId;
+    private Double latitude;
+    private Double longitude;
+}
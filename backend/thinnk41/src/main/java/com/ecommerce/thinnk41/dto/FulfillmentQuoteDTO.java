@@ -0,0 +1,25 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The nearest centers stocking a product for one destination, nearest first. {@code found} is false
+ * when the product or the user is unknown.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FulfillmentQuoteDTO {
+    private Integer productId;
+    private Integer userId;
+    private Double latitude;
+    private Double longitude;
+    private boolean found;
+    private List<FulfillmentCenterDTO> centers;
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.ecommerce.thinnk41.entity.OrderItem;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OrderItemDTO {
+    private Integer id;
+    private Integer orderId;
+    private Integer userId;
+    private Integer productId;
+    private Integer inventoryItemId;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime shippedAt;
+    private LocalDateTime deliveredAt;
+    private LocalDateTime returnedAt;
+    
+    public static OrderItemDTO fromEntity(OrderItem item) {
+        OrderItemDTO dto = new OrderItemDTO();
+        dto.setId(item.getId());
+        dto.setOrderId(item.getOrderId());
+        dto.setUserId(item.getUserId());
+        dto.setProductId(item.getProductId());
+        dto.setInventoryItemId(item.getInventoryItemId());
+        dto.setStatus(item.getStatus());
+        dto.setCreatedAt(item.getCreatedAt());
+        dto.setShippedAt(item.getShippedAt());
+        dto.setDeliveredAt(item.getDeliveredAt());
+        dto.setReturnedAt(item.getReturnedAt());
+        return dto;
+    }
+    
+    public OrderItem toEntity() {
+        return new OrderItem(id, orderId, userId, productId, inventoryItemId, status,
+                createdAt, shippedAt, deliveredAt, returnedAt);
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Batch lookup results in request order: requested ids first, then requested SKUs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchDTO {
+    private List<ProductBatchItemDTO> results;
+    private int found;
+    private int missing;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one requested id or SKU; {@code product} is absent when nothing matched.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductBatchItemDTO {
+    private Integer id;
+    private String sku;
+    private boolean found;
+    private ProductDTO product;
+}
@@ -1,38 +1,29 @@
 package com.ecommerce.thinnk41.dto;
 
-import com.ecommerce.thinnk41.entity.Department;
 import com.ecommerce.thinnk41.entity.Product;
-import lombok.Data;
+import lombok.Value;
 
 import java.math.BigDecimal;
 
-@Data
+/**
+ * A product as served from the product cache; immutable, since cached instances are shared by every reader.
+ */
+@Value
 public class ProductDTO {
-    private Integer id;
-    private BigDecimal cost;
-    private String category;
-    private String name;
-    private String brand;
-    private BigDecimal retailPrice;
-    private DepartmentDTO department;
-    private String sku;
-    private Integer distributionCenterId;
+    Integer id;
+    BigDecimal cost;
+    String category;
+    String name;
+    String brand;
+    BigDecimal retailPrice;
+    DepartmentDTO department;
+    String sku;
+    Integer distributionCenterId;
     
     public static ProductDTO fromEntity(Product product) {
-        ProductDTO dto = new ProductDTO();
-        dto.setId(product.getId());
-        dto.setCost(product.getCost());
-        dto.setCategory(product.getCategory());
-        dto.setName(product.getName());
-        dto.setBrand(product.getBrand());
-        dto.setRetailPrice(product.getRetailPrice());
-        dto.setSku(product.getSku());
-        dto.setDistributionCenterId(product.getDistributionCenterId());
-        
-        if (product.getDepartment() != null) {
-            dto.setDepartment(DepartmentDTO.fromEntity(product.getDepartment()));
-        }
-        
-        return dto;
+        return new ProductDTO(product.getId(), product.getCost(), product.getCategory(), product.getName(),
+                product.getBrand(), product.getRetailPrice(),
+                product.getDepartment() != null ? DepartmentDTO.fromEntity(product.getDepartment()) : null,
+                product.getSku(), product.getDistributionCenterId());
     }
-} 
\ No newline at end of file
+} 
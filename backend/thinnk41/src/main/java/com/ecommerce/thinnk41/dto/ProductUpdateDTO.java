@@ -0,0 +1,22 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of a bulk product update: the product by id or SKU and the fields to change.
+ * Fields left out keep their current value; a department is given by name.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductUpdateDTO {
+    private Integer id;
+    private String sku;
+    private BigDecimal retailPrice;
+    private BigDecimal cost;
+    private String department;
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product update, with the first problems found (by input line).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductUpdateReportDTO {
+    private long received;
+    private long updated;
+    private long notFound;
+    private long rejected;
+    private int departmentsCreated;
+    private int chunks;
+    private long elapsedMillis;
+    private double updatesPerSecond;
+    private List<String> problems;
+}
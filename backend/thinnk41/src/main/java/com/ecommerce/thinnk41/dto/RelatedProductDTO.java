@@ -0,0 +1,17 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product often bought together with another. score is the share of the other product's
+ * orders that also contain this one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedProductDTO {
+    private int productId;
+    private float score;
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.ecommerce.thinnk41.inventory.Reservation;
+import com.ecommerce.thinnk41.inventory.ReservationStatus;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A reservation as returned by the inventory API. durable is true once a confirmed
+ * sale has been written to inventory_items, which is when its status becomes CONFIRMED.
+ */
+@Data
+public class ReservationDTO {
+    private UUID id;
+    private Integer productId;
+    private int quantity;
+    private ReservationStatus status;
+    private Instant expiresAt;
+    private boolean durable;
+    
+    public static ReservationDTO fromReservation(Reservation reservation) {
+        ReservationDTO dto = new ReservationDTO();
+        dto.setId(reservation.getId());
+        dto.setProductId(reservation.getProductId());
+        dto.setQuantity(reservation.getQuantity());
+        dto.setStatus(reservation.getStatus());
+        dto.setExpiresAt(reservation.getExpiresAt());
+        dto.setDurable(reservation.getStatus() == ReservationStatus.CONFIRMED);
+        return dto;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales totals for one value of the grouping dimension; margin is revenue minus cost
+ * and the return rate is returned units over units sold.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupDTO {
+    private String key;
+    private String label;
+    private long units;
+    private long returnedUnits;
+    private BigDecimal revenue;
+    private BigDecimal cost;
+    private BigDecimal margin;
+    private double returnRate;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.thinnk41.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of one product: units that can be reserved, units held by open reservations
+ * and confirmed units still waiting to be written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelDTO {
+    private Integer productId;
+    private long available;
+    private long held;
+    private long pendingWrites;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.thinnk41.dto;
+
+import com.ecommerce.thinnk41.search.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One typeahead completion. productId is set for product names only.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text;
+    private SuggestionType type;
+    private long weight;
+    private Integer productId;
+}
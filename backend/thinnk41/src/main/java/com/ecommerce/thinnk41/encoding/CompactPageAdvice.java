@@ -0,0 +1,71 @@
+package com.ecommerce.thinnk41.encoding;
+
+import com.ecommerce.thinnk41.dto.CompactProductPageDTO;
+import com.ecommerce.thinnk41.dto.CursorPageDTO;
+import com.ecommerce.thinnk41.dto.DepartmentProductPageDTO;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+
+/**
+ * Rewrites product pages, department product pages included, into the compact layout
+ * ({@link CompactProductPageDTO}) when the client negotiated a binary format. Those consumers
+ * are our own services, so they get the side-table department layout; JSON responses keep the
+ * shape the frontend reads.
+ */
+@ControllerAdvice
+public class CompactPageAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private static final List<MediaType> COMPACT_TYPES = List.of(MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (COMPACT_TYPES.stream().noneMatch(type -> type.isCompatibleWith(selectedContentType))) {
+            return body;
+        }
+        if (body instanceof DepartmentProductPageDTO page) {
+            return CompactProductPageDTO.fromDepartmentPage(page);
+        }
+        if (!holdsProducts(returnType)) {
+            return body;
+        }
+        if (body instanceof Page<?> page) {
+            return CompactProductPageDTO.fromPage((Page<ProductDTO>) page);
+        }
+        if (body instanceof CursorPageDTO<?> page) {
+            return CompactProductPageDTO.fromCursorPage((CursorPageDTO<ProductDTO>) page);
+        }
+        return body;
+    }
+
+    /**
+     * Whether the handler declares a page of products, so empty pages are converted too
+     */
+    private static boolean holdsProducts(MethodParameter returnType) {
+        ResolvableType type = ResolvableType.forMethodParameter(returnType);
+        if (ResponseEntity.class.equals(type.resolve())) {
+            type = type.getGeneric(0);
+        }
+        return ProductDTO.class.equals(type.getGeneric(0).resolve());
+    }
+}
@@ -1,17 +1,24 @@
 package com.ecommerce.thinnk41.entity;
 
+import com.ecommerce.thinnk41.event.CatalogEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.List;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "departments")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@BatchSize(size = 50)
 public class Department {
     
     @Id
@@ -24,7 +31,11 @@ public class Department {
     @Column(name = "description")
     private String description;
     
-    // One-to-Many relationship with products
-    @OneToMany(mappedBy = "department", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // One-to-Many relationship with products, only loaded (in batches) when a caller walks it
+    @OneToMany(mappedBy = "department", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Product> products;
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.ecommerce.thinnk41.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "distribution_centers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistributionCenter {
+    
+    @Id
+    private Integer id;
+    
+    @Column(name = "name")
+    private String name;
+    
+    @Column(name = "latitude", precision = 10, scale = 6)
+    private BigDecimal latitude;
+    
+    @Column(name = "longitude", precision = 10, scale = 6)
+    private BigDecimal longitude;
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.thinnk41.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// "Order" is a reserved word in JPQL, so the entity is queried as CustomerOrder
+@Entity(name = "CustomerOrder")
+@Table(name = "orders")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Order {
+    
+    @Id
+    @Column(name = "order_id")
+    private Integer id;
+    
+    @Column(name = "user_id")
+    private Integer userId;
+    
+    @Column(name = "status")
+    private String status;
+    
+    @Column(name = "gender")
+    private String gender;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "returned_at")
+    private LocalDateTime returnedAt;
+    
+    @Column(name = "shipped_at")
+    private LocalDateTime shippedAt;
+    
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+    
+    @Column(name = "num_of_item")
+    private Integer numOfItem;
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.thinnk41.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_items")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItem {
+    
+    public static final String STATUS_RETURNED = "Returned";
+    public static final String STATUS_CANCELLED = "Cancelled";
+    
+    @Id
+    private Integer id;
+    
+    @Column(name = "order_id")
+    private Integer orderId;
+    
+    @Column(name = "user_id")
+    private Integer userId;
+    
+    @Column(name = "product_id")
+    private Integer productId;
+    
+    @Column(name = "inventory_item_id")
+    private Integer inventoryItemId;
+    
+    @Column(name = "status")
+    private String status;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "shipped_at")
+    private LocalDateTime shippedAt;
+    
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+    
+    @Column(name = "returned_at")
+    private LocalDateTime returnedAt;
+    
+    public boolean isReturned() {
+        return returnedAt != null || STATUS_RETURNED.equalsIgnoreCase(status);
+    }
+}
@@ -1,13 +1,17 @@
 package com.ecommerce.thinnk41.entity;
 
+import com.ecommerce.thinnk41.event.CatalogEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "products")
 @Data
 @NoArgsConstructor
@@ -42,4 +46,8 @@ public class Product {
     
     @Column(name = "distribution_center_id")
     private Integer distributionCenterId;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
 } 
\ No newline at end of file
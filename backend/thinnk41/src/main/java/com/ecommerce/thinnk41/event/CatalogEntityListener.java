@@ -0,0 +1,44 @@
+package com.ecommerce.thinnk41.event;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns product and department writes into application events,
+ * so caches and in-memory indexes can follow the catalog without polling the database.
+ */
+@Component
+public class CatalogEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        publish(entity, ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        publish(entity, ChangeType.UPDATED);
+    }
+
+    @PostRemove
+    public void onDeleted(Object entity) {
+        publish(entity, ChangeType.DELETED);
+    }
+
+    private void publish(Object entity, ChangeType type) {
+        if (entity instanceof Product product) {
+            eventPublisher.publishEvent(new ProductChangedEvent(product, type));
+        } else if (entity instanceof Department department) {
+            eventPublisher.publishEvent(new DepartmentChangedEvent(department, type));
+        }
+    }
+}
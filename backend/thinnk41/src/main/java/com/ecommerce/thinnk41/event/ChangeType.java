@@ -0,0 +1,7 @@
+package com.ecommerce.thinnk41.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
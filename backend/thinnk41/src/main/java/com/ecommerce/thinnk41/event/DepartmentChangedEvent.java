@@ -0,0 +1,13 @@
+package com.ecommerce.thinnk41.event;
+
+import com.ecommerce.thinnk41.entity.Department;
+import lombok.Value;
+
+/**
+ * Published after a department row is inserted, updated or deleted.
+ */
+@Value
+public class DepartmentChangedEvent {
+    Department department;
+    ChangeType type;
+}
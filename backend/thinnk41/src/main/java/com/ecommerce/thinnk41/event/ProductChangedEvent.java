@@ -0,0 +1,13 @@
+package com.ecommerce.thinnk41.event;
+
+import com.ecommerce.thinnk41.entity.Product;
+import lombok.Value;
+
+/**
+ * Published after a product row is inserted, updated or deleted.
+ */
+@Value
+public class ProductChangedEvent {
+    Product product;
+    ChangeType type;
+}
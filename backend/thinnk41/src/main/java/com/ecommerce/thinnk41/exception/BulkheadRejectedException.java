@@ -0,0 +1,20 @@
+package com.ecommerce.thinnk41.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call could not get a database bulkhead permit in time.
+ */
+public class BulkheadRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public BulkheadRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
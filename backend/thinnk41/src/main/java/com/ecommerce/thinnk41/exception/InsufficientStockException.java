@@ -0,0 +1,18 @@
+package com.ecommerce.thinnk41.exception;
+
+/**
+ * Thrown when a reservation asks for more units than are available.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final long available;
+
+    public InsufficientStockException(Integer productId, int requested, long available) {
+        super("Product " + productId + " has " + available + " units available, " + requested + " requested");
+        this.available = available;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.thinnk41.exception;
+
+/**
+ * Thrown when a request parameter or body fails validation; answered with 400 and the message.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
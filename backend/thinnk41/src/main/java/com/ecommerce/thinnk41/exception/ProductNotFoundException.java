@@ -0,0 +1,11 @@
+package com.ecommerce.thinnk41.exception;
+
+/**
+ * Thrown when stock is asked for a product that is not in the catalog.
+ */
+public class ProductNotFoundException extends RuntimeException {
+
+    public ProductNotFoundException(Integer productId) {
+        super("Product " + productId + " not found");
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.thinnk41.exception;
+
+/**
+ * Thrown when a reservation is confirmed or released after it already left the held state.
+ */
+public class ReservationStateException extends RuntimeException {
+
+    public ReservationStateException(String message) {
+        super(message);
+    }
+}
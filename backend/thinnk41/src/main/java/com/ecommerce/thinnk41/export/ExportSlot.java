@@ -0,0 +1,26 @@
+package com.ecommerce.thinnk41.export;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One of the export slots claimed by {@link ProductExportService#reserve()}. Closing it gives the
+ * slot back; only the first close does, so both the export and whatever ends the request early
+ * may close it.
+ */
+public final class ExportSlot implements AutoCloseable {
+
+    private final Semaphore slots;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ExportSlot(Semaphore slots) {
+        this.slots = slots;
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            slots.release();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.thinnk41.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for a catalog export; null fields are not applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductExportFilter {
+    private Integer departmentId;
+    private String category;
+    private String brand;
+    private LocalDateTime updatedSince;
+}
@@ -0,0 +1,116 @@
+package com.ecommerce.thinnk41.export;
+
+import com.ecommerce.thinnk41.concurrency.DatabaseBulkhead;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.exception.BulkheadRejectedException;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Streams the catalog straight from a forward-only database cursor to the response.
+ *
+ * An export keeps its connection for as long as the client takes to read it, so it holds a
+ * {@link DatabaseBulkhead} permit throughout, and only a few exports may run at once so they
+ * cannot take most of the permits from short requests.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${catalog.export.max-concurrent:2}")
+    private int maxConcurrentExports;
+
+    @Value("${catalog.export.retry-after:30s}")
+    private Duration retryAfter;
+
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxConcurrentExports);
+    }
+
+    /**
+     * Claim an export slot, failing fast when every slot is taken. Claim it on the request thread,
+     * before the response starts streaming, so a rejection can still become a 503; the caller must
+     * close the slot if the request ends without the {@link #export} that would close it running.
+     */
+    public ExportSlot reserve() {
+        if (!slots.tryAcquire()) {
+            throw new BulkheadRejectedException("Too many exports in progress, retry later", retryAfter);
+        }
+        return new ExportSlot(slots);
+    }
+
+    /**
+     * Write every product matching the filter to the output stream in the given format, within
+     * a slot claimed by {@link #reserve()}, which is closed when the export finishes
+     */
+    public long export(ProductExportFilter filter, ExportFormat format, OutputStream out, ExportSlot slot) {
+        try {
+            return databaseBulkhead.call(() -> stream(filter, format, out));
+        } finally {
+            slot.close();
+        }
+    }
+
+    private long stream(ProductExportFilter filter, ExportFormat format, OutputStream out) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long start = System.nanoTime();
+        Long rows = transaction.execute(status -> {
+            try (Stream<Product> products = productRepository.streamForExport(
+                    filter.getDepartmentId(), filter.getCategory(), filter.getBrand(), filter.getUpdatedSince());
+                 ProductExportWriter writer = ProductExportWriter.create(format, out, objectMapper)) {
+                long count = 0;
+                Iterator<Product> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    Product product = iterator.next();
+                    writer.write(product);
+                    // drop the row from the persistence context so it can be collected
+                    entityManager.detach(product);
+                    count++;
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} products as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+}
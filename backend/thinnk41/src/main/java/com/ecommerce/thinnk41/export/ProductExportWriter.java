@@ -0,0 +1,106 @@
+package com.ecommerce.thinnk41.export;
+
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes products one at a time to an output stream. Nothing is retained between rows,
+ * so memory use does not depend on the size of the export.
+ */
+public abstract class ProductExportWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static ProductExportWriter create(ExportFormat format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(writer, objectMapper);
+            case CSV -> new CsvWriter(writer);
+        };
+    }
+
+    public abstract void write(Product product) throws IOException;
+
+    private static final class NdjsonWriter extends ProductExportWriter {
+        private final Writer writer;
+        private final SequenceWriter sequenceWriter;
+        private boolean empty = true;
+
+        NdjsonWriter(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.writer = writer;
+            this.sequenceWriter = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+        }
+
+        @Override
+        public void write(Product product) throws IOException {
+            sequenceWriter.write(ProductDTO.fromEntity(product));
+            empty = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the separator only goes between records, so terminate the last line ourselves
+            sequenceWriter.flush();
+            if (!empty) {
+                writer.write('\n');
+            }
+            sequenceWriter.close();
+        }
+    }
+
+    private static final class CsvWriter extends ProductExportWriter {
+        private static final String HEADER = "id,cost,category,name,brand,retail_price,department_id,department,sku,distribution_center_id";
+
+        private final Writer writer;
+
+        CsvWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(Product product) throws IOException {
+            field(product.getId());
+            field(product.getCost());
+            field(product.getCategory());
+            field(product.getName());
+            field(product.getBrand());
+            field(product.getRetailPrice());
+            field(product.getDepartment() != null ? product.getDepartment().getId() : null);
+            field(product.getDepartment() != null ? product.getDepartment().getName() : null);
+            field(product.getSku());
+            writer.write(product.getDistributionCenterId() != null ? product.getDistributionCenterId().toString() : "");
+            writer.write('\n');
+        }
+
+        private void field(Object value) throws IOException {
+            if (value != null) {
+                String text = value.toString();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(text.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(text);
+                }
+            }
+            writer.write(',');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
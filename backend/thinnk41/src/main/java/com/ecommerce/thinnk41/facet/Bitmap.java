@@ -0,0 +1,101 @@
+package com.ecommerce.thinnk41.facet;
+
+import java.util.Arrays;
+
+/**
+ * Growable bitmap over row ordinals, with the in-place AND/OR and intersection-count
+ * operations the facet index needs. Bits past the end of the word array are zero.
+ */
+final class Bitmap {
+
+    private long[] words;
+
+    Bitmap(int capacityBits) {
+        this.words = new long[Math.max(1, (capacityBits + 63) >>> 6)];
+    }
+
+    private Bitmap(long[] words) {
+        this.words = words;
+    }
+
+    void set(int bit) {
+        int word = bit >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << bit;
+    }
+
+    void clear(int bit) {
+        int word = bit >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << bit);
+        }
+    }
+
+    boolean get(int bit) {
+        int word = bit >>> 6;
+        return word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    Bitmap copy() {
+        return new Bitmap(words.clone());
+    }
+
+    void and(Bitmap other) {
+        int shared = Math.min(words.length, other.words.length);
+        for (int i = 0; i < shared; i++) {
+            words[i] &= other.words[i];
+        }
+        Arrays.fill(words, shared, words.length, 0L);
+    }
+
+    void or(Bitmap other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Size of the intersection with another bitmap, without materializing it
+     */
+    int andCardinality(Bitmap other) {
+        int shared = Math.min(words.length, other.words.length);
+        int count = 0;
+        for (int i = 0; i < shared; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * The first set bit at or after {@code from}, or -1
+     */
+    int nextSetBit(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.ecommerce.thinnk41.facet;
+
+import com.ecommerce.thinnk41.dto.FacetValueDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.event.ChangeType;
+import com.ecommerce.thinnk41.event.DepartmentChangedEvent;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.ecommerce.thinnk41.repository.ProductFacetView;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.snapshot.CatalogSnapshotService;
+import com.ecommerce.thinnk41.versioning.CatalogFingerprint;
+import com.ecommerce.thinnk41.versioning.CatalogVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar in-memory index of the filterable product attributes.
+ *
+ * Each product occupies one row ordinal. Category and brand are dictionary-encoded into int
+ * columns, department and distribution center ids are stored directly, and retail prices are kept
+ * as a long column of cents. Every facet value has a bitmap of the rows holding it, so a filter is a
+ * handful of bitmap ORs and ANDs and a facet count is an intersection cardinality, not a GROUP BY.
+ * The index is built once the application is ready and follows this instance's product writes
+ * incrementally. Writes it never hears about (other instances, the ingestion command, plain SQL) are
+ * picked up by reloading it from the database whenever a refresh finds the {@link CatalogFingerprint}
+ * moved, and at least every max-age.
+ */
+@Component
+public class CatalogFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogFacetIndex.class);
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String DEPARTMENT = "department";
+    public static final String DISTRIBUTION_CENTER = "distributionCenter";
+
+    private static final String[] FACETS = {CATEGORY, BRAND, DEPARTMENT, DISTRIBUTION_CENTER};
+    private static final int CATEGORY_COLUMN = 0;
+    private static final int BRAND_COLUMN = 1;
+    private static final int DEPARTMENT_COLUMN = 2;
+    private static final int DISTRIBUTION_CENTER_COLUMN = 3;
+
+    private static final int NONE = -1;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Value("${catalog.facets.max-age:15m}")
+    private Duration maxAge;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Dictionary categories = new Dictionary();
+    private Dictionary brands = new Dictionary();
+    private final Map<Integer, String> departmentNames = new HashMap<>();
+
+    private int rowCount;
+    private int[] productIds = new int[0];
+    private final int[][] columns = new int[FACETS.length][0];
+    private long[] priceCents = new long[0];
+    private final Map<Integer, Integer> rowByProductId = new HashMap<>();
+
+    private Bitmap live = new Bitmap(0);
+    private final List<Map<Integer, Bitmap>> postings = new ArrayList<>();
+
+    private volatile boolean ready;
+
+    /** The catalog as of the last build, read before its rows */
+    private volatile CatalogFingerprint fingerprint;
+
+    private volatile long builtAt;
+
+    public CatalogFacetIndex() {
+        for (int i = 0; i < FACETS.length; i++) {
+            postings.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Build the index from the catalog snapshot, or the database, once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!catalogSnapshotService.isLoaded()) {
+            reload();
+            return;
+        }
+        CatalogFingerprint current = catalogVersions.fingerprint();
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            reset();
+            catalogSnapshotService.forEachProduct(product -> upsertRow(product.getId(), product.getCategory(),
+                    product.getBrand(), product.getRetailPrice(),
+                    product.getDepartment() != null ? product.getDepartment().getId() : null,
+                    product.getDepartment() != null ? product.getDepartment().getName() : null,
+                    product.getDistributionCenterId()));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        built(current, start);
+    }
+
+    /**
+     * Reload the index when the catalog changed in ways no event reported, or it is too old
+     */
+    @Scheduled(fixedDelayString = "${catalog.facets.refresh-interval:30s}")
+    public void refresh() {
+        if (fingerprint == null) {
+            // the startup build has not run yet
+            return;
+        }
+        if (System.currentTimeMillis() - builtAt > maxAge.toMillis() || !catalogVersions.fingerprint().equals(fingerprint)) {
+            reload();
+        }
+    }
+
+    /**
+     * Rebuild the index from the database. Queries keep using the old rows until the new ones are read.
+     */
+    public void reload() {
+        // read before the rows: a write committed after this moves the fingerprint again and gets its own reload
+        CatalogFingerprint current = catalogVersions.fingerprint();
+        long start = System.nanoTime();
+        List<ProductFacetView> views = productRepository.findAllFacetViews();
+        lock.writeLock().lock();
+        try {
+            reset();
+            for (ProductFacetView view : views) {
+                upsertRow(view.getId(), view.getCategory(), view.getBrand(), view.getRetailPrice(),
+                        view.getDepartmentId(), view.getDepartmentName(), view.getDistributionCenterId());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        built(current, start);
+    }
+
+    private void built(CatalogFingerprint current, long start) {
+        fingerprint = current;
+        builtAt = System.currentTimeMillis();
+        log.info("Built catalog facet index: {} products, {} categories, {} brands in {} ms",
+                rowCount, categories.size(), brands.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.getProduct();
+        if (event.getType() == ChangeType.DELETED) {
+            remove(product.getId());
+            return;
+        }
+        Department department = product.getDepartment();
+        upsert(product.getId(), product.getCategory(), product.getBrand(), product.getRetailPrice(),
+                department != null ? department.getId() : null, department != null ? department.getName() : null,
+                product.getDistributionCenterId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == ChangeType.DELETED) {
+                departmentNames.remove(event.getDepartment().getId());
+            } else {
+                departmentNames.put(event.getDepartment().getId(), event.getDepartment().getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a product or replace its indexed attributes
+     */
+    public void upsert(Integer id, String category, String brand, BigDecimal retailPrice,
+                       Integer departmentId, String departmentName, Integer distributionCenterId) {
+        lock.writeLock().lock();
+        try {
+            upsertRow(id, category, brand, retailPrice, departmentId, departmentName, distributionCenterId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index
+     */
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByProductId.remove(id);
+            if (row != null) {
+                clearRow(row);
+                live.clear(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Filter the catalog and count every facet value against the other active filters
+     */
+    public FacetResult query(FacetQuery query) {
+        lock.readLock().lock();
+        try {
+            Bitmap[] selections = {
+                    select(CATEGORY_COLUMN, categories.codes(query.getCategories())),
+                    select(BRAND_COLUMN, brands.codes(query.getBrands())),
+                    select(DEPARTMENT_COLUMN, query.getDepartmentIds()),
+                    select(DISTRIBUTION_CENTER_COLUMN, query.getDistributionCenterIds())
+            };
+            Bitmap priceSelection = selectPriceRange(query.getMinPrice(), query.getMaxPrice());
+
+            Bitmap matches = restrict(selections, priceSelection, NONE);
+            int total = matches.cardinality();
+
+            List<Integer> pageIds = new ArrayList<>(Math.min(query.getSize(), total));
+            long skip = (long) query.getPage() * query.getSize();
+            long minCents = Long.MAX_VALUE;
+            long maxCents = Long.MIN_VALUE;
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else if (pageIds.size() < query.getSize()) {
+                    pageIds.add(productIds[row]);
+                }
+                if (priceCents[row] != NO_PRICE) {
+                    minCents = Math.min(minCents, priceCents[row]);
+                    maxCents = Math.max(maxCents, priceCents[row]);
+                }
+            }
+
+            Map<String, List<FacetValueDTO>> facets = new LinkedHashMap<>();
+            for (int column = 0; column < FACETS.length; column++) {
+                facets.put(FACETS[column], countFacet(column, restrict(selections, priceSelection, column), query.getFacetLimit()));
+            }
+            return new FacetResult(pageIds, total, facets,
+                    minCents == Long.MAX_VALUE ? null : BigDecimal.valueOf(minCents, 2),
+                    maxCents == Long.MIN_VALUE ? null : BigDecimal.valueOf(maxCents, 2));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Bitmap restrict(Bitmap[] selections, Bitmap priceSelection, int skipColumn) {
+        Bitmap result = live.copy();
+        for (int column = 0; column < selections.length; column++) {
+            if (column != skipColumn && selections[column] != null) {
+                result.and(selections[column]);
+            }
+        }
+        if (priceSelection != null) {
+            result.and(priceSelection);
+        }
+        return result;
+    }
+
+    private Bitmap select(int column, List<Integer> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return null;
+        }
+        Bitmap selection = new Bitmap(rowCount);
+        for (Integer code : codes) {
+            Bitmap rows = code == null ? null : postings.get(column).get(code);
+            if (rows != null) {
+                selection.or(rows);
+            }
+        }
+        return selection;
+    }
+
+    private Bitmap selectPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        long min = minPrice == null ? Long.MIN_VALUE + 1 : toCents(minPrice);
+        long max = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice);
+        Bitmap selection = new Bitmap(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            long price = priceCents[row];
+            if (price != NO_PRICE && price >= min && price <= max) {
+                selection.set(row);
+            }
+        }
+        return selection;
+    }
+
+    private List<FacetValueDTO> countFacet(int column, Bitmap candidates, int limit) {
+        List<FacetValueDTO> values = new ArrayList<>();
+        for (Map.Entry<Integer, Bitmap> entry : postings.get(column).entrySet()) {
+            int count = entry.getValue().andCardinality(candidates);
+            if (count > 0) {
+                values.add(new FacetValueDTO(value(column, entry.getKey()), label(column, entry.getKey()), count));
+            }
+        }
+        values.sort(Comparator.comparingLong(FacetValueDTO::getCount).reversed().thenComparing(FacetValueDTO::getValue));
+        return limit > 0 && values.size() > limit ? new ArrayList<>(values.subList(0, limit)) : values;
+    }
+
+    private String value(int column, int code) {
+        return switch (column) {
+            case CATEGORY_COLUMN -> categories.value(code);
+            case BRAND_COLUMN -> brands.value(code);
+            default -> Integer.toString(code);
+        };
+    }
+
+    private String label(int column, int code) {
+        return switch (column) {
+            case DEPARTMENT_COLUMN -> departmentNames.getOrDefault(code, Integer.toString(code));
+            default -> value(column, code);
+        };
+    }
+
+    private void upsertRow(Integer id, String category, String brand, BigDecimal retailPrice,
+                           Integer departmentId, String departmentName, Integer distributionCenterId) {
+        Integer existing = rowByProductId.get(id);
+        int row;
+        if (existing != null) {
+            row = existing;
+            clearRow(row);
+        } else {
+            row = rowCount++;
+            ensureCapacity(rowCount);
+            rowByProductId.put(id, row);
+            productIds[row] = id;
+        }
+        if (departmentId != null && departmentName != null) {
+            departmentNames.put(departmentId, departmentName);
+        }
+        setColumn(CATEGORY_COLUMN, row, category == null ? NONE : categories.encode(category));
+        setColumn(BRAND_COLUMN, row, brand == null ? NONE : brands.encode(brand));
+        setColumn(DEPARTMENT_COLUMN, row, departmentId == null ? NONE : departmentId);
+        setColumn(DISTRIBUTION_CENTER_COLUMN, row, distributionCenterId == null ? NONE : distributionCenterId);
+        priceCents[row] = retailPrice == null ? NO_PRICE : toCents(retailPrice);
+        live.set(row);
+    }
+
+    private void reset() {
+        categories = new Dictionary();
+        brands = new Dictionary();
+        departmentNames.clear();
+        rowCount = 0;
+        rowByProductId.clear();
+        live = new Bitmap(0);
+        for (Map<Integer, Bitmap> columnPostings : postings) {
+            columnPostings.clear();
+        }
+    }
+
+    private void setColumn(int column, int row, int code) {
+        columns[column][row] = code;
+        if (code != NONE) {
+            postings.get(column).computeIfAbsent(code, key -> new Bitmap(rowCount)).set(row);
+        }
+    }
+
+    private void clearRow(int row) {
+        for (int column = 0; column < FACETS.length; column++) {
+            int code = columns[column][row];
+            if (code != NONE) {
+                Bitmap rows = postings.get(column).get(code);
+                if (rows != null) {
+                    rows.clear(row);
+                }
+                columns[column][row] = NONE;
+            }
+        }
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= productIds.length) {
+            return;
+        }
+        int capacity = Math.max(rows, Math.max(1024, productIds.length * 2));
+        productIds = Arrays.copyOf(productIds, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        for (int column = 0; column < FACETS.length; column++) {
+            columns[column] = Arrays.copyOf(columns[column], capacity);
+        }
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Two-way mapping between string values and dense int codes.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        List<Integer> codes(List<String> requested) {
+            if (requested == null || requested.isEmpty()) {
+                return null;
+            }
+            List<Integer> result = new ArrayList<>(requested.size());
+            for (String value : requested) {
+                // unknown values select nothing, but still count as a filter on the dimension
+                result.add(codes.getOrDefault(value, NONE));
+            }
+            return result;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
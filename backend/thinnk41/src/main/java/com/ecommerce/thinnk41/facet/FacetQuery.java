@@ -0,0 +1,27 @@
+package com.ecommerce.thinnk41.facet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A faceted filter: values within a dimension are OR-ed, dimensions are AND-ed.
+ * Empty or null lists leave a dimension unfiltered.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetQuery {
+    private List<String> categories;
+    private List<String> brands;
+    private List<Integer> departmentIds;
+    private List<Integer> distributionCenterIds;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private int page;
+    private int size;
+    private int facetLimit;
+}
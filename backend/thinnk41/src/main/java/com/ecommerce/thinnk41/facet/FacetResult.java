@@ -0,0 +1,20 @@
+package com.ecommerce.thinnk41.facet;
+
+import com.ecommerce.thinnk41.dto.FacetValueDTO;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ids on the requested page, the total match count and the facet counts.
+ */
+@Value
+public class FacetResult {
+    List<Integer> productIds;
+    int totalElements;
+    Map<String, List<FacetValueDTO>> facets;
+    BigDecimal minPrice;
+    BigDecimal maxPrice;
+}
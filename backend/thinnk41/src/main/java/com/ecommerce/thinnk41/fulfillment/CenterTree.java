@@ -0,0 +1,152 @@
+package com.ecommerce.thinnk41.fulfillment;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A static 3-d tree over points on the unit sphere.
+ *
+ * Latitude and longitude are mapped to unit vectors, where the straight-line (chord) distance grows
+ * with the great-circle distance. So nearest by chord is nearest on the globe, with no special
+ * cases at the poles or the antimeridian, and the tree can prune with plain per-axis differences.
+ * The tree is stored implicitly: every sub-range of the arrays is a subtree whose root sits in the middle.
+ */
+final class CenterTree {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final int[] points;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+
+    /**
+     * Index the given coordinates; query results are indexes into these arrays
+     */
+    CenterTree(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double[][] vectors = new double[3][n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            vectors[0][i] = Math.cos(lat) * Math.cos(lon);
+            vectors[1][i] = Math.cos(lat) * Math.sin(lon);
+            vectors[2][i] = Math.sin(lat);
+        }
+        Integer[] order = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        build(order, vectors, 0, n, 0);
+        points = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = vectors[0][points[i]];
+            y[i] = vectors[1][points[i]];
+            z[i] = vectors[2][points[i]];
+        }
+    }
+
+    private static void build(Integer[] order, double[][] vectors, int from, int to, int depth) {
+        if (to - from < 2) {
+            return;
+        }
+        double[] axis = vectors[depth % 3];
+        // sorting each level costs O(n log^2 n) in total, which is nothing for a few thousand centers
+        Arrays.sort(order, from, to, Comparator.comparingDouble(point -> axis[point]));
+        int mid = (from + to) >>> 1;
+        build(order, vectors, from, mid, depth + 1);
+        build(order, vectors, mid + 1, to, depth + 1);
+    }
+
+    int size() {
+        return points.length;
+    }
+
+    /**
+     * The up to k accepted points nearest to a coordinate, nearest first
+     */
+    int[] nearest(double latitude, double longitude, int k, IntPredicate accept) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        Search search = new Search(Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat), k, accept);
+        search.visit(0, points.length, 0);
+        return Arrays.copyOf(search.best, search.size);
+    }
+
+    /**
+     * Great-circle distance in kilometers between two coordinates
+     */
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private final class Search {
+        private final double qx;
+        private final double qy;
+        private final double qz;
+        private final IntPredicate accept;
+        // the k best so far, sorted by squared chord distance
+        private final int[] best;
+        private final double[] distances;
+        private int size;
+
+        Search(double qx, double qy, double qz, int k, IntPredicate accept) {
+            this.qx = qx;
+            this.qy = qy;
+            this.qz = qz;
+            this.accept = accept;
+            this.best = new int[k];
+            this.distances = new double[k];
+        }
+
+        void visit(int from, int to, int depth) {
+            if (from >= to) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            if (accept.test(points[mid])) {
+                double dx = x[mid] - qx;
+                double dy = y[mid] - qy;
+                double dz = z[mid] - qz;
+                offer(points[mid], dx * dx + dy * dy + dz * dz);
+            }
+            double diff = switch (depth % 3) {
+                case 0 -> qx - x[mid];
+                case 1 -> qy - y[mid];
+                default -> qz - z[mid];
+            };
+            // the query's side of the split first, the other only if it can still hold something closer
+            if (diff < 0) {
+                visit(from, mid, depth + 1);
+                if (size < best.length || diff * diff < distances[size - 1]) {
+                    visit(mid + 1, to, depth + 1);
+                }
+            } else {
+                visit(mid + 1, to, depth + 1);
+                if (size < best.length || diff * diff < distances[size - 1]) {
+                    visit(from, mid, depth + 1);
+                }
+            }
+        }
+
+        private void offer(int point, double distance) {
+            if (size == best.length && distance >= distances[size - 1]) {
+                return;
+            }
+            int i = size < best.length ? size++ : size - 1;
+            while (i > 0 && distances[i - 1] > distance) {
+                best[i] = best[i - 1];
+                distances[i] = distances[i - 1];
+                i--;
+            }
+            best[i] = point;
+            distances[i] = distance;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.ecommerce.thinnk41.fulfillment;
+
+import com.ecommerce.thinnk41.dto.FulfillmentCenterDTO;
+import com.ecommerce.thinnk41.entity.DistributionCenter;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.ecommerce.thinnk41.repository.DistributionCenterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Which distribution centers stock each product, and where they are.
+ *
+ * A product stocks at every center holding unsold inventory_items for it; products without any
+ * inventory records ship from their own distribution center. Center coordinates sit in a
+ * {@link CenterTree}, and a lookup walks it nearest first, skipping centers that do not stock the
+ * product. Everything is rebuilt off the request path (when products changed, or the stock counts
+ * got older than max-age) and swapped in with one write, so lookups never touch the database.
+ */
+@Component
+public class FulfillmentIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FulfillmentIndex.class);
+
+    private static final String UNSOLD_BY_CENTER =
+            "SELECT product_id, product_distribution_center_id, SUM(CASE WHEN sold_at IS NULL THEN 1 ELSE 0 END) " +
+            "FROM inventory_items WHERE product_id IS NOT NULL AND product_distribution_center_id IS NOT NULL " +
+            "GROUP BY product_id, product_distribution_center_id";
+
+    private static final String HOME_CENTERS = "SELECT id, distribution_center_id FROM products";
+
+    @Autowired
+    private DistributionCenterRepository distributionCenterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${catalog.fulfillment.max-age:5m}")
+    private Duration maxAge;
+
+    private volatile Snapshot snapshot;
+
+    private volatile boolean stale = true;
+
+    private volatile long builtAt;
+
+    /**
+     * Rebuild when products changed since the last build or the stock counts are too old
+     */
+    @Scheduled(fixedDelayString = "${catalog.fulfillment.refresh-interval:30s}")
+    public void refresh() {
+        if (stale || System.currentTimeMillis() - builtAt > maxAge.toMillis()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Load centers and stock from the database and swap them in
+     */
+    public void rebuild() {
+        // a product moved to another center while stock is being counted marks the index again
+        stale = false;
+        long start = System.nanoTime();
+        Snapshot loaded;
+        try {
+            loaded = load();
+        } catch (RuntimeException e) {
+            // lookups stay on the previous snapshot until the next refresh gets a clean load
+            stale = true;
+            throw e;
+        }
+        snapshot = loaded;
+        builtAt = System.currentTimeMillis();
+        log.info("Built fulfillment index: {} centers, {} products in {} ms",
+                loaded.centers.size(), loaded.stock.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Snapshot load() {
+        List<DistributionCenter> centers = distributionCenterRepository.findAll().stream()
+                .filter(center -> center.getLatitude() != null && center.getLongitude() != null)
+                .toList();
+        Map<Integer, Integer> indexById = new HashMap<>();
+        double[] latitudes = new double[centers.size()];
+        double[] longitudes = new double[centers.size()];
+        for (int i = 0; i < centers.size(); i++) {
+            indexById.put(centers.get(i).getId(), i);
+            latitudes[i] = centers.get(i).getLatitude().doubleValue();
+            longitudes[i] = centers.get(i).getLongitude().doubleValue();
+        }
+
+        Map<Integer, Stock> stock = new HashMap<>();
+        jdbcTemplate.query(UNSOLD_BY_CENTER, rs -> {
+            Integer center = indexById.get(rs.getInt(2));
+            Stock product = stock.computeIfAbsent(rs.getInt(1), id -> new Stock());
+            if (center != null && rs.getInt(3) > 0) {
+                product.add(center, rs.getInt(3));
+            }
+        });
+        jdbcTemplate.query(HOME_CENTERS, rs -> {
+            Stock product = stock.get(rs.getInt(1));
+            if (product == null) {
+                // never stocked through inventory_items, so it ships from its own center
+                Integer center = indexById.get(rs.getObject(2, Integer.class));
+                product = new Stock();
+                if (center != null) {
+                    product.add(center, Stock.UNTRACKED);
+                }
+                stock.put(rs.getInt(1), product);
+            }
+        });
+        stock.values().forEach(Stock::seal);
+        return new Snapshot(new CenterTree(latitudes, longitudes), centers, latitudes, longitudes, stock);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * Whether the index has been built and can answer lookups
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * The up to k nearest centers stocking a product, nearest first; null for an unknown product
+     */
+    public List<FulfillmentCenterDTO> nearest(int productId, double latitude, double longitude, int k) {
+        Snapshot current = snapshot;
+        Stock stock = current != null ? current.stock.get(productId) : null;
+        if (stock == null) {
+            return null;
+        }
+        if (stock.centers.length == 0) {
+            return List.of();
+        }
+        int[] nearest = current.tree.nearest(latitude, longitude, k, center -> Arrays.binarySearch(stock.centers, center) >= 0);
+        List<FulfillmentCenterDTO> result = new ArrayList<>(nearest.length);
+        for (int center : nearest) {
+            int units = stock.units[Arrays.binarySearch(stock.centers, center)];
+            result.add(new FulfillmentCenterDTO(current.centers.get(center).getId(), current.centers.get(center).getName(),
+                    current.latitudes[center], current.longitudes[center],
+                    Math.round(CenterTree.haversineKm(latitude, longitude, current.latitudes[center], current.longitudes[center]) * 10) / 10.0,
+                    units == Stock.UNTRACKED ? null : units));
+        }
+        return result;
+    }
+
+    private static final class Snapshot {
+        private final CenterTree tree;
+        private final List<DistributionCenter> centers;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final Map<Integer, Stock> stock;
+
+        Snapshot(CenterTree tree, List<DistributionCenter> centers, double[] latitudes, double[] longitudes,
+                 Map<Integer, Stock> stock) {
+            this.tree = tree;
+            this.centers = centers;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.stock = stock;
+        }
+    }
+
+    // the centers (tree indexes, sorted) holding a product and their unsold units
+    private static final class Stock {
+        private static final int UNTRACKED = -1;
+
+        private int[] centers = new int[0];
+        private int[] units = new int[0];
+
+        void add(int center, int count) {
+            centers = Arrays.copyOf(centers, centers.length + 1);
+            units = Arrays.copyOf(units, units.length + 1);
+            centers[centers.length - 1] = center;
+            units[units.length - 1] = count;
+        }
+
+        void seal() {
+            int[] order = IntStream.range(0, centers.length).boxed()
+                    .sorted((a, b) -> Integer.compare(centers[a], centers[b]))
+                    .mapToInt(Integer::intValue).toArray();
+            int[] sortedCenters = new int[order.length];
+            int[] sortedUnits = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedCenters[i] = centers[order[i]];
+                sortedUnits[i] = units[order[i]];
+            }
+            centers = sortedCenters;
+            units = sortedUnits;
+        }
+    }
+}
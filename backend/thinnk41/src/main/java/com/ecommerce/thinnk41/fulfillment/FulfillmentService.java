@@ -0,0 +1,159 @@
+package com.ecommerce.thinnk41.fulfillment;
+
+import com.ecommerce.thinnk41.concurrency.DatabaseBulkhead;
+import com.ecommerce.thinnk41.dto.FulfillmentBulkDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentCenterDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentPairDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentQuoteDTO;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Fulfillment quotes: the nearest distribution centers that stock a product, for a coordinate or
+ * for a user's address. Lookups are answered from the {@link FulfillmentIndex}; a bulk request only
+ * goes to the database once per chunk of users, then computes its quotes in parallel.
+ */
+@Service
+public class FulfillmentService {
+
+    private static final String USER_COORDINATES =
+            "SELECT id, latitude, longitude FROM users WHERE id IN (:ids) AND latitude IS NOT NULL AND longitude IS NOT NULL";
+
+    @Autowired
+    private FulfillmentIndex fulfillmentIndex;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.fulfillment.max-k:10}")
+    private int maxK;
+
+    @Value("${catalog.fulfillment.bulk.max-pairs:10000}")
+    private int maxPairs;
+
+    @Value("${catalog.fulfillment.bulk.user-chunk-size:1000}")
+    private int userChunkSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Whether quotes can be served yet
+     */
+    public boolean isReady() {
+        return fulfillmentIndex.isReady();
+    }
+
+    /**
+     * Get the k nearest centers stocking a product for a coordinate
+     */
+    public Optional<FulfillmentQuoteDTO> quote(Integer productId, double latitude, double longitude, int k) {
+        validateK(k);
+        validateCoordinates(latitude, longitude);
+        List<FulfillmentCenterDTO> centers = fulfillmentIndex.nearest(productId, latitude, longitude, k);
+        return Optional.ofNullable(centers)
+                .map(found -> new FulfillmentQuoteDTO(productId, null, latitude, longitude, true, found));
+    }
+
+    /**
+     * Get quotes for many (user or coordinate, product) pairs, in request order
+     */
+    public FulfillmentBulkDTO quoteAll(List<FulfillmentPairDTO> pairs, int k) {
+        validateK(k);
+        if (pairs == null || pairs.isEmpty()) {
+            return new FulfillmentBulkDTO(List.of(), 0, 0);
+        }
+        if (pairs.size() > maxPairs) {
+            throw new InvalidRequestException("A bulk request can quote at most " + maxPairs + " pairs");
+        }
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (FulfillmentPairDTO pair : pairs) {
+            if (pair == null || pair.getProductId() == null) {
+                throw new InvalidRequestException("Every pair needs a productId");
+            }
+            if (pair.getLatitude() != null && pair.getLongitude() != null) {
+                validateCoordinates(pair.getLatitude(), pair.getLongitude());
+            } else if (pair.getUserId() != null) {
+                userIds.add(pair.getUserId());
+            } else {
+                throw new InvalidRequestException("Every pair needs a userId or a latitude and longitude");
+            }
+        }
+        Map<Integer, double[]> users = loadUserCoordinates(userIds);
+
+        // pure CPU from here on, spread over the common pool
+        FulfillmentQuoteDTO[] results = new FulfillmentQuoteDTO[pairs.size()];
+        IntStream.range(0, pairs.size()).parallel().forEach(i -> results[i] = quote(pairs.get(i), users, k));
+        int found = 0;
+        for (FulfillmentQuoteDTO result : results) {
+            found += result.isFound() ? 1 : 0;
+        }
+        return new FulfillmentBulkDTO(Arrays.asList(results), found, results.length - found);
+    }
+
+    private FulfillmentQuoteDTO quote(FulfillmentPairDTO pair, Map<Integer, double[]> users, int k) {
+        double[] coordinates = pair.getLatitude() != null && pair.getLongitude() != null
+                ? new double[]{pair.getLatitude(), pair.getLongitude()}
+                : users.get(pair.getUserId());
+        if (coordinates == null) {
+            return new FulfillmentQuoteDTO(pair.getProductId(), pair.getUserId(), null, null, false, null);
+        }
+        List<FulfillmentCenterDTO> centers = fulfillmentIndex.nearest(pair.getProductId(), coordinates[0], coordinates[1], k);
+        return new FulfillmentQuoteDTO(pair.getProductId(), pair.getUserId(), coordinates[0], coordinates[1],
+                centers != null, centers);
+    }
+
+    private Map<Integer, double[]> loadUserCoordinates(Set<Integer> userIds) {
+        Map<Integer, double[]> coordinates = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += userChunkSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + userChunkSize));
+            databaseBulkhead.call(() -> readOnlyTransaction.execute(status -> {
+                namedParameterJdbcTemplate.query(USER_COORDINATES, Map.of("ids", chunk), rs -> {
+                    coordinates.put(rs.getInt(1), new double[]{rs.getDouble(2), rs.getDouble(3)});
+                });
+                return null;
+            }));
+        }
+        return coordinates;
+    }
+
+    private void validateK(int k) {
+        if (k < 1 || k > maxK) {
+            throw new InvalidRequestException("k must be between 1 and " + maxK);
+        }
+    }
+
+    private static void validateCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new InvalidRequestException("latitude must be within [-90, 90] and longitude within [-180, 180]");
+        }
+    }
+}
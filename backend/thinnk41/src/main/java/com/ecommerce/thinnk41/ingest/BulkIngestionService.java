@@ -0,0 +1,357 @@
+package com.ecommerce.thinnk41.ingest;
+
+import com.ecommerce.thinnk41.versioning.CatalogVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads the dataset CSVs with parallel chunked parsing and JDBC batch upserts.
+ *
+ * One thread reads raw records and hands fixed-size chunks to a worker pool; each worker converts
+ * its chunk and writes it as a single batch in its own transaction. A checkpoint per table records
+ * the longest prefix of chunks that has committed, so an interrupted load can resume from there.
+ * Re-applying a chunk is harmless because every insert is an upsert on the primary key.
+ *
+ * A checkpoint also names its source file and fingerprints the records it covers, and a resume
+ * re-reads that prefix and refuses to continue unless both match: skipping rows of a different
+ * or regenerated file would silently leave them unloaded. The first chunk that fails stops the
+ * load; nothing after it is parsed or written.
+ */
+@Service
+public class BulkIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkIngestionService.class);
+
+    // FNV-1a, run over the records in file order
+    private static final long FINGERPRINT_OFFSET = 0xCBF29CE484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001B3L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    /**
+     * Load the given tables from CSV files in a directory, in dependency order
+     */
+    public List<IngestionReport> ingest(Path directory, Collection<IngestTable> tables, boolean resume,
+                                        int parallelism, int chunkSize) {
+        List<IngestionReport> reports = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (IngestTable table : IngestTable.values()) {
+                if (!tables.contains(table)) {
+                    continue;
+                }
+                Path file = directory.resolve(table.getFileName());
+                if (!Files.isReadable(file)) {
+                    log.warn("Skipping {}: {} not found", table.getTableName(), file);
+                    continue;
+                }
+                IngestionReport report = new TableLoad(table, file, executor, parallelism, chunkSize).run(resume);
+                log.info("Ingested {}", report);
+                reports.add(report);
+            }
+        } finally {
+            executor.shutdownNow();
+            // the upserts bypass JPA, so no change events were published for them
+            if (!reports.isEmpty()) {
+                catalogVersions.catalogChanged();
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * Rows of the table already committed by earlier runs
+     */
+    public long readCheckpoint(IngestTable table) {
+        Checkpoint checkpoint = findCheckpoint(table);
+        return checkpoint == null ? 0 : checkpoint.rowsCommitted;
+    }
+
+    private Checkpoint findCheckpoint(IngestTable table) {
+        List<Checkpoint> checkpoints = jdbcTemplate.query(
+                "SELECT source_file, rows_committed, source_fingerprint FROM ingest_checkpoints WHERE table_name = ?",
+                (rs, rowNum) -> new Checkpoint(rs.getString("source_file"), rs.getLong("rows_committed"),
+                        rs.getObject("source_fingerprint", Long.class)),
+                table.getTableName());
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    private void writeCheckpoint(IngestTable table, Path file, long rowsCommitted, long fingerprint) {
+        jdbcTemplate.update("INSERT INTO ingest_checkpoints (table_name, source_file, rows_committed, source_fingerprint) " +
+                        "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE source_file = VALUES(source_file), " +
+                        "rows_committed = VALUES(rows_committed), source_fingerprint = VALUES(source_fingerprint)",
+                table.getTableName(), sourceName(file), rowsCommitted, fingerprint);
+    }
+
+    private static String sourceName(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private static long fingerprint(long fingerprint, String record) {
+        long hash = fingerprint;
+        for (int i = 0; i < record.length(); i++) {
+            hash = (hash ^ record.charAt(i)) * FINGERPRINT_PRIME;
+        }
+        // the record separator, so moving a boundary changes the result
+        return (hash ^ '\n') * FINGERPRINT_PRIME;
+    }
+
+    private Map<String, Integer> loadDepartments() {
+        Map<String, Integer> departments = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM departments", rs -> {
+            departments.put(rs.getString("name"), rs.getInt("id"));
+        });
+        return departments;
+    }
+
+    private Integer createDepartment(String name) {
+        jdbcTemplate.update("INSERT INTO departments (name) VALUES (?) ON DUPLICATE KEY UPDATE name = name", name);
+        return jdbcTemplate.queryForObject("SELECT id FROM departments WHERE name = ?", Integer.class, name);
+    }
+
+    private static String stripBom(String header) {
+        return !header.isEmpty() && header.charAt(0) == '\uFEFF' ? header.substring(1) : header;
+    }
+
+    private static final class Checkpoint {
+        final String sourceFile;
+        final long rowsCommitted;
+        final Long fingerprint;
+
+        Checkpoint(String sourceFile, long rowsCommitted, Long fingerprint) {
+            this.sourceFile = sourceFile;
+            this.rowsCommitted = rowsCommitted;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Rows of a chunk and the fingerprint of the file up to its last record.
+     */
+    private static final class ChunkEnd {
+        final int rows;
+        final long fingerprint;
+
+        ChunkEnd(int rows, long fingerprint) {
+            this.rows = rows;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * State of loading a single table.
+     */
+    private final class TableLoad {
+        private final IngestTable table;
+        private final Path file;
+        private final ExecutorService executor;
+        private final Semaphore inFlight;
+        private final int chunkSize;
+        private final String sql;
+        private final TransactionTemplate transaction;
+
+        private int[] fieldIndexes;
+        private Map<String, Integer> departments = Map.of();
+
+        // chunks that committed out of order, waiting for the ones before them
+        private final TreeMap<Integer, ChunkEnd> pendingChunks = new TreeMap<>();
+        private int nextChunk;
+        private long committedRows;
+
+        // the first chunk failure; once set nothing more is submitted or written
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        TableLoad(IngestTable table, Path file, ExecutorService executor, int parallelism, int chunkSize) {
+            this.table = table;
+            this.file = file;
+            this.executor = executor;
+            this.inFlight = new Semaphore(parallelism * 2);
+            this.chunkSize = chunkSize;
+            this.sql = table.upsertSql();
+            this.transaction = new TransactionTemplate(transactionManager);
+        }
+
+        IngestionReport run(boolean resume) {
+            long start = System.nanoTime();
+            Checkpoint checkpoint = resume ? findCheckpoint(table) : null;
+            long skipped = checkpoint == null ? 0 : checkpoint.rowsCommitted;
+            if (skipped > 0 && !sourceName(file).equals(checkpoint.sourceFile)) {
+                throw new IngestionException("Checkpoint for " + table.getTableName() + " was written for "
+                        + checkpoint.sourceFile + ", not " + sourceName(file) + "; load it again without resuming", null);
+            }
+            if (!resume) {
+                writeCheckpoint(table, file, 0, FINGERPRINT_OFFSET);
+            }
+            committedRows = skipped;
+
+            List<Future<?>> futures = new ArrayList<>();
+            long rows = 0;
+            try (CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                String header = reader.nextRecord();
+                if (header == null) {
+                    return new IngestionReport(table, 0, 0, 0);
+                }
+                fieldIndexes = fieldIndexes(CsvRecordReader.parse(stripBom(header)));
+                if (table.getColumns().stream().anyMatch(column -> column.getType() == ColumnType.DEPARTMENT)) {
+                    departments = loadDepartments();
+                }
+
+                long fingerprint = FINGERPRINT_OFFSET;
+                String record;
+                long toSkip = skipped;
+                while (toSkip > 0 && (record = reader.nextRecord()) != null) {
+                    if (!record.isEmpty()) {
+                        fingerprint = fingerprint(fingerprint, record);
+                        toSkip--;
+                    }
+                }
+                if (skipped > 0 && (toSkip > 0 || checkpoint.fingerprint == null || checkpoint.fingerprint != fingerprint)) {
+                    throw new IngestionException("The first " + skipped + " rows of " + file + " are not the ones the "
+                            + table.getTableName() + " checkpoint covers; load it again without resuming", null);
+                }
+
+                int chunkIndex = 0;
+                List<String> chunk = new ArrayList<>(chunkSize);
+                while (failure.get() == null && (record = reader.nextRecord()) != null) {
+                    if (record.isEmpty()) {
+                        continue;
+                    }
+                    chunk.add(record);
+                    fingerprint = fingerprint(fingerprint, record);
+                    if (chunk.size() == chunkSize) {
+                        futures.add(submit(chunkIndex++, chunk, fingerprint));
+                        rows += chunk.size();
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (failure.get() == null && !chunk.isEmpty()) {
+                    futures.add(submit(chunkIndex, chunk, fingerprint));
+                    rows += chunk.size();
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (IOException e) {
+                throw new IngestionException("Failed to read " + file, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IngestionException("Interrupted while loading " + table.getTableName(), e);
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new IngestionException("Failed to load " + table.getTableName(), e.getCause());
+            }
+            return new IngestionReport(table, skipped, rows, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        private Future<?> submit(int chunkIndex, List<String> records, long fingerprint) throws InterruptedException {
+            // bound the number of parsed-but-unwritten chunks held in memory
+            inFlight.acquire();
+            return executor.submit(() -> {
+                try {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    List<Object[]> rows = new ArrayList<>(records.size());
+                    for (String record : records) {
+                        rows.add(convert(CsvRecordReader.parse(record)));
+                    }
+                    transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+                    chunkCommitted(chunkIndex, new ChunkEnd(rows.size(), fingerprint));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        private synchronized void chunkCommitted(int chunkIndex, ChunkEnd end) {
+            pendingChunks.put(chunkIndex, end);
+            ChunkEnd last = null;
+            while (!pendingChunks.isEmpty() && pendingChunks.firstKey() == nextChunk) {
+                last = pendingChunks.pollFirstEntry().getValue();
+                committedRows += last.rows;
+                nextChunk++;
+            }
+            if (last != null) {
+                writeCheckpoint(table, file, committedRows, last.fingerprint);
+            }
+        }
+
+        private Object[] convert(String[] fields) {
+            List<IngestColumn> columns = table.getColumns();
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                int index = fieldIndexes[i];
+                String value = index >= 0 && index < fields.length ? fields[index] : null;
+                IngestColumn column = columns.get(i);
+                if (column.getType() == ColumnType.DEPARTMENT) {
+                    row[i] = value == null ? null : departmentId(value);
+                } else {
+                    row[i] = column.getType().convert(value);
+                }
+            }
+            return row;
+        }
+
+        private Integer departmentId(String name) {
+            Integer id = departments.get(name);
+            if (id != null) {
+                return id;
+            }
+            // created outside the map so other workers' lookups do not wait on the insert; the
+            // insert is idempotent, so two workers creating the same name get the same id
+            id = createDepartment(name);
+            Integer raced = departments.putIfAbsent(name, id);
+            return raced != null ? raced : id;
+        }
+
+        private int[] fieldIndexes(String[] header) {
+            List<IngestColumn> columns = table.getColumns();
+            int[] indexes = new int[columns.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = -1;
+                for (int j = 0; j < header.length; j++) {
+                    if (columns.get(i).getHeader().equalsIgnoreCase(header[j] == null ? "" : header[j].trim())) {
+                        indexes[i] = j;
+                        break;
+                    }
+                }
+            }
+            if (indexes[0] < 0) {
+                throw new IngestionException("Missing key column '" + columns.get(0).getHeader() + "' in " + file, null);
+            }
+            return indexes;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.thinnk41.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the bulk ingestion as a one-off command:
+ *
+ * <pre>
+ * java -jar thinnk41.jar --catalog.ingest.enabled=true --spring.main.web-application-type=none \
+ *      --catalog.ingest.dir=../../ecommerce-dataset-main/archive/archive
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.ingest.enabled", havingValue = "true")
+public class CatalogIngestionRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIngestionRunner.class);
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
+    @Value("${catalog.ingest.dir:../../ecommerce-dataset-main/archive/archive}")
+    private Path directory;
+
+    @Value("${catalog.ingest.tables:}")
+    private String tables;
+
+    @Value("${catalog.ingest.resume:true}")
+    private boolean resume;
+
+    @Value("${catalog.ingest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${catalog.ingest.chunk-size:5000}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Set<IngestTable> selected = tables.isBlank()
+                ? EnumSet.allOf(IngestTable.class)
+                : Arrays.stream(tables.split(",")).map(IngestTable::fromName).collect(Collectors.toCollection(() -> EnumSet.noneOf(IngestTable.class)));
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        log.info("Ingesting {} from {} with {} threads, chunks of {} rows{}",
+                selected, directory.toAbsolutePath(), threads, chunkSize, resume ? ", resuming from checkpoints" : "");
+        List<IngestionReport> reports = bulkIngestionService.ingest(directory, selected, resume, threads, chunkSize);
+        reports.forEach(report -> log.info("{}", report));
+    }
+}
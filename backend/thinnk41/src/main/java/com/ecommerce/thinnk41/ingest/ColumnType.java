@@ -0,0 +1,56 @@
+package com.ecommerce.thinnk41.ingest;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * How a CSV field is converted before it is bound to an insert.
+ */
+public enum ColumnType {
+    INT,
+    DOUBLE,
+    DECIMAL,
+    STRING,
+    TIMESTAMP,
+    // a department name that is resolved to departments.id
+    DEPARTMENT;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .toFormatter();
+
+    Object convert(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return switch (this) {
+            case INT -> Integer.valueOf(value.endsWith(".0") ? value.substring(0, value.length() - 2) : value);
+            case DOUBLE -> Double.valueOf(value);
+            case DECIMAL -> new BigDecimal(value);
+            case STRING, DEPARTMENT -> value;
+            case TIMESTAMP -> Timestamp.valueOf(parseTimestamp(value));
+        };
+    }
+
+    /**
+     * The dataset writes UTC timestamps as "2022-01-01 10:00:00 UTC" or "2022-01-01 10:00:00+00:00"
+     */
+    static LocalDateTime parseTimestamp(String value) {
+        String text = value.trim();
+        if (text.endsWith(" UTC")) {
+            text = text.substring(0, text.length() - 4);
+        } else if (text.endsWith("+00:00")) {
+            text = text.substring(0, text.length() - 6);
+        } else if (text.endsWith("Z")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return LocalDateTime.parse(text.replace('T', ' '), TIMESTAMP_FORMAT);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.thinnk41.ingest;
+
+import lombok.Value;
+
+/**
+ * Maps one CSV header to a table column.
+ */
+@Value
+public class IngestColumn {
+    String header;
+    String column;
+    ColumnType type;
+
+    static IngestColumn of(String name, ColumnType type) {
+        return new IngestColumn(name, name, type);
+    }
+
+    static IngestColumn of(String header, String column, ColumnType type) {
+        return new IngestColumn(header, column, type);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.thinnk41.ingest;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.ecommerce.thinnk41.ingest.ColumnType.DECIMAL;
+import static com.ecommerce.thinnk41.ingest.ColumnType.DEPARTMENT;
+import static com.ecommerce.thinnk41.ingest.ColumnType.DOUBLE;
+import static com.ecommerce.thinnk41.ingest.ColumnType.INT;
+import static com.ecommerce.thinnk41.ingest.ColumnType.STRING;
+import static com.ecommerce.thinnk41.ingest.ColumnType.TIMESTAMP;
+
+/**
+ * The dataset CSVs, in load order (referenced tables first).
+ */
+public enum IngestTable {
+    DISTRIBUTION_CENTERS("distribution_centers", "distribution_centers.csv", List.of(
+            IngestColumn.of("id", INT),
+            IngestColumn.of("name", STRING),
+            IngestColumn.of("latitude", DECIMAL),
+            IngestColumn.of("longitude", DECIMAL))),
+    PRODUCTS("products", "products.csv", List.of(
+            IngestColumn.of("id", INT),
+            IngestColumn.of("cost", DECIMAL),
+            IngestColumn.of("category", STRING),
+            IngestColumn.of("name", STRING),
+            IngestColumn.of("brand", STRING),
+            IngestColumn.of("retail_price", DECIMAL),
+            IngestColumn.of("department", "department_id", DEPARTMENT),
+            IngestColumn.of("sku", STRING),
+            IngestColumn.of("distribution_center_id", INT))),
+    USERS("users", "users.csv", List.of(
+            IngestColumn.of("id", INT),
+            IngestColumn.of("first_name", STRING),
+            IngestColumn.of("last_name", STRING),
+            IngestColumn.of("email", STRING),
+            IngestColumn.of("age", INT),
+            IngestColumn.of("gender", STRING),
+            IngestColumn.of("state", STRING),
+            IngestColumn.of("street_address", STRING),
+            IngestColumn.of("postal_code", STRING),
+            IngestColumn.of("city", STRING),
+            IngestColumn.of("country", STRING),
+            IngestColumn.of("latitude", DOUBLE),
+            IngestColumn.of("longitude", DOUBLE),
+            IngestColumn.of("traffic_source", STRING),
+            IngestColumn.of("created_at", TIMESTAMP))),
+    ORDERS("orders", "orders.csv", List.of(
+            IngestColumn.of("order_id", INT),
+            IngestColumn.of("user_id", INT),
+            IngestColumn.of("status", STRING),
+            IngestColumn.of("gender", STRING),
+            IngestColumn.of("created_at", TIMESTAMP),
+            IngestColumn.of("returned_at", TIMESTAMP),
+            IngestColumn.of("shipped_at", TIMESTAMP),
+            IngestColumn.of("delivered_at", TIMESTAMP),
+            IngestColumn.of("num_of_item", INT))),
+    INVENTORY_ITEMS("inventory_items", "inventory_items.csv", List.of(
+            IngestColumn.of("id", INT),
+            IngestColumn.of("product_id", INT),
+            IngestColumn.of("created_at", TIMESTAMP),
+            IngestColumn.of("sold_at", TIMESTAMP),
+            IngestColumn.of("cost", DECIMAL),
+            IngestColumn.of("product_category", STRING),
+            IngestColumn.of("product_name", STRING),
+            IngestColumn.of("product_brand", STRING),
+            IngestColumn.of("product_retail_price", DECIMAL),
+            IngestColumn.of("product_department", STRING),
+            IngestColumn.of("product_sku", STRING),
+            IngestColumn.of("product_distribution_center_id", INT))),
+    ORDER_ITEMS("order_items", "order_items.csv", List.of(
+            IngestColumn.of("id", INT),
+            IngestColumn.of("order_id", INT),
+            IngestColumn.of("user_id", INT),
+            IngestColumn.of("product_id", INT),
+            IngestColumn.of("inventory_item_id", INT),
+            IngestColumn.of("status", STRING),
+            IngestColumn.of("created_at", TIMESTAMP),
+            IngestColumn.of("shipped_at", TIMESTAMP),
+            IngestColumn.of("delivered_at", TIMESTAMP),
+            IngestColumn.of("returned_at", TIMESTAMP)));
+
+    private final String tableName;
+    private final String fileName;
+    private final List<IngestColumn> columns;
+
+    IngestTable(String tableName, String fileName, List<IngestColumn> columns) {
+        this.tableName = tableName;
+        this.fileName = fileName;
+        this.columns = columns;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public List<IngestColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Idempotent multi-row friendly upsert: with rewriteBatchedStatements the MySQL driver
+     * folds a batch of these into a single INSERT ... VALUES (...), (...), ...
+     */
+    String upsertSql() {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName).append(" (");
+        StringBuilder placeholders = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).getColumn();
+            if (i > 0) {
+                sql.append(", ");
+                placeholders.append(", ");
+            }
+            sql.append(column);
+            placeholders.append('?');
+            if (i > 0) {
+                if (updates.length() > 0) {
+                    updates.append(", ");
+                }
+                updates.append(column).append(" = VALUES(").append(column).append(')');
+            }
+        }
+        return sql.append(") VALUES (").append(placeholders).append(") ON DUPLICATE KEY UPDATE ").append(updates).toString();
+    }
+
+    public static IngestTable fromName(String name) {
+        for (IngestTable table : values()) {
+            if (table.tableName.equalsIgnoreCase(name.trim())) {
+                return table;
+            }
+        }
+        throw new IllegalArgumentException("Unknown table '" + name + "'");
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.thinnk41.ingest;
+
+public class IngestionException extends RuntimeException {
+
+    public IngestionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.thinnk41.ingest;
+
+import lombok.Value;
+
+/**
+ * Outcome of loading one table.
+ */
+@Value
+public class IngestionReport {
+    IngestTable table;
+    long rowsSkipped;
+    long rowsLoaded;
+    long elapsedMillis;
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsLoaded : rowsLoaded * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s %,10d rows in %,8d ms  %,12.0f rows/sec  (%,d skipped by checkpoint)",
+                table.getTableName(), rowsLoaded, elapsedMillis, getRowsPerSecond(), rowsSkipped);
+    }
+}
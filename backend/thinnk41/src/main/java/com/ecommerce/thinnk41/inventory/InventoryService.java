@@ -0,0 +1,303 @@
+package com.ecommerce.thinnk41.inventory;
+
+import com.ecommerce.thinnk41.concurrency.DatabaseBulkhead;
+import com.ecommerce.thinnk41.dto.ReservationDTO;
+import com.ecommerce.thinnk41.dto.StockLevelDTO;
+import com.ecommerce.thinnk41.exception.InsufficientStockException;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import com.ecommerce.thinnk41.exception.ProductNotFoundException;
+import com.ecommerce.thinnk41.exception.ReservationStateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock reservations served from memory. Each product's unsold inventory_items, less the units of
+ * confirmations not yet written, are counted once into a {@link StripedStockCounter}; reserve and
+ * release only move that counter, and confirmed sales reach the database through
+ * {@link InventoryWriteBehind}. Counters are only made for products in the catalog.
+ * <p>
+ * The counters are this instance's view only: several instances each count the same items, so
+ * they can together hold more than there is. A sale is therefore never acknowledged from the
+ * counter: a confirm stays CONFIRMING until the write-behind has claimed its items with a checked
+ * update, and only that commit makes it CONFIRMED. A sale it cannot claim fails its reservation
+ * (status FAILED, 409 on a confirm that is still waiting) and brings the product's counter back
+ * down to what the database has left.
+ * Every resync interval each counter is recounted both ways, which also picks up restocks and
+ * sales made elsewhere.
+ */
+@Slf4j
+@Service
+public class InventoryService {
+
+    private static final String COUNT_AVAILABLE =
+            "SELECT (SELECT COUNT(*) FROM inventory_items WHERE product_id = ? AND sold_at IS NULL)"
+                    + " - (SELECT COALESCE(SUM(quantity), 0) FROM inventory_confirmations WHERE product_id = ?)";
+
+    // no row for a product that is not in the catalog
+    private static final String COUNT_AVAILABLE_IF_LISTED = COUNT_AVAILABLE + " FROM products WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryWriteBehind writeBehind;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.inventory.stripes:8}")
+    private int stripes;
+
+    @Value("${catalog.inventory.reservation-ttl:10m}")
+    private Duration reservationTtl;
+
+    @Value("${catalog.inventory.confirm-timeout:2s}")
+    private Duration confirmTimeout;
+
+    private final Map<Integer, ProductStock> stock = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private Counter reserved;
+    private Counter rejected;
+    private Counter confirmed;
+    private Counter released;
+    private Counter expired;
+    private Counter failed;
+
+    @PostConstruct
+    void init() {
+        reserved = outcome("reserved");
+        rejected = outcome("rejected");
+        confirmed = outcome("confirmed");
+        released = outcome("released");
+        expired = outcome("expired");
+        failed = outcome("failed");
+    }
+
+    /**
+     * Get the stock level of a product
+     */
+    public StockLevelDTO getStockLevel(Integer productId) {
+        ProductStock product = stockOf(productId);
+        return new StockLevelDTO(productId, product.counter.available(), product.held.sum(), product.pending.sum());
+    }
+
+    /**
+     * Hold units of a product for the reservation TTL
+     */
+    public ReservationDTO reserve(Integer productId, int quantity) {
+        if (quantity < 1) {
+            throw new InvalidRequestException("quantity must be >= 1");
+        }
+        ProductStock product = stockOf(productId);
+        // held goes up before the counter goes down, so a concurrent resync never sees units vanish
+        product.held.add(quantity);
+        if (!product.counter.tryTake(quantity)) {
+            product.held.add(-quantity);
+            rejected.increment();
+            throw new InsufficientStockException(productId, quantity, product.counter.available());
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID(), productId, quantity, Instant.now().plus(reservationTtl));
+        reservations.put(reservation.getId(), reservation);
+        reserved.increment();
+        return ReservationDTO.fromReservation(reservation);
+    }
+
+    /**
+     * Turn a held reservation into a sale. The confirmation is recorded, then this waits up to the
+     * confirm timeout for its inventory items to be claimed: the reservation comes back CONFIRMED
+     * once they are, and a sale the database cannot cover by then is an InsufficientStockException.
+     * A reservation still CONFIRMING at the timeout is answered with 202 Accepted; the client polls
+     * GET /api/inventory/reservations/{id} until it is CONFIRMED or FAILED.
+     */
+    public Optional<ReservationDTO> confirm(UUID reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            return Optional.empty();
+        }
+        expireIfDue(reservation, Instant.now());
+        if (!reservation.transition(ReservationStatus.CONFIRMING)) {
+            throw new ReservationStateException("Reservation " + reservationId + " is " + reservation.getStatus());
+        }
+        CompletableFuture<Void> written;
+        try {
+            written = databaseBulkhead.call(() -> writeBehind.submit(reservation.getId(),
+                    reservation.getProductId(), reservation.getQuantity()));
+        } catch (RuntimeException e) {
+            // nothing was recorded, so the reservation is still held and can be confirmed again
+            reservation.undoConfirm();
+            throw e;
+        }
+        ProductStock product = stock.get(reservation.getProductId());
+        product.held.add(-reservation.getQuantity());
+        product.pending.add(reservation.getQuantity());
+        CompletableFuture<Void> settled = written.whenComplete((result, error) -> {
+            product.pending.add(-reservation.getQuantity());
+            if (error == null) {
+                if (reservation.sold()) {
+                    confirmed.increment();
+                }
+            } else if (reservation.fail()) {
+                failed.increment();
+                resync(reservation.getProductId(), product);
+            }
+        });
+        awaitSettled(settled);
+        if (reservation.getStatus() == ReservationStatus.FAILED
+                && written.exceptionNow() instanceof InsufficientStockException e) {
+            throw e;
+        }
+        return Optional.of(ReservationDTO.fromReservation(reservation));
+    }
+
+    /**
+     * Give the units of a held reservation back
+     */
+    public Optional<ReservationDTO> release(UUID reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            return Optional.empty();
+        }
+        if (!reservation.transition(ReservationStatus.RELEASED)) {
+            throw new ReservationStateException("Reservation " + reservationId + " is " + reservation.getStatus());
+        }
+        putBack(reservation);
+        released.increment();
+        return Optional.of(ReservationDTO.fromReservation(reservation));
+    }
+
+    /**
+     * Get a reservation
+     */
+    public Optional<ReservationDTO> getReservation(UUID reservationId) {
+        return Optional.ofNullable(reservations.get(reservationId))
+                .map(ReservationDTO::fromReservation);
+    }
+
+    /**
+     * Return the units of expired reservations and forget finished ones
+     */
+    @Scheduled(fixedDelayString = "${catalog.inventory.reservation-sweep-interval:5s}")
+    public void expireReservations() {
+        Instant now = Instant.now();
+        Instant forgetBefore = now.minus(reservationTtl);
+        reservations.values().removeIf(reservation -> {
+            expireIfDue(reservation, now);
+            // a confirming one is kept for the client to poll until its sale is written
+            ReservationStatus status = reservation.getStatus();
+            return status != ReservationStatus.HELD && status != ReservationStatus.CONFIRMING
+                    && reservation.getExpiresAt().isBefore(forgetBefore);
+        });
+    }
+
+    private void expireIfDue(Reservation reservation, Instant now) {
+        if (reservation.getExpiresAt().isBefore(now) && reservation.transition(ReservationStatus.EXPIRED)) {
+            putBack(reservation);
+            expired.increment();
+        }
+    }
+
+    private void putBack(Reservation reservation) {
+        ProductStock product = stock.get(reservation.getProductId());
+        product.counter.put(reservation.getQuantity());
+        product.held.add(-reservation.getQuantity());
+    }
+
+    private void awaitSettled(CompletableFuture<Void> settled) {
+        if (confirmTimeout.isZero()) {
+            return;
+        }
+        try {
+            settled.get(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // still CONFIRMING, or FAILED: the status says which
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ProductStock stockOf(Integer productId) {
+        ProductStock product = stock.get(productId);
+        if (product != null) {
+            return product;
+        }
+        // counted outside computeIfAbsent so the query does not block the map; a racing load counts the same rows
+        List<Long> available = databaseBulkhead.call(() -> jdbcTemplate.queryForList(
+                COUNT_AVAILABLE_IF_LISTED, Long.class, productId, productId, productId));
+        if (available.isEmpty()) {
+            throw new ProductNotFoundException(productId);
+        }
+        long units = Math.max(0, available.get(0));
+        return stock.computeIfAbsent(productId, id -> new ProductStock(new StripedStockCounter(units, stripes)));
+    }
+
+    /**
+     * Recount every product counted so far against the database
+     */
+    @Scheduled(fixedDelayString = "${catalog.inventory.resync-interval:1m}")
+    public void resyncAll() {
+        stock.forEach(this::resync);
+    }
+
+    /**
+     * Move the counter to what the database has: down after another writer sold units, up after
+     * a restock. Held units are not in the database yet and count as taken.
+     */
+    private void resync(Integer productId, ProductStock product) {
+        try {
+            long difference = countAvailable(productId) - (product.counter.available() + product.held.sum());
+            if (difference > 0) {
+                product.counter.put(difference);
+            } else if (difference < 0) {
+                product.counter.drain(-difference);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not recount stock of product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    private long countAvailable(Integer productId) {
+        return Math.max(0, jdbcTemplate.queryForObject(COUNT_AVAILABLE, Long.class, productId, productId));
+    }
+
+    private Counter outcome(String outcome) {
+        return Counter.builder("catalog.inventory.reservations")
+                .description("Reservation requests and status changes, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class ProductStock {
+        private final StripedStockCounter counter;
+        private final LongAdder held = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+
+        ProductStock(StripedStockCounter counter) {
+            this.counter = counter;
+        }
+    }
+}
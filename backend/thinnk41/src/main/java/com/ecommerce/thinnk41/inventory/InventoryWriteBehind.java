@@ -0,0 +1,314 @@
+package com.ecommerce.thinnk41.inventory;
+
+import com.ecommerce.thinnk41.exception.InsufficientStockException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists confirmed sales behind the reservation hot path. A confirmation is recorded in
+ * inventory_confirmations before it is acknowledged; a single flusher thread then groups whatever
+ * was confirmed within the linger time into one transaction that deletes those rows, claims unsold
+ * inventory_items for each sale and advances the flush checkpoint.
+ * <p>
+ * The claim is a conditional update whose row count is checked, so the database has the last
+ * word: when a product has fewer unsold items than its sales need (another instance sold them),
+ * the batch is rolled back and written again without the sales that no longer fit, whose futures
+ * fail with {@link InsufficientStockException}. Every other
+ * sale's future completes once its batch has committed. Confirmations left behind by an instance
+ * that stopped are picked up by any instance once they are older than the orphan age.
+ */
+@Slf4j
+@Component
+public class InventoryWriteBehind {
+
+    private static final String INSERT_CONFIRMATION =
+            "INSERT INTO inventory_confirmations (reservation_id, product_id, quantity, confirmed_at) VALUES (?, ?, ?, ?)";
+
+    private static final String DELETE_CONFIRMATION = "DELETE FROM inventory_confirmations WHERE reservation_id = ?";
+
+    private static final String SELECT_ORPHANS =
+            "SELECT reservation_id, product_id, quantity, confirmed_at FROM inventory_confirmations WHERE confirmed_at < ? ORDER BY confirmed_at";
+
+    private static final String CLAIM_UNSOLD =
+            "UPDATE inventory_items SET sold_at = ? WHERE product_id = ? AND sold_at IS NULL ORDER BY id LIMIT ?";
+
+    private static final String ADVANCE_CHECKPOINT =
+            "UPDATE inventory_flush_checkpoint SET batches_flushed = batches_flushed + 1, units_flushed = units_flushed + ? WHERE id = 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.inventory.flush.batch-size:500}")
+    private int batchSize;
+
+    @Value("${catalog.inventory.flush.linger:20ms}")
+    private Duration linger;
+
+    @Value("${catalog.inventory.flush.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    @Value("${catalog.inventory.flush.orphan-after:5m}")
+    private Duration orphanAfter;
+
+    private final LinkedBlockingQueue<PendingSale> queue = new LinkedBlockingQueue<>();
+
+    /** Sales this instance has queued, by reservation, so the orphan sweep leaves them alone */
+    private final Map<UUID, PendingSale> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong pendingUnits = new AtomicLong();
+
+    private TransactionTemplate transactionTemplate;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    private Timer flushTimer;
+
+    private DistributionSummary batchUnits;
+
+    @PostConstruct
+    void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flushTimer = Timer.builder("catalog.inventory.flush")
+                .description("Time to write one batch of confirmed sales")
+                .register(meterRegistry);
+        batchUnits = DistributionSummary.builder("catalog.inventory.flush.units")
+                .description("Units marked sold per write-behind batch")
+                .register(meterRegistry);
+        Gauge.builder("catalog.inventory.pending.units", pendingUnits, AtomicLong::get)
+                .description("Confirmed units not yet written to inventory_items")
+                .register(meterRegistry);
+        running = true;
+        flusher = Thread.ofPlatform().name("inventory-write-behind").daemon().start(this::run);
+    }
+
+    /**
+     * Record a confirmed sale and queue it; the future completes when its units are marked sold
+     * and fails with {@link InsufficientStockException} when the database has too few left
+     */
+    public CompletableFuture<Void> submit(UUID reservationId, Integer productId, int quantity) {
+        PendingSale sale = new PendingSale(reservationId, productId, quantity, LocalDateTime.now());
+        inFlight.put(reservationId, sale);
+        try {
+            jdbcTemplate.update(INSERT_CONFIRMATION, reservationId.toString(), productId, quantity, Timestamp.valueOf(sale.soldAt));
+        } catch (RuntimeException e) {
+            inFlight.remove(reservationId);
+            throw e;
+        }
+        pendingUnits.addAndGet(quantity);
+        queue.add(sale);
+        return sale.durable;
+    }
+
+    /**
+     * Queue the confirmations an instance recorded but never wrote, once they are old enough
+     * that no running instance is still working on them
+     */
+    @Scheduled(fixedDelayString = "${catalog.inventory.flush.orphan-after:5m}")
+    public void recoverOrphans() {
+        List<PendingSale> orphans = new ArrayList<>();
+        jdbcTemplate.query(SELECT_ORPHANS, rs -> {
+            UUID reservationId = UUID.fromString(rs.getString("reservation_id"));
+            if (!inFlight.containsKey(reservationId)) {
+                orphans.add(new PendingSale(reservationId, rs.getInt("product_id"), rs.getInt("quantity"),
+                        rs.getTimestamp("confirmed_at").toLocalDateTime()));
+            }
+        }, Timestamp.valueOf(LocalDateTime.now().minus(orphanAfter)));
+        for (PendingSale sale : orphans) {
+            if (inFlight.putIfAbsent(sale.reservationId, sale) == null) {
+                pendingUnits.addAndGet(sale.quantity);
+                queue.add(sale);
+            }
+        }
+        if (!orphans.isEmpty()) {
+            log.warn("Queued {} confirmed sales left unwritten by an earlier or stopped instance", orphans.size());
+        }
+    }
+
+    public long getPendingUnits() {
+        return pendingUnits.get();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        // whatever is still queued gets one last attempt
+        List<PendingSale> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+    }
+
+    private void run() {
+        List<PendingSale> batch = new ArrayList<>();
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                    long deadline = System.nanoTime() + linger.toNanos();
+                    while (batch.size() < batchSize) {
+                        PendingSale next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+                if (flush(batch)) {
+                    batch.clear();
+                } else {
+                    // keep the batch and retry; confirmations wait for it
+                    Thread.sleep(retryBackoff.toMillis());
+                }
+            } catch (InterruptedException e) {
+                queue.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    private boolean flush(List<PendingSale> batch) {
+        int units = batch.stream().mapToInt(sale -> sale.quantity).sum();
+        List<PendingSale> sold = new ArrayList<>();
+        // short sales, with the unsold items left for them
+        Map<PendingSale, Integer> unavailable = new LinkedHashMap<>();
+        // unsold items per product as the last attempt's claims found them; null claims everything
+        Map<Integer, Integer> unsold = null;
+        long start = System.nanoTime();
+        while (true) {
+            Map<Integer, Integer> known = unsold;
+            try {
+                transactionTemplate.executeWithoutResult(status -> claim(batch, known, sold, unavailable));
+                break;
+            } catch (ShortClaim e) {
+                // rolled back: try again, leaving out the sales the items found cannot cover
+                unsold = e.claimedByProduct;
+            } catch (RuntimeException e) {
+                log.warn("Could not write {} confirmed units, retrying in {}: {}", units, retryBackoff, e.getMessage());
+                return false;
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchUnits.record(sold.stream().mapToInt(sale -> sale.quantity).sum());
+        pendingUnits.addAndGet(-units);
+        for (PendingSale sale : batch) {
+            inFlight.remove(sale.reservationId);
+            Integer left = unavailable.get(sale);
+            if (left == null) {
+                sale.durable.complete(null);
+            } else {
+                log.warn("Confirmed sale {} of {} units of product {} failed: {} unsold inventory items left",
+                        sale.reservationId, sale.quantity, sale.productId, left);
+                sale.durable.completeExceptionally(new InsufficientStockException(sale.productId, sale.quantity, left));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One attempt at writing a batch, inside its transaction. Throws {@link ShortClaim} when a
+     * claim updated fewer items than its sale needs, which rolls the attempt back.
+     */
+    private void claim(List<PendingSale> batch, Map<Integer, Integer> unsold, List<PendingSale> sold,
+                       Map<PendingSale, Integer> unavailable) {
+        sold.clear();
+        unavailable.clear();
+        Timestamp soldAt = Timestamp.valueOf(batch.get(batch.size() - 1).soldAt);
+        // deleting the confirmation first settles each sale once: when another instance's orphan
+        // sweep queued it too, whichever deletes it writes it and the other finds it gone
+        int[] deleted = jdbcTemplate.batchUpdate(DELETE_CONFIRMATION,
+                batch.stream().map(sale -> new Object[]{sale.reservationId.toString()}).toList());
+        Map<Integer, Integer> left = unsold != null ? new HashMap<>(unsold) : null;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingSale sale = batch.get(i);
+            if (deleted[i] == 0) {
+                continue;
+            }
+            int available = left != null ? left.getOrDefault(sale.productId, 0) : Integer.MAX_VALUE;
+            if (sale.quantity <= available) {
+                sold.add(sale);
+                if (left != null) {
+                    left.put(sale.productId, available - sale.quantity);
+                }
+            } else {
+                unavailable.put(sale, available);
+            }
+        }
+        int[] claimed = jdbcTemplate.batchUpdate(CLAIM_UNSOLD,
+                sold.stream().map(sale -> new Object[]{soldAt, sale.productId, sale.quantity}).toList());
+        Map<Integer, Integer> claimedByProduct = new HashMap<>();
+        boolean allClaimed = true;
+        for (int i = 0; i < sold.size(); i++) {
+            claimedByProduct.merge(sold.get(i).productId, claimed[i], Integer::sum);
+            allClaimed &= claimed[i] == sold.get(i).quantity;
+        }
+        if (!allClaimed) {
+            throw new ShortClaim(claimedByProduct);
+        }
+        jdbcTemplate.update(ADVANCE_CHECKPOINT, sold.stream().mapToInt(sale -> sale.quantity).sum());
+    }
+
+    /**
+     * A product had fewer unsold items than its sales in the batch; carries how many each product had
+     */
+    private static final class ShortClaim extends RuntimeException {
+        private final Map<Integer, Integer> claimedByProduct;
+
+        ShortClaim(Map<Integer, Integer> claimedByProduct) {
+            super(null, null, false, false);
+            this.claimedByProduct = claimedByProduct;
+        }
+    }
+
+    private static final class PendingSale {
+        private final UUID reservationId;
+        private final Integer productId;
+        private final int quantity;
+        private final LocalDateTime soldAt;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingSale(UUID reservationId, Integer productId, int quantity, LocalDateTime soldAt) {
+            this.reservationId = reservationId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.soldAt = soldAt;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.thinnk41.inventory;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Units of one product held for a shopper. Only a HELD reservation changes status, once,
+ * so a reservation is confirmed, released or expired exactly one time. A confirming one becomes
+ * CONFIRMED once its sale is written, FAILED when the database had too few items left for it,
+ * or goes back to HELD when the confirmation could not be recorded.
+ */
+@Getter
+public class Reservation {
+
+    private final UUID id;
+    private final Integer productId;
+    private final int quantity;
+    private final Instant expiresAt;
+    private final AtomicReference<ReservationStatus> status = new AtomicReference<>(ReservationStatus.HELD);
+
+    Reservation(UUID id, Integer productId, int quantity, Instant expiresAt) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public ReservationStatus getStatus() {
+        return status.get();
+    }
+
+    boolean transition(ReservationStatus to) {
+        return status.compareAndSet(ReservationStatus.HELD, to);
+    }
+
+    boolean undoConfirm() {
+        return status.compareAndSet(ReservationStatus.CONFIRMING, ReservationStatus.HELD);
+    }
+
+    boolean sold() {
+        return status.compareAndSet(ReservationStatus.CONFIRMING, ReservationStatus.CONFIRMED);
+    }
+
+    boolean fail() {
+        return status.compareAndSet(ReservationStatus.CONFIRMING, ReservationStatus.FAILED);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.thinnk41.inventory;
+
+public enum ReservationStatus {
+    HELD,
+    /** Confirmed by the client, its sale recorded but its inventory items not yet claimed */
+    CONFIRMING,
+    /** Sold: the write-behind has claimed its inventory items */
+    CONFIRMED,
+    RELEASED,
+    EXPIRED,
+    /** Confirmed, but the database had too few unsold items left when the sale was written */
+    FAILED
+}
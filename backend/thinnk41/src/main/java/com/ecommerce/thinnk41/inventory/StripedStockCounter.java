@@ -0,0 +1,103 @@
+package com.ecommerce.thinnk41.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available stock of one product spread over a few CAS cells, so concurrent reservations of a hot
+ * product mostly land on different cache lines. Each cell only moves down while it has enough,
+ * so neither a cell nor the total can go below zero.
+ */
+public final class StripedStockCounter {
+
+    // 16 longs = 128 bytes between cells, so two cells never share a cache line
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+
+    private final int stripes;
+
+    public StripedStockCounter(long stock, int stripes) {
+        if (stock < 0 || stripes < 1) {
+            throw new IllegalArgumentException("stock must be >= 0 and stripes >= 1");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, stock / stripes + (i < stock % stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * Take the quantity if that much is available. Starts at the calling thread's own cell and
+     * gathers from the others when it runs short; a failed attempt puts back what it gathered.
+     */
+    public boolean tryTake(long quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be >= 1");
+        }
+        int home = home();
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            taken += takeUpTo((home + i) % stripes, quantity - taken);
+        }
+        if (taken == quantity) {
+            return true;
+        }
+        if (taken > 0) {
+            cells.getAndAdd(home * PADDING, taken);
+        }
+        return false;
+    }
+
+    /**
+     * Take whatever is available up to the quantity, returning how much was taken
+     */
+    public long drain(long quantity) {
+        int home = home();
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            taken += takeUpTo((home + i) % stripes, quantity - taken);
+        }
+        return taken;
+    }
+
+    /**
+     * Give back stock taken earlier
+     */
+    public void put(long quantity) {
+        cells.getAndAdd(home() * PADDING, quantity);
+    }
+
+    /**
+     * Sum of the cells; exact when no update is in flight
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private long takeUpTo(int stripe, long wanted) {
+        int index = stripe * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current == 0) {
+                return 0;
+            }
+            long take = Math.min(current, wanted);
+            if (cells.compareAndSet(index, current, current - take)) {
+                return take;
+            }
+        }
+    }
+
+    private int home() {
+        long id = Thread.currentThread().threadId();
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        return (int) Math.floorMod(id, (long) stripes);
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.thinnk41.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class HibernateInstrumentationConfiguration {
+
+    /**
+     * Count statements per request and keep the statistics the Hibernate metrics are read from.
+     * Applied first, so other customizers can wrap the inspector instead of replacing it.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+            properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, "true");
+        };
+    }
+}
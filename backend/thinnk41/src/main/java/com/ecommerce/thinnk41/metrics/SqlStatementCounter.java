@@ -0,0 +1,45 @@
+package com.ecommerce.thinnk41.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open.
+ * Registered as the session factory's statement inspector; it never rewrites the SQL.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting statements on the current thread
+     */
+    public static void open() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Statements counted since {@link #open()}, or 0 when no count is open
+     */
+    public static int current() {
+        int[] count = COUNT.get();
+        return count != null ? count[0] : 0;
+    }
+
+    /**
+     * Stop counting and return the final count
+     */
+    public static int close() {
+        int statements = current();
+        COUNT.remove();
+        return statements;
+    }
+}
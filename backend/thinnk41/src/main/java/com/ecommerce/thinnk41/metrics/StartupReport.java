@@ -0,0 +1,75 @@
+package com.ecommerce.thinnk41.metrics;
+
+import com.ecommerce.thinnk41.snapshot.CatalogSnapshotService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Logs how long the JVM took to accept traffic and how much memory it holds at that point, so a
+ * warm start from the catalog snapshot can be compared with a cold one. Readiness is reported after
+ * every ApplicationReadyEvent listener (the in-memory indexes) has finished.
+ *
+ * Resident set size is read from /proc and exported as {@code process.memory.rss}; it is -1 where
+ * /proc is not available.
+ */
+@Component
+public class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("process.memory.rss", StartupReport::residentSetBytes)
+                .description("Resident set size of the process")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return;
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        log.info("Ready to serve {} ms after JVM start ({}): RSS {} MB, heap used {} MB of {} MB committed",
+                ManagementFactory.getRuntimeMXBean().getUptime(),
+                catalogSnapshotService.isLoaded() ? "warm start from the catalog snapshot" : "cold start",
+                residentSetBytes() / (1024 * 1024), heap.getUsed() / (1024 * 1024), heap.getCommitted() / (1024 * 1024));
+    }
+
+    static long residentSetBytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    // "VmRSS:    123456 kB"
+                    return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Linux
+        }
+        return -1;
+    }
+}
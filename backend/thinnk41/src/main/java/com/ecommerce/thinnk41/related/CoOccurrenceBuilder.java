@@ -0,0 +1,81 @@
+package com.ecommerce.thinnk41.related;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts co-purchases over all orders in parallel: the orders are split in halves on the common
+ * fork/join pool until a range is small, each range is counted into its own primitive maps, and
+ * the partial counts are merged back up, smaller into larger.
+ */
+public final class CoOccurrenceBuilder {
+
+    private CoOccurrenceBuilder() {
+    }
+
+    /**
+     * @param baskets       the product ids of each order, in any order and possibly repeated
+     * @param maxBasketSize orders with more distinct products add no pairs
+     * @param splitSize     orders counted by one task
+     */
+    public static CoOccurrenceCounts count(int[][] baskets, int maxBasketSize, int splitSize) {
+        return ForkJoinPool.commonPool().invoke(new CountTask(baskets, maxBasketSize, 0, baskets.length, Math.max(1, splitSize)));
+    }
+
+    /**
+     * The distinct values of an array, sorted
+     */
+    static int[] distinctSorted(int[] products) {
+        int[] sorted = products.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    private static final class CountTask extends RecursiveTask<CoOccurrenceCounts> {
+        private final int[][] baskets;
+        private final int maxBasketSize;
+        private final int from;
+        private final int to;
+        private final int splitSize;
+
+        CountTask(int[][] baskets, int maxBasketSize, int from, int to, int splitSize) {
+            this.baskets = baskets;
+            this.maxBasketSize = maxBasketSize;
+            this.from = from;
+            this.to = to;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected CoOccurrenceCounts compute() {
+            if (to - from <= splitSize) {
+                // most orders add no pair or one, so start small and let the maps grow
+                CoOccurrenceCounts counts = new CoOccurrenceCounts(maxBasketSize, Math.min(to - from, 1024));
+                for (int i = from; i < to; i++) {
+                    counts.addBasket(distinctSorted(baskets[i]));
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(baskets, maxBasketSize, from, middle, splitSize);
+            left.fork();
+            CoOccurrenceCounts right = new CountTask(baskets, maxBasketSize, middle, to, splitSize).compute();
+            CoOccurrenceCounts merged = left.join();
+            // fold the smaller counts into the larger ones
+            if (merged.getPairCount() < right.getPairCount()) {
+                CoOccurrenceCounts swap = merged;
+                merged = right;
+                right = swap;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
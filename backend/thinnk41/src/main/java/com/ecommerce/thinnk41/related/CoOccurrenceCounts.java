@@ -0,0 +1,105 @@
+package com.ecommerce.thinnk41.related;
+
+/**
+ * How often each pair of products was bought in the same order, and how many orders each
+ * product is in. A pair is packed into one long, lower id in the high half, so both directions
+ * share a single count.
+ *
+ * Orders with more than max-basket-size products still count towards their products' orders
+ * but add no pairs: a bulk order says little about what goes together and would add
+ * n * (n - 1) / 2 pairs on its own.
+ */
+public final class CoOccurrenceCounts {
+
+    private static final int[] NONE = new int[0];
+
+    private final int maxBasketSize;
+    private final LongIntHashMap pairs;
+    private final LongIntHashMap orders;
+
+    CoOccurrenceCounts(int maxBasketSize, int expectedPairs) {
+        this.maxBasketSize = maxBasketSize;
+        this.pairs = new LongIntHashMap(expectedPairs);
+        this.orders = new LongIntHashMap(Math.max(16, expectedPairs / 8));
+    }
+
+    static long pair(int a, int b) {
+        return a < b ? ((long) a << 32) | (b & 0xFFFFFFFFL) : ((long) b << 32) | (a & 0xFFFFFFFFL);
+    }
+
+    static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int second(long pair) {
+        return (int) pair;
+    }
+
+    /**
+     * Count one order
+     *
+     * @param products the distinct products in the order
+     */
+    void addBasket(int[] products) {
+        addToBasket(NONE, products);
+    }
+
+    /**
+     * Count products added to an order that was already counted
+     *
+     * @param counted the distinct products of the order counted so far
+     * @param added   the distinct products new to the order
+     */
+    void addToBasket(int[] counted, int[] added) {
+        for (int product : added) {
+            orders.addTo(product, 1);
+        }
+        if (counted.length + added.length > maxBasketSize) {
+            return;
+        }
+        for (int i = 0; i < added.length; i++) {
+            for (int product : counted) {
+                pairs.addTo(pair(added[i], product), 1);
+            }
+            for (int j = i + 1; j < added.length; j++) {
+                pairs.addTo(pair(added[i], added[j]), 1);
+            }
+        }
+    }
+
+    void addAll(CoOccurrenceCounts other) {
+        pairs.addAll(other.pairs);
+        orders.addAll(other.orders);
+    }
+
+    int count(int a, int b) {
+        return pairs.get(pair(a, b));
+    }
+
+    int orders(int product) {
+        return orders.get(product);
+    }
+
+    void forEachPair(LongIntHashMap.Entry consumer) {
+        pairs.forEach(consumer);
+    }
+
+    void forEachProduct(LongIntHashMap.Entry consumer) {
+        orders.forEach(consumer);
+    }
+
+    public int getPairCount() {
+        return pairs.size();
+    }
+
+    public int getProductCount() {
+        return orders.size();
+    }
+
+    /**
+     * Bytes held by the count tables
+     */
+    public long footprintBytes() {
+        return pairs.footprintBytes() + orders.footprintBytes();
+    }
+}
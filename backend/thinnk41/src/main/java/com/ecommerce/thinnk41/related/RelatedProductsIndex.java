@@ -0,0 +1,326 @@
+package com.ecommerce.thinnk41.related;
+
+import com.ecommerce.thinnk41.dto.RelatedProductDTO;
+import com.ecommerce.thinnk41.entity.OrderItem;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products bought together, from the order_items of every order that was not cancelled.
+ *
+ * A full build reads each order's products, counts the pairs in parallel with
+ * {@link CoOccurrenceBuilder} and ranks the top partners of every product into a
+ * {@link RelatedTable}. The counts are kept, so new order items are folded in as they arrive:
+ * each one is paired with the items of its order counted so far, and only the products of the
+ * touched orders are ranked again. Items cancelled or returned after they were counted stay
+ * counted until the next full build, which runs when the counts are older than max-age.
+ * Lookups only read the current table and never touch the database.
+ */
+@Component
+public class RelatedProductsIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RelatedProductsIndex.class);
+
+    private static final String COUNTED =
+            "order_id IS NOT NULL AND product_id IS NOT NULL AND (status IS NULL OR status <> '" + OrderItem.STATUS_CANCELLED + "')";
+
+    private static final String ORDER_PRODUCTS =
+            "SELECT order_id, product_id FROM order_items WHERE id <= ? AND " + COUNTED;
+
+    private static final String NEW_ITEMS =
+            "SELECT id, order_id, product_id, status FROM order_items WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String EARLIER_ITEMS =
+            "SELECT order_id, product_id FROM order_items WHERE order_id IN (:orders) AND id <= :watermark AND " + COUNTED;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.related.top-k:20}")
+    private int topK;
+
+    @Value("${catalog.related.max-basket-size:50}")
+    private int maxBasketSize;
+
+    @Value("${catalog.related.split-size:10000}")
+    private int splitSize;
+
+    @Value("${catalog.related.catch-up-chunk-size:5000}")
+    private int catchUpChunkSize;
+
+    @Value("${catalog.related.max-age:6h}")
+    private Duration maxAge;
+
+    // counts and watermark are only written under the monitor; counts is volatile for the gauge
+    private volatile CoOccurrenceCounts counts;
+
+    private int watermark;
+
+    private volatile RelatedTable table;
+
+    private volatile long builtAt;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("catalog.related.products", this, index -> index.table != null ? index.table.getProductCount() : 0)
+                .description("Products with related products")
+                .register(meterRegistry);
+        Gauge.builder("catalog.related.pairs", this, index -> index.table != null ? index.table.getPartnerCount() : 0)
+                .description("Related products served, over all products")
+                .register(meterRegistry);
+        Gauge.builder("catalog.related.bytes", this, index -> index.table != null ? index.table.footprintBytes() : 0)
+                .description("Heap used by the related products table")
+                .baseUnit("bytes")
+                .tag("part", "table")
+                .register(meterRegistry);
+        Gauge.builder("catalog.related.bytes", this, index -> index.counts != null ? index.counts.footprintBytes() : 0)
+                .description("Heap used by the co-purchase counts")
+                .baseUnit("bytes")
+                .tag("part", "counts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Build everything on the first run and when the counts are older than max-age,
+     * otherwise fold in the order items added since the last run
+     */
+    @Scheduled(fixedDelayString = "${catalog.related.refresh-interval:60s}")
+    public synchronized void refresh() {
+        if (table == null || System.currentTimeMillis() - builtAt > maxAge.toMillis()) {
+            rebuild();
+        } else {
+            catchUp();
+        }
+    }
+
+    /**
+     * Count every order from scratch and swap in a new table
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        int maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM order_items", Integer.class);
+        int[][] baskets = readBaskets(maxId);
+        long read = System.nanoTime();
+        CoOccurrenceCounts built = CoOccurrenceBuilder.count(baskets, maxBasketSize, splitSize);
+        long counted = System.nanoTime();
+        RelatedTable ranked = RelatedTable.build(built, topK);
+
+        counts = built;
+        watermark = maxId;
+        table = ranked;
+        builtAt = System.currentTimeMillis();
+        long end = System.nanoTime();
+        log.info("Built related products: {} orders, {} pairs, {} products, table {} KB, counts {} KB in {} ms "
+                        + "(read {} ms, count {} ms, rank {} ms)",
+                baskets.length, built.getPairCount(), ranked.getProductCount(), ranked.footprintBytes() / 1024,
+                built.footprintBytes() / 1024, (end - start) / 1_000_000, (read - start) / 1_000_000,
+                (counted - read) / 1_000_000, (end - counted) / 1_000_000);
+    }
+
+    /**
+     * Fold order items written since the last build or catch-up into the counts and re-rank the
+     * products of their orders. Returns the number of order items read.
+     */
+    public synchronized int catchUp() {
+        if (counts == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int read = 0;
+        int affected = 0;
+        while (true) {
+            int from = watermark;
+            ItemBuffer added = new ItemBuffer();
+            int[] last = {from, 0}; // highest id read, rows read
+            jdbcTemplate.query(NEW_ITEMS, rs -> {
+                last[0] = rs.getInt(1);
+                last[1]++;
+                int orderId = rs.getInt(2);
+                boolean missing = rs.wasNull();
+                int productId = rs.getInt(3);
+                missing |= rs.wasNull();
+                if (!missing && !OrderItem.STATUS_CANCELLED.equals(rs.getString(4))) {
+                    added.add(orderId, productId);
+                }
+            }, from, catchUpChunkSize);
+            if (last[1] == 0) {
+                break;
+            }
+            int[] products = apply(added.sorted(), from);
+            if (products.length > 0) {
+                table = table.update(counts, products, topK);
+            }
+            watermark = last[0];
+            read += last[1];
+            affected += products.length;
+        }
+        if (read > 0) {
+            log.info("Caught up related products to order item {}: {} products re-ranked in {} ms",
+                    watermark, affected, (System.nanoTime() - start) / 1_000_000);
+        }
+        return read;
+    }
+
+    /**
+     * Whether a table has been built and can serve lookups
+     */
+    public boolean isReady() {
+        return table != null;
+    }
+
+    /**
+     * The products most often bought with a product, best first; empty for a product never
+     * bought with anything
+     */
+    public List<RelatedProductDTO> related(int productId, int limit) {
+        RelatedTable current = table;
+        int row = current != null ? current.find(productId) : -1;
+        if (row < 0) {
+            return List.of();
+        }
+        int end = Math.min(current.to(row), current.from(row) + limit);
+        List<RelatedProductDTO> related = new ArrayList<>(end - current.from(row));
+        for (int i = current.from(row); i < end; i++) {
+            related.add(new RelatedProductDTO(current.partner(i), current.score(i)));
+        }
+        return related;
+    }
+
+    // the products of each order, grouped by sorting the packed items rather than by the database
+    private int[][] readBaskets(int maxId) {
+        ItemBuffer items = new ItemBuffer();
+        jdbcTemplate.query(ORDER_PRODUCTS, rs -> {
+            items.add(rs.getInt(1), rs.getInt(2));
+        }, maxId);
+        long[] sorted = items.sorted();
+        List<int[]> baskets = new ArrayList<>();
+        for (int from = 0, to; from < sorted.length; from = to) {
+            to = endOfOrder(sorted, from);
+            baskets.add(productsOf(sorted, from, to));
+        }
+        return baskets.toArray(new int[0][]);
+    }
+
+    /**
+     * Count new items against the items of their orders up to the old watermark.
+     * Returns the products whose partners changed, sorted.
+     */
+    private int[] apply(long[] added, int oldWatermark) {
+        if (added.length == 0) {
+            return new int[0];
+        }
+        List<Integer> orders = new ArrayList<>();
+        for (int i = 0; i < added.length; i++) {
+            if (i == 0 || orderOf(added[i]) != orderOf(added[i - 1])) {
+                orders.add(orderOf(added[i]));
+            }
+        }
+        long[] earlier = readEarlier(orders, oldWatermark);
+
+        int[] affected = new int[0];
+        int next = 0;
+        int previous = 0;
+        while (next < added.length) {
+            int orderId = orderOf(added[next]);
+            int end = endOfOrder(added, next);
+            while (previous < earlier.length && orderOf(earlier[previous]) < orderId) {
+                previous++;
+            }
+            int previousEnd = previous < earlier.length && orderOf(earlier[previous]) == orderId
+                    ? endOfOrder(earlier, previous) : previous;
+            int[] counted = CoOccurrenceBuilder.distinctSorted(productsOf(earlier, previous, previousEnd));
+            int[] fresh = Arrays.stream(CoOccurrenceBuilder.distinctSorted(productsOf(added, next, end)))
+                    .filter(product -> Arrays.binarySearch(counted, product) < 0)
+                    .toArray();
+            if (fresh.length > 0) {
+                counts.addToBasket(counted, fresh);
+                int size = affected.length;
+                affected = Arrays.copyOf(affected, size + counted.length + fresh.length);
+                System.arraycopy(counted, 0, affected, size, counted.length);
+                System.arraycopy(fresh, 0, affected, size + counted.length, fresh.length);
+            }
+            next = end;
+            previous = previousEnd;
+        }
+        return CoOccurrenceBuilder.distinctSorted(affected);
+    }
+
+    private long[] readEarlier(List<Integer> orders, int oldWatermark) {
+        ItemBuffer earlier = new ItemBuffer();
+        for (int from = 0; from < orders.size(); from += 1000) {
+            namedParameterJdbcTemplate.query(EARLIER_ITEMS,
+                    Map.of("orders", orders.subList(from, Math.min(orders.size(), from + 1000)), "watermark", oldWatermark),
+                    rs -> {
+                        earlier.add(rs.getInt(1), rs.getInt(2));
+                    });
+        }
+        return earlier.sorted();
+    }
+
+    private static int endOfOrder(long[] items, int from) {
+        int to = from;
+        while (to < items.length && orderOf(items[to]) == orderOf(items[from])) {
+            to++;
+        }
+        return to;
+    }
+
+    private static int[] productsOf(long[] items, int from, int to) {
+        int[] products = new int[to - from];
+        for (int i = from; i < to; i++) {
+            products[i - from] = (int) items[i];
+        }
+        return products;
+    }
+
+    // order id in the high half, so a sort groups items by order
+    private static long orderProduct(int orderId, int productId) {
+        return ((long) orderId << 32) | (productId & 0xFFFFFFFFL);
+    }
+
+    private static int orderOf(long orderProduct) {
+        return (int) (orderProduct >>> 32);
+    }
+
+    /**
+     * Order items packed as order id and product id, growing as rows are read
+     */
+    private static final class ItemBuffer {
+        private long[] items = new long[1024];
+        private int size;
+
+        void add(int orderId, int productId) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = orderProduct(orderId, productId);
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(items, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
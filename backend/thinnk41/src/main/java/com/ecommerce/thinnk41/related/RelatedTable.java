@@ -0,0 +1,256 @@
+package com.ecommerce.thinnk41.related;
+
+import java.util.Arrays;
+
+/**
+ * The top partners of every product, packed into four flat arrays: product ids sorted for a
+ * binary search, and for each product a slice of the partner and score arrays, best first.
+ *
+ * The score is the confidence of the partner given the product: the share of the product's
+ * orders that also contain the partner. Partners are ranked by how many orders they share with
+ * the product, ties by lower id. Immutable; an update builds a new table.
+ */
+public final class RelatedTable {
+
+    static final RelatedTable EMPTY = new RelatedTable(new int[0], new int[1], new int[0], new float[0]);
+
+    private final int[] productIds;
+    private final int[] offsets;
+    private final int[] partners;
+    private final float[] scores;
+
+    private RelatedTable(int[] productIds, int[] offsets, int[] partners, float[] scores) {
+        this.productIds = productIds;
+        this.offsets = offsets;
+        this.partners = partners;
+        this.scores = scores;
+    }
+
+    /**
+     * Rank the top k partners of every product
+     */
+    public static RelatedTable build(CoOccurrenceCounts counts, int k) {
+        int[] products = new int[counts.getProductCount()];
+        int[] size = {0};
+        counts.forEachProduct((product, orders) -> products[size[0]++] = (int) product);
+        Arrays.sort(products);
+        return rank(counts, products, k);
+    }
+
+    /**
+     * A copy of this table with the partners of some products ranked again
+     *
+     * @param affected the products whose counts changed, sorted and distinct
+     */
+    RelatedTable update(CoOccurrenceCounts counts, int[] affected, int k) {
+        RelatedTable fresh = rank(counts, affected, k);
+        // rows of this table that are not replaced, merged with the fresh rows by product id
+        int rows = 0;
+        int length = fresh.partners.length;
+        for (int row = 0; row < productIds.length; row++) {
+            if (Arrays.binarySearch(affected, productIds[row]) < 0) {
+                rows++;
+                length += offsets[row + 1] - offsets[row];
+            }
+        }
+        rows += fresh.productIds.length;
+
+        int[] mergedIds = new int[rows];
+        int[] mergedOffsets = new int[rows + 1];
+        int[] mergedPartners = new int[length];
+        float[] mergedScores = new float[length];
+        int kept = 0;
+        int added = 0;
+        int end = 0;
+        for (int row = 0; row < rows; row++) {
+            while (kept < productIds.length && Arrays.binarySearch(affected, productIds[kept]) >= 0) {
+                kept++;
+            }
+            RelatedTable source;
+            int sourceRow;
+            if (added == fresh.productIds.length
+                    || (kept < productIds.length && productIds[kept] < fresh.productIds[added])) {
+                source = this;
+                sourceRow = kept++;
+            } else {
+                source = fresh;
+                sourceRow = added++;
+            }
+            int from = source.offsets[sourceRow];
+            int count = source.offsets[sourceRow + 1] - from;
+            mergedIds[row] = source.productIds[sourceRow];
+            System.arraycopy(source.partners, from, mergedPartners, end, count);
+            System.arraycopy(source.scores, from, mergedScores, end, count);
+            end += count;
+            mergedOffsets[row + 1] = end;
+        }
+        return new RelatedTable(mergedIds, mergedOffsets, mergedPartners, mergedScores);
+    }
+
+    /**
+     * The row of a product, or -1 when it has no partners
+     */
+    public int find(int productId) {
+        return Math.max(-1, Arrays.binarySearch(productIds, productId));
+    }
+
+    public int from(int row) {
+        return offsets[row];
+    }
+
+    public int to(int row) {
+        return offsets[row + 1];
+    }
+
+    public int partner(int index) {
+        return partners[index];
+    }
+
+    public float score(int index) {
+        return scores[index];
+    }
+
+    public int getProductCount() {
+        return productIds.length;
+    }
+
+    public int getPartnerCount() {
+        return partners.length;
+    }
+
+    /**
+     * Bytes held by the table's arrays
+     */
+    public long footprintBytes() {
+        return 4L * (productIds.length + offsets.length + partners.length) + (long) Float.BYTES * scores.length;
+    }
+
+    // one pass over the pair counts, offering each pair to both of its products if they are being ranked
+    private static RelatedTable rank(CoOccurrenceCounts counts, int[] products, int k) {
+        TopK top = new TopK(products.length, k);
+        counts.forEachPair((pair, count) -> {
+            int a = CoOccurrenceCounts.first(pair);
+            int b = CoOccurrenceCounts.second(pair);
+            int row = Arrays.binarySearch(products, a);
+            if (row >= 0) {
+                top.offer(row, b, count);
+            }
+            row = Arrays.binarySearch(products, b);
+            if (row >= 0) {
+                top.offer(row, a, count);
+            }
+        });
+
+        int rows = 0;
+        int length = 0;
+        for (int row = 0; row < products.length; row++) {
+            if (top.sizes[row] > 0) {
+                rows++;
+                length += top.sizes[row];
+            }
+        }
+        int[] productIds = new int[rows];
+        int[] offsets = new int[rows + 1];
+        int[] partners = new int[length];
+        float[] scores = new float[length];
+        int out = 0;
+        int end = 0;
+        for (int row = 0; row < products.length; row++) {
+            int size = top.sizes[row];
+            if (size == 0) {
+                continue;
+            }
+            top.sortBestFirst(row);
+            float orders = Math.max(1, counts.orders(products[row]));
+            for (int i = 0; i < size; i++) {
+                partners[end + i] = top.ids[row * k + i];
+                scores[end + i] = top.counts[row * k + i] / orders;
+            }
+            end += size;
+            productIds[out] = products[row];
+            offsets[++out] = end;
+        }
+        return new RelatedTable(productIds, offsets, partners, scores);
+    }
+
+    /**
+     * A bounded min-heap per row, all in flat arrays; the root of a row is its weakest partner
+     */
+    private static final class TopK {
+        private final int k;
+        private final int[] ids;
+        private final int[] counts;
+        private final int[] sizes;
+
+        TopK(int rows, int k) {
+            this.k = k;
+            this.ids = new int[rows * k];
+            this.counts = new int[rows * k];
+            this.sizes = new int[rows];
+        }
+
+        void offer(int row, int id, int count) {
+            int base = row * k;
+            int size = sizes[row];
+            if (size < k) {
+                ids[base + size] = id;
+                counts[base + size] = count;
+                sizes[row] = size + 1;
+                siftUp(base, size);
+            } else if (k > 0 && weaker(counts[base], ids[base], count, id)) {
+                ids[base] = id;
+                counts[base] = count;
+                siftDown(base, 0, size);
+            }
+        }
+
+        // heapsort in place: moving the weakest to the back leaves the row strongest first
+        void sortBestFirst(int row) {
+            int base = row * k;
+            for (int size = sizes[row] - 1; size > 0; size--) {
+                swap(base, base + size);
+                siftDown(base, 0, size);
+            }
+        }
+
+        private void siftUp(int base, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!weaker(counts[base + index], ids[base + index], counts[base + parent], ids[base + parent])) {
+                    return;
+                }
+                swap(base + index, base + parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int base, int index, int size) {
+            while (true) {
+                int weakest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (weaker(counts[base + child], ids[base + child], counts[base + weakest], ids[base + weakest])) {
+                        weakest = child;
+                    }
+                }
+                if (weakest == index) {
+                    return;
+                }
+                swap(base + index, base + weakest);
+                index = weakest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            int count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+        }
+
+        private static boolean weaker(int count, int id, int otherCount, int otherId) {
+            return count < otherCount || (count == otherCount && id > otherId);
+        }
+    }
+}
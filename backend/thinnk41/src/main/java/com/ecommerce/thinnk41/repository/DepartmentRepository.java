@@ -1,5 +1,7 @@
 package com.ecommerce.thinnk41.repository;
 
+import com.ecommerce.thinnk41.dto.DepartmentDTO;
+import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
 import com.ecommerce.thinnk41.entity.Department;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -23,14 +25,28 @@ public interface DepartmentRepository extends JpaRepository<Department, Integer>
     boolean existsByName(String name);
     
     /**
-     * Get all departments with product count using JOIN
+     * Get department summary by ID without loading the entity
      */
-    @Query("SELECT d, COUNT(p.id) as productCount FROM Department d LEFT JOIN d.products p GROUP BY d.id, d.name, d.description")
-    List<Object[]> findAllDepartmentsWithProductCount();
+    @Query("SELECT new com.ecommerce.thinnk41.dto.DepartmentDTO(d.id, d.name, d.description) FROM Department d WHERE d.id = :id")
+    Optional<DepartmentDTO> findSummaryById(@Param("id") Integer id);
+    
+    /**
+     * Get department summary by name without loading the entity
+     */
+    @Query("SELECT new com.ecommerce.thinnk41.dto.DepartmentDTO(d.id, d.name, d.description) FROM Department d WHERE d.name = :name")
+    Optional<DepartmentDTO> findSummaryByName(@Param("name") String name);
+    
+    /**
+     * Get all departments with product count using an aggregate JOIN (no entities are materialized)
+     */
+    @Query("SELECT new com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO(d.id, d.name, d.description, COUNT(p.id)) " +
+           "FROM Department d LEFT JOIN d.products p GROUP BY d.id, d.name, d.description ORDER BY d.id")
+    List<DepartmentWithProductCountDTO> findAllDepartmentsWithProductCount();
     
     /**
      * Get department with product count by ID
      */
-    @Query("SELECT d, COUNT(p.id) as productCount FROM Department d LEFT JOIN d.products p WHERE d.id = :id GROUP BY d.id, d.name, d.description")
-    Optional<Object[]> findDepartmentWithProductCountById(@Param("id") Integer id);
-} 
\ No newline at end of file
+    @Query("SELECT new com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO(d.id, d.name, d.description, COUNT(p.id)) " +
+           "FROM Department d LEFT JOIN d.products p WHERE d.id = :id GROUP BY d.id, d.name, d.description")
+    Optional<DepartmentWithProductCountDTO> findDepartmentWithProductCountById(@Param("id") Integer id);
+} 
@@ -0,0 +1,9 @@
+package com.ecommerce.thinnk41.repository;
+
+import com.ecommerce.thinnk41.entity.DistributionCenter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DistributionCenterRepository extends JpaRepository<DistributionCenter, Integer> {
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.thinnk41.repository;
+
+import com.ecommerce.thinnk41.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
+    
+    // Find the items of an order
+    List<OrderItem> findByOrderId(Integer orderId);
+    
+    // Count the order items of every ordered product (popularity for the suggest index)
+    @Query("SELECT i.productId AS productId, COUNT(i) AS orders FROM OrderItem i WHERE i.productId IS NOT NULL GROUP BY i.productId")
+    List<ProductOrderCount> findProductOrderCounts();
+}
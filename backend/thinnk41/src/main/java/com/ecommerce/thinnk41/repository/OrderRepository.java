@@ -0,0 +1,14 @@
+package com.ecommerce.thinnk41.repository;
+
+import com.ecommerce.thinnk41.entity.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Integer> {
+    
+    // Find the orders placed by a user
+    List<Order> findByUserId(Integer userId);
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.thinnk41.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of the filterable columns of a product.
+ */
+public interface ProductFacetView {
+    Integer getId();
+    String getCategory();
+    String getBrand();
+    BigDecimal getRetailPrice();
+    Integer getDepartmentId();
+    String getDepartmentName();
+    Integer getDistributionCenterId();
+}
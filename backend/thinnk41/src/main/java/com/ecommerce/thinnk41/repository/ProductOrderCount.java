@@ -0,0 +1,9 @@
+package com.ecommerce.thinnk41.repository;
+
+/**
+ * Number of order items placed for a product.
+ */
+public interface ProductOrderCount {
+    Integer getProductId();
+    Long getOrders();
+}
@@ -1,17 +1,37 @@
 package com.ecommerce.thinnk41.repository;
 
 import com.ecommerce.thinnk41.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product> {
+    
+    // Find a product by SKU
+    Optional<Product> findFirstBySku(String sku);
+    
+    // Find products by ID with their departments in one query (used by the batch lookup)
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.department WHERE p.id IN :ids")
+    List<Product> findAllWithDepartmentByIdIn(@Param("ids") Collection<Integer> ids);
+    
+    // Find products by SKU with their departments in one query (used by the batch lookup)
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.department WHERE p.sku IN :skus ORDER BY p.id")
+    List<Product> findAllWithDepartmentBySkuIn(@Param("skus") Collection<String> skus);
     
     // Find products by category with pagination
     Page<Product> findByCategory(String category, Pageable pageable);
@@ -19,13 +39,24 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     // Find products by brand with pagination
     Page<Product> findByBrand(String brand, Pageable pageable);
     
-    // Find products by department ID with pagination
+    // Find products by department ID with pagination (department fetched in the same query)
+    @EntityGraph(attributePaths = "department")
     Page<Product> findByDepartmentId(Integer departmentId, Pageable pageable);
     
     // Find products by department name using JOIN
     @Query("SELECT p FROM Product p JOIN p.department d WHERE d.name = :departmentName")
     Page<Product> findByDepartmentName(@Param("departmentName") String departmentName, Pageable pageable);
     
+    // Load the searchable text of every product (used to build the in-memory search index)
+    @Query("SELECT p.id AS id, p.name AS name, p.brand AS brand, p.category AS category FROM Product p")
+    List<ProductTextView> findAllTextViews();
+    
+    // Load the filterable columns of every product (used to build the in-memory facet index)
+    @Query("SELECT p.id AS id, p.category AS category, p.brand AS brand, p.retailPrice AS retailPrice, " +
+           "d.id AS departmentId, d.name AS departmentName, p.distributionCenterId AS distributionCenterId " +
+           "FROM Product p LEFT JOIN p.department d ORDER BY p.id")
+    List<ProductFacetView> findAllFacetViews();
+    
     // Find products by name (case-insensitive) with pagination
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
@@ -40,4 +71,20 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     // Get products with department names by brand
     @Query("SELECT p, d.name as departmentName FROM Product p LEFT JOIN p.department d WHERE p.brand = :brand")
     Page<Object[]> findProductsWithDepartmentNamesByBrand(@Param("brand") String brand, Pageable pageable);
-} 
\ No newline at end of file
+    
+    // Stream products with their department for export; the fetch size keeps the driver on a forward-only cursor
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.department d " +
+           "WHERE (:departmentId IS NULL OR d.id = :departmentId) " +
+           "AND (:category IS NULL OR p.category = :category) " +
+           "AND (:brand IS NULL OR p.brand = :brand) " +
+           "AND (:updatedSince IS NULL OR p.updatedAt >= :updatedSince) " +
+           "ORDER BY p.id")
+    Stream<Product> streamForExport(@Param("departmentId") Integer departmentId,
+                                    @Param("category") String category,
+                                    @Param("brand") String brand,
+                                    @Param("updatedSince") LocalDateTime updatedSince);
+}
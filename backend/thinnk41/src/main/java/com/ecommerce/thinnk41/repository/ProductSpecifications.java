@@ -0,0 +1,55 @@
+package com.ecommerce.thinnk41.repository;
+
+import com.ecommerce.thinnk41.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+/**
+ * Reusable product filters for the specification-based listing queries.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<Product> hasCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Product> hasBrand(String brand) {
+        return (root, query, cb) -> cb.equal(root.get("brand"), brand);
+    }
+
+    public static Specification<Product> inDepartment(Integer departmentId) {
+        return (root, query, cb) -> cb.equal(root.get("department").get("id"), departmentId);
+    }
+
+    public static Specification<Product> inDepartmentNamed(String departmentName) {
+        return (root, query, cb) -> cb.equal(root.join("department").get("name"), departmentName);
+    }
+
+    public static Specification<Product> priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return (root, query, cb) -> {
+            if (minPrice == null) {
+                return cb.lessThanOrEqualTo(root.get("retailPrice"), maxPrice);
+            }
+            if (maxPrice == null) {
+                return cb.greaterThanOrEqualTo(root.get("retailPrice"), minPrice);
+            }
+            return cb.between(root.get("retailPrice"), minPrice, maxPrice);
+        };
+    }
+
+    public static Specification<Product> hasValue(String attribute) {
+        return (root, query, cb) -> cb.isNotNull(root.get(attribute));
+    }
+
+    public static Specification<Product> hasNoValue(String attribute) {
+        return (root, query, cb) -> cb.isNull(root.get(attribute));
+    }
+}
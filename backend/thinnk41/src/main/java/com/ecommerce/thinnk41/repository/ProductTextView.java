@@ -0,0 +1,11 @@
+package com.ecommerce.thinnk41.repository;
+
+/**
+ * Projection of the searchable text columns of a product.
+ */
+public interface ProductTextView {
+    Integer getId();
+    String getName();
+    String getBrand();
+    String getCategory();
+}
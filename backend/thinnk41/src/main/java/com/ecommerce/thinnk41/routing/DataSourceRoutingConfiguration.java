@@ -0,0 +1,71 @@
+package com.ecommerce.thinnk41.routing;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with one that routes read-only transactions to the
+ * read replicas listed in {@code catalog.datasource.replicas.urls}. Without replicas every
+ * connection comes from the primary pool, configured by the usual spring.datasource properties.
+ */
+@Configuration
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaPool replicaPool(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                   @Value("${catalog.datasource.replicas.urls:}") List<String> urls,
+                                   @Value("${catalog.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                   @Value("${catalog.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                   @Value("${catalog.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                   @Value("${catalog.datasource.replicas.connection-timeout:250ms}") Duration connectionTimeout,
+                                   @Value("${catalog.datasource.replicas.validation-timeout:1s}") Duration validationTimeout) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setValidationTimeout(validationTimeout.toMillis());
+            config.setReadOnly(true);
+            // start even when a replica is unreachable; the health check brings it in later
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        return new ReplicaPool(replicas, validationTimeout, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool, MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaPool, meterRegistry));
+    }
+}
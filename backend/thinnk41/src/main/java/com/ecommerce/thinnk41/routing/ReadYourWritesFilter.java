@@ -0,0 +1,73 @@
+package com.ecommerce.thinnk41.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps a client that just wrote on the primary for a while, so it reads its own writes even if
+ * the replicas lag. The first write in a request sets a cookie holding the time the pin ends;
+ * requests carrying an unexpired cookie read from the primary. The client controls the cookie, so
+ * an end further away than one window is ignored rather than pinning it for longer.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "catalog-primary-until";
+
+    @Value("${catalog.datasource.read-your-writes-window:5s}")
+    private Duration window;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReplicaRoutingContext.open(isPinned(request), () -> pin(response));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingContext.close();
+        }
+    }
+
+    private boolean isPinned(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    long now = System.currentTimeMillis();
+                    return until > now && until <= now + window.toMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void pin(HttpServletResponse response) {
+        if (response.isCommitted() || window.isZero()) {
+            return;
+        }
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, String.valueOf(System.currentTimeMillis() + window.toMillis()))
+                .maxAge(window)
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.thinnk41.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas, handed out round-robin among the healthy ones. A replica that fails to
+ * give a connection is marked down until the next health check finds it answering again.
+ */
+@Slf4j
+public class ReplicaPool implements Closeable {
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final int validationTimeoutSeconds;
+
+    public ReplicaPool(Map<String, DataSource> replicas, Duration validationTimeout, MeterRegistry meterRegistry) {
+        this.validationTimeoutSeconds = (int) Math.max(1, validationTimeout.toSeconds());
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource,
+                Counter.builder("catalog.datasource.connections")
+                        .description("Connections handed out, by target database and routing reason")
+                        .tag("target", name)
+                        .tag("reason", "read")
+                        .register(meterRegistry),
+                Counter.builder("catalog.datasource.replica.failures")
+                        .description("Times a replica was marked down")
+                        .tag("replica", name)
+                        .register(meterRegistry))));
+        Gauge.builder("catalog.datasource.replicas.healthy", this, ReplicaPool::healthyCount)
+                .description("Read replicas currently taking reads")
+                .register(meterRegistry);
+    }
+
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    public int healthyCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    /**
+     * Get a connection from the next healthy replica, or null when none can give one
+     */
+    public Connection getConnection() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Probe every replica and bring the answering ones back into rotation
+     */
+    @Scheduled(fixedDelayString = "${catalog.datasource.replicas.health-check-interval:5s}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(validationTimeoutSeconds)) {
+                    throw new SQLException("Connection did not validate within " + validationTimeoutSeconds + "s");
+                }
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Read replica {} is back in rotation", replica.name);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    private void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            replica.failures.increment();
+            log.warn("Read replica {} is down, reads fall back to the other replicas or the primary: {}",
+                    replica.name, cause.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter routed;
+        private final Counter failures;
+        private volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource, Counter routed, Counter failures) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.routed = routed;
+            this.failures = failures;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecommerce.thinnk41.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing state. Inside a request scope (see {@link ReadYourWritesFilter}) the first
+ * write pins the rest of the request to the primary, and {@link #onPrimary} pins a single call.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private static final ThreadLocal<Integer> PRIMARY_CALLS = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    /**
+     * Start a request scope, pinned to the primary from the start or not
+     */
+    public static void open(boolean pinnedToPrimary, Runnable onFirstWrite) {
+        SCOPE.set(new Scope(pinnedToPrimary, onFirstWrite));
+    }
+
+    /**
+     * End the request scope
+     */
+    public static void close() {
+        SCOPE.remove();
+    }
+
+    /**
+     * Run a call with every read going to the primary, e.g. when its result is cached
+     */
+    public static <T> T onPrimary(Supplier<T> call) {
+        Integer depth = PRIMARY_CALLS.get();
+        PRIMARY_CALLS.set(depth == null ? 1 : depth + 1);
+        try {
+            return call.get();
+        } finally {
+            if (depth == null) {
+                PRIMARY_CALLS.remove();
+            } else {
+                PRIMARY_CALLS.set(depth);
+            }
+        }
+    }
+
+    public static boolean isPinnedToPrimary() {
+        Scope scope = SCOPE.get();
+        return PRIMARY_CALLS.get() != null || (scope != null && scope.pinned);
+    }
+
+    /**
+     * Called when a read-write transaction takes a connection
+     */
+    static void recordWrite() {
+        Scope scope = SCOPE.get();
+        if (scope == null || scope.wrote) {
+            return;
+        }
+        scope.wrote = true;
+        scope.pinned = true;
+        scope.onFirstWrite.run();
+    }
+
+    private static final class Scope {
+        private boolean pinned;
+        private boolean wrote;
+        private final Runnable onFirstWrite;
+
+        Scope(boolean pinned, Runnable onFirstWrite) {
+            this.pinned = pinned;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.thinnk41.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica and everything else to the
+ * primary. It decides when the connection is taken, so it sits behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers that
+ * until the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+
+    private final ReplicaPool replicas;
+
+    private final Counter writes;
+
+    private final Counter primaryReads;
+
+    private final Counter pinnedReads;
+
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.writes = primaryCounter("write", meterRegistry);
+        this.primaryReads = primaryCounter("read", meterRegistry);
+        this.pinnedReads = primaryCounter("pinned", meterRegistry);
+        this.fallbackReads = primaryCounter("fallback", meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReplicaRoutingContext.recordWrite();
+            }
+            writes.increment();
+            return primary.getConnection();
+        }
+        if (replicas.isEmpty()) {
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+        if (ReplicaRoutingContext.isPinnedToPrimary()) {
+            pinnedReads.increment();
+            return primary.getConnection();
+        }
+        Connection connection = replicas.getConnection();
+        if (connection != null) {
+            return connection;
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Routed connections use the configured credentials");
+    }
+
+    private static Counter primaryCounter(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("catalog.datasource.connections")
+                .description("Connections handed out, by target database and routing reason")
+                .tag("target", "primary")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
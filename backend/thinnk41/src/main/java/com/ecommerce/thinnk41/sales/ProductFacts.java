@@ -0,0 +1,15 @@
+package com.ecommerce.thinnk41.sales;
+
+import lombok.Value;
+
+/**
+ * The product attributes a sale is rolled up by, and its price and cost in cents.
+ */
+@Value
+class ProductFacts {
+    int departmentId;
+    String category;
+    String brand;
+    long retailCents;
+    long costCents;
+}
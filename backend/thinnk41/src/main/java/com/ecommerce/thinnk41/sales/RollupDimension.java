@@ -0,0 +1,31 @@
+package com.ecommerce.thinnk41.sales;
+
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+
+/**
+ * Dimensions the rollups can be grouped by, with the column each one reads.
+ */
+public enum RollupDimension {
+    DEPARTMENT("r.department_id"),
+    CATEGORY("r.category"),
+    BRAND("r.brand"),
+    DAY("r.sale_date");
+
+    private final String column;
+
+    RollupDimension(String column) {
+        this.column = column;
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    public static RollupDimension fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown rollup dimension '" + name + "', expected one of department, category, brand, day");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.thinnk41.sales;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * The grain of the rollup table: one row per day, department, category and brand.
+ */
+@Value
+public class SalesRollupKey {
+    LocalDate day;
+    int departmentId;
+    String category;
+    String brand;
+}
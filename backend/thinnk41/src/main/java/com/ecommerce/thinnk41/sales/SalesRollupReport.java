@@ -0,0 +1,14 @@
+package com.ecommerce.thinnk41.sales;
+
+import lombok.Value;
+
+/**
+ * Outcome of folding order items into the rollups.
+ */
+@Value
+public class SalesRollupReport {
+    long orderItems;
+    long skipped;
+    long rollupRows;
+    long elapsedMillis;
+}
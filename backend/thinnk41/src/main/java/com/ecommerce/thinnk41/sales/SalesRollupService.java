@@ -0,0 +1,294 @@
+package com.ecommerce.thinnk41.sales;
+
+import com.ecommerce.thinnk41.concurrency.Bulkheaded;
+import com.ecommerce.thinnk41.dto.SalesRollupDTO;
+import com.ecommerce.thinnk41.entity.OrderItem;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import com.ecommerce.thinnk41.repository.OrderItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Maintains the sales rollups: revenue, cost, units and returns per day, department, category and brand.
+ *
+ * New order items are folded in incrementally: each chunk of items not rolled up yet adds its
+ * totals onto the existing rows and flags its items as rolled up in the same transaction, so
+ * nothing is ever counted twice or recomputed. Items are flagged one by one rather than below an
+ * id, because other writers (the bulk ingestion) commit ids out of order. A full backfill rebuilds
+ * the table from every order item with a fork/join aggregation. All writers lock one row of
+ * sales_rollup_lock first, which serializes them across instances as well as threads.
+ *
+ * Order items carry no sale price, so a unit is valued at its product's retail price and cost at
+ * the time it is rolled up.
+ */
+@Service
+@Bulkheaded
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    @Autowired
+    private SalesRollupStore salesRollupStore;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.sales.rollup.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${catalog.sales.rollup.backfill-split-size:20000}")
+    private int backfillSplitSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Get sales totals grouped by a dimension, read from the rollups only
+     */
+    public List<SalesRollupDTO> getRollups(RollupDimension groupBy, LocalDate from, LocalDate to, Integer departmentId,
+                                           String category, String brand, int limit) {
+        return salesRollupStore.query(groupBy, from, to, departmentId, category, brand, limit);
+    }
+
+    /**
+     * Append new order items and fold them into the rollups. The items are inserted holding the
+     * rollup lock, so a concurrent catch-up does not fold them in halfway through.
+     */
+    public SalesRollupReport appendOrderItems(List<OrderItem> items) {
+        for (OrderItem item : items) {
+            if (item.getId() == null || item.getProductId() == null) {
+                throw new InvalidRequestException("Order items need an id and a productId");
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            salesRollupStore.lock();
+            List<Integer> ids = items.stream().map(OrderItem::getId).toList();
+            if (!orderItemRepository.findAllById(ids).isEmpty() || new HashSet<>(ids).size() != ids.size()) {
+                throw new InvalidRequestException("Order items can only be appended once");
+            }
+            orderItemRepository.saveAll(items);
+        });
+        return catchUp();
+    }
+
+    /**
+     * Fold every order item not rolled up yet into the rollups, one chunk per transaction
+     */
+    public SalesRollupReport catchUp() {
+        long start = System.currentTimeMillis();
+        long[] counts = new long[3];
+        boolean more = true;
+        while (more) {
+            more = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                salesRollupStore.lock();
+                List<int[]> rows = new ArrayList<>();
+                List<LocalDate> days = new ArrayList<>();
+                salesRollupStore.readPendingOrderItems(chunkSize, (id, productId, day, returned) -> {
+                    rows.add(new int[]{id, productId, returned ? 1 : 0});
+                    days.add(day);
+                });
+                if (rows.isEmpty()) {
+                    return false;
+                }
+                Set<Integer> productIds = new HashSet<>();
+                rows.forEach(row -> productIds.add(row[1]));
+                Map<Integer, ProductFacts> facts = salesRollupStore.loadProductFacts(productIds);
+
+                Map<SalesRollupKey, SalesTotals> totals = new HashMap<>();
+                for (int i = 0; i < rows.size(); i++) {
+                    int[] row = rows.get(i);
+                    if (!add(totals, facts.get(row[1]), days.get(i), row[2] == 1)) {
+                        counts[1]++;
+                    }
+                }
+                salesRollupStore.addToRollups(totals);
+                salesRollupStore.markRolledUp(rows.stream().mapToInt(row -> row[0]).toArray());
+                counts[0] += rows.size();
+                counts[2] += totals.size();
+                return rows.size() == chunkSize;
+            }));
+        }
+        return new SalesRollupReport(counts[0], counts[1], counts[2], System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Pick up order items written by other processes, such as the bulk ingestion command
+     */
+    @Scheduled(fixedDelayString = "${catalog.sales.rollup.catch-up-interval:60s}",
+               initialDelayString = "${catalog.sales.rollup.catch-up-interval:60s}")
+    public void scheduledCatchUp() {
+        SalesRollupReport report = catchUp();
+        if (report.getOrderItems() > 0) {
+            log.info("Rolled up {} new order items into {} rows", report.getOrderItems(), report.getRollupRows());
+        }
+    }
+
+    /**
+     * Rebuild the rollups from every order item with a parallel aggregation
+     */
+    public SalesRollupReport backfill() {
+        long start = System.currentTimeMillis();
+        return transactionTemplate.execute(status -> {
+            salesRollupStore.lock();
+            Map<Integer, ProductFacts> facts = salesRollupStore.loadAllProductFacts();
+
+            OrderItemColumns columns = new OrderItemColumns();
+            salesRollupStore.readAllOrderItems(columns::add);
+            AggregateTask task = new AggregateTask(columns, facts, 0, columns.size, backfillSplitSize);
+            Map<SalesRollupKey, SalesTotals> totals = ForkJoinPool.commonPool().invoke(task);
+            long skipped = columns.size - totals.values().stream().mapToLong(SalesTotals::getUnits).sum();
+
+            salesRollupStore.replaceRollups(totals);
+            // only what was read: a lower id still uncommitted is left to the catch-up
+            int[] ids = Arrays.copyOf(columns.ids, columns.size);
+            Arrays.sort(ids);
+            salesRollupStore.markRolledUp(ids);
+            SalesRollupReport report = new SalesRollupReport(columns.size, skipped, totals.size(),
+                    System.currentTimeMillis() - start);
+            log.info("Backfilled sales rollups: {}", report);
+            return report;
+        });
+    }
+
+    /**
+     * Mark an order item as returned and count the return. Returns false if the item does not exist.
+     */
+    public boolean recordReturn(Integer orderItemId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            salesRollupStore.lock();
+            Optional<OrderItem> found = orderItemRepository.findById(orderItemId);
+            if (found.isEmpty()) {
+                return false;
+            }
+            OrderItem item = found.get();
+            if (item.isReturned()) {
+                return true;
+            }
+            item.setReturnedAt(LocalDateTime.now());
+            item.setStatus(OrderItem.STATUS_RETURNED);
+            orderItemRepository.save(item);
+            // items not rolled up yet are counted as returned when the catch-up reaches them
+            if (salesRollupStore.isRolledUp(item.getId()) && item.getCreatedAt() != null) {
+                ProductFacts facts = salesRollupStore.loadProductFacts(List.of(item.getProductId())).get(item.getProductId());
+                if (facts != null) {
+                    SalesTotals totals = new SalesTotals();
+                    totals.addReturn();
+                    salesRollupStore.addToRollups(Map.of(key(facts, item.getCreatedAt().toLocalDate()), totals));
+                }
+            }
+            return true;
+        }));
+    }
+
+    private static boolean add(Map<SalesRollupKey, SalesTotals> totals, ProductFacts facts, LocalDate day, boolean returned) {
+        if (facts == null || day == null) {
+            return false;
+        }
+        totals.computeIfAbsent(key(facts, day), k -> new SalesTotals())
+                .addUnit(facts.getRetailCents(), facts.getCostCents(), returned);
+        return true;
+    }
+
+    private static SalesRollupKey key(ProductFacts facts, LocalDate day) {
+        return new SalesRollupKey(day, facts.getDepartmentId(), facts.getCategory(), facts.getBrand());
+    }
+
+    /**
+     * Order items held column-wise for the backfill
+     */
+    private static final class OrderItemColumns {
+        private int[] ids = new int[1024];
+        private int[] productIds = new int[1024];
+        private LocalDate[] days = new LocalDate[1024];
+        private boolean[] returned = new boolean[1024];
+        private int size;
+
+        void add(int id, int productId, LocalDate day, boolean isReturned) {
+            if (size == productIds.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                productIds = Arrays.copyOf(productIds, size * 2);
+                days = Arrays.copyOf(days, size * 2);
+                returned = Arrays.copyOf(returned, size * 2);
+            }
+            ids[size] = id;
+            productIds[size] = productId;
+            days[size] = day;
+            returned[size] = isReturned;
+            size++;
+        }
+    }
+
+    /**
+     * Aggregates a range of order items, splitting it in halves until the ranges are small
+     */
+    private static final class AggregateTask extends RecursiveTask<Map<SalesRollupKey, SalesTotals>> {
+        private final OrderItemColumns columns;
+        private final Map<Integer, ProductFacts> facts;
+        private final int from;
+        private final int to;
+        private final int splitSize;
+
+        AggregateTask(OrderItemColumns columns, Map<Integer, ProductFacts> facts, int from, int to, int splitSize) {
+            this.columns = columns;
+            this.facts = facts;
+            this.from = from;
+            this.to = to;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected Map<SalesRollupKey, SalesTotals> compute() {
+            if (to - from <= splitSize) {
+                Map<SalesRollupKey, SalesTotals> totals = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    add(totals, facts.get(columns.productIds[i]), columns.days[i], columns.returned[i]);
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(columns, facts, from, middle, splitSize);
+            left.fork();
+            Map<SalesRollupKey, SalesTotals> right = new AggregateTask(columns, facts, middle, to, splitSize).compute();
+            Map<SalesRollupKey, SalesTotals> merged = left.join();
+            // fold the smaller map into the larger one
+            if (merged.size() < right.size()) {
+                Map<SalesRollupKey, SalesTotals> swap = merged;
+                merged = right;
+                right = swap;
+            }
+            Map<SalesRollupKey, SalesTotals> target = merged;
+            right.forEach((key, total) -> target.merge(key, total, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+            return target;
+        }
+    }
+}
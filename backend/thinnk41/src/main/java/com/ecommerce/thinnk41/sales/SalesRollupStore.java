@@ -0,0 +1,205 @@
+package com.ecommerce.thinnk41.sales;
+
+import com.ecommerce.thinnk41.dto.SalesRollupDTO;
+import com.ecommerce.thinnk41.entity.OrderItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC access to the rollup tables and to the raw rows they are built from.
+ */
+@Component
+class SalesRollupStore {
+
+    private static final String UPSERT_INCREMENT =
+            "INSERT INTO sales_rollups (sale_date, department_id, category, brand, units, returned_units, revenue, cost) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "units = units + VALUES(units), returned_units = returned_units + VALUES(returned_units), " +
+            "revenue = revenue + VALUES(revenue), cost = cost + VALUES(cost)";
+
+    private static final String INSERT =
+            "INSERT INTO sales_rollups (sale_date, department_id, category, brand, units, returned_units, revenue, cost) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String PRODUCT_FACTS =
+            "SELECT id, department_id, category, brand, retail_price, cost FROM products";
+
+    private static final String ORDER_ITEM_COLUMNS =
+            "SELECT id, product_id, created_at, returned_at, status FROM order_items";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lock the rollup lock row until the transaction ends, so rollup writers take turns
+     */
+    void lock() {
+        jdbcTemplate.queryForObject("SELECT id FROM sales_rollup_lock WHERE id = 1 FOR UPDATE", Integer.class);
+    }
+
+    /**
+     * Add the totals onto the existing rollup rows, creating missing ones
+     */
+    void addToRollups(Map<SalesRollupKey, SalesTotals> totals) {
+        jdbcTemplate.batchUpdate(UPSERT_INCREMENT, rows(totals));
+    }
+
+    /**
+     * Replace the whole rollup table with the given totals
+     */
+    void replaceRollups(Map<SalesRollupKey, SalesTotals> totals) {
+        jdbcTemplate.update("DELETE FROM sales_rollups");
+        List<Object[]> rows = rows(totals);
+        for (int from = 0; from < rows.size(); from += 5_000) {
+            jdbcTemplate.batchUpdate(INSERT, rows.subList(from, Math.min(from + 5_000, rows.size())));
+        }
+    }
+
+    Map<Integer, ProductFacts> loadProductFacts(Collection<Integer> productIds) {
+        Map<Integer, ProductFacts> facts = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return facts;
+        }
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.query(PRODUCT_FACTS + " WHERE id IN (" + ids + ")", (RowCallbackHandler) rs -> facts.put(rs.getInt("id"), productFacts(rs)));
+        return facts;
+    }
+
+    Map<Integer, ProductFacts> loadAllProductFacts() {
+        Map<Integer, ProductFacts> facts = new HashMap<>();
+        jdbcTemplate.query(PRODUCT_FACTS, (RowCallbackHandler) rs -> facts.put(rs.getInt("id"), productFacts(rs)));
+        return facts;
+    }
+
+    /**
+     * Order items not rolled up yet, in id order
+     */
+    void readPendingOrderItems(int limit, OrderItemHandler handler) {
+        jdbcTemplate.query(ORDER_ITEM_COLUMNS + " WHERE rolled_up = FALSE ORDER BY id LIMIT ?",
+                (RowCallbackHandler) rs -> handle(rs, handler), limit);
+    }
+
+    /**
+     * Flag the given order items as rolled up. Every id must have been read in this transaction:
+     * runs of consecutive ids are updated as ranges, which then hold no row that was not read.
+     */
+    void markRolledUp(int[] sortedIds) {
+        List<Object[]> ranges = new ArrayList<>();
+        for (int i = 0; i < sortedIds.length; ) {
+            int end = i;
+            while (end + 1 < sortedIds.length && sortedIds[end + 1] == sortedIds[end] + 1) {
+                end++;
+            }
+            ranges.add(new Object[]{sortedIds[i], sortedIds[end]});
+            i = end + 1;
+        }
+        jdbcTemplate.batchUpdate("UPDATE order_items SET rolled_up = TRUE WHERE id BETWEEN ? AND ?", ranges);
+    }
+
+    boolean isRolledUp(int orderItemId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT rolled_up FROM order_items WHERE id = ?", Boolean.class, orderItemId));
+    }
+
+    /**
+     * Every committed order item, in no particular order
+     */
+    void readAllOrderItems(OrderItemHandler handler) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(ORDER_ITEM_COLUMNS);
+            statement.setFetchSize(10_000);
+            return statement;
+        }, (RowCallbackHandler) rs -> handle(rs, handler));
+    }
+
+    List<SalesRollupDTO> query(RollupDimension groupBy, LocalDate from, LocalDate to, Integer departmentId,
+                               String category, String brand, int limit) {
+        String key = groupBy.getColumn();
+        StringBuilder sql = new StringBuilder("SELECT ").append(key).append(" AS rollup_key, ")
+                .append(groupBy == RollupDimension.DEPARTMENT ? "MAX(d.name)" : "NULL").append(" AS label, ")
+                .append("SUM(r.units) AS units, SUM(r.returned_units) AS returned_units, ")
+                .append("SUM(r.revenue) AS revenue, SUM(r.cost) AS cost FROM sales_rollups r ");
+        if (groupBy == RollupDimension.DEPARTMENT) {
+            sql.append("LEFT JOIN departments d ON d.id = r.department_id ");
+        }
+        List<Object> args = new ArrayList<>();
+        sql.append("WHERE r.sale_date BETWEEN ? AND ? ");
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(to));
+        if (departmentId != null) {
+            sql.append("AND r.department_id = ? ");
+            args.add(departmentId);
+        }
+        if (category != null) {
+            sql.append("AND r.category = ? ");
+            args.add(category);
+        }
+        if (brand != null) {
+            sql.append("AND r.brand = ? ");
+            args.add(brand);
+        }
+        sql.append("GROUP BY ").append(key).append(" ORDER BY ")
+                .append(groupBy == RollupDimension.DAY ? key : "revenue DESC").append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            long units = rs.getLong("units");
+            long returnedUnits = rs.getLong("returned_units");
+            BigDecimal revenue = rs.getBigDecimal("revenue");
+            BigDecimal cost = rs.getBigDecimal("cost");
+            double returnRate = units == 0 ? 0 : (double) returnedUnits / units;
+            return new SalesRollupDTO(rs.getString("rollup_key"), rs.getString("label"), units, returnedUnits,
+                    revenue, cost, revenue.subtract(cost), returnRate);
+        }, args.toArray());
+    }
+
+    private static List<Object[]> rows(Map<SalesRollupKey, SalesTotals> totals) {
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> rows.add(new Object[]{
+                Date.valueOf(key.getDay()), key.getDepartmentId(), key.getCategory(), key.getBrand(),
+                total.getUnits(), total.getReturnedUnits(), total.getRevenue(), total.getCost()}));
+        return rows;
+    }
+
+    private static ProductFacts productFacts(ResultSet rs) throws SQLException {
+        return new ProductFacts(rs.getInt("department_id"),
+                orEmpty(rs.getString("category")), orEmpty(rs.getString("brand")),
+                cents(rs.getBigDecimal("retail_price")), cents(rs.getBigDecimal("cost")));
+    }
+
+    private static void handle(ResultSet rs, OrderItemHandler handler) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        boolean returned = rs.getTimestamp("returned_at") != null || OrderItem.STATUS_RETURNED.equalsIgnoreCase(rs.getString("status"));
+        handler.accept(rs.getInt("id"), rs.getInt("product_id"),
+                createdAt != null ? createdAt.toLocalDateTime().toLocalDate() : null, returned);
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0;
+    }
+
+    @FunctionalInterface
+    interface OrderItemHandler {
+        void accept(int id, int productId, LocalDate day, boolean returned);
+    }
+}
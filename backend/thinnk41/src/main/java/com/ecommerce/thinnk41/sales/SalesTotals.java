@@ -0,0 +1,45 @@
+package com.ecommerce.thinnk41.sales;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Running totals for one rollup key; money is kept in cents while aggregating.
+ */
+@Getter
+public class SalesTotals {
+
+    private long units;
+    private long returnedUnits;
+    private long revenueCents;
+    private long costCents;
+
+    void addUnit(long retailCents, long costCents, boolean returned) {
+        units++;
+        revenueCents += retailCents;
+        this.costCents += costCents;
+        if (returned) {
+            returnedUnits++;
+        }
+    }
+
+    void addReturn() {
+        returnedUnits++;
+    }
+
+    void merge(SalesTotals other) {
+        units += other.units;
+        returnedUnits += other.returnedUnits;
+        revenueCents += other.revenueCents;
+        costCents += other.costCents;
+    }
+
+    public BigDecimal getRevenue() {
+        return BigDecimal.valueOf(revenueCents, 2);
+    }
+
+    public BigDecimal getCost() {
+        return BigDecimal.valueOf(costCents, 2);
+    }
+}
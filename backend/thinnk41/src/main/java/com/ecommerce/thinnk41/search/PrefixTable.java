@@ -0,0 +1,307 @@
+package com.ecommerce.thinnk41.search;
+
+import com.ecommerce.thinnk41.dto.SuggestionDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable completion table, a flattened alternative to a trie. Every word start of every
+ * normalized entry is a key; the keys are sorted and packed into one UTF-8 byte array, so the
+ * keys starting with a prefix form one contiguous range found with two binary searches. A sparse
+ * table over 32-key blocks answers "heaviest key in a range" in constant time, and the top k
+ * entries of a range come from repeatedly splitting it around its heaviest key.
+ */
+final class PrefixTable {
+
+    private static final int BLOCK = 32;
+
+    private final byte[] displayBytes;
+    private final int[] displayOffsets;
+    private final byte[] entryTypes;
+    private final int[] entryProductIds;
+    private final long[] entryWeights;
+
+    private final byte[] keyBytes;
+    private final int[] keyOffsets;
+    private final int[] keyEntries;
+
+    // blockMax[level][block]: heaviest key of the 2^level blocks starting at block
+    private final int[][] blockMax;
+
+    private PrefixTable(List<Entry> entries, List<Key> keys) {
+        int entryCount = entries.size();
+        displayOffsets = new int[entryCount + 1];
+        entryTypes = new byte[entryCount];
+        entryProductIds = new int[entryCount];
+        entryWeights = new long[entryCount];
+        byte[][] displays = new byte[entryCount][];
+        for (int i = 0; i < entryCount; i++) {
+            Entry entry = entries.get(i);
+            displays[i] = entry.text.getBytes(StandardCharsets.UTF_8);
+            displayOffsets[i + 1] = displayOffsets[i] + displays[i].length;
+            entryTypes[i] = (byte) entry.type.ordinal();
+            entryProductIds[i] = entry.productId != null ? entry.productId : -1;
+            entryWeights[i] = entry.weight;
+        }
+        displayBytes = new byte[displayOffsets[entryCount]];
+        for (int i = 0; i < entryCount; i++) {
+            System.arraycopy(displays[i], 0, displayBytes, displayOffsets[i], displays[i].length);
+        }
+
+        int keyCount = keys.size();
+        keyOffsets = new int[keyCount + 1];
+        keyEntries = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keyOffsets[i + 1] = keyOffsets[i] + keys.get(i).bytes.length;
+            keyEntries[i] = keys.get(i).entry;
+        }
+        keyBytes = new byte[keyOffsets[keyCount]];
+        for (int i = 0; i < keyCount; i++) {
+            System.arraycopy(keys.get(i).bytes, 0, keyBytes, keyOffsets[i], keys.get(i).bytes.length);
+        }
+
+        int blocks = (keyCount + BLOCK - 1) / BLOCK;
+        int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(blocks));
+        blockMax = new int[levels][];
+        blockMax[0] = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            blockMax[0][b] = scan(b * BLOCK, Math.min(keyCount, (b + 1) * BLOCK));
+        }
+        for (int level = 1; level < levels; level++) {
+            int half = 1 << (level - 1);
+            int[] previous = blockMax[level - 1];
+            int[] current = new int[blocks - (1 << level) + 1];
+            for (int b = 0; b < current.length; b++) {
+                current[b] = heavier(previous[b], previous[b + half]);
+            }
+            blockMax[level] = current;
+        }
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    int entryCount() {
+        return entryTypes.length;
+    }
+
+    int keyCount() {
+        return keyEntries.length;
+    }
+
+    /**
+     * Approximate heap size of the table's arrays
+     */
+    long footprintBytes() {
+        long bytes = array(displayBytes.length, 1) + array(displayOffsets.length, 4) + array(entryTypes.length, 1)
+                + array(entryProductIds.length, 4) + array(entryWeights.length, 8)
+                + array(keyBytes.length, 1) + array(keyOffsets.length, 4) + array(keyEntries.length, 4)
+                + array(blockMax.length, 4);
+        for (int[] level : blockMax) {
+            bytes += array(level.length, 4);
+        }
+        return bytes;
+    }
+
+    /**
+     * The heaviest entries with a word starting with the prefix, heaviest first
+     */
+    List<SuggestionDTO> complete(String prefix, int limit) {
+        byte[] query = normalizePrefix(prefix).getBytes(StandardCharsets.UTF_8);
+        List<SuggestionDTO> results = new ArrayList<>();
+        if (query.length == 0 || keyEntries.length == 0) {
+            return results;
+        }
+        int lo = bound(query, false);
+        int hi = bound(query, true);
+        if (lo >= hi) {
+            return results;
+        }
+        // ranges ordered by their heaviest key; an entry reached through several words is returned once
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(Comparator
+                .comparingLong((int[] range) -> -weight(range[2]))
+                .thenComparingInt(range -> range[2]));
+        ranges.add(new int[]{lo, hi, rangeMax(lo, hi)});
+        BitSet seen = new BitSet();
+        while (!ranges.isEmpty() && results.size() < limit) {
+            int[] range = ranges.poll();
+            int key = range[2];
+            int entry = keyEntries[key];
+            if (!seen.get(entry)) {
+                seen.set(entry);
+                results.add(toSuggestion(entry));
+            }
+            if (range[0] < key) {
+                ranges.add(new int[]{range[0], key, rangeMax(range[0], key)});
+            }
+            if (key + 1 < range[1]) {
+                ranges.add(new int[]{key + 1, range[1], rangeMax(key + 1, range[1])});
+            }
+        }
+        return results;
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", ProductSearchIndex.tokenize(text));
+    }
+
+    // a trailing space means the last word is complete, so "red " does not match "reddish"
+    private static String normalizePrefix(String prefix) {
+        String normalized = normalize(prefix);
+        boolean wordComplete = !normalized.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1));
+        return wordComplete ? normalized + " " : normalized;
+    }
+
+    private SuggestionDTO toSuggestion(int entry) {
+        String text = new String(displayBytes, displayOffsets[entry], displayOffsets[entry + 1] - displayOffsets[entry],
+                StandardCharsets.UTF_8);
+        int productId = entryProductIds[entry];
+        return new SuggestionDTO(text, SuggestionType.values()[entryTypes[entry]], entryWeights[entry],
+                productId >= 0 ? productId : null);
+    }
+
+    // first key whose prefix compares >= query (or > query for the upper bound)
+    private int bound(byte[] query, boolean upper) {
+        int lo = 0;
+        int hi = keyEntries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareToPrefix(mid, query);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // 0 when the key starts with the query
+    private int compareToPrefix(int key, byte[] query) {
+        int start = keyOffsets[key];
+        int length = keyOffsets[key + 1] - start;
+        int common = Math.min(length, query.length);
+        int cmp = Arrays.compareUnsigned(keyBytes, start, start + common, query, 0, common);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return length < query.length ? -1 : 0;
+    }
+
+    private int rangeMax(int from, int to) {
+        int firstBlock = from / BLOCK;
+        int lastBlock = (to - 1) / BLOCK;
+        if (lastBlock - firstBlock <= 1) {
+            return scan(from, to);
+        }
+        int best = heavier(scan(from, (firstBlock + 1) * BLOCK), scan(lastBlock * BLOCK, to));
+        int a = firstBlock + 1;
+        int b = lastBlock - 1;
+        int level = 31 - Integer.numberOfLeadingZeros(b - a + 1);
+        best = heavier(best, blockMax[level][a]);
+        return heavier(best, blockMax[level][b - (1 << level) + 1]);
+    }
+
+    private int scan(int from, int to) {
+        int best = from;
+        for (int i = from + 1; i < to; i++) {
+            best = heavier(best, i);
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        long wa = weight(a);
+        long wb = weight(b);
+        return wa > wb || (wa == wb && a < b) ? a : b;
+    }
+
+    private long weight(int key) {
+        return entryWeights[keyEntries[key]];
+    }
+
+    private static long array(int length, int elementSize) {
+        return 16 + (long) length * elementSize;
+    }
+
+    /**
+     * Collects entries, merging the ones that normalize to the same text
+     */
+    static final class Builder {
+
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        /**
+         * Add weight to an entry; for names the heaviest product's id is kept
+         */
+        Builder add(SuggestionType type, String text, Integer productId, long weight) {
+            if (text == null) {
+                return this;
+            }
+            String normalized = normalize(text);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            Entry entry = entries.computeIfAbsent(type.ordinal() + ":" + normalized,
+                    key -> new Entry(type, text.trim(), normalized));
+            entry.weight += weight;
+            if (productId != null && weight > entry.productWeight) {
+                entry.productId = productId;
+                entry.productWeight = weight;
+            }
+            return this;
+        }
+
+        PrefixTable build() {
+            List<Entry> list = new ArrayList<>(entries.values());
+            List<Key> keys = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                String normalized = list.get(i).normalized;
+                for (int start = 0; start < normalized.length(); start++) {
+                    if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                        keys.add(new Key(normalized.substring(start).getBytes(StandardCharsets.UTF_8), i));
+                    }
+                }
+            }
+            keys.sort((a, b) -> {
+                int cmp = Arrays.compareUnsigned(a.bytes, b.bytes);
+                return cmp != 0 ? cmp : Integer.compare(a.entry, b.entry);
+            });
+            return new PrefixTable(list, keys);
+        }
+    }
+
+    private static final class Entry {
+        private final SuggestionType type;
+        private final String text;
+        private final String normalized;
+        private long weight;
+        private Integer productId;
+        private long productWeight = -1;
+
+        Entry(SuggestionType type, String text, String normalized) {
+            this.type = type;
+            this.text = text;
+            this.normalized = normalized;
+        }
+    }
+
+    private static final class Key {
+        private final byte[] bytes;
+        private final int entry;
+
+        Key(byte[] bytes, int entry) {
+            this.bytes = bytes;
+            this.entry = entry;
+        }
+    }
+}
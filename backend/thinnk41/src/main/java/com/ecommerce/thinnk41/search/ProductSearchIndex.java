@@ -0,0 +1,399 @@
+package com.ecommerce.thinnk41.search;
+
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.event.ChangeType;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.repository.ProductTextView;
+import com.ecommerce.thinnk41.snapshot.CatalogSnapshotService;
+import com.ecommerce.thinnk41.versioning.CatalogFingerprint;
+import com.ecommerce.thinnk41.versioning.CatalogVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, brand and category.
+ *
+ * Terms live in a sorted dictionary so a query term can also match every indexed term it is a
+ * prefix of. Each term points at a posting list of sorted product ids with a field-weighted
+ * term frequency. Queries are AND across terms and ranked by a TF-IDF style score where exact
+ * term matches outrank prefix matches. The index is built once the application is ready and
+ * then follows this instance's product writes through {@link ProductChangedEvent}s. Writes made
+ * elsewhere are picked up by reloading it whenever a refresh finds the {@link CatalogFingerprint}
+ * moved, and at least every max-age.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int NAME_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 4;
+    private static final float PREFIX_PENALTY = 0.5f;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Value("${catalog.search.max-age:15m}")
+    private Duration maxAge;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    // forward index so a product's old postings can be removed when it changes
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+
+    private volatile boolean ready;
+
+    /** The catalog as of the last build, read before its rows */
+    private volatile CatalogFingerprint fingerprint;
+
+    private volatile long builtAt;
+
+    /**
+     * Build the index from the catalog snapshot, or the database, once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!catalogSnapshotService.isLoaded()) {
+            reload();
+            return;
+        }
+        CatalogFingerprint current = catalogVersions.fingerprint();
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            // a rebuild that fails part way leaves the index not ready rather than partial
+            ready = false;
+            postings.clear();
+            documentTerms.clear();
+            catalogSnapshotService.forEachProduct(product ->
+                    addDocument(product.getId(), product.getName(), product.getBrand(), product.getCategory()));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        built(current, start);
+    }
+
+    /**
+     * Reload the index when the catalog changed in ways no event reported, or it is too old
+     */
+    @Scheduled(fixedDelayString = "${catalog.search.refresh-interval:30s}")
+    public void refresh() {
+        if (fingerprint == null) {
+            // the startup build has not run yet
+            return;
+        }
+        if (System.currentTimeMillis() - builtAt > maxAge.toMillis() || !catalogVersions.fingerprint().equals(fingerprint)) {
+            reload();
+        }
+    }
+
+    /**
+     * Rebuild the index from the database. Searches keep using the old postings until the new rows are read.
+     */
+    public void reload() {
+        // read before the rows: a write committed after this moves the fingerprint again and gets its own reload
+        CatalogFingerprint current = catalogVersions.fingerprint();
+        long start = System.nanoTime();
+        List<ProductTextView> products = productRepository.findAllTextViews();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            postings.clear();
+            documentTerms.clear();
+            for (ProductTextView product : products) {
+                addDocument(product.getId(), product.getName(), product.getBrand(), product.getCategory());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        built(current, start);
+    }
+
+    private void built(CatalogFingerprint current, long start) {
+        fingerprint = current;
+        builtAt = System.currentTimeMillis();
+        log.info("Built product search index: {} products, {} terms in {} ms",
+                documentTerms.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.getProduct();
+        if (event.getType() == ChangeType.DELETED) {
+            remove(product.getId());
+        } else {
+            index(product.getId(), product.getName(), product.getBrand(), product.getCategory());
+        }
+    }
+
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Integer id, String name, String brand, String category) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            addDocument(id, name, brand, category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index
+     */
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the index has been built and can serve queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the ids of every product matching all query terms, best match first
+     */
+    public int[] search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            ScoredDocs result = null;
+            for (String term : terms) {
+                ScoredDocs matches = match(term);
+                result = result == null ? matches : result.intersect(matches);
+                if (result.size == 0) {
+                    return new int[0];
+                }
+            }
+            return result.rankedIds();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private ScoredDocs match(String term) {
+        int documentCount = Math.max(1, documentTerms.size());
+        NavigableMap<String, PostingList> matching = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+        int total = 0;
+        for (PostingList list : matching.values()) {
+            total += list.size;
+        }
+        // (id, score bits) packed into one long, so the postings of every matching term sort by id
+        // with each id's hits together; scores are non-negative, so their bits order like the floats
+        long[] hits = new long[total];
+        int count = 0;
+        for (Map.Entry<String, PostingList> entry : matching.entrySet()) {
+            PostingList list = entry.getValue();
+            float idf = (float) Math.log(1.0 + (double) documentCount / list.size);
+            float boost = entry.getKey().equals(term) ? 1.0f : PREFIX_PENALTY;
+            for (int i = 0; i < list.size; i++) {
+                hits[count++] = (long) list.docIds[i] << 32 | Float.floatToRawIntBits(list.weights[i] * idf * boost) & 0xFFFFFFFFL;
+            }
+        }
+        if (matching.size() > 1) {
+            Arrays.sort(hits);
+        }
+        ScoredDocs docs = new ScoredDocs(total);
+        for (int i = 0; i < total; i++) {
+            // a product reached through several terms keeps its best score, the last of its run
+            if (i + 1 < total && hits[i + 1] >>> 32 == hits[i] >>> 32) {
+                continue;
+            }
+            docs.add((int) (hits[i] >>> 32), Float.intBitsToFloat((int) hits[i]));
+        }
+        return docs;
+    }
+
+    private void addDocument(Integer id, String name, String brand, String category) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokenize(name)) {
+            weights.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(category)) {
+            weights.merge(token, CATEGORY_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(brand)) {
+            weights.merge(token, BRAND_WEIGHT, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            short weight = (short) Math.min(Short.MAX_VALUE, entry.getValue());
+            postings.computeIfAbsent(entry.getKey(), key -> new PostingList()).add(id, weight);
+        }
+        documentTerms.put(id, weights.keySet().toArray(new String[0]));
+    }
+
+    private void removeDocument(Integer id) {
+        String[] terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Sorted product ids with a per-posting weight, stored in parallel primitive arrays.
+     */
+    static final class PostingList {
+        int[] docIds = new int[2];
+        short[] weights = new short[2];
+        int size;
+
+        void add(int docId, short weight) {
+            int position = Arrays.binarySearch(docIds, 0, size, docId);
+            if (position >= 0) {
+                weights[position] = weight;
+                return;
+            }
+            position = -position - 1;
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docIds, position, docIds, position + 1, size - position);
+            System.arraycopy(weights, position, weights, position + 1, size - position);
+            docIds[position] = docId;
+            weights[position] = weight;
+            size++;
+        }
+
+        boolean remove(int docId) {
+            int position = Arrays.binarySearch(docIds, 0, size, docId);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(docIds, position + 1, docIds, position, size - position - 1);
+            System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Sorted product ids with accumulated scores, used while evaluating a query.
+     */
+    static final class ScoredDocs {
+        int[] ids;
+        float[] scores;
+        int size;
+
+        ScoredDocs(int capacity) {
+            ids = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void add(int id, float score) {
+            ids[size] = id;
+            scores[size] = score;
+            size++;
+        }
+
+        ScoredDocs intersect(ScoredDocs other) {
+            ScoredDocs result = new ScoredDocs(Math.min(size, other.size));
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    result.add(ids[i], scores[i] + other.scores[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        int[] rankedIds() {
+            // score descending then id ascending, as one primitive sort key per product
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (long) (Integer.MAX_VALUE - Float.floatToRawIntBits(scores[i])) << 32 | ids[i];
+            }
+            Arrays.sort(order);
+            int[] ranked = new int[size];
+            for (int i = 0; i < size; i++) {
+                ranked[i] = (int) order[i];
+            }
+            return ranked;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.thinnk41.search;
+
+import com.ecommerce.thinnk41.dto.SuggestionDTO;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.ecommerce.thinnk41.repository.OrderItemRepository;
+import com.ecommerce.thinnk41.repository.ProductOrderCount;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.repository.ProductTextView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead completions over product names, brands and categories, weighted by how often their
+ * products were ordered. Served from an immutable {@link PrefixTable} that is rebuilt off the
+ * request path whenever products changed (or the weights got old) and swapped in with one write.
+ */
+@Component
+public class ProductSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.suggest.max-age:15m}")
+    private Duration maxAge;
+
+    private volatile PrefixTable table;
+
+    private volatile boolean stale = true;
+
+    private volatile long builtAt;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("catalog.suggest.index.bytes", this, index -> index.table != null ? index.table.footprintBytes() : 0)
+                .description("Approximate heap used by the suggest index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.index.entries", this, index -> index.table != null ? index.table.entryCount() : 0)
+                .description("Names, brands and categories in the suggest index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuild the table when products changed since the last build or its weights are too old
+     */
+    @Scheduled(fixedDelayString = "${catalog.suggest.refresh-interval:30s}")
+    public void refresh() {
+        if (stale || System.currentTimeMillis() - builtAt > maxAge.toMillis()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Build a new table from the database and swap it in
+     */
+    public void rebuild() {
+        // a product saved while the text views are read sets this again and gets its own build
+        stale = false;
+        long start = System.nanoTime();
+        PrefixTable built;
+        try {
+            built = buildTable();
+        } catch (RuntimeException e) {
+            // completions keep coming from the previous table; try again on the next refresh
+            stale = true;
+            throw e;
+        }
+        table = built;
+        builtAt = System.currentTimeMillis();
+        log.info("Built product suggest index: {} entries, {} keys, {} KB in {} ms",
+                built.entryCount(), built.keyCount(), built.footprintBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private PrefixTable buildTable() {
+        Map<Integer, Long> orders = new HashMap<>();
+        for (ProductOrderCount count : orderItemRepository.findProductOrderCounts()) {
+            orders.put(count.getProductId(), count.getOrders());
+        }
+        PrefixTable.Builder builder = PrefixTable.builder();
+        for (ProductTextView product : productRepository.findAllTextViews()) {
+            // every product counts once, so never-ordered ones still complete
+            long weight = 1 + orders.getOrDefault(product.getId(), 0L);
+            builder.add(SuggestionType.NAME, product.getName(), product.getId(), weight)
+                    .add(SuggestionType.BRAND, product.getBrand(), null, weight)
+                    .add(SuggestionType.CATEGORY, product.getCategory(), null, weight);
+        }
+        return builder.build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        stale = true;
+    }
+
+    /**
+     * Whether a table has been built and can serve completions
+     */
+    public boolean isReady() {
+        return table != null;
+    }
+
+    /**
+     * Approximate heap used by the current table
+     */
+    public long footprintBytes() {
+        PrefixTable current = table;
+        return current != null ? current.footprintBytes() : 0;
+    }
+
+    /**
+     * The most popular names, brands and categories with a word starting with the prefix
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        PrefixTable current = table;
+        return current != null ? current.complete(prefix, limit) : List.of();
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.thinnk41.search;
+
+public enum SuggestionType {
+    NAME,
+    BRAND,
+    CATEGORY
+}
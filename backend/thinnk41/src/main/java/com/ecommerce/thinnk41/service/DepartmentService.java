@@ -1,5 +1,8 @@
 package com.ecommerce.thinnk41.service;
 
+import com.ecommerce.thinnk41.concurrency.Bulkheaded;
+import com.ecommerce.thinnk41.concurrency.Coalesced;
+import com.ecommerce.thinnk41.dto.DepartmentDTO;
 import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
 import com.ecommerce.thinnk41.dto.ProductDTO;
 import com.ecommerce.thinnk41.entity.Department;
@@ -11,12 +14,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
+@Bulkheaded
+@Transactional(readOnly = true)
 public class DepartmentService {
     
     @Autowired
@@ -28,6 +33,7 @@ public class DepartmentService {
     /**
      * Get all departments
      */
+    @Coalesced
     public List<Department> getAllDepartments() {
         return departmentRepository.findAll();
     }
@@ -35,15 +41,9 @@ public class DepartmentService {
     /**
      * Get all departments with product count
      */
+    @Coalesced
     public List<DepartmentWithProductCountDTO> getAllDepartmentsWithProductCount() {
-        List<Object[]> results = departmentRepository.findAllDepartmentsWithProductCount();
-        return results.stream()
-                .map(result -> {
-                    Department department = (Department) result[0];
-                    Long productCount = (Long) result[1];
-                    return DepartmentWithProductCountDTO.fromEntity(department, productCount);
-                })
-                .collect(Collectors.toList());
+        return departmentRepository.findAllDepartmentsWithProductCount();
     }
     
     /**
@@ -53,6 +53,22 @@ public class DepartmentService {
         return departmentRepository.findById(id);
     }
     
+    /**
+     * Get department summary by ID (no entity or product collection is loaded)
+     */
+    @Coalesced
+    public Optional<DepartmentDTO> getDepartmentSummaryById(Integer id) {
+        return departmentRepository.findSummaryById(id);
+    }
+    
+    /**
+     * Get department summary by name (no entity or product collection is loaded)
+     */
+    @Coalesced
+    public Optional<DepartmentDTO> getDepartmentSummaryByName(String name) {
+        return departmentRepository.findSummaryByName(name);
+    }
+    
     /**
      * Get department by name
      */
@@ -63,18 +79,15 @@ public class DepartmentService {
     /**
      * Get department with product count by ID
      */
+    @Coalesced
     public Optional<DepartmentWithProductCountDTO> getDepartmentWithProductCountById(Integer id) {
-        Optional<Object[]> result = departmentRepository.findDepartmentWithProductCountById(id);
-        return result.map(obj -> {
-            Department department = (Department) obj[0];
-            Long productCount = (Long) obj[1];
-            return DepartmentWithProductCountDTO.fromEntity(department, productCount);
-        });
+        return departmentRepository.findDepartmentWithProductCountById(id);
     }
     
     /**
      * Get products by department ID with pagination
      */
+    @Coalesced
     public Page<ProductDTO> getProductsByDepartmentId(Integer departmentId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Product> products = productRepository.findByDepartmentId(departmentId, pageable);
@@ -84,6 +97,7 @@ public class DepartmentService {
     /**
      * Create or get department by name
      */
+    @Transactional
     public Department createOrGetDepartment(String name) {
         Optional<Department> existingDepartment = departmentRepository.findByName(name);
         if (existingDepartment.isPresent()) {
@@ -0,0 +1,224 @@
+package com.ecommerce.thinnk41.service;
+
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque keyset cursor for product listings.
+ *
+ * A token encodes the sort key, the direction and the (sort value, id) of the last product
+ * returned, so the next slice is a seek on {@code (sortKey, id)} rather than an OFFSET scan.
+ * Price and name can be NULL, which a keyset seek cannot compare, so those listings come in two
+ * runs: the products with a value, then (NULLS LAST) the ones without it by id, with the token
+ * recording which run it points into. Search results are ranked in memory, so their cursor
+ * carries the position in the ranking.
+ */
+public final class ProductCursor {
+
+    public enum SortKey {
+        ID("id"),
+        PRICE("retailPrice"),
+        NAME("name"),
+        // newest first: ids are assigned in insertion order
+        NEWEST("id"),
+        RELEVANCE(null);
+
+        private final String attribute;
+
+        SortKey(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        static SortKey fromParameter(String value) {
+            for (SortKey key : values()) {
+                if (key.attribute != null && key.name().equalsIgnoreCase(value)) {
+                    return key;
+                }
+            }
+            throw new InvalidRequestException("Unsupported sort '" + value + "', expected one of id, price, name, newest");
+        }
+    }
+
+    private static final String VERSION = "v2";
+
+    private static final String NULLS = "nulls";
+
+    private final SortKey sortKey;
+    private final Sort.Direction direction;
+    private final Integer lastId;
+    private final String lastValue;
+    // past the products with a sort value, in the run without one
+    private final boolean nullRun;
+
+    private ProductCursor(SortKey sortKey, Sort.Direction direction, Integer lastId, String lastValue, boolean nullRun) {
+        this.sortKey = sortKey;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+        this.nullRun = nullRun;
+    }
+
+    /**
+     * Resolve the cursor for a request: the first slice when {@code after} is blank, otherwise the
+     * decoded token, which must have been issued for the same sort
+     */
+    public static ProductCursor of(String after, String sort, String direction) {
+        SortKey sortKey = SortKey.fromParameter(sort);
+        Sort.Direction sortDirection = sortKey == SortKey.NEWEST ? Sort.Direction.DESC : direction(direction);
+        if (after == null || after.isBlank()) {
+            return new ProductCursor(sortKey, sortDirection, null, null, false);
+        }
+        ProductCursor cursor = decode(after);
+        if (cursor.sortKey != sortKey || cursor.direction != sortDirection) {
+            throw new InvalidRequestException("Cursor was issued for a different sort order");
+        }
+        return cursor;
+    }
+
+    /**
+     * Resolve the cursor for ranked search results
+     */
+    public static ProductCursor forSearch(String after) {
+        if (after == null || after.isBlank()) {
+            return new ProductCursor(SortKey.RELEVANCE, Sort.Direction.DESC, null, "0", false);
+        }
+        ProductCursor cursor = decode(after);
+        if (cursor.sortKey != SortKey.RELEVANCE) {
+            throw new InvalidRequestException("Cursor was not issued for search results");
+        }
+        return cursor;
+    }
+
+    private static Sort.Direction direction(String value) {
+        try {
+            return Sort.Direction.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unsupported direction '" + value + "', expected asc or desc", e);
+        }
+    }
+
+    static ProductCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 6);
+            if (parts.length != 6 || !VERSION.equals(parts[0])) {
+                throw new InvalidRequestException("Malformed cursor");
+            }
+            Integer lastId = parts[3].isEmpty() ? null : Integer.valueOf(parts[3]);
+            boolean nullRun = NULLS.equals(parts[4]);
+            return new ProductCursor(SortKey.valueOf(parts[1]), Sort.Direction.valueOf(parts[2]), lastId,
+                    nullRun ? null : parts[5], nullRun);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * The cursor pointing just past the given product
+     */
+    public ProductCursor after(Product last) {
+        if (nullRun) {
+            return new ProductCursor(sortKey, direction, last.getId(), null, true);
+        }
+        Object value = switch (sortKey) {
+            case ID, NEWEST -> last.getId();
+            case PRICE -> last.getRetailPrice();
+            case NAME -> last.getName();
+            case RELEVANCE -> throw new IllegalStateException("Search cursors advance by position");
+        };
+        return new ProductCursor(sortKey, direction, last.getId(), String.valueOf(value), false);
+    }
+
+    /**
+     * The cursor at the start of the products without a sort value
+     */
+    public ProductCursor startOfNullRun() {
+        return new ProductCursor(sortKey, direction, null, null, true);
+    }
+
+    /**
+     * Whether the sort attribute can be NULL, so the listing continues with a run of those products
+     */
+    public boolean hasNullRun() {
+        return sortKey == SortKey.PRICE || sortKey == SortKey.NAME;
+    }
+
+    public boolean isInNullRun() {
+        return nullRun;
+    }
+
+    /**
+     * The search cursor pointing at the given position in the ranking
+     */
+    public ProductCursor atPosition(int position) {
+        return new ProductCursor(sortKey, direction, null, String.valueOf(position), false);
+    }
+
+    public String encode() {
+        String raw = String.join("|", VERSION, sortKey.name(), direction.name(),
+                lastId == null ? "" : lastId.toString(), nullRun ? NULLS : "", lastValue == null ? "" : lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public int getPosition() {
+        int position;
+        try {
+            position = Integer.parseInt(lastValue);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid cursor", e);
+        }
+        if (position < 0) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+        return position;
+    }
+
+    public Sort toSort() {
+        if (sortKey == SortKey.ID || sortKey == SortKey.NEWEST || nullRun) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, sortKey.getAttribute()).and(Sort.by(direction, "id"));
+    }
+
+    public KeysetScrollPosition toScrollPosition() {
+        if (lastId == null) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (!nullRun) {
+            switch (sortKey) {
+                case PRICE -> keys.put("retailPrice", price(lastValue));
+                case NAME -> keys.put("name", lastValue);
+                default -> {
+                }
+            }
+        }
+        keys.put("id", lastId);
+        return ScrollPosition.forward(keys);
+    }
+
+    private static BigDecimal price(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid cursor", e);
+        }
+    }
+}
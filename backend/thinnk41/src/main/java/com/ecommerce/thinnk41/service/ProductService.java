@@ -1,16 +1,56 @@
 package com.ecommerce.thinnk41.service;
 
+import com.ecommerce.thinnk41.cache.ProductCache;
+import com.ecommerce.thinnk41.concurrency.Bulkheaded;
+import com.ecommerce.thinnk41.concurrency.Coalesced;
+import com.ecommerce.thinnk41.concurrency.DatabaseBulkhead;
+import com.ecommerce.thinnk41.dto.CursorPageDTO;
+import com.ecommerce.thinnk41.dto.FacetedProductPageDTO;
+import com.ecommerce.thinnk41.dto.ProductBatchDTO;
+import com.ecommerce.thinnk41.dto.ProductBatchItemDTO;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.dto.RelatedProductDTO;
+import com.ecommerce.thinnk41.dto.SuggestionDTO;
 import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import com.ecommerce.thinnk41.facet.CatalogFacetIndex;
+import com.ecommerce.thinnk41.facet.FacetQuery;
+import com.ecommerce.thinnk41.facet.FacetResult;
+import com.ecommerce.thinnk41.related.RelatedProductsIndex;
 import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.repository.ProductSpecifications;
+import com.ecommerce.thinnk41.routing.ReplicaRoutingContext;
+import com.ecommerce.thinnk41.search.ProductSearchIndex;
+import com.ecommerce.thinnk41.search.ProductSuggestIndex;
+import com.ecommerce.thinnk41.snapshot.CatalogSnapshotService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Bulkheaded
+@Transactional(readOnly = true)
 public class ProductService {
     
     @Autowired
@@ -19,9 +59,46 @@ public class ProductService {
     @Autowired
     private DepartmentService departmentService;
     
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+    
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    
+    @Autowired
+    private CatalogFacetIndex catalogFacetIndex;
+    
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+    
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    
+    @Autowired
+    private RelatedProductsIndex relatedProductsIndex;
+    
+    @Value("${catalog.products.scroll.max-size:100}")
+    private int scrollMaxSize;
+    
+    @Value("${catalog.products.batch.max-size:200}")
+    private int batchMaxSize;
+    
+    @Value("${catalog.products.batch.chunk-size:100}")
+    private int batchChunkSize;
+    
+    @Value("${catalog.suggest.max-limit:50}")
+    private int suggestMaxLimit;
+    
+    @Value("${catalog.related.top-k:20}")
+    private int relatedMaxLimit;
+    
     /**
      * Get all products with pagination
      */
+    @Coalesced
     public Page<Product> getAllProducts(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findAll(pageable);
@@ -34,9 +111,120 @@ public class ProductService {
         return productRepository.findById(id);
     }
     
+    /**
+     * Get a specific product by ID through the product cache. Misses are answered from the catalog
+     * snapshot when it still holds the product, and otherwise load from the primary, since a row
+     * read from a lagging replica would stay cached until the next change event.
+     */
+    @Bulkheaded(exempt = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<ProductDTO> getProductDtoById(Integer id) {
+        return productCache.getById(id, key -> catalogSnapshotService.findById(key)
+                .or(() -> databaseBulkhead.call(() -> ReplicaRoutingContext.onPrimary(
+                        () -> productRepository.findById(key).map(ProductDTO::fromEntity)))));
+    }
+    
+    /**
+     * Get a specific product by SKU through the product cache and the catalog snapshot
+     */
+    @Bulkheaded(exempt = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<ProductDTO> getProductDtoBySku(String sku) {
+        return productCache.getBySku(sku, key -> catalogSnapshotService.findBySku(key)
+                .or(() -> databaseBulkhead.call(() -> ReplicaRoutingContext.onPrimary(
+                        () -> productRepository.findFirstBySku(key).map(ProductDTO::fromEntity)))));
+    }
+    
+    /**
+     * Get many products by ID and/or SKU at once. Duplicates count against the batch size but are
+     * looked up once, cached products are served from the product cache and the rest are loaded
+     * with chunked IN queries.
+     */
+    @Bulkheaded(exempt = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductBatchDTO getProductsBatch(List<Integer> ids, List<String> skus) {
+        // every entry is answered in the response, duplicates included, so the cap counts them all
+        if ((ids != null ? ids.size() : 0) + (skus != null ? skus.size() : 0) > batchMaxSize) {
+            throw new InvalidRequestException("A batch can look up at most " + batchMaxSize + " ids and SKUs");
+        }
+        Set<Integer> distinctIds = ids != null ? new LinkedHashSet<>(ids) : new LinkedHashSet<>();
+        Set<String> distinctSkus = skus != null ? new LinkedHashSet<>(skus) : new LinkedHashSet<>();
+        if (distinctIds.contains(null) || distinctSkus.contains(null)) {
+            throw new InvalidRequestException("ids and skus must not contain null");
+        }
+        
+        Map<Integer, Optional<ProductDTO>> byId = distinctIds.isEmpty() ? Map.of()
+                : productCache.getAllById(distinctIds, this::loadBatchById);
+        Map<String, Optional<ProductDTO>> bySku = distinctSkus.isEmpty() ? Map.of()
+                : productCache.getAllBySku(distinctSkus, this::loadBatchBySku);
+        
+        List<ProductBatchItemDTO> results = new ArrayList<>();
+        int found = 0;
+        for (Integer id : ids != null ? ids : List.<Integer>of()) {
+            ProductDTO product = byId.get(id).orElse(null);
+            results.add(new ProductBatchItemDTO(id, null, product != null, product));
+            found += product != null ? 1 : 0;
+        }
+        for (String sku : skus != null ? skus : List.<String>of()) {
+            ProductDTO product = bySku.get(sku).orElse(null);
+            results.add(new ProductBatchItemDTO(null, sku, product != null, product));
+            found += product != null ? 1 : 0;
+        }
+        return new ProductBatchDTO(results, found, results.size() - found);
+    }
+    
+    private Map<Integer, Optional<ProductDTO>> loadBatchById(Collection<? extends Integer> ids) {
+        Map<Integer, Optional<ProductDTO>> loaded = new HashMap<>();
+        List<Integer> remaining = new ArrayList<>();
+        for (Integer id : ids) {
+            catalogSnapshotService.findById(id).ifPresentOrElse(product -> loaded.put(id, Optional.of(product)), () -> remaining.add(id));
+        }
+        if (!remaining.isEmpty()) {
+            databaseBulkhead.call(() -> ReplicaRoutingContext.onPrimary(() -> {
+                for (List<Integer> chunk : chunks(remaining)) {
+                    productRepository.findAllWithDepartmentByIdIn(chunk)
+                            .forEach(product -> loaded.put(product.getId(), Optional.of(ProductDTO.fromEntity(product))));
+                }
+                return null;
+            }));
+        }
+        // remember the misses too, as a single lookup does
+        ids.forEach(id -> loaded.putIfAbsent(id, Optional.empty()));
+        return loaded;
+    }
+    
+    private Map<String, Optional<ProductDTO>> loadBatchBySku(Collection<? extends String> skus) {
+        Map<String, Optional<ProductDTO>> loaded = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String sku : skus) {
+            catalogSnapshotService.findBySku(sku).ifPresentOrElse(product -> loaded.put(sku, Optional.of(product)), () -> remaining.add(sku));
+        }
+        if (!remaining.isEmpty()) {
+            databaseBulkhead.call(() -> ReplicaRoutingContext.onPrimary(() -> {
+                for (List<String> chunk : chunks(remaining)) {
+                    // ordered by id, so a duplicated SKU resolves to its first product
+                    productRepository.findAllWithDepartmentBySkuIn(chunk)
+                            .forEach(product -> loaded.putIfAbsent(product.getSku(), Optional.of(ProductDTO.fromEntity(product))));
+                }
+                return null;
+            }));
+        }
+        skus.forEach(sku -> loaded.putIfAbsent(sku, Optional.empty()));
+        return loaded;
+    }
+    
+    private <T> List<List<T>> chunks(List<T> keys) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += batchChunkSize) {
+            chunks.add(keys.subList(from, Math.min(from + batchChunkSize, keys.size())));
+        }
+        return chunks;
+    }
+    
     /**
      * Get products by category with pagination
      */
+    @Coalesced
     public Page<Product> getProductsByCategory(String category, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findByCategory(category, pageable);
@@ -45,6 +233,7 @@ public class ProductService {
     /**
      * Get products by brand with pagination
      */
+    @Coalesced
     public Page<Product> getProductsByBrand(String brand, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findByBrand(brand, pageable);
@@ -53,6 +242,7 @@ public class ProductService {
     /**
      * Get products by department ID with pagination
      */
+    @Coalesced
     public Page<Product> getProductsByDepartmentId(Integer departmentId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findByDepartmentId(departmentId, pageable);
@@ -61,16 +251,233 @@ public class ProductService {
     /**
      * Get products by department name with pagination
      */
+    @Coalesced
     public Page<Product> getProductsByDepartmentName(String departmentName, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findByDepartmentName(departmentName, pageable);
     }
     
     /**
-     * Search products by name with pagination
+     * Search products by name, brand and category with pagination.
+     * Served from the in-memory search index; falls back to a LIKE query until the index is built.
      */
+    @Coalesced
     public Page<Product> searchProductsByName(String name, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        return productRepository.findByNameContainingIgnoreCase(name, pageable);
+        if (!productSearchIndex.isReady()) {
+            return productRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+        
+        int[] rankedIds = productSearchIndex.search(name);
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.length);
+        int to = Math.min(from + size, rankedIds.length);
+        List<Integer> pageIds = Arrays.stream(rankedIds, from, to).boxed().collect(Collectors.toList());
+        return new PageImpl<>(findAllInOrder(pageIds), pageable, rankedIds.length);
+    }
+    
+    /**
+     * Suggest completions for a typed prefix from the in-memory suggest index.
+     * Empty while the index is still being built.
+     */
+    @Bulkheaded(exempt = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<List<SuggestionDTO>> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > suggestMaxLimit) {
+            throw new InvalidRequestException("limit must be between 1 and " + suggestMaxLimit);
+        }
+        if (!productSuggestIndex.isReady()) {
+            return Optional.empty();
+        }
+        return Optional.of(productSuggestIndex.suggest(prefix, limit));
+    }
+    
+    /**
+     * Products most often bought in the same orders as a product, from the in-memory co-purchase index.
+     * Empty while the index is still being built.
+     */
+    @Bulkheaded(exempt = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<List<RelatedProductDTO>> getRelatedProducts(Integer id, int limit) {
+        if (limit < 1 || limit > relatedMaxLimit) {
+            throw new InvalidRequestException("limit must be between 1 and " + relatedMaxLimit);
+        }
+        if (!relatedProductsIndex.isReady()) {
+            return Optional.empty();
+        }
+        return Optional.of(relatedProductsIndex.related(id, limit));
+    }
+    
+    /**
+     * Filter products by facets, with the facet counts computed by the in-memory facet index.
+     * Empty while the index is still being built.
+     */
+    public Optional<FacetedProductPageDTO> filterProducts(FacetQuery query) {
+        validateScrollSize(query.getSize());
+        if (!catalogFacetIndex.isReady()) {
+            return Optional.empty();
+        }
+        FacetResult result = catalogFacetIndex.query(query);
+        List<ProductDTO> content = findAllInOrder(result.getProductIds()).stream()
+                .map(ProductDTO::fromEntity)
+                .collect(Collectors.toList());
+        int totalPages = (int) Math.ceil((double) result.getTotalElements() / query.getSize());
+        return Optional.of(new FacetedProductPageDTO(content, query.getPage(), query.getSize(),
+                result.getTotalElements(), totalPages, result.getFacets(), result.getMinPrice(), result.getMaxPrice()));
+    }
+    
+    /**
+     * Load products by ID, keeping the order of the given ids and skipping missing ones
+     */
+    private List<Product> findAllInOrder(List<Integer> ids) {
+        Map<Integer, Product> byId = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ordered = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+    
+    /**
+     * Scroll all products with a keyset cursor
+     */
+    @Coalesced
+    public CursorPageDTO<ProductDTO> scrollAllProducts(String after, String sort, String direction, int size) {
+        return scroll(ProductSpecifications.all(), ProductCursor.of(after, sort, direction), size);
+    }
+    
+    /**
+     * Scroll products by category with a keyset cursor
+     */
+    @Coalesced
+    public CursorPageDTO<ProductDTO> scrollProductsByCategory(String category, String after, String sort, String direction, int size) {
+        return scroll(ProductSpecifications.hasCategory(category), ProductCursor.of(after, sort, direction), size);
+    }
+    
+    /**
+     * Scroll products by brand with a keyset cursor
+     */
+    @Coalesced
+    public CursorPageDTO<ProductDTO> scrollProductsByBrand(String brand, String after, String sort, String direction, int size) {
+        return scroll(ProductSpecifications.hasBrand(brand), ProductCursor.of(after, sort, direction), size);
+    }
+    
+    /**
+     * Scroll products by department ID with a keyset cursor
+     */
+    @Coalesced
+    public CursorPageDTO<ProductDTO> scrollProductsByDepartmentId(Integer departmentId, String after, String sort, String direction, int size) {
+        return scroll(ProductSpecifications.inDepartment(departmentId), ProductCursor.of(after, sort, direction), size);
+    }
+    
+    /**
+     * Scroll products by department name with a keyset cursor
+     */
+    @Coalesced
+    public CursorPageDTO<ProductDTO> scrollProductsByDepartmentName(String departmentName, String after, String sort, String direction, int size) {
+        return scroll(ProductSpecifications.inDepartmentNamed(departmentName), ProductCursor.of(after, sort, direction), size);
+    }
+    
+    /**
+     * Browse products with optional category, brand, department and price range filters,
+     * sorted by price, name or newest, with a keyset cursor
+     */
+    @Coalesced
+    public CursorPageDTO<ProductDTO> browseProducts(String category, String brand, Integer departmentId,
+                                                    BigDecimal minPrice, BigDecimal maxPrice,
+                                                    String after, String sort, String direction, int size) {
+        validateScrollSize(size);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidRequestException("minPrice must not be greater than maxPrice");
+        }
+        Specification<Product> filter = ProductSpecifications.all();
+        if (category != null) {
+            filter = filter.and(ProductSpecifications.hasCategory(category));
+        }
+        if (brand != null) {
+            filter = filter.and(ProductSpecifications.hasBrand(brand));
+        }
+        if (departmentId != null) {
+            filter = filter.and(ProductSpecifications.inDepartment(departmentId));
+        }
+        if (minPrice != null || maxPrice != null) {
+            filter = filter.and(ProductSpecifications.priceBetween(minPrice, maxPrice));
+        }
+        return scroll(filter, ProductCursor.of(after, sort, direction), size);
+    }
+    
+    /**
+     * Scroll ranked search results with a cursor over the in-memory ranking.
+     * Empty while the index is still being built, since cursor positions only mean something in its ranking.
+     */
+    @Coalesced
+    public Optional<CursorPageDTO<ProductDTO>> scrollSearchResults(String name, String after, int size) {
+        validateScrollSize(size);
+        ProductCursor cursor = ProductCursor.forSearch(after);
+        if (!productSearchIndex.isReady()) {
+            return Optional.empty();
+        }
+        int[] rankedIds = productSearchIndex.search(name);
+        int from = Math.min(cursor.getPosition(), rankedIds.length);
+        int to = Math.min(from + size, rankedIds.length);
+        List<Integer> pageIds = Arrays.stream(rankedIds, from, to).boxed().collect(Collectors.toList());
+        List<ProductDTO> content = findAllInOrder(pageIds).stream().map(ProductDTO::fromEntity).collect(Collectors.toList());
+        boolean hasNext = to < rankedIds.length;
+        return Optional.of(new CursorPageDTO<>(content, content.size(), hasNext, hasNext ? cursor.atPosition(to).encode() : null));
+    }
+    
+    /**
+     * Seek past the cursor's (sort key, id) and fetch one slice without a count query. Price and
+     * name listings run on into the products without a value (NULLS LAST), so they list the same
+     * products as the offset pages.
+     */
+    private CursorPageDTO<ProductDTO> scroll(Specification<Product> filter, ProductCursor cursor, int size) {
+        validateScrollSize(size);
+        List<Product> rows = new ArrayList<>(size);
+        ProductCursor next = null;
+        ProductCursor position = cursor;
+        if (!cursor.isInNullRun()) {
+            Specification<Product> spec = cursor.hasNullRun()
+                    ? filter.and(ProductSpecifications.hasValue(cursor.getSortKey().getAttribute()))
+                    : filter;
+            Window<Product> window = seek(spec, cursor, size);
+            rows.addAll(window.getContent());
+            if (window.hasNext() && !window.isEmpty()) {
+                next = cursor.after(rows.get(rows.size() - 1));
+            } else if (cursor.hasNullRun()) {
+                position = cursor.startOfNullRun();
+            }
+        }
+        if (next == null && position.isInNullRun()) {
+            Specification<Product> spec = filter.and(ProductSpecifications.hasNoValue(cursor.getSortKey().getAttribute()));
+            int remaining = size - rows.size();
+            // a full page still has to know whether the run is empty before handing out a cursor into it
+            Window<Product> window = seek(spec, position, Math.max(remaining, 1));
+            if (remaining == 0) {
+                next = window.isEmpty() ? null : position;
+            } else {
+                rows.addAll(window.getContent());
+                next = window.hasNext() && !window.isEmpty() ? position.after(rows.get(rows.size() - 1)) : null;
+            }
+        }
+        List<ProductDTO> content = rows.stream().map(ProductDTO::fromEntity).collect(Collectors.toList());
+        String nextCursor = next != null ? next.encode() : null;
+        return new CursorPageDTO<>(content, content.size(), nextCursor != null, nextCursor);
+    }
+    
+    private Window<Product> seek(Specification<Product> spec, ProductCursor cursor, int limit) {
+        return productRepository.findBy(spec, query -> query
+                .sortBy(cursor.toSort())
+                .limit(limit)
+                .scroll(cursor.toScrollPosition()));
+    }
+    
+    private void validateScrollSize(int size) {
+        if (size < 1 || size > scrollMaxSize) {
+            throw new InvalidRequestException("size must be between 1 and " + scrollMaxSize);
+        }
     }
-} 
\ No newline at end of file
+}
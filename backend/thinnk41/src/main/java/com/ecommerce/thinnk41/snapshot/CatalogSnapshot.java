@@ -0,0 +1,196 @@
+package com.ecommerce.thinnk41.snapshot;
+
+import com.ecommerce.thinnk41.dto.DepartmentDTO;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+/**
+ * A read-only, memory-mapped catalog snapshot written by {@link CatalogSnapshotWriter}.
+ *
+ * Layout (big-endian): a 40-byte header (magic, format version, catalog version, write time and
+ * the section sizes), the string dictionary as an offset table plus UTF-8 bytes, fixed-width
+ * department records, fixed-width product records sorted by id, and the product rows with a SKU
+ * in SKU order. Fixed-width records make a lookup a binary search over the mapping; nothing is
+ * copied onto the heap until a product is actually read, and pages are shared with the OS cache.
+ */
+public final class CatalogSnapshot {
+
+    static final int MAGIC = 0x43534E50;
+    static final int FORMAT_VERSION = 1;
+
+    static final int NULL_STRING = -1;
+    static final int NULL_ID = Integer.MIN_VALUE;
+    static final long NULL_AMOUNT = Long.MIN_VALUE;
+
+    private static final int HEADER_BYTES = 40;
+    private static final int DEPARTMENT_BYTES = 12;
+    private static final int PRODUCT_BYTES = 52;
+
+    private final MappedByteBuffer buffer;
+    private final long version;
+    private final long writtenAt;
+    private final int departmentCount;
+    private final int productCount;
+    private final int skuCount;
+    private final int stringOffsets;
+    private final int stringData;
+    private final int departments;
+    private final int products;
+    private final int skuOrder;
+
+    private CatalogSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalog snapshot format " + buffer.getInt(4));
+        }
+        version = buffer.getLong(8);
+        writtenAt = buffer.getLong(16);
+        int stringCount = buffer.getInt(24);
+        departmentCount = buffer.getInt(28);
+        productCount = buffer.getInt(32);
+        skuCount = buffer.getInt(36);
+        stringOffsets = HEADER_BYTES;
+        stringData = stringOffsets + (stringCount + 1) * 4;
+        if (stringData > buffer.capacity()) {
+            throw new IOException("Truncated catalog snapshot");
+        }
+        departments = stringData + buffer.getInt(stringData - 4);
+        products = departments + departmentCount * DEPARTMENT_BYTES;
+        skuOrder = products + productCount * PRODUCT_BYTES;
+        if ((long) skuOrder + skuCount * 4L != buffer.capacity()) {
+            throw new IOException("Truncated catalog snapshot");
+        }
+    }
+
+    /**
+     * Map a snapshot file, checking its header and size
+     */
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The newest products.updated_at included, in epoch milliseconds
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getWrittenAt() {
+        return writtenAt;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public int getDepartmentCount() {
+        return departmentCount;
+    }
+
+    public long getSizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * The row of a product id, or -1
+     */
+    public int findRowById(int id) {
+        int low = 0;
+        int high = productCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = productId(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The row of the first product (by id) with a SKU, or -1
+     */
+    public int findRowBySku(String sku) {
+        int low = 0;
+        int high = skuCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int row = buffer.getInt(skuOrder + mid * 4);
+            int compared = string(buffer.getInt(productOffset(row) + 32)).compareTo(sku);
+            if (compared < 0) {
+                low = mid + 1;
+            } else {
+                // keep going left, duplicates are ordered by id
+                if (compared == 0) {
+                    found = row;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    public int productId(int row) {
+        return buffer.getInt(productOffset(row));
+    }
+
+    public long updatedAt(int row) {
+        return buffer.getLong(productOffset(row) + 44);
+    }
+
+    /**
+     * Read a product, resolving its department through the given lookup
+     */
+    public ProductDTO product(int row, IntFunction<DepartmentDTO> departmentLookup) {
+        int offset = productOffset(row);
+        int distributionCenterId = buffer.getInt(offset + 36);
+        int departmentId = buffer.getInt(offset + 40);
+        return new ProductDTO(buffer.getInt(offset), amount(buffer.getLong(offset + 4)), string(buffer.getInt(offset + 12)),
+                string(buffer.getInt(offset + 16)), string(buffer.getInt(offset + 20)), amount(buffer.getLong(offset + 24)),
+                departmentId != NULL_ID ? departmentLookup.apply(departmentId) : null,
+                string(buffer.getInt(offset + 32)), distributionCenterId != NULL_ID ? distributionCenterId : null);
+    }
+
+    public DepartmentDTO department(int index) {
+        int offset = departments + index * DEPARTMENT_BYTES;
+        return new DepartmentDTO(buffer.getInt(offset), string(buffer.getInt(offset + 4)), string(buffer.getInt(offset + 8)));
+    }
+
+    private int productOffset(int row) {
+        return products + row * PRODUCT_BYTES;
+    }
+
+    private String string(int id) {
+        if (id == NULL_STRING) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsets + id * 4);
+        byte[] bytes = new byte[buffer.getInt(stringOffsets + id * 4 + 4) - start];
+        buffer.get(stringData + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal amount(long cents) {
+        return cents != NULL_AMOUNT ? BigDecimal.valueOf(cents, 2) : null;
+    }
+}
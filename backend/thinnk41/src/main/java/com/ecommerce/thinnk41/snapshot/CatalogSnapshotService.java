@@ -0,0 +1,376 @@
+package com.ecommerce.thinnk41.snapshot;
+
+import com.ecommerce.thinnk41.dto.DepartmentDTO;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.event.ChangeType;
+import com.ecommerce.thinnk41.event.DepartmentChangedEvent;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link CatalogSnapshot} on local disk and serves catalog reads from it at startup.
+ *
+ * On start the last snapshot is memory-mapped and caught up: products updated since its version
+ * (minus an overlap for transactions that committed late) and products created or deleted since are
+ * reloaded from the database, and departments, which have no update timestamp, are re-read whole.
+ * The in-memory indexes are then built from the snapshot instead of full table scans, and product
+ * lookups that miss the cache are answered from the mapping. Anything changed while running falls
+ * through to the database: local changes as their events arrive, and changes made elsewhere (other
+ * instances, bulk JDBC writes, plain SQL) once the next refresh has found them by {@code updated_at}.
+ * Deletes leave no timestamp, so a refresh compares ids only when the product count moved, or when
+ * the delete-scan-interval is up (a delete and an insert can cancel out in the count). Products
+ * created after the snapshot are never in the mapping and
+ * always go to the database. A fresh snapshot is written in the background every write-interval and
+ * is picked up by the next start.
+ */
+@Component
+public class CatalogSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final String PRODUCT_ROWS =
+            "SELECT id, cost, category, name, brand, retail_price, sku, distribution_center_id, department_id, updated_at " +
+            "FROM products";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${catalog.snapshot.path:${java.io.tmpdir}/thinnk41/catalog.snapshot}")
+    private Path path;
+
+    @Value("${catalog.snapshot.write-interval:15m}")
+    private Duration writeInterval;
+
+    @Value("${catalog.snapshot.catch-up-overlap:5m}")
+    private Duration catchUpOverlap;
+
+    @Value("${catalog.snapshot.catch-up-chunk-size:500}")
+    private int catchUpChunkSize;
+
+    @Value("${catalog.snapshot.delete-scan-interval:15m}")
+    private Duration deleteScanInterval;
+
+    private volatile CatalogSnapshot snapshot;
+
+    // newest updated_at already looked at, in database time
+    private volatile long refreshedThrough;
+
+    // product count when the ids were last compared, and when that was
+    private volatile long comparedCount;
+    private volatile long comparedAt;
+
+    // products the snapshot must not answer for: changed, deleted, or reloaded during catch-up
+    private final Set<Integer> superseded = ConcurrentHashMap.newKeySet();
+
+    // products reloaded during catch-up, until they change again
+    private final Map<Integer, ProductDTO> caughtUp = new ConcurrentHashMap<>();
+
+    // SKUs those products carry now, which may point somewhere else than in the snapshot
+    private final Set<String> supersededSkus = ConcurrentHashMap.newKeySet();
+
+    private final Map<Integer, DepartmentDTO> departments = new ConcurrentHashMap<>();
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        Gauge.builder("catalog.snapshot.bytes", this, service -> service.snapshot != null ? service.snapshot.getSizeBytes() : 0)
+                .description("Size of the memory-mapped catalog snapshot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.superseded", superseded, Set::size)
+                .description("Snapshot products that are read from the database instead")
+                .register(meterRegistry);
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * Map the snapshot on disk, if any, and catch it up with the database
+     */
+    void load() {
+        if (!Files.isReadable(path)) {
+            log.info("No catalog snapshot at {}, starting cold", path);
+            return;
+        }
+        long start = System.nanoTime();
+        CatalogSnapshot mapped;
+        try {
+            mapped = CatalogSnapshot.open(path);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", path, e.getMessage());
+            return;
+        }
+        readOnlyTransaction.executeWithoutResult(status -> catchUp(mapped));
+        refreshedThrough = mapped.getVersion();
+        snapshot = mapped;
+        log.info("Mapped catalog snapshot {} ({} products, {} KB, written {} s ago) and caught up {} products in {} ms",
+                path, mapped.getProductCount(), mapped.getSizeBytes() / 1024,
+                (System.currentTimeMillis() - mapped.getWrittenAt()) / 1000, superseded.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void catchUp(CatalogSnapshot mapped) {
+        superseded.clear();
+        caughtUp.clear();
+        supersededSkus.clear();
+        departments.clear();
+        for (int i = 0; i < mapped.getDepartmentCount(); i++) {
+            DepartmentDTO department = mapped.department(i);
+            departments.put(department.getId(), department);
+        }
+        reloadDepartments();
+
+        Set<Integer> reload = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE updated_at > ?", Integer.class,
+                new Timestamp(mapped.getVersion() - catchUpOverlap.toMillis())));
+        Set<Integer> live = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM products", Integer.class));
+        comparedCount = live.size();
+        comparedAt = System.currentTimeMillis();
+        for (int row = 0; row < mapped.getProductCount(); row++) {
+            int id = mapped.productId(row);
+            if (!live.remove(id)) {
+                // deleted since the snapshot
+                superseded.add(id);
+            }
+        }
+        // what is left was created since the snapshot
+        reload.addAll(live);
+
+        List<Integer> ids = new ArrayList<>(reload);
+        for (int from = 0; from < ids.size(); from += catchUpChunkSize) {
+            for (Product product : productRepository.findAllWithDepartmentByIdIn(ids.subList(from, Math.min(ids.size(), from + catchUpChunkSize)))) {
+                caughtUp.put(product.getId(), ProductDTO.fromEntity(product));
+                if (product.getSku() != null) {
+                    supersededSkus.add(product.getSku());
+                }
+            }
+        }
+        superseded.addAll(reload);
+    }
+
+    /**
+     * Stop answering for products changed or deleted behind this instance's back since the last
+     * refresh. They are not reloaded; like local changes, they are read from the database from now on.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval:30s}")
+    public void refresh() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        readOnlyTransaction.executeWithoutResult(status -> {
+            reloadDepartments();
+            long[] newest = {refreshedThrough};
+            // the overlap again covers transactions that committed after rows stamped later than theirs
+            jdbcTemplate.query("SELECT id, sku, updated_at FROM products WHERE updated_at > ?", rs -> {
+                int id = rs.getInt(1);
+                superseded.add(id);
+                caughtUp.remove(id);
+                if (rs.getString(2) != null) {
+                    supersededSkus.add(rs.getString(2));
+                }
+                newest[0] = Math.max(newest[0], rs.getTimestamp(3).getTime());
+            }, new Timestamp(refreshedThrough - catchUpOverlap.toMillis()));
+            refreshedThrough = newest[0];
+            // deletes leave no timestamp behind; a count that moved is the cheap sign of one
+            long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+            long now = System.currentTimeMillis();
+            if (count != comparedCount || now - comparedAt >= deleteScanInterval.toMillis()) {
+                dropDeleted(current);
+                comparedCount = count;
+                comparedAt = now;
+            }
+        });
+    }
+
+    /**
+     * Walk the ids in order alongside the snapshot's (sorted) rows and supersede the ones gone
+     */
+    private void dropDeleted(CatalogSnapshot current) {
+        int[] row = {0};
+        Set<Integer> caughtUpLive = new HashSet<>();
+        jdbcTemplate.query("SELECT id FROM products ORDER BY id", rs -> {
+            int id = rs.getInt(1);
+            while (row[0] < current.getProductCount() && current.productId(row[0]) < id) {
+                superseded.add(current.productId(row[0]++));
+            }
+            if (row[0] < current.getProductCount() && current.productId(row[0]) == id) {
+                row[0]++;
+            }
+            if (caughtUp.containsKey(id)) {
+                caughtUpLive.add(id);
+            }
+        });
+        while (row[0] < current.getProductCount()) {
+            superseded.add(current.productId(row[0]++));
+        }
+        caughtUp.keySet().retainAll(caughtUpLive);
+    }
+
+    private void reloadDepartments() {
+        Set<Integer> current = new HashSet<>();
+        jdbcTemplate.query("SELECT id, name, description FROM departments", rs -> {
+            departments.put(rs.getInt(1), new DepartmentDTO(rs.getInt(1), rs.getString(2), rs.getString(3)));
+            current.add(rs.getInt(1));
+        });
+        departments.keySet().retainAll(current);
+    }
+
+    /**
+     * Whether a snapshot was mapped at startup
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * Visit every product as of startup: snapshot rows still current plus the ones caught up
+     */
+    public void forEachProduct(Consumer<ProductDTO> consumer) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        for (int row = 0; row < current.getProductCount(); row++) {
+            if (!superseded.contains(current.productId(row))) {
+                consumer.accept(current.product(row, departments::get));
+            }
+        }
+        caughtUp.values().forEach(consumer);
+    }
+
+    /**
+     * A product by id when the snapshot can answer for it; empty means ask the database
+     */
+    public Optional<ProductDTO> findById(Integer id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || id == null) {
+            return Optional.empty();
+        }
+        ProductDTO product = caughtUp.get(id);
+        if (product != null || superseded.contains(id)) {
+            return Optional.ofNullable(product);
+        }
+        int row = current.findRowById(id);
+        return row >= 0 ? Optional.of(current.product(row, departments::get)) : Optional.empty();
+    }
+
+    /**
+     * A product by SKU when the snapshot can answer for it; empty means ask the database
+     */
+    public Optional<ProductDTO> findBySku(String sku) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || sku == null) {
+            return Optional.empty();
+        }
+        // a SKU that moved between products since the snapshot is only settled by the database
+        if (supersededSkus.contains(sku)) {
+            return Optional.empty();
+        }
+        int row = current.findRowBySku(sku);
+        if (row < 0 || superseded.contains(current.productId(row))) {
+            return Optional.empty();
+        }
+        return Optional.of(current.product(row, departments::get));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        superseded.add(event.getProduct().getId());
+        caughtUp.remove(event.getProduct().getId());
+        if (event.getProduct().getSku() != null) {
+            supersededSkus.add(event.getProduct().getSku());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            departments.remove(event.getDepartment().getId());
+        } else {
+            departments.put(event.getDepartment().getId(), DepartmentDTO.fromEntity(event.getDepartment()));
+        }
+    }
+
+    /**
+     * Write a new snapshot when there is none yet or the last one is older than the write interval
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.check-interval:1m}")
+    public void writeIfDue() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (Files.exists(path) && System.currentTimeMillis() - Files.getLastModifiedTime(path).toMillis() < writeInterval.toMillis()) {
+            return;
+        }
+        write();
+    }
+
+    /**
+     * Dump the catalog from the database into a new snapshot file
+     */
+    public void write() throws IOException {
+        long start = System.nanoTime();
+        // one read-only transaction, so the version and the rows come from the same point in time
+        CatalogSnapshotWriter writer = readOnlyTransaction.execute(status -> {
+            Timestamp newest = jdbcTemplate.queryForObject("SELECT MAX(updated_at) FROM products", Timestamp.class);
+            CatalogSnapshotWriter rows = new CatalogSnapshotWriter(newest != null ? newest.getTime() : 0);
+            jdbcTemplate.query("SELECT id, name, description FROM departments",
+                    rs -> { rows.addDepartment(rs.getInt(1), rs.getString(2), rs.getString(3)); });
+            jdbcTemplate.query(PRODUCT_ROWS, rs -> {
+                Timestamp updatedAt = rs.getTimestamp(10);
+                rows.addProduct(rs.getInt(1), rs.getBigDecimal(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getBigDecimal(6), rs.getString(7), rs.getObject(8, Integer.class), rs.getObject(9, Integer.class),
+                        updatedAt != null ? updatedAt.getTime() : 0);
+            });
+            return rows;
+        });
+        long bytes = writer.writeTo(path);
+        log.info("Wrote catalog snapshot {}: {} products, {} KB in {} ms",
+                path, writer.productCount(), bytes / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,166 @@
+package com.ecommerce.thinnk41.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Collects departments and products and writes them in the {@link CatalogSnapshot} format.
+ * Every string goes into one dictionary, so repeated categories, brands and department names
+ * are stored once and records refer to them by number.
+ */
+final class CatalogSnapshotWriter {
+
+    private final long version;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+
+    private final List<int[]> departments = new ArrayList<>();
+    private final List<ProductRow> products = new ArrayList<>();
+
+    /**
+     * @param version the newest products.updated_at included, in epoch milliseconds
+     */
+    CatalogSnapshotWriter(long version) {
+        this.version = version;
+    }
+
+    CatalogSnapshotWriter addDepartment(int id, String name, String description) {
+        departments.add(new int[]{id, string(name), string(description)});
+        return this;
+    }
+
+    CatalogSnapshotWriter addProduct(int id, BigDecimal cost, String category, String name, String brand,
+                                     BigDecimal retailPrice, String sku, Integer distributionCenterId,
+                                     Integer departmentId, long updatedAt) {
+        ProductRow row = new ProductRow();
+        row.id = id;
+        row.cost = cents(cost);
+        row.category = string(category);
+        row.name = string(name);
+        row.brand = string(brand);
+        row.retailPrice = cents(retailPrice);
+        row.skuRef = string(sku);
+        row.distributionCenterId = orNull(distributionCenterId);
+        row.departmentId = orNull(departmentId);
+        row.updatedAt = updatedAt;
+        row.sku = sku;
+        products.add(row);
+        return this;
+    }
+
+    int productCount() {
+        return products.size();
+    }
+
+    /**
+     * Write to a temporary file next to the target and move it into place, so readers
+     * only ever see a complete snapshot
+     */
+    long writeTo(Path target) throws IOException {
+        products.sort(Comparator.comparingInt(product -> product.id));
+        // rows with a SKU in SKU order (ties by id), so a SKU resolves to its first product as in the database
+        int[] skuOrder = IntStream.range(0, products.size())
+                .filter(row -> products.get(row).sku != null)
+                .boxed()
+                .sorted(Comparator.comparing((Integer row) -> products.get(row).sku)
+                        .thenComparingInt(row -> products.get(row).id))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(CatalogSnapshot.MAGIC);
+                out.writeInt(CatalogSnapshot.FORMAT_VERSION);
+                out.writeLong(version);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(strings.size());
+                out.writeInt(departments.size());
+                out.writeInt(products.size());
+                out.writeInt(skuOrder.length);
+
+                int offset = 0;
+                for (byte[] string : strings) {
+                    out.writeInt(offset);
+                    offset += string.length;
+                }
+                out.writeInt(offset);
+                for (byte[] string : strings) {
+                    out.write(string);
+                }
+                for (int[] department : departments) {
+                    for (int field : department) {
+                        out.writeInt(field);
+                    }
+                }
+                for (ProductRow product : products) {
+                    out.writeInt(product.id);
+                    out.writeLong(product.cost);
+                    out.writeInt(product.category);
+                    out.writeInt(product.name);
+                    out.writeInt(product.brand);
+                    out.writeLong(product.retailPrice);
+                    out.writeInt(product.skuRef);
+                    out.writeInt(product.distributionCenterId);
+                    out.writeInt(product.departmentId);
+                    out.writeLong(product.updatedAt);
+                }
+                for (int row : skuOrder) {
+                    out.writeInt(row);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return Files.size(target);
+    }
+
+    private int string(String value) {
+        if (value == null) {
+            return CatalogSnapshot.NULL_STRING;
+        }
+        return stringIds.computeIfAbsent(value, key -> {
+            strings.add(key.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact()
+                : CatalogSnapshot.NULL_AMOUNT;
+    }
+
+    private static int orNull(Integer value) {
+        return value != null ? value : CatalogSnapshot.NULL_ID;
+    }
+
+    private static final class ProductRow {
+        private int id;
+        private long cost;
+        private int category;
+        private int name;
+        private int brand;
+        private long retailPrice;
+        private int skuRef;
+        private int distributionCenterId;
+        private int departmentId;
+        private long updatedAt;
+        private String sku;
+    }
+}
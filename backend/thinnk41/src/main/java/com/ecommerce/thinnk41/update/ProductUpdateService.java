@@ -0,0 +1,330 @@
+package com.ecommerce.thinnk41.update;
+
+import com.ecommerce.thinnk41.concurrency.DatabaseBulkhead;
+import com.ecommerce.thinnk41.dto.ProductUpdateDTO;
+import com.ecommerce.thinnk41.dto.ProductUpdateReportDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.event.ChangeType;
+import com.ecommerce.thinnk41.event.DepartmentChangedEvent;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Applies bulk price, cost and department changes streamed as NDJSON (or a JSON array).
+ *
+ * The input is read one line at a time and applied in chunks, each in its own transaction: the
+ * products of a chunk are resolved by id or SKU with two IN queries, changed with one JDBC batch,
+ * then reloaded once and published as {@link ProductChangedEvent}s, so caches, indexes and
+ * versions follow the change incrementally after the commit. Departments are resolved from a map
+ * loaded once per request; unknown names are created. A chunk that commits stays committed if a
+ * later one fails; lines that cannot be applied are counted and reported instead.
+ */
+@Service
+public class ProductUpdateService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductUpdateService.class);
+
+    private static final String UPDATE_PRODUCT =
+            "UPDATE products SET retail_price = COALESCE(?, retail_price), cost = COALESCE(?, cost), " +
+            "department_id = COALESCE(?, department_id), updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.updates.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${catalog.updates.max-reported-problems:100}")
+    private int maxReportedProblems;
+
+    private TransactionTemplate transaction;
+
+    private Counter updates;
+
+    @PostConstruct
+    void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        updates = Counter.builder("catalog.product.updates")
+                .description("Products changed through the bulk update API")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply every update in the stream, one chunk at a time
+     */
+    public ProductUpdateReportDTO apply(InputStream updates) throws IOException {
+        Run run = new Run();
+        long line = 0;
+        try (MappingIterator<ProductUpdateDTO> iterator = objectMapper.readerFor(ProductUpdateDTO.class).readValues(updates)) {
+            List<Line> chunk = new ArrayList<>(chunkSize);
+            while (true) {
+                ProductUpdateDTO update;
+                try {
+                    if (!iterator.hasNextValue()) {
+                        break;
+                    }
+                    line++;
+                    update = iterator.nextValue();
+                } catch (JsonProcessingException e) {
+                    // everything before the malformed line is applied, nothing after it
+                    run.applyChunk(chunk);
+                    throw new InvalidRequestException("Malformed update on line " + line + " (" + e.getOriginalMessage() +
+                            "); the " + run.updated + " updates before it were applied");
+                }
+                run.received++;
+                String problem = validate(update);
+                if (problem != null) {
+                    run.reject(line, problem);
+                    continue;
+                }
+                chunk.add(new Line(line, update));
+                if (chunk.size() == chunkSize) {
+                    run.applyChunk(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            run.applyChunk(chunk);
+        }
+        ProductUpdateReportDTO report = run.report();
+        log.info("Applied bulk product update: {} of {} lines in {} chunks, {} ms, {} updates/sec ({} not found, {} rejected)",
+                report.getUpdated(), report.getReceived(), report.getChunks(), report.getElapsedMillis(),
+                Math.round(report.getUpdatesPerSecond()), report.getNotFound(), report.getRejected());
+        return report;
+    }
+
+    private static String validate(ProductUpdateDTO update) {
+        if (update == null) {
+            return "empty update";
+        }
+        if (update.getId() == null && (update.getSku() == null || update.getSku().isBlank())) {
+            return "id or sku is required";
+        }
+        if (update.getRetailPrice() == null && update.getCost() == null && update.getDepartment() == null) {
+            return "nothing to change";
+        }
+        if (isNegative(update.getRetailPrice()) || isNegative(update.getCost())) {
+            return "retailPrice and cost must not be negative";
+        }
+        if (update.getDepartment() != null && update.getDepartment().isBlank()) {
+            return "department must not be blank";
+        }
+        return null;
+    }
+
+    private static boolean isNegative(BigDecimal amount) {
+        return amount != null && amount.signum() < 0;
+    }
+
+    /**
+     * State of one bulk update request.
+     */
+    private final class Run {
+        private final long start = System.nanoTime();
+        // by line: not-found lines are only known once their chunk is applied
+        private final TreeMap<Long, String> problems = new TreeMap<>();
+        private Map<String, Integer> departments;
+        private long received;
+        private long updated;
+        private long notFound;
+        private long rejected;
+        private int departmentsCreated;
+        private int chunks;
+
+        void applyChunk(List<Line> chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            if (departments == null) {
+                departments = new HashMap<>();
+                databaseBulkhead.call(() -> {
+                    jdbcTemplate.query("SELECT id, name FROM departments", rs -> {
+                        departments.put(rs.getString(2), rs.getInt(1));
+                    });
+                    return null;
+                });
+            }
+            // staged by the chunk and only folded into the run once it has committed
+            ChunkResult result = databaseBulkhead.call(() -> transaction.execute(status -> applyInTransaction(chunk)));
+            departments.putAll(result.createdDepartments);
+            departmentsCreated += result.createdDepartments.size();
+            updated += result.updated;
+            updates.increment(result.updated);
+            notFound += result.notFound.size();
+            result.notFound.forEach(this::problem);
+            chunks++;
+        }
+
+        private ChunkResult applyInTransaction(List<Line> chunk) {
+            ChunkResult result = new ChunkResult();
+            resolveDepartments(chunk, result.createdDepartments);
+            Map<String, Integer> idsBySku = resolveSkus(chunk);
+            Set<Integer> existingIds = resolveIds(chunk);
+
+            List<Object[]> batch = new ArrayList<>(chunk.size());
+            Set<Integer> changed = new LinkedHashSet<>();
+            for (Line line : chunk) {
+                ProductUpdateDTO update = line.update;
+                Integer id = update.getId() != null
+                        ? (existingIds.contains(update.getId()) ? update.getId() : null)
+                        : idsBySku.get(update.getSku());
+                if (id == null) {
+                    result.notFound.put(line.number,
+                            "no product with " + (update.getId() != null ? "id " + update.getId() : "sku " + update.getSku()));
+                    continue;
+                }
+                Integer departmentId = update.getDepartment() != null ? departmentId(update.getDepartment(), result) : null;
+                batch.add(new Object[]{update.getRetailPrice(), update.getCost(), departmentId, id});
+                changed.add(id);
+            }
+            jdbcTemplate.batchUpdate(UPDATE_PRODUCT, batch);
+            result.updated = batch.size();
+
+            // delivered after the commit, as for changes made through JPA
+            if (!changed.isEmpty()) {
+                for (Product product : productRepository.findAllWithDepartmentByIdIn(changed)) {
+                    eventPublisher.publishEvent(new ProductChangedEvent(product, ChangeType.UPDATED));
+                }
+            }
+            return result;
+        }
+
+        private Integer departmentId(String name, ChunkResult result) {
+            Integer id = departments.get(name);
+            return id != null ? id : result.createdDepartments.get(name);
+        }
+
+        private void resolveDepartments(List<Line> chunk, Map<String, Integer> created) {
+            for (Line line : chunk) {
+                String name = line.update.getDepartment();
+                if (name == null || departments.containsKey(name) || created.containsKey(name)) {
+                    continue;
+                }
+                jdbcTemplate.update("INSERT INTO departments (name) VALUES (?) ON DUPLICATE KEY UPDATE name = name", name);
+                Integer id = jdbcTemplate.queryForObject("SELECT id FROM departments WHERE name = ?", Integer.class, name);
+                created.put(name, id);
+                // delivered only if the chunk commits
+                eventPublisher.publishEvent(new DepartmentChangedEvent(new Department(id, name, null, null), ChangeType.CREATED));
+            }
+        }
+
+        private Map<String, Integer> resolveSkus(List<Line> chunk) {
+            Set<String> skus = new LinkedHashSet<>();
+            for (Line line : chunk) {
+                if (line.update.getId() == null) {
+                    skus.add(line.update.getSku());
+                }
+            }
+            Map<String, Integer> idsBySku = new HashMap<>();
+            if (!skus.isEmpty()) {
+                // a SKU shared by several products resolves to the first one, as the lookups do
+                namedParameterJdbcTemplate.query("SELECT id, sku FROM products WHERE sku IN (:skus) ORDER BY id",
+                        Map.of("skus", skus), rs -> {
+                            idsBySku.putIfAbsent(rs.getString(2), rs.getInt(1));
+                        });
+            }
+            return idsBySku;
+        }
+
+        private Set<Integer> resolveIds(List<Line> chunk) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (Line line : chunk) {
+                if (line.update.getId() != null) {
+                    ids.add(line.update.getId());
+                }
+            }
+            if (ids.isEmpty()) {
+                return ids;
+            }
+            return new LinkedHashSet<>(namedParameterJdbcTemplate.queryForList(
+                    "SELECT id FROM products WHERE id IN (:ids)", Map.of("ids", ids), Integer.class));
+        }
+
+        void reject(long line, String problem) {
+            rejected++;
+            problem(line, problem);
+        }
+
+        private void problem(long line, String problem) {
+            if (problems.size() < maxReportedProblems) {
+                problems.put(line, "line " + line + ": " + problem);
+            }
+        }
+
+        ProductUpdateReportDTO report() {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            double updatesPerSecond = elapsedMillis == 0 ? updated : updated * 1000.0 / elapsedMillis;
+            return new ProductUpdateReportDTO(received, updated, notFound, rejected, departmentsCreated, chunks,
+                    elapsedMillis, updatesPerSecond, new ArrayList<>(problems.values()));
+        }
+    }
+
+    /**
+     * What one chunk changed, applied to the run once its transaction has committed
+     */
+    private static final class ChunkResult {
+        private final Map<String, Integer> createdDepartments = new HashMap<>();
+        // problems by line
+        private final Map<Long, String> notFound = new TreeMap<>();
+        private int updated;
+    }
+
+    private static final class Line {
+        private final long number;
+        private final ProductUpdateDTO update;
+
+        private Line(long number, ProductUpdateDTO update) {
+            this.number = number;
+            this.update = update;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.thinnk41.versioning;
+
+import lombok.Value;
+
+/**
+ * A cheap summary of the catalog that moves with writes this instance never heard about: the shared
+ * catalog version (changes published by other instances), the product count (inserts and deletes) and
+ * the latest product {@code updated_at} (updates, and inserts that a delete cancelled out in the count).
+ */
+@Value
+public class CatalogFingerprint {
+    long sharedVersion;
+    long productCount;
+    long lastUpdatedAt;
+}
@@ -0,0 +1,192 @@
+package com.ecommerce.thinnk41.versioning;
+
+import com.ecommerce.thinnk41.event.DepartmentChangedEvent;
+import com.ecommerce.thinnk41.event.ProductChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic versions for the catalog as a whole and for each product and department.
+ *
+ * Versions come from one clock that never goes backwards and never repeats: each change takes
+ * {@code max(previous + 1, now in millis)}, so a version doubles as its Last-Modified time.
+ * The clock starts at the startup time, which invalidates every validator handed out by an
+ * earlier run (and any writes made while the application was down). Entities that have not
+ * changed since startup share that baseline version. Any product or department change also
+ * moves the global version, which covers listings, counts and embedded department data.
+ *
+ * The versions only see this instance's writes. Writes made elsewhere reach it through the
+ * shared {@code catalog_version} counter: every poll interval an instance that changed the
+ * catalog bumps it, and an instance that finds it moved by someone else invalidates everything.
+ * A validator is therefore stale for at most two poll intervals after a write on another
+ * instance, and never outlives the validator max age, which also covers writes made outside
+ * the application.
+ */
+@Component
+public class CatalogVersions {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogVersions.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.http.cache.validator-max-age:10m}")
+    private Duration validatorMaxAge;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+    private volatile long baseline = clock.get();
+
+    private final Map<Integer, Long> productVersions = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Long> departmentVersions = new ConcurrentHashMap<>();
+
+    private volatile long globalVersion = baseline;
+
+    /** Version of the most recent department change, which every product embeds a department of */
+    private volatile long latestDepartmentVersion = baseline;
+
+    /** Set by every local change until a poll has bumped the shared counter for it */
+    private final AtomicBoolean unpublished = new AtomicBoolean();
+
+    /** The shared counter as of the last poll, -1 before the first */
+    private long sharedVersion = -1;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public long getGlobalVersion() {
+        return globalVersion;
+    }
+
+    public long getProductVersion(Integer productId) {
+        return productVersions.getOrDefault(productId, baseline);
+    }
+
+    public long getDepartmentVersion(Integer departmentId) {
+        return departmentVersions.getOrDefault(departmentId, baseline);
+    }
+
+    public long getLatestDepartmentVersion() {
+        return latestDepartmentVersion;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productChanged(event.getProduct().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDepartmentChanged(DepartmentChangedEvent event) {
+        departmentChanged(event.getDepartment().getId());
+    }
+
+    /**
+     * Record a change to a product
+     */
+    public void productChanged(Integer productId) {
+        unpublished.set(true);
+        long version = tick();
+        productVersions.put(productId, version);
+        globalVersion = version;
+    }
+
+    /**
+     * Record a change to a department
+     */
+    public void departmentChanged(Integer departmentId) {
+        unpublished.set(true);
+        long version = tick();
+        departmentVersions.put(departmentId, version);
+        latestDepartmentVersion = version;
+        globalVersion = version;
+    }
+
+    /**
+     * Record a change that bypassed JPA (bulk JDBC writes), invalidating every version at once
+     */
+    public void catalogChanged() {
+        unpublished.set(true);
+        invalidateAll();
+    }
+
+    /**
+     * Publish this instance's changes to the shared counter and pick up everyone else's
+     */
+    @Scheduled(fixedDelayString = "${catalog.http.cache.version-poll-interval:5s}")
+    public synchronized void poll() {
+        boolean publish = unpublished.getAndSet(false);
+        long shared;
+        try {
+            shared = transactionTemplate.execute(status -> {
+                if (publish) {
+                    jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE id = 1");
+                }
+                return jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+            });
+        } catch (DataAccessException e) {
+            if (publish) {
+                unpublished.set(true);
+            }
+            log.warn("Could not poll the shared catalog version: {}", e.getMessage());
+            return;
+        }
+        // our own bump is the only expected move; anything else (or not knowing, on the first
+        // poll) means another instance wrote and none of our validators can be trusted
+        long expected = publish ? sharedVersion + 1 : sharedVersion;
+        sharedVersion = shared;
+        if (shared != expected || System.currentTimeMillis() - baseline >= validatorMaxAge.toMillis()) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Read the catalog's fingerprint, for in-memory indexes that have to notice writes made outside this instance
+     */
+    public CatalogFingerprint fingerprint() {
+        return jdbcTemplate.queryForObject(
+                "SELECT (SELECT version FROM catalog_version WHERE id = 1), COUNT(*), MAX(updated_at) FROM products",
+                (rs, rowNum) -> {
+                    Timestamp lastUpdatedAt = rs.getTimestamp(3);
+                    return new CatalogFingerprint(rs.getLong(1), rs.getLong(2), lastUpdatedAt != null ? lastUpdatedAt.getTime() : 0);
+                });
+    }
+
+    private void invalidateAll() {
+        long version = tick();
+        // move the baseline before dropping entries, so no entity is ever seen with an older version
+        baseline = version;
+        productVersions.clear();
+        departmentVersions.clear();
+        latestDepartmentVersion = version;
+        globalVersion = version;
+    }
+
+    private long tick() {
+        return clock.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+    }
+}
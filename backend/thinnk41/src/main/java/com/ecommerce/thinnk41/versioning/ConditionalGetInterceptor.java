@@ -0,0 +1,95 @@
+package com.ecommerce.thinnk41.versioning;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Validates catalog GETs against {@link CatalogVersions} before the controller runs.
+ *
+ * Single departments are validated against their own version and single products against theirs
+ * or the latest department change, whichever is newer, since a product embeds its department.
+ * Everything else (listings, searches, counts) is validated against the global catalog version.
+ * A matching If-None-Match or If-Modified-Since is answered with 304 straight from here, without
+ * touching the database or the serializer. The version is read before the controller loads
+ * anything, so a response can carry an older validator than its data but never a newer one.
+ * Writes made by another instance only move the versions once {@link CatalogVersions} has
+ * polled for them, so until then a 304 may vouch for data that has changed there.
+ *
+ * Tags are strong unless the client accepts gzip: compressed and identity bodies are the
+ * same data in different bytes, which is what a weak tag describes.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final String PRODUCT = "/api/products/{id}";
+    private static final String DEPARTMENT = "/api/departments/{id}";
+    private static final String EXPORT = "/api/products/export";
+    // built in the background and weighted by orders, so not tied to the catalog versions
+    private static final String SUGGEST = "/api/products/suggest";
+    // follows stock, which changes without a catalog version bump
+    private static final String FULFILLMENT = "/api/products/{id}/fulfillment";
+    // follows orders, which are not part of the catalog versions
+    private static final String RELATED = "/api/products/{id}/related";
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Value("${catalog.http.cache.max-age:0s}")
+    private Duration maxAge;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return true;
+        }
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null || EXPORT.equals(pattern) || SUGGEST.equals(pattern)
+                || FULFILLMENT.equals(pattern) || RELATED.equals(pattern)) {
+            return true;
+        }
+
+        long version = resolveVersion(pattern, request);
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        // the representation depends on Accept, so it is part of the tag
+        String etag = "\"" + Long.toString(version, 36) + "-" + Integer.toHexString(accept != null ? accept.hashCode() : 0) + "\"";
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            // the response may be gzipped, and Tomcat never compresses a response with a strong tag
+            etag = "W/" + etag;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(maxAge).cachePublic().mustRevalidate().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return !new ServletWebRequest(request, response).checkNotModified(etag, version);
+    }
+
+    private long resolveVersion(String pattern, HttpServletRequest request) {
+        if (PRODUCT.equals(pattern) || DEPARTMENT.equals(pattern)) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            try {
+                Integer id = Integer.valueOf(variables.get("id"));
+                return PRODUCT.equals(pattern)
+                        ? Math.max(catalogVersions.getProductVersion(id), catalogVersions.getLatestDepartmentVersion())
+                        : catalogVersions.getDepartmentVersion(id);
+            } catch (NumberFormatException e) {
+                // the controller rejects the id with a 400
+                return catalogVersions.getGlobalVersion();
+            }
+        }
+        return catalogVersions.getGlobalVersion();
+    }
+}
@@ -0,0 +1,8 @@
+-- Newest-first listings (sort=newest) filtered by category or brand: ORDER BY id DESC under an
+-- equality filter. The V6 indexes continue with retail_price, so within one category their rows
+-- are not in id order and every match would be sorted; these are. On InnoDB a secondary index
+-- ends with the primary key, so (category) alone would do and the foreign key's index on
+-- department_id already serves a department; id is spelled out for databases that do not.
+
+CREATE INDEX idx_products_category_id ON products (category, id);
+CREATE INDEX idx_products_brand_id ON products (brand, id);
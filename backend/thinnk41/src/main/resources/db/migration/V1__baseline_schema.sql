@@ -0,0 +1,29 @@
+-- Catalog schema as produced by backend/database_setup.py and backend/database_migration.py.
+-- Every statement is guarded so it is a no-op on databases created by those scripts.
+
+CREATE TABLE IF NOT EXISTS distribution_centers (
+    id INT PRIMARY KEY,
+    name VARCHAR(255),
+    latitude DECIMAL(10,6),
+    longitude DECIMAL(10,6)
+);
+
+CREATE TABLE IF NOT EXISTS departments (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    name VARCHAR(255) UNIQUE NOT NULL,
+    description TEXT
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    cost DECIMAL(10,2),
+    category VARCHAR(255),
+    name TEXT,
+    brand VARCHAR(255),
+    retail_price DECIMAL(10,2),
+    sku VARCHAR(255),
+    distribution_center_id INT,
+    department_id INT,
+    FOREIGN KEY (distribution_center_id) REFERENCES distribution_centers(id),
+    CONSTRAINT fk_products_department FOREIGN KEY (department_id) REFERENCES departments(id)
+);
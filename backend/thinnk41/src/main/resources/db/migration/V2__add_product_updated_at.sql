@@ -0,0 +1,5 @@
+-- Last-modified timestamp used by incremental exports ("updated since") and change catch-up.
+
+ALTER TABLE products ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_products_updated_at ON products (updated_at);
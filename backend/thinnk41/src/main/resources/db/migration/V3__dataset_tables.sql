@@ -0,0 +1,76 @@
+-- Remaining tables of the ecommerce dataset (see ecommerce-dataset-main/README.md),
+-- plus the checkpoints used by the bulk ingestion command to resume a partial load.
+
+CREATE TABLE IF NOT EXISTS users (
+    id INT PRIMARY KEY,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    email VARCHAR(255),
+    age INT,
+    gender VARCHAR(16),
+    state VARCHAR(255),
+    street_address VARCHAR(255),
+    postal_code VARCHAR(32),
+    city VARCHAR(255),
+    country VARCHAR(255),
+    latitude DOUBLE,
+    longitude DOUBLE,
+    traffic_source VARCHAR(64),
+    created_at DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    order_id INT PRIMARY KEY,
+    user_id INT,
+    status VARCHAR(32),
+    gender VARCHAR(16),
+    created_at DATETIME,
+    returned_at DATETIME,
+    shipped_at DATETIME,
+    delivered_at DATETIME,
+    num_of_item INT
+);
+
+CREATE INDEX idx_orders_user ON orders (user_id);
+
+CREATE TABLE IF NOT EXISTS inventory_items (
+    id INT PRIMARY KEY,
+    product_id INT,
+    created_at DATETIME,
+    sold_at DATETIME,
+    cost DECIMAL(10,2),
+    product_category VARCHAR(255),
+    product_name TEXT,
+    product_brand VARCHAR(255),
+    product_retail_price DECIMAL(10,2),
+    product_department VARCHAR(255),
+    product_sku VARCHAR(255),
+    product_distribution_center_id INT
+);
+
+CREATE INDEX idx_inventory_items_product ON inventory_items (product_id, sold_at);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id INT PRIMARY KEY,
+    order_id INT,
+    user_id INT,
+    product_id INT,
+    inventory_item_id INT,
+    status VARCHAR(32),
+    created_at DATETIME,
+    shipped_at DATETIME,
+    delivered_at DATETIME,
+    returned_at DATETIME
+);
+
+CREATE INDEX idx_order_items_order ON order_items (order_id);
+CREATE INDEX idx_order_items_product ON order_items (product_id);
+
+CREATE TABLE IF NOT EXISTS ingest_checkpoints (
+    table_name VARCHAR(64) PRIMARY KEY,
+    source_file VARCHAR(512),
+    rows_committed BIGINT NOT NULL,
+    -- fingerprint of the committed rows, checked against the file before a resume skips them
+    source_fingerprint BIGINT,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
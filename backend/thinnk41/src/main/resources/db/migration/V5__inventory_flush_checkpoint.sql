@@ -0,0 +1,10 @@
+-- Progress of the inventory write-behind (InventoryWriteBehind): advanced in the same
+-- transaction as every batch of sold inventory_items, so it always matches the committed sales.
+CREATE TABLE IF NOT EXISTS inventory_flush_checkpoint (
+    id INT PRIMARY KEY,
+    batches_flushed BIGINT NOT NULL,
+    units_flushed BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+INSERT INTO inventory_flush_checkpoint (id, batches_flushed, units_flushed) VALUES (1, 0, 0);
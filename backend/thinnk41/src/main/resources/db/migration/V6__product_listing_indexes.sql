@@ -0,0 +1,10 @@
+-- Composite indexes behind the filtered, sorted product listings (/api/products/browse and the
+-- cursor listings). Each leads with the equality filter and continues with the price sort key and
+-- id tie-breaker, so "category = ? AND retail_price BETWEEN ? AND ? ORDER BY retail_price, id" is a
+-- range scan that is already in order. name is TEXT and cannot be fully indexed: name-sorted
+-- listings use these indexes for the filter and sort the matching rows.
+
+CREATE INDEX idx_products_category_price ON products (category, retail_price, id);
+CREATE INDEX idx_products_brand_price ON products (brand, retail_price, id);
+CREATE INDEX idx_products_department_price ON products (department_id, retail_price, id);
+CREATE INDEX idx_products_price ON products (retail_price, id);
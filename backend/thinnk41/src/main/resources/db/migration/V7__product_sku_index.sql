@@ -0,0 +1,4 @@
+-- Products are addressed by SKU in lookups and bulk updates (POST /api/admin/products/updates
+-- resolves a chunk of SKUs with one IN query); without an index each of those is a scan of the table.
+
+CREATE INDEX idx_products_sku ON products (sku);
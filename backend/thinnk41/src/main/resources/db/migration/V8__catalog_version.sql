@@ -0,0 +1,8 @@
+-- Catalog change counter shared by every instance (CatalogVersions): an instance that wrote to
+-- products or departments bumps it, and the others poll it to invalidate their HTTP validators.
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id INT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO catalog_version (id, version) VALUES (1, 0);
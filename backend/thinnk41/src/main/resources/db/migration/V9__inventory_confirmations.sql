@@ -0,0 +1,12 @@
+-- Confirmed sales not yet written to inventory_items (InventoryWriteBehind): a row is inserted
+-- before the confirmation is acknowledged and deleted in the transaction that marks its units
+-- sold, so confirmations still queued when an instance dies are picked up by another one.
+CREATE TABLE IF NOT EXISTS inventory_confirmations (
+    reservation_id CHAR(36) PRIMARY KEY,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    confirmed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_inventory_confirmations_product ON inventory_confirmations (product_id);
+CREATE INDEX idx_inventory_confirmations_confirmed_at ON inventory_confirmations (confirmed_at);
@@ -0,0 +1,27 @@
+package com.ecommerce.thinnk41;
+
+import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
+import com.ecommerce.thinnk41.dto.ProductUpdateDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogRuntimeHintsTests {
+
+    @Test
+    void registersTheDtosOnlyReachedByName() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new CatalogRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // the JPQL constructor expression in DepartmentRepository
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(DepartmentWithProductCountDTO.class
+                .getConstructor(Integer.class, String.class, String.class, Long.class))).accepts(hints);
+        // read by the bulk update endpoint through objectMapper.readerFor
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(ProductUpdateDTO.class.getMethod("setRetailPrice",
+                BigDecimal.class))).accepts(hints);
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecommerce.thinnk41.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "catalog.admission.enabled=true",
+        "catalog.admission.api-keys=partner-key,other-key",
+        "catalog.admission.rate-limit.search.per-second=0.5",
+        "catalog.admission.rate-limit.search.burst=3"
+})
+@AutoConfigureMockMvc
+class AdmissionControlTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void rejectsAClientPastItsBurstWithoutSlowingOthers() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(search("10.0.0.1", null)).andExpect(status().isOk());
+        }
+        mockMvc.perform(search("10.0.0.1", null))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*"))
+                .andExpect(jsonPath("$.error").value("Too many requests"));
+
+        // another address, and a known API key sent from the throttled address, have their own allowance
+        mockMvc.perform(search("10.0.0.2", null)).andExpect(status().isOk());
+        mockMvc.perform(search("10.0.0.1", "partner-key")).andExpect(status().isOk());
+        // an unknown key is just the address
+        mockMvc.perform(search("10.0.0.1", "made-up-key")).andExpect(status().isTooManyRequests());
+        // other route classes too
+        mockMvc.perform(get("/api/departments").with(request -> {
+            request.setRemoteAddr("10.0.0.1");
+            return request;
+        })).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("catalog.admission.requests").tags("route", "search", "outcome", "rate_limited")
+                .counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("catalog.admission.requests").tags("route", "search", "outcome", "admitted")
+                .counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void rateLimiterRefillsOneRequestPerInterval() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 100);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("a", now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("a", now)).isEqualTo(SECOND / 10);
+        assertThat(limiter.tryAcquire("a", now + SECOND / 20)).isEqualTo(SECOND / 20);
+        assertThat(limiter.tryAcquire("a", now + SECOND / 10)).isZero();
+        assertThat(limiter.tryAcquire("a", now + SECOND / 10)).isPositive();
+        // idle long enough to refill, but no further than the burst
+        now += 10 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("a", now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("a", now)).isPositive();
+        assertThat(limiter.tryAcquire("b", now)).isZero();
+    }
+
+    @Test
+    void concurrencyLimitGrowsWhileLatencyHoldsAndShrinksWhenItClimbs() {
+        long window = TimeUnit.MILLISECONDS.toNanos(100);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 200, window, 1.5, 0);
+        long now = 0;
+        for (int round = 0; round < 30; round++) {
+            now += window;
+            runWindow(limit, limit.getLimit(), TimeUnit.MILLISECONDS.toNanos(5), now);
+        }
+        int grown = limit.getLimit();
+        assertThat(grown).isGreaterThan(40);
+
+        // while half the permits sit idle there is no signal, so the limit stays put
+        for (int round = 0; round < 10; round++) {
+            now += window;
+            runWindow(limit, grown / 3, TimeUnit.MILLISECONDS.toNanos(1), now);
+        }
+        assertThat(limit.getLimit()).isEqualTo(grown);
+
+        // the database falls behind: latency goes up tenfold
+        for (int round = 0; round < 20; round++) {
+            now += window;
+            runWindow(limit, limit.getLimit(), TimeUnit.MILLISECONDS.toNanos(50), now);
+        }
+        assertThat(limit.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    void concurrencyLimitTurnsAwayRequestsOverTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, SECOND, 1.5, 0);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release(1, 1);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void classifiesRoutesByPathPrefix() {
+        assertThat(RouteClass.of("/api/products/search")).isEqualTo(RouteClass.SEARCH);
+        assertThat(RouteClass.of("/api/products/searchable")).isEqualTo(RouteClass.DEFAULT);
+        assertThat(RouteClass.of("/api/products/fulfillment")).isEqualTo(RouteClass.BULK);
+        assertThat(RouteClass.of("/api/products/batch")).isEqualTo(RouteClass.DEFAULT);
+        assertThat(RouteClass.of("/api/products/7/fulfillment")).isEqualTo(RouteClass.DEFAULT);
+        assertThat(RouteClass.of("/api/admin/sales/rollups/backfill")).isEqualTo(RouteClass.BULK);
+    }
+
+    // take up to the given number of permits and release them as the window ends, the last one closing it
+    private static void runWindow(AdaptiveConcurrencyLimit limit, int requests, long latency, long end) {
+        int taken = 0;
+        while (taken < requests && limit.tryAcquire()) {
+            taken++;
+        }
+        for (int i = 0; i < taken; i++) {
+            limit.release(latency, i == taken - 1 ? end : end - 1);
+        }
+    }
+
+    private static MockHttpServletRequestBuilder search(String address, String apiKey) {
+        MockHttpServletRequestBuilder request = get("/api/products/search").param("name", "jeans").with(r -> {
+            r.setRemoteAddr(address);
+            return r;
+        });
+        return apiKey != null ? request.header(AdmissionFilter.API_KEY_HEADER, apiKey) : request;
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.thinnk41.cache;
+
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductCacheTests {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @BeforeEach
+    void clear() {
+        productCache.evictAll();
+    }
+
+    @Test
+    void concurrentMissesOnOneKeyLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Optional<ProductDTO>>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return productCache.getById(42, id -> {
+                        loads.incrementAndGet();
+                        sleep(100);
+                        return Optional.of(product(id));
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<ProductDTO>> result : results) {
+                assertThat(result.get()).hasValueSatisfying(dto -> assertThat(dto.getId()).isEqualTo(42));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadsRunOutsideTheMapAndAnEvictionDropsALoadInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<Optional<ProductDTO>> first = executor.submit(() -> productCache.getById(42, id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return Optional.of(product(42));
+            }));
+            loading.await();
+
+            // with the load parked, the same key can still be evicted and another key loaded
+            executor.submit(() -> productCache.evictProduct(42, null)).get(1, TimeUnit.SECONDS);
+            assertThat(executor.submit(() -> productCache.getById(43, id -> Optional.empty())).get(1, TimeUnit.SECONDS)).isEmpty();
+
+            release.countDown();
+            assertThat(first.get()).isPresent();
+        } finally {
+            executor.shutdownNow();
+        }
+        // the evicted load was not cached, so the next read loads afresh
+        productCache.getById(42, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void productAndDepartmentWritesInvalidateCachedEntries() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        Department department = departmentRepository.save(new Department(null, "Women", "Women's clothing", null));
+        Product product = new Product();
+        product.setSku("SKU-1");
+        product.setName("Jeans");
+        product.setRetailPrice(new BigDecimal("40.00"));
+        product.setDepartment(department);
+        product = productRepository.save(product);
+
+        assertThat(productService.getProductDtoById(product.getId())).get()
+                .extracting(ProductDTO::getRetailPrice).isEqualTo(new BigDecimal("40.00"));
+        assertThat(productService.getProductDtoBySku("SKU-1")).isPresent();
+
+        product.setRetailPrice(new BigDecimal("35.00"));
+        product.setSku("SKU-2");
+        productRepository.save(product);
+
+        assertThat(productService.getProductDtoById(product.getId())).get()
+                .extracting(ProductDTO::getRetailPrice).isEqualTo(new BigDecimal("35.00"));
+        assertThat(productService.getProductDtoBySku("SKU-1")).isEmpty();
+
+        department.setDescription("Updated");
+        departmentRepository.save(department);
+
+        assertThat(productService.getProductDtoById(product.getId())).get()
+                .extracting(dto -> dto.getDepartment().getDescription()).isEqualTo("Updated");
+    }
+
+    private static ProductDTO product(int id) {
+        return new ProductDTO(id, null, null, null, null, null, null, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import com.ecommerce.thinnk41.exception.BulkheadRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DatabaseBulkheadTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DatabaseBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        bulkhead = new DatabaseBulkhead();
+        ReflectionTestUtils.setField(bulkhead, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bulkhead, "enabled", true);
+        ReflectionTestUtils.setField(bulkhead, "maxConcurrentCalls", 1);
+        ReflectionTestUtils.setField(bulkhead, "maxWait", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(bulkhead, "retryAfter", Duration.ofSeconds(2));
+        bulkhead.init();
+    }
+
+    @Test
+    void nestedCallsOnOneThreadShareAPermit() {
+        String result = bulkhead.call(() -> bulkhead.call(() -> "inner"));
+
+        assertThat(result).isEqualTo("inner");
+        assertThat(meterRegistry.get("catalog.db.bulkhead.available").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rejectsWhenNoPermitFreesUpWithinTheMaximumWait() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> bulkhead.call(() -> {
+                holding.countDown();
+                try {
+                    done.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }), executor);
+            holding.await(5, TimeUnit.SECONDS);
+
+            assertThatThrownBy(() -> bulkhead.call(() -> "blocked"))
+                    .isInstanceOf(BulkheadRejectedException.class)
+                    .extracting("retryAfter").isEqualTo(Duration.ofSeconds(2));
+            assertThat(meterRegistry.get("catalog.db.bulkhead.rejected").counter().count()).isEqualTo(1.0);
+
+            done.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(bulkhead.call(() -> "free")).isEqualTo("free");
+        assertThat(meterRegistry.get("catalog.db.bulkhead.wait").timer().count()).isEqualTo(3);
+    }
+}
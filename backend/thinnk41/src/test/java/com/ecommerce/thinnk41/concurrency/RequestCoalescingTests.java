@@ -0,0 +1,143 @@
+package com.ecommerce.thinnk41.concurrency;
+
+import com.ecommerce.thinnk41.dto.DepartmentWithProductCountDTO;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.service.DepartmentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class RequestCoalescingTests {
+
+    private static final int CALLERS = 16;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @MockitoBean
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentIdenticalQueriesShareOneDatabaseCall() throws Exception {
+        double coalescedBefore = calls("coalesced");
+        // hold the query until every other caller has joined it
+        doAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (calls("coalesced") - coalescedBefore < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return List.of(new DepartmentWithProductCountDTO(1, "Coalesced", "Shared", 0L));
+        }).when(departmentRepository).findAllDepartmentsWithProductCount();
+
+        List<CompletableFuture<List<DepartmentWithProductCountDTO>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(CompletableFuture.supplyAsync(departmentService::getAllDepartmentsWithProductCount, executor));
+            }
+        }
+
+        verify(departmentRepository, times(1)).findAllDepartmentsWithProductCount();
+        assertThat(calls("coalesced") - coalescedBefore).isEqualTo(CALLERS - 1);
+        List<DepartmentWithProductCountDTO> first = results.get(0).get();
+        assertThat(first).extracting(DepartmentWithProductCountDTO::getName).containsExactly("Coalesced");
+        assertThat(results).allSatisfy(result -> assertThat(result.get()).isSameAs(first));
+
+        // once the flight has landed the next call queries again
+        departmentService.getAllDepartmentsWithProductCount();
+        verify(departmentRepository, times(2)).findAllDepartmentsWithProductCount();
+    }
+
+    @Test
+    void waitersShareTheLeadersFailure() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight singleFlight = singleFlight(registry, Duration.ZERO);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        AtomicInteger executions = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> run(singleFlight, () -> {
+                executions.incrementAndGet();
+                started.complete(null);
+                release.get();
+                throw new IllegalStateException("database down");
+            }), executor);
+            started.get(5, TimeUnit.SECONDS);
+            CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> run(singleFlight, () -> {
+                executions.incrementAndGet();
+                return "not shared";
+            }), executor);
+            while (registry.find("catalog.coalescing.calls").tag("outcome", "coalesced").counter() == null) {
+                Thread.sleep(5);
+            }
+            release.complete(null);
+
+            assertThatThrownBy(leader::join).hasRootCauseMessage("database down");
+            assertThatThrownBy(waiter::join).hasRootCauseMessage("database down");
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void reusesFinishedResultsWithinTheWindow() throws Throwable {
+        SingleFlight singleFlight = singleFlight(new SimpleMeterRegistry(), Duration.ofMinutes(1));
+        AtomicInteger executions = new AtomicInteger();
+
+        Object first = singleFlight.execute("test", "key", executions::incrementAndGet);
+        Object second = singleFlight.execute("test", "key", executions::incrementAndGet);
+        Object other = singleFlight.execute("test", "other", executions::incrementAndGet);
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(1);
+        assertThat(other).isEqualTo(2);
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.find("catalog.coalescing.calls")
+                .tag("method", "DepartmentService.getAllDepartmentsWithProductCount")
+                .tag("outcome", outcome)
+                .counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static SingleFlight singleFlight(MeterRegistry registry, Duration reuseWindow) {
+        SingleFlight singleFlight = new SingleFlight();
+        ReflectionTestUtils.setField(singleFlight, "meterRegistry", registry);
+        ReflectionTestUtils.setField(singleFlight, "reuseWindow", reuseWindow);
+        ReflectionTestUtils.setField(singleFlight, "reuseMaximumSize", 100L);
+        singleFlight.init();
+        return singleFlight;
+    }
+
+    private static Object run(SingleFlight singleFlight, SingleFlight.Call call) {
+        try {
+            return singleFlight.execute("test", "key", call);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+}
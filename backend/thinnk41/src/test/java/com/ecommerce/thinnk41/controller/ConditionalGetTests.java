@@ -0,0 +1,170 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.versioning.CatalogVersions;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Department women;
+
+    private Product product;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        women = departmentRepository.save(new Department(null, "Women", "Women's clothing", null));
+        product = new Product();
+        product.setSku("SKU-1");
+        product.setName("Slim Fit Jeans");
+        product.setCategory("Jeans");
+        product.setBrand("Levi's");
+        product.setRetailPrice(new BigDecimal("59.50"));
+        product.setDepartment(women);
+        product = productRepository.save(product);
+    }
+
+    @Test
+    void unchangedRequestsAreAnsweredWithoutSql() throws Exception {
+        for (String url : new String[]{"/api/departments", "/api/products?size=5", "/api/departments/" + women.getId()}) {
+            String etag = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, must-revalidate, public"))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+
+            Statistics statistics = statistics();
+            statistics.clear();
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(content().string(""));
+            }
+            assertThat(statistics.getPrepareStatementCount()).as(url).isZero();
+        }
+    }
+
+    @Test
+    void changesInvalidateTheAffectedValidators() throws Exception {
+        String productUrl = "/api/products/" + product.getId();
+        String productEtag = etag(productUrl);
+        String listEtag = etag("/api/departments");
+        String departmentEtag = etag("/api/departments/" + women.getId());
+
+        product.setRetailPrice(new BigDecimal("49.50"));
+        productRepository.save(product);
+
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, productEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/departments").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+                .andExpect(status().isOk());
+        // the department itself did not change
+        mockMvc.perform(get("/api/departments/" + women.getId()).header(HttpHeaders.IF_NONE_MATCH, departmentEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void renamingADepartmentInvalidatesItsProducts() throws Exception {
+        String productUrl = "/api/products/" + product.getId();
+        String productEtag = etag(productUrl);
+
+        women.setName("Womenswear");
+        departmentRepository.save(women);
+
+        // the product embeds its department's name
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, productEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.department.name").value("Womenswear"));
+    }
+
+    @Test
+    void aWriteByAnotherInstanceInvalidatesValidatorsAtTheNextPoll() throws Exception {
+        String productUrl = "/api/products/" + product.getId();
+        catalogVersions.poll();
+        String productEtag = etag(productUrl);
+        String listEtag = etag("/api/departments");
+
+        // nothing changed anywhere: the poll keeps the validators
+        catalogVersions.poll();
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, productEtag))
+                .andExpect(status().isNotModified());
+
+        // another instance updates the product and bumps the shared counter
+        jdbcTemplate.update("UPDATE products SET retail_price = 39.50 WHERE id = ?", product.getId());
+        jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE id = 1");
+        catalogVersions.poll();
+
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, productEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/departments").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ownWritesArePublishedWithoutInvalidatingEverythingAgain() throws Exception {
+        catalogVersions.poll();
+        long shared = jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+        String departmentEtag = etag("/api/departments/" + women.getId());
+
+        product.setRetailPrice(new BigDecimal("49.50"));
+        productRepository.save(product);
+        catalogVersions.poll();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class))
+                .isEqualTo(shared + 1);
+        mockMvc.perform(get("/api/departments/" + women.getId()).header(HttpHeaders.IF_NONE_MATCH, departmentEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etag(String url) throws Exception {
+        return mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
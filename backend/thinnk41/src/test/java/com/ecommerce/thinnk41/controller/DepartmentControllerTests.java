@@ -0,0 +1,144 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements and hydrated entities behind each department endpoint,
+ * so a regression back to loading whole product collections fails the build.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class DepartmentControllerTests {
+
+    private static final int PRODUCTS_PER_DEPARTMENT = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Department women;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+
+        women = departmentRepository.save(new Department(null, "Women", "Women's clothing", null));
+        Department men = departmentRepository.save(new Department(null, "Men", "Men's clothing", null));
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS_PER_DEPARTMENT; i++) {
+            products.add(product("W-" + i, women));
+            products.add(product("M-" + i, men));
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void listingDepartmentsRunsOneAggregateQueryAndLoadsNoEntities() throws Exception {
+        Statistics statistics = resetStatistics();
+
+        mockMvc.perform(get("/api/departments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.departments.length()").value(2))
+                .andExpect(jsonPath("$.departments[0].productCount").value(PRODUCTS_PER_DEPARTMENT));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void departmentByIdRunsOneProjectionQueryAndLoadsNoEntities() throws Exception {
+        Statistics statistics = resetStatistics();
+
+        mockMvc.perform(get("/api/departments/{id}", women.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Women"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void departmentByNameRunsOneProjectionQueryAndLoadsNoEntities() throws Exception {
+        Statistics statistics = resetStatistics();
+
+        mockMvc.perform(get("/api/departments/name/{name}", "Women"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(women.getId()));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void departmentProductsLoadsOnlyTheRequestedPage() throws Exception {
+        Statistics statistics = resetStatistics();
+
+        mockMvc.perform(get("/api/departments/{id}/products", women.getId()).param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(10))
+                .andExpect(jsonPath("$.totalElements").value(PRODUCTS_PER_DEPARTMENT));
+
+        // summary + page (department fetch-joined) + count
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        // the ten products on the page and their single department
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(11);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void missingDepartmentReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/departments/{id}", -1)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/departments/{id}/products", -1)).andExpect(status().isNotFound());
+    }
+
+    private Statistics resetStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static Product product(String sku, Department department) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Product " + sku);
+        product.setCategory("Tops");
+        product.setBrand("Brand");
+        product.setCost(new BigDecimal("10.00"));
+        product.setRetailPrice(new BigDecimal("25.00"));
+        product.setDepartment(department);
+        return product;
+    }
+}
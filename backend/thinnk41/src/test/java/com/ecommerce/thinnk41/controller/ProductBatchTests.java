@@ -0,0 +1,129 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.cache.ProductCache;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductBatchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        productCache.evictAll();
+        Department women = departmentRepository.save(new Department(null, "Women", null, null));
+
+        List<Product> seeded = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Product product = new Product();
+            product.setSku("SKU-" + i);
+            product.setName("Product " + i);
+            product.setCategory("Jeans");
+            product.setBrand("Brand");
+            product.setRetailPrice(BigDecimal.TEN);
+            product.setDepartment(women);
+            seeded.add(product);
+        }
+        products = productRepository.saveAll(seeded);
+    }
+
+    @Test
+    void returnsResultsInRequestOrderWithNotFoundMarkers() throws Exception {
+        int first = products.get(0).getId();
+        int second = products.get(1).getId();
+        String body = "{\"ids\": [" + second + ", -1, " + first + ", " + second + "], \"skus\": [\"SKU-5\", \"missing\"]}";
+
+        mockMvc.perform(post("/api/products/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(4))
+                .andExpect(jsonPath("$.missing").value(2))
+                .andExpect(jsonPath("$.results[0].product.id").value(second))
+                .andExpect(jsonPath("$.results[0].product.department.name").value("Women"))
+                .andExpect(jsonPath("$.results[1].id").value(-1))
+                .andExpect(jsonPath("$.results[1].found").value(false))
+                .andExpect(jsonPath("$.results[1].product").doesNotExist())
+                .andExpect(jsonPath("$.results[2].product.id").value(first))
+                .andExpect(jsonPath("$.results[3].product.id").value(second))
+                .andExpect(jsonPath("$.results[4].product.sku").value("SKU-5"))
+                .andExpect(jsonPath("$.results[5].sku").value("missing"))
+                .andExpect(jsonPath("$.results[5].found").value(false));
+    }
+
+    @Test
+    void resolvesAHundredProductsWithOneQueryAndThenFromTheCache() throws Exception {
+        String ids = products.subList(0, 100).stream().map(product -> product.getId().toString()).collect(Collectors.joining(","));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        mockMvc.perform(get("/api/products/batch").param("ids", ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(100));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        mockMvc.perform(get("/api/products/batch").param("ids", ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(100));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void rejectsBatchesOverTheCap() throws Exception {
+        String ids = products.stream().map(product -> product.getId().toString()).collect(Collectors.joining(","));
+        String skus = products.subList(0, 100).stream().map(Product::getSku).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/api/products/batch").param("ids", ids).param("skus", skus))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countsDuplicatesAgainstTheCap() throws Exception {
+        String ids = String.join(",", Collections.nCopies(201, products.get(0).getId().toString()));
+
+        mockMvc.perform(get("/api/products/batch").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,262 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.search.ProductSearchIndex;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductCursorPaginationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Product> jeans;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        Department women = departmentRepository.save(new Department(null, "Women", null, null));
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Product product = new Product();
+            product.setSku("SKU-" + i);
+            product.setName("Product " + (char) ('A' + (i * 7) % 26) + i);
+            product.setCategory(i % 2 == 0 ? "Jeans" : "Tops");
+            product.setBrand("Brand");
+            // duplicate prices on purpose so the id tie-breaker matters
+            product.setRetailPrice(BigDecimal.valueOf(10 + (i * 13) % 9));
+            product.setDepartment(women);
+            products.add(product);
+        }
+        jeans = productRepository.saveAll(products).stream()
+                .filter(product -> product.getCategory().equals("Jeans"))
+                .toList();
+    }
+
+    @Test
+    void walksEveryProductInPriceOrderWithoutCountQueries() throws Exception {
+        List<Integer> expected = jeans.stream()
+                .sorted(Comparator.comparing(Product::getRetailPrice).thenComparing(Product::getId))
+                .map(Product::getId)
+                .toList();
+
+        List<Integer> seen = new ArrayList<>();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String after = "";
+        int pages = 0;
+        do {
+            statistics.clear();
+            String body = mockMvc.perform(get("/api/products/category/{category}", "Jeans")
+                            .param("after", after).param("sort", "price").param("size", "6"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            seen.addAll(JsonPath.read(body, "$.content[*].id"));
+            after = JsonPath.read(body, "$.nextCursor");
+            pages++;
+            // the seek query (on the last page also the one into the products without a price),
+            // plus at most one batch load of departments; never a COUNT
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        } while (after != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void productsWithoutPriceOrNameComeLastInCursorListings() throws Exception {
+        List<Product> unpriced = List.of(jeans.get(3), jeans.get(11), jeans.get(16));
+        unpriced.forEach(product -> product.setRetailPrice(null));
+        jeans.get(5).setName(null);
+        productRepository.saveAll(jeans);
+
+        Comparator<Product> byPrice = Comparator.comparing(Product::getRetailPrice).thenComparing(Product::getId);
+        List<Integer> ascending = new ArrayList<>(jeans.stream().filter(product -> product.getRetailPrice() != null)
+                .sorted(byPrice).map(Product::getId).toList());
+        unpriced.forEach(product -> ascending.add(product.getId()));
+        assertThat(walk("price", "asc", 6)).containsExactlyElementsOf(ascending);
+
+        // NULLS LAST either way, the ones without a price by id in the requested direction
+        List<Integer> descending = new ArrayList<>(jeans.stream().filter(product -> product.getRetailPrice() != null)
+                .sorted(byPrice.reversed()).map(Product::getId).toList());
+        unpriced.reversed().forEach(product -> descending.add(product.getId()));
+        // 17 priced jeans: a page of exactly the last priced ones still finds the unpriced run
+        assertThat(walk("price", "desc", 17)).containsExactlyElementsOf(descending);
+
+        List<Integer> byName = walk("name", "asc", 7);
+        assertThat(byName).hasSize(jeans.size()).endsWith(jeans.get(5).getId());
+    }
+
+    @Test
+    void browsesAPriceRangeInPriceOrderAndNewestFirst() throws Exception {
+        List<Integer> expected = jeans.stream()
+                .filter(product -> product.getRetailPrice().compareTo(BigDecimal.valueOf(14)) <= 0)
+                .sorted(Comparator.comparing(Product::getRetailPrice).thenComparing(Product::getId))
+                .map(Product::getId)
+                .toList();
+
+        List<Integer> seen = new ArrayList<>();
+        String after = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/products/browse").param("category", "Jeans").param("maxPrice", "14").param("size", "4");
+            String body = mockMvc.perform(after == null ? request : request.param("after", after))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            seen.addAll(JsonPath.read(body, "$.content[*].id"));
+            after = JsonPath.read(body, "$.nextCursor");
+        } while (after != null);
+        assertThat(seen).containsExactlyElementsOf(expected);
+
+        String body = mockMvc.perform(get("/api/products/browse").param("category", "Jeans").param("sort", "newest").param("size", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> newest = JsonPath.read(body, "$.content[*].id");
+        assertThat(newest).containsExactly(jeans.get(19).getId(), jeans.get(18).getId(), jeans.get(17).getId());
+
+        mockMvc.perform(get("/api/products/browse").param("minPrice", "20").param("maxPrice", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void walksDescendingById() throws Exception {
+        String body = mockMvc.perform(get("/api/products").param("after", "").param("direction", "desc").param("size", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> firstIds = JsonPath.read(body, "$.content[*].id");
+        String next = JsonPath.read(body, "$.nextCursor");
+
+        body = mockMvc.perform(get("/api/products").param("after", next).param("direction", "desc").param("size", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> secondIds = JsonPath.read(body, "$.content[*].id");
+
+        assertThat(secondIds.get(0)).isEqualTo(firstIds.get(2) - 1);
+    }
+
+    @Test
+    void rejectsTamperedOrMismatchedCursors() throws Exception {
+        mockMvc.perform(get("/api/products").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        String body = mockMvc.perform(get("/api/products").param("after", "").param("sort", "name").param("size", "2"))
+                .andReturn().getResponse().getContentAsString();
+        String next = JsonPath.read(body, "$.nextCursor");
+        mockMvc.perform(get("/api/products").param("after", next).param("sort", "price"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectsOutOfRangeSizesAndNegativeSearchPositions() throws Exception {
+        mockMvc.perform(get("/api/products").param("after", "").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products").param("after", "").param("size", "101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/search").param("name", "jeans").param("after", "").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+
+        String crafted = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("v2|RELEVANCE|DESC|||-5".getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(get("/api/products/search").param("name", "jeans").param("after", crafted))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchCursorsWaitForTheIndex() throws Exception {
+        ReflectionTestUtils.setField(productSearchIndex, "ready", false);
+        try {
+            mockMvc.perform(get("/api/products/search").param("name", "product").param("after", ""))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            ReflectionTestUtils.setField(productSearchIndex, "ready", true);
+        }
+        mockMvc.perform(get("/api/products/search").param("name", "product").param("after", ""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void searchPicksUpProductsWrittenOutsideThisInstance() throws Exception {
+        productSearchIndex.reload();
+        // rows written by the ingestion command, another instance or plain SQL raise no local event
+        jdbcTemplate.update("INSERT INTO products (sku, name, category, brand, retail_price) " +
+                "VALUES ('SKU-NEW', 'Velvet Blazer', 'Blazers', 'Brand', 99.00)");
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", jeans.get(0).getId());
+        assertThat(searchIds("velvet")).isEmpty();
+
+        productSearchIndex.refresh();
+
+        assertThat(searchIds("velvet")).hasSize(1);
+        assertThat(productSearchIndex.search(jeans.get(0).getName())).doesNotContain(jeans.get(0).getId());
+        assertThat(productSearchIndex.size()).isEqualTo(40);
+    }
+
+    @Test
+    void offsetModeStillWorksWithoutAfter() throws Exception {
+        mockMvc.perform(get("/api/products").param("page", "1").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertThat((Integer) JsonPath.read(result.getResponse().getContentAsString(), "$.totalElements")).isEqualTo(40));
+    }
+
+    private List<Integer> searchIds(String name) throws Exception {
+        String body = mockMvc.perform(get("/api/products/search").param("name", name).param("after", ""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.content[*].id");
+    }
+
+    private List<Integer> walk(String sort, String direction, int size) throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        String after = "";
+        do {
+            String body = mockMvc.perform(get("/api/products/category/{category}", "Jeans")
+                            .param("after", after).param("sort", sort).param("direction", direction).param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            seen.addAll(JsonPath.read(body, "$.content[*].id"));
+            after = JsonPath.read(body, "$.nextCursor");
+        } while (after != null);
+        return seen;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecommerce.thinnk41.controller;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.exception.BulkheadRejectedException;
+import com.ecommerce.thinnk41.export.ExportSlot;
+import com.ecommerce.thinnk41.export.ProductExportService;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductExportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    private Department women;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        women = departmentRepository.save(new Department(null, "Women", null, null));
+        Department men = departmentRepository.save(new Department(null, "Men", null, null));
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Product product = new Product();
+            product.setSku("SKU-" + i);
+            product.setName("Product " + i);
+            product.setCategory(i % 3 == 0 ? "Jeans" : "Tops");
+            product.setBrand("Brand");
+            product.setRetailPrice(new BigDecimal("19.99"));
+            product.setDepartment(i % 2 == 0 ? women : men);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void streamsNdjsonByDefault() throws Exception {
+        String body = export(get("/api/products/export"), "application/x-ndjson");
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(30);
+        assertThat(lines[0]).startsWith("{\"id\":").contains("\"department\":{");
+    }
+
+    @Test
+    void streamsFilteredCsvWhenAskedFor() throws Exception {
+        String body = export(get("/api/products/export")
+                .accept("text/csv")
+                .param("departmentId", women.getId().toString())
+                .param("category", "Jeans"), "text/csv");
+
+        String[] lines = body.split("\n");
+        // header plus products 0, 6, 12, 18 and 24
+        assertThat(lines).hasSize(6);
+        assertThat(lines[1]).contains(",Women,");
+    }
+
+    @Test
+    void filtersOnLastModification() throws Exception {
+        String body = export(get("/api/products/export").param("updatedSince", "2999-01-01T00:00:00"), "application/x-ndjson");
+
+        assertThat(body).isEmpty();
+    }
+
+    @Test
+    void givesTheSlotBackOnceWhenTheRequestEnds() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(5_000);
+        // the container ending the request closes the slot too, as it would for a body that never ran
+        started.getRequest().getAsyncContext().complete();
+
+        // both slots are free again, and only both
+        ExportSlot first = productExportService.reserve();
+        ExportSlot second = productExportService.reserve();
+        assertThatThrownBy(() -> productExportService.reserve()).isInstanceOf(BulkheadRejectedException.class);
+        first.close();
+        second.close();
+    }
+
+    private String export(org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder request, String contentType) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(contentType))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.thinnk41.encoding;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class CompactEncodingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        Department women = departmentRepository.save(new Department(null, "Women", "Dresses, tops, jeans and more for women", null));
+        Department men = departmentRepository.save(new Department(null, "Men", "Shirts, pants, jeans and more for men", null));
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Product product = new Product();
+            product.setSku(String.format("SKU%08d", i));
+            product.setName("Classic Fit Jeans " + i);
+            product.setCategory("Jeans");
+            product.setBrand("Brand " + i % 7);
+            product.setCost(new BigDecimal("21.37"));
+            product.setRetailPrice(new BigDecimal("49.95"));
+            product.setDepartment(i % 2 == 0 ? women : men);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void binaryFormatsUseTheDepartmentSideTable() throws Exception {
+        for (ObjectMapper mapper : List.of(new CBORMapper(), new SmileMapper())) {
+            MediaType type = mapper instanceof CBORMapper ? MediaType.APPLICATION_CBOR : CompactPageAdvice.APPLICATION_SMILE;
+            byte[] body = mockMvc.perform(get("/api/products").param("size", "20").accept(type))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(type))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode page = mapper.readTree(body);
+            assertThat(page.get("content")).hasSize(20);
+            assertThat(page.get("departments")).hasSize(2);
+            assertThat(page.get("content").get(0).has("department")).isFalse();
+            assertThat(page.get("content").get(0).get("departmentId").isInt()).isTrue();
+            assertThat(page.get("totalElements").asLong()).isEqualTo(100);
+            assertThat(page.has("pageable")).isFalse();
+        }
+    }
+
+    @Test
+    void departmentProductPagesUseTheCompactLayoutToo() throws Exception {
+        Integer women = departmentRepository.findAll().stream()
+                .filter(department -> department.getName().equals("Women")).findFirst().orElseThrow().getId();
+        byte[] body = mockMvc.perform(get("/api/departments/" + women + "/products").param("size", "10")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode page = new CBORMapper().readTree(body);
+        assertThat(page.get("content")).hasSize(10);
+        assertThat(page.get("departments")).hasSize(1);
+        assertThat(page.get("departments").get(0).get("name").asText()).isEqualTo("Women");
+        assertThat(page.get("totalElements").asLong()).isEqualTo(50);
+        assertThat(page.get("size").asInt()).isEqualTo(10);
+
+        // JSON keeps the shape the frontend reads
+        mockMvc.perform(get("/api/departments/" + women + "/products").param("size", "10").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.department").value("Women"))
+                .andExpect(jsonPath("$.products.length()").value(10))
+                .andExpect(jsonPath("$.currentPage").value(0))
+                .andExpect(jsonPath("$.size").doesNotExist());
+    }
+
+    @Test
+    void cursorSlicesAndEmptyPagesUseTheCompactLayoutToo() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/products").param("after", "").param("size", "10").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode slice = new CBORMapper().readTree(body);
+        assertThat(slice.get("hasNext").asBoolean()).isTrue();
+        assertThat(slice.get("nextCursor").asText()).isNotEmpty();
+        assertThat(slice.has("totalElements")).isFalse();
+
+        body = mockMvc.perform(get("/api/products/category/Nothing").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new CBORMapper().readTree(body).get("departments")).isEmpty();
+    }
+
+    @Test
+    void compactPagesAreFarSmallerThanJson() throws Exception {
+        int json = mockMvc.perform(get("/api/products").param("size", "100").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray().length;
+        int cbor = mockMvc.perform(get("/api/products").param("size", "100").accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray().length;
+        int smile = mockMvc.perform(get("/api/products").param("size", "100").accept(CompactPageAdvice.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray().length;
+
+        assertThat(cbor).isLessThan(json * 2 / 3);
+        assertThat(smile).isLessThan(json * 2 / 3);
+    }
+
+    @Test
+    void largeJsonResponsesAreGzipped() throws Exception {
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products?size=100"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce.thinnk41.export;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.exception.BulkheadRejectedException;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ProductExportServiceTests {
+
+    private static final int ROWS = 5_000;
+    private static final int LOAD_ROWS = 1_000_000;
+    private static final int SAMPLE_EVERY = 100_000;
+    private static final long HEAP_CEILING_BYTES = 32L * 1024 * 1024;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Department women;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM inventory_items");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        women = departmentRepository.save(new Department(null, "Women", null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void streamingKeepsThePersistenceContextBounded() {
+        SamplingOutputStream out = exportProducts(ROWS);
+
+        // the department, and the product being written until it is detached
+        assertThat(out.maxManagedEntities).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @Tag("load")
+    void streamingAMillionRowsKeepsHeapAndPersistenceContextBounded() {
+        SamplingOutputStream out = exportProducts(LOAD_ROWS);
+
+        assertThat(out.maxManagedEntities).isLessThanOrEqualTo(2);
+        assertThat(out.peakHeapGrowth).isLessThan(HEAP_CEILING_BYTES);
+    }
+
+    @Test
+    void turnsAwayExportsPastTheConcurrencyLimit() {
+        ExportSlot first = productExportService.reserve();
+        ExportSlot second = productExportService.reserve();
+        assertThatThrownBy(() -> productExportService.reserve()).isInstanceOf(BulkheadRejectedException.class);
+
+        // finishing an export gives its slot back
+        productExportService.export(new ProductExportFilter(null, null, null, null), ExportFormat.CSV, OutputStream.nullOutputStream(), first);
+        ExportSlot third = productExportService.reserve();
+        assertThatThrownBy(() -> productExportService.reserve()).isInstanceOf(BulkheadRejectedException.class);
+
+        // so does a request that ended before its export ran, and only once however often it is closed
+        second.close();
+        second.close();
+        ExportSlot fourth = productExportService.reserve();
+        assertThatThrownBy(() -> productExportService.reserve()).isInstanceOf(BulkheadRejectedException.class);
+        third.close();
+        fourth.close();
+    }
+
+    private SamplingOutputStream exportProducts(int count) {
+        jdbcTemplate.update("INSERT INTO products (cost, category, name, brand, retail_price, sku, department_id) " +
+                "SELECT 12.50, 'Jeans', CONCAT('Product ', n), 'Brand', 29.99, CONCAT('EXP-', n), ? " +
+                "FROM SYSTEM_RANGE(1, " + count + ") AS r (n)", women.getId());
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        // measured from before the query runs, so whatever the driver buffers for the cursor counts too
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        // called between rows, on the exporting thread and inside its transaction
+        SamplingOutputStream out = new SamplingOutputStream() {
+            @Override
+            void onLine(long line) {
+                int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+                maxManagedEntities = Math.max(maxManagedEntities, managed);
+                if (line == 1 || line % SAMPLE_EVERY == 0) {
+                    System.gc();
+                    peakHeapGrowth = Math.max(peakHeapGrowth, memory.getHeapMemoryUsage().getUsed() - baseline);
+                }
+            }
+        };
+
+        long rows = productExportService.export(new ProductExportFilter(null, null, null, null), ExportFormat.NDJSON, out,
+                productExportService.reserve());
+
+        assertThat(rows).isEqualTo(count);
+        assertThat(out.lines).isEqualTo(count);
+        return out;
+    }
+
+    private abstract static class SamplingOutputStream extends OutputStream {
+        long lines;
+        int maxManagedEntities;
+        long peakHeapGrowth;
+
+        abstract void onLine(long line);
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                onLine(++lines);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
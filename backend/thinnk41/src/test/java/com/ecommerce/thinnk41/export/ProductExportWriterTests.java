@@ -0,0 +1,110 @@
+package com.ecommerce.thinnk41.export;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductExportWriterTests {
+
+    private static final int ROWS = 5_000;
+    private static final int LOAD_ROWS = 1_000_000;
+    private static final long HEAP_CEILING_BYTES = 32L * 1024 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesOneNdjsonLinePerProduct() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        Department department = new Department(1, "Women", "Women's clothing", null);
+        try (ProductExportWriter writer = ProductExportWriter.create(ExportFormat.NDJSON, out, objectMapper)) {
+            for (int i = 1; i <= ROWS; i++) {
+                writer.write(product(i, department));
+            }
+        }
+
+        assertThat(out.lines).isEqualTo(ROWS);
+    }
+
+    @Test
+    @Tag("load")
+    void millionRowExportKeepsHeapFlat() throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Department department = new Department(1, "Women", "Women's clothing", null);
+        CountingOutputStream out = new CountingOutputStream();
+
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        long peakGrowth = 0;
+        try (ProductExportWriter writer = ProductExportWriter.create(ExportFormat.NDJSON, out, objectMapper)) {
+            for (int i = 1; i <= LOAD_ROWS; i++) {
+                writer.write(product(i, department));
+                if (i % 100_000 == 0) {
+                    System.gc();
+                    peakGrowth = Math.max(peakGrowth, memory.getHeapMemoryUsage().getUsed() - baseline);
+                }
+            }
+        }
+
+        assertThat(out.lines).isEqualTo(LOAD_ROWS);
+        assertThat(peakGrowth).isLessThan(HEAP_CEILING_BYTES);
+    }
+
+    @Test
+    void csvQuotesFieldsThatNeedIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Product product = product(7, new Department(2, "Men", null, null));
+        product.setName("Jeans, \"Slim\" Fit");
+        try (ProductExportWriter writer = ProductExportWriter.create(ExportFormat.CSV, out, objectMapper)) {
+            writer.write(product);
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines[0]).startsWith("id,cost,category,name");
+        assertThat(lines[1]).isEqualTo("7,12.50,Jeans,\"Jeans, \"\"Slim\"\" Fit\",Brand,29.99,2,Men,SKU-7,3");
+    }
+
+    private static Product product(int id, Department department) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCost(new BigDecimal("12.50"));
+        product.setCategory("Jeans");
+        product.setName("Product " + id);
+        product.setBrand("Brand");
+        product.setRetailPrice(new BigDecimal("29.99"));
+        product.setDepartment(department);
+        product.setSku("SKU-" + id);
+        product.setDistributionCenterId(3);
+        return product;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ecommerce.thinnk41.facet;
+
+import com.ecommerce.thinnk41.dto.FacetValueDTO;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogFacetIndexTests {
+
+    private CatalogFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogFacetIndex();
+        index.upsert(1, "Jeans", "Levi's", new BigDecimal("59.50"), 1, "Men", 1);
+        index.upsert(2, "Jeans", "Calvin Klein", new BigDecimal("89.00"), 2, "Women", 1);
+        index.upsert(3, "Tops & Tees", "Calvin Klein", new BigDecimal("25.00"), 2, "Women", 2);
+        index.upsert(4, "Pants", "Dockers", new BigDecimal("45.00"), 1, "Men", 2);
+        index.upsert(5, "Jeans", "Levi's", null, 2, "Women", 3);
+    }
+
+    @Test
+    void valuesWithinADimensionAreOredAndDimensionsAreAnded() {
+        FacetResult result = index.query(query(List.of("Jeans", "Pants"), List.of(), List.of(1), null, null));
+
+        assertThat(result.getProductIds()).containsExactly(1, 4);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getMinPrice()).isEqualByComparingTo("45.00");
+        assertThat(result.getMaxPrice()).isEqualByComparingTo("59.50");
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnDimension() {
+        FacetResult result = index.query(query(List.of("Jeans"), null, List.of(2), null, null));
+
+        assertThat(result.getProductIds()).containsExactly(2, 5);
+        // category counts apply the department filter only
+        assertThat(counts(result, CatalogFacetIndex.CATEGORY)).containsEntry("Jeans", 2L).containsEntry("Tops & Tees", 1L);
+        // department counts apply the category filter only, with department names as labels
+        assertThat(result.getFacets().get(CatalogFacetIndex.DEPARTMENT))
+                .extracting(FacetValueDTO::getValue, FacetValueDTO::getLabel, FacetValueDTO::getCount)
+                .containsExactly(Tuple.tuple("2", "Women", 2L), Tuple.tuple("1", "Men", 1L));
+    }
+
+    @Test
+    void priceRangeSkipsProductsWithoutAPrice() {
+        FacetResult result = index.query(query(null, null, null, new BigDecimal("40"), new BigDecimal("60")));
+        assertThat(result.getProductIds()).containsExactly(1, 4);
+
+        result = index.query(query(List.of("Unknown"), null, null, null, null));
+        assertThat(result.getTotalElements()).isZero();
+    }
+
+    @Test
+    void updatesMoveProductsBetweenFacetValues() {
+        index.upsert(3, "Jeans", "Levi's", new BigDecimal("30.00"), 1, "Men", 2);
+        index.remove(2);
+
+        FacetResult result = index.query(query(null, List.of("Levi's"), null, null, null));
+        assertThat(result.getProductIds()).containsExactly(1, 3, 5);
+        assertThat(counts(result, CatalogFacetIndex.BRAND)).containsOnlyKeys("Levi's", "Dockers");
+    }
+
+    @Test
+    void pagesFollowRowOrder() {
+        FacetQuery query = query(null, null, null, null, null);
+        query.setPage(1);
+        query.setSize(2);
+
+        FacetResult result = index.query(query);
+        assertThat(result.getProductIds()).containsExactly(3, 4);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+
+        // the page is sized by what matched, not by what was asked for
+        query.setPage(0);
+        query.setSize(Integer.MAX_VALUE);
+        assertThat(index.query(query).getProductIds()).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    private static FacetQuery query(List<String> categories, List<String> brands, List<Integer> departmentIds,
+                                    BigDecimal minPrice, BigDecimal maxPrice) {
+        return new FacetQuery(categories, brands, departmentIds, null, minPrice, maxPrice, 0, 20, 50);
+    }
+
+    private static Map<String, Long> counts(FacetResult result, String facet) {
+        return result.getFacets().get(facet).stream()
+                .collect(Collectors.toMap(FacetValueDTO::getValue, FacetValueDTO::getCount));
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.thinnk41.facet;
+
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CatalogFacetRefreshTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogFacetIndex catalogFacetIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Department women;
+
+    private Product jeans;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        women = departmentRepository.save(new Department(null, "Women", null, null));
+        jeans = product("FACET-1", "Jeans", "Levi's");
+        product("FACET-2", "Tops", "Levi's");
+        catalogFacetIndex.reload();
+    }
+
+    @Test
+    void refreshPicksUpProductsWrittenOutsideThisInstance() throws Exception {
+        // rows written by the ingestion command, another instance or plain SQL raise no local event
+        jdbcTemplate.update("INSERT INTO products (sku, name, category, brand, retail_price, department_id) " +
+                "VALUES ('FACET-3', 'Slim Jeans', 'Jeans', 'Dockers', 45.00, ?)", women.getId());
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", jeans.getId());
+
+        mockMvc.perform(get("/api/products/filter").param("category", "Jeans"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.facets.brand[*].value").value(containsInAnyOrder("Levi's")));
+
+        catalogFacetIndex.refresh();
+
+        mockMvc.perform(get("/api/products/filter").param("category", "Jeans"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].sku").value("FACET-3"))
+                .andExpect(jsonPath("$.facets.brand[*].value").value(containsInAnyOrder("Dockers")));
+        mockMvc.perform(get("/api/products/filter").param("brand", "Levi's"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+
+        // an out-of-band update moves the latest updated_at even though the count stays put
+        jdbcTemplate.update("UPDATE products SET brand = 'Dockers', updated_at = CURRENT_TIMESTAMP WHERE sku = 'FACET-2'");
+        catalogFacetIndex.refresh();
+        mockMvc.perform(get("/api/products/filter").param("brand", "Dockers"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    private Product product(String sku, String category, String brand) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(category + " " + sku);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setRetailPrice(BigDecimal.TEN);
+        product.setDepartment(women);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.thinnk41.fulfillment;
+
+import com.ecommerce.thinnk41.dto.FulfillmentBulkDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentCenterDTO;
+import com.ecommerce.thinnk41.dto.FulfillmentPairDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FulfillmentServiceTests {
+
+    @Autowired
+    private FulfillmentService fulfillmentService;
+
+    @Autowired
+    private FulfillmentIndex fulfillmentIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Integer jeans;
+    private Integer untracked;
+    private Integer soldOut;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM inventory_items");
+        jdbcTemplate.update("DELETE FROM users");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM distribution_centers");
+        jdbcTemplate.update("INSERT INTO distribution_centers (id, name, latitude, longitude) VALUES " +
+                "(1, 'Memphis TN', 35.1174, -89.9711), (2, 'Chicago IL', 41.8369, -87.6847), " +
+                "(3, 'Los Angeles CA', 34.05, -118.25), (4, 'New York NY', 40.7128, -74.006)");
+
+        Department department = departmentRepository.save(new Department(null, "Men", null, null));
+        jeans = product("JEANS", 1, department);
+        untracked = product("UNTRACKED", 3, department);
+        soldOut = product("SOLD-OUT", 2, department);
+        // jeans are stocked in Chicago, Los Angeles and New York but not at their home center in Memphis
+        List<Object[]> items = new ArrayList<>();
+        int id = 1;
+        for (int center : new int[]{2, 3, 4}) {
+            for (int i = 0; i < center; i++) {
+                items.add(new Object[]{id++, jeans, center, null});
+            }
+        }
+        items.add(new Object[]{id++, jeans, 1, "2024-01-01 00:00:00"});
+        items.add(new Object[]{id, soldOut, 2, "2024-01-01 00:00:00"});
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO inventory_items (id, product_id, product_distribution_center_id, sold_at) VALUES (?, ?, ?, ?)", items);
+        jdbcTemplate.update("INSERT INTO users (id, latitude, longitude) VALUES (1, 34.42, -119.70), (2, 42.36, -71.06), (3, NULL, NULL)");
+        fulfillmentIndex.rebuild();
+    }
+
+    @Test
+    void quotesTheNearestStockingCentersWithDistances() throws Exception {
+        // Nashville: Memphis is closest but has nothing left
+        mockMvc.perform(get("/api/products/{id}/fulfillment", jeans).param("lat", "36.16").param("lon", "-86.78").param("k", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.centers.length()").value(2))
+                .andExpect(jsonPath("$.centers[0].name").value("Chicago IL"))
+                .andExpect(jsonPath("$.centers[0].units").value(2))
+                .andExpect(jsonPath("$.centers[1].name").value("New York NY"));
+
+        List<FulfillmentCenterDTO> centers = fulfillmentService.quote(untracked, 40.71, -74.0, 5).orElseThrow().getCenters();
+        assertThat(centers).extracting(FulfillmentCenterDTO::getName).containsExactly("Los Angeles CA");
+        assertThat(centers.get(0).getUnits()).isNull();
+        // New York to Los Angeles is about 3,940 km
+        assertThat(centers.get(0).getDistanceKm()).isBetween(3900.0, 3990.0);
+        assertThat(fulfillmentService.quote(soldOut, 40.71, -74.0, 5).orElseThrow().getCenters()).isEmpty();
+
+        mockMvc.perform(get("/api/products/{id}/fulfillment", -1).param("lat", "0").param("lon", "0"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/{id}/fulfillment", jeans).param("lat", "91").param("lon", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/{id}/fulfillment", jeans).param("lat", "0").param("lon", "0").param("k", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkQuotesResolveUsersAndKeepRequestOrder() throws Exception {
+        List<FulfillmentPairDTO> pairs = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            pairs.add(new FulfillmentPairDTO(i % 2 == 0 ? 1 : 2, jeans, null, null));
+        }
+        pairs.add(new FulfillmentPairDTO(3, jeans, null, null));
+        pairs.add(new FulfillmentPairDTO(null, -1, 10.0, 10.0));
+
+        FulfillmentBulkDTO bulk = fulfillmentService.quoteAll(pairs, 1);
+        assertThat(bulk.getFound()).isEqualTo(2_000);
+        assertThat(bulk.getMissing()).isEqualTo(2);
+        // Santa Barbara ships from Los Angeles, Boston from New York
+        assertThat(bulk.getResults().get(0).getCenters()).extracting(FulfillmentCenterDTO::getName).containsExactly("Los Angeles CA");
+        assertThat(bulk.getResults().get(1).getCenters()).extracting(FulfillmentCenterDTO::getName).containsExactly("New York NY");
+        assertThat(bulk.getResults().get(2_000).isFound()).isFalse();
+        assertThat(bulk.getResults().get(2_001).isFound()).isFalse();
+
+        mockMvc.perform(post("/api/products/fulfillment")
+                        .contentType("application/json")
+                        .content("{\"k\":3,\"pairs\":[{\"userId\":2,\"productId\":" + jeans + "},"
+                                + "{\"latitude\":34.0,\"longitude\":-118.0,\"productId\":" + untracked + "}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found").value(2))
+                .andExpect(jsonPath("$.results[0].centers.length()").value(3))
+                .andExpect(jsonPath("$.results[1].centers[0].centerId").value(3));
+        mockMvc.perform(post("/api/products/fulfillment")
+                        .contentType("application/json")
+                        .content("{\"pairs\":[{\"productId\":" + jeans + "}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void treeAgreesWithABruteForceScan() {
+        Random random = new Random(7);
+        int n = 500;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        CenterTree tree = new CenterTree(latitudes, longitudes);
+
+        for (int query = 0; query < 200; query++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            int modulus = 1 + query % 4;
+            int[] expected = IntStream.range(0, n)
+                    .filter(i -> i % modulus == 0)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> CenterTree.haversineKm(lat, lon, latitudes[i], longitudes[i])))
+                    .limit(5)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            assertThat(tree.nearest(lat, lon, 5, i -> i % modulus == 0)).as(Arrays.toString(expected)).containsExactly(expected);
+        }
+    }
+
+    private Integer product(String sku, int center, Department department) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setRetailPrice(BigDecimal.TEN);
+        product.setDistributionCenterId(center);
+        product.setDepartment(department);
+        return productRepository.save(product).getId();
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.thinnk41.ingest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BulkIngestionServiceTests {
+
+    private static final int PRODUCTS = 53;
+
+    @Autowired
+    private BulkIngestionService bulkIngestionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path dataset;
+
+    @BeforeEach
+    void writeDataset() throws IOException {
+        for (String table : List.of("order_items", "orders", "inventory_items", "users", "products", "departments",
+                "distribution_centers", "ingest_checkpoints")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+
+        Files.writeString(dataset.resolve("distribution_centers.csv"),
+                "id,name,latitude,longitude\n1,Memphis TN,35.1174,-89.9711\n2,Chicago IL,41.8369,-87.6847\n");
+
+        StringBuilder products = new StringBuilder("id,cost,category,name,brand,retail_price,department,sku,distribution_center_id\n");
+        for (int i = 1; i <= PRODUCTS; i++) {
+            products.append(i).append(",10.5,Jeans,")
+                    .append(i == 7 ? "\"Slim, \"\"Dark\"\" Wash\"" : "Product " + i)
+                    .append(",Levi's,25.00,").append(i % 2 == 0 ? "Women" : "Men")
+                    .append(",SKU").append(i).append(',').append(i % 2 + 1).append('\n');
+        }
+        Files.writeString(dataset.resolve("products.csv"), products);
+
+        Files.writeString(dataset.resolve("order_items.csv"),
+                "id,order_id,user_id,product_id,inventory_item_id,status,created_at,shipped_at,delivered_at,returned_at\n" +
+                "1,1,1,1,1,Complete,2022-02-20 10:45:42 UTC,2022-02-21 10:45:42 UTC,,\n" +
+                "2,1,1,2,2,Returned,2023-03-13 04:21:39.123 UTC,,,2023-03-20 00:00:00+00:00\n");
+    }
+
+    @Test
+    void loadsTablesResolvingDepartmentsInMemory() {
+        List<IngestionReport> reports = bulkIngestionService.ingest(dataset, EnumSet.allOf(IngestTable.class), false, 4, 5);
+
+        assertThat(reports).extracting(IngestionReport::getTable)
+                .containsExactly(IngestTable.DISTRIBUTION_CENTERS, IngestTable.PRODUCTS, IngestTable.ORDER_ITEMS);
+        assertThat(count("products")).isEqualTo(PRODUCTS);
+        assertThat(count("departments")).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT d.name FROM products p JOIN departments d ON d.id = p.department_id WHERE p.id = 2", String.class))
+                .isEqualTo("Women");
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM products WHERE id = 7", String.class))
+                .isEqualTo("Slim, \"Dark\" Wash");
+        assertThat(jdbcTemplate.queryForObject("SELECT returned_at FROM order_items WHERE id = 2", String.class))
+                .startsWith("2023-03-20 00:00:00");
+        assertThat(bulkIngestionService.readCheckpoint(IngestTable.PRODUCTS)).isEqualTo(PRODUCTS);
+    }
+
+    @Test
+    void reloadingIsIdempotentAndResumeSkipsCommittedRows() {
+        bulkIngestionService.ingest(dataset, EnumSet.allOf(IngestTable.class), false, 4, 5);
+        jdbcTemplate.update("UPDATE products SET retail_price = 99.00 WHERE id = 1");
+
+        // everything is checkpointed, so a resumed run leaves the edited row alone
+        List<IngestionReport> resumed = bulkIngestionService.ingest(dataset, EnumSet.of(IngestTable.PRODUCTS), true, 4, 5);
+        assertThat(resumed.get(0).getRowsLoaded()).isZero();
+        assertThat(resumed.get(0).getRowsSkipped()).isEqualTo(PRODUCTS);
+        assertThat(price(1)).isEqualByComparingTo("99.00");
+
+        // a full reload upserts over the same keys
+        bulkIngestionService.ingest(dataset, EnumSet.of(IngestTable.PRODUCTS), false, 4, 5);
+        assertThat(count("products")).isEqualTo(PRODUCTS);
+        assertThat(price(1)).isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    void aFailedChunkStopsTheLoadAndAResumeReloadsOnlyTheTail() throws IOException {
+        Path products = dataset.resolve("products.csv");
+        String good = Files.readString(products);
+        Files.writeString(products, good.replace("\n23,10.5,", "\n23,not-a-cost,"));
+
+        // one worker, so chunks 1-20 commit before 21-25 fails and nothing after it is written
+        assertThatThrownBy(() -> bulkIngestionService.ingest(dataset,
+                EnumSet.of(IngestTable.DISTRIBUTION_CENTERS, IngestTable.PRODUCTS), false, 1, 5))
+                .isInstanceOf(IngestionException.class);
+        assertThat(bulkIngestionService.readCheckpoint(IngestTable.PRODUCTS)).isEqualTo(20);
+        assertThat(count("products")).isEqualTo(20);
+
+        Files.writeString(products, good);
+        IngestionReport resumed = bulkIngestionService.ingest(dataset, EnumSet.of(IngestTable.PRODUCTS), true, 4, 5).get(0);
+        assertThat(resumed.getRowsSkipped()).isEqualTo(20);
+        assertThat(resumed.getRowsLoaded()).isEqualTo(PRODUCTS - 20);
+        assertThat(count("products")).isEqualTo(PRODUCTS);
+    }
+
+    @Test
+    void refusesToResumeAgainstADifferentFile() throws IOException {
+        bulkIngestionService.ingest(dataset, EnumSet.of(IngestTable.DISTRIBUTION_CENTERS, IngestTable.PRODUCTS), false, 4, 5);
+
+        // regenerated in place: same path, different leading rows
+        Path products = dataset.resolve("products.csv");
+        Files.writeString(products, Files.readString(products).replace("\n1,10.5,Jeans,Product 1,", "\n1000,10.5,Jeans,Product 1000,"));
+        assertThatThrownBy(() -> bulkIngestionService.ingest(dataset, EnumSet.of(IngestTable.PRODUCTS), true, 4, 5))
+                .isInstanceOf(IngestionException.class)
+                .hasMessageContaining("not the ones");
+
+        // the same rows under another path
+        Path elsewhere = Files.createDirectory(dataset.resolve("elsewhere"));
+        Files.copy(products, elsewhere.resolve("products.csv"));
+        assertThatThrownBy(() -> bulkIngestionService.ingest(elsewhere, EnumSet.of(IngestTable.PRODUCTS), true, 4, 5))
+                .isInstanceOf(IngestionException.class)
+                .hasMessageContaining("was written for");
+        assertThat(count("products")).isEqualTo(PRODUCTS);
+    }
+
+    @Test
+    void parsesQuotedRecordsAcrossLines() throws IOException {
+        assertThat(CsvRecordReader.parse("1,,\"a,b\",\"\"")).containsExactly("1", null, "a,b", "");
+
+        Path file = dataset.resolve("multiline.csv");
+        Files.writeString(file, "1,\"two\nlines\"\n2,plain\n");
+        try (CsvRecordReader reader = new CsvRecordReader(Files.newBufferedReader(file))) {
+            assertThat(CsvRecordReader.parse(reader.nextRecord())).containsExactly("1", "two\nlines");
+            assertThat(reader.nextRecord()).isEqualTo("2,plain");
+            assertThat(reader.nextRecord()).isNull();
+        }
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private BigDecimal price(int id) {
+        return jdbcTemplate.queryForObject("SELECT retail_price FROM products WHERE id = ?", BigDecimal.class, id);
+    }
+}
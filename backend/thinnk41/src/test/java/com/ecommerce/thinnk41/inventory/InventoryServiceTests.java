@@ -0,0 +1,394 @@
+package com.ecommerce.thinnk41.inventory;
+
+import com.ecommerce.thinnk41.concurrency.DatabaseBulkhead;
+import com.ecommerce.thinnk41.dto.ReservationDTO;
+import com.ecommerce.thinnk41.dto.StockLevelDTO;
+import com.ecommerce.thinnk41.exception.InsufficientStockException;
+import com.ecommerce.thinnk41.exception.ProductNotFoundException;
+import com.ecommerce.thinnk41.exception.ReservationStateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "catalog.inventory.reservation-ttl=300ms",
+        "catalog.inventory.reservation-sweep-interval=1h"
+})
+@AutoConfigureMockMvc
+class InventoryServiceTests {
+
+    private static final AtomicInteger nextProductId = new AtomicInteger(9_000);
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryWriteBehind writeBehind;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseBulkhead databaseBulkhead;
+
+    private int productId;
+
+    @BeforeEach
+    void seedStock() {
+        // a fresh product id per test, since the counters live as long as the context
+        productId = nextProductId.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO products (id, name) VALUES (?, 'Stocked')", productId);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 105; i++) {
+            rows.add(new Object[]{productId * 1_000 + i, productId, i < 5 ? "2024-01-01 00:00:00" : null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_items (id, product_id, sold_at) VALUES (?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void removeProduct() {
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+    }
+
+    @Test
+    void hundredsOfThreadsNeverOversellAHotProduct() throws Exception {
+        int threads = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ReservationDTO>> attempts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int quantity = 1 + i % 3;
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return inventoryService.reserve(productId, quantity);
+                } catch (InsufficientStockException e) {
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        List<ReservationDTO> held = Collections.synchronizedList(new ArrayList<>());
+        for (Future<ReservationDTO> attempt : attempts) {
+            ReservationDTO reservation = attempt.get(30, TimeUnit.SECONDS);
+            if (reservation != null) {
+                held.add(reservation);
+            }
+        }
+
+        int reservedUnits = held.stream().mapToInt(ReservationDTO::getQuantity).sum();
+        assertThat(reservedUnits).isLessThanOrEqualTo(100);
+        StockLevelDTO level = inventoryService.getStockLevel(productId);
+        assertThat(level.getAvailable()).isEqualTo(100 - reservedUnits);
+        assertThat(level.getHeld()).isEqualTo(reservedUnits);
+
+        // whatever is left over (too little for the last 2-3 unit requests) can still be reserved
+        while (inventoryService.getStockLevel(productId).getAvailable() > 0) {
+            held.add(inventoryService.reserve(productId, 1));
+            reservedUnits++;
+        }
+        assertThat(reservedUnits).isEqualTo(100);
+
+        // confirm half and release the rest, concurrently
+        List<Future<?>> changes = new ArrayList<>();
+        for (int i = 0; i < held.size(); i++) {
+            UUID id = held.get(i).getId();
+            boolean confirm = i % 2 == 0;
+            changes.add(executor.submit(() -> confirm ? inventoryService.confirm(id) : inventoryService.release(id)));
+        }
+        for (Future<?> change : changes) {
+            change.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int confirmedUnits = 0;
+        for (int i = 0; i < held.size(); i += 2) {
+            confirmedUnits += held.get(i).getQuantity();
+        }
+        level = inventoryService.getStockLevel(productId);
+        assertThat(level.getAvailable()).isEqualTo(100 - confirmedUnits);
+        assertThat(level.getHeld()).isZero();
+        assertThat(level.getPendingWrites()).isZero();
+        assertThat(soldUnits()).isEqualTo(5 + confirmedUnits);
+    }
+
+    @Test
+    void multiUnitReservationsGatherAcrossStripes() {
+        List<ReservationDTO> reservations = new ArrayList<>();
+        int remaining = 100;
+        while (remaining > 0) {
+            int quantity = Math.min(remaining, ThreadLocalRandom.current().nextInt(1, 30));
+            reservations.add(inventoryService.reserve(productId, quantity));
+            remaining -= quantity;
+        }
+
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isZero();
+        assertThatThrownBy(() -> inventoryService.reserve(productId, 1)).isInstanceOf(InsufficientStockException.class);
+
+        inventoryService.release(reservations.get(0).getId());
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(reservations.get(0).getQuantity());
+        assertThatThrownBy(() -> inventoryService.confirm(reservations.get(0).getId()))
+                .isInstanceOf(ReservationStateException.class);
+    }
+
+    @Test
+    void expiredReservationsReturnTheirUnits() throws Exception {
+        ReservationDTO reservation = inventoryService.reserve(productId, 40);
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(60);
+
+        Thread.sleep(400);
+        inventoryService.expireReservations();
+
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(100);
+        assertThat(inventoryService.getReservation(reservation.getId()))
+                .hasValueSatisfying(expired -> assertThat(expired.getStatus()).isEqualTo(ReservationStatus.EXPIRED));
+        assertThatThrownBy(() -> inventoryService.confirm(reservation.getId()))
+                .isInstanceOf(ReservationStateException.class);
+    }
+
+    @Test
+    void reservationEndpoints() throws Exception {
+        String body = mockMvc.perform(post("/api/inventory/" + productId + "/reservations")
+                        .contentType("application/json")
+                        .content("{\"quantity\":2}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value("HELD"))
+                .andReturn().getResponse().getContentAsString();
+        String id = body.replaceAll(".*\"id\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(post("/api/inventory/reservations/" + id + "/confirm"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CONFIRMED"))
+                .andExpect(jsonPath("$.durable").value(true));
+        mockMvc.perform(get("/api/inventory/" + productId))
+                .andExpect(jsonPath("$.available").value(98));
+        mockMvc.perform(post("/api/inventory/" + productId + "/reservations")
+                        .contentType("application/json")
+                        .content("{\"quantity\":99}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.available").value(98));
+        mockMvc.perform(post("/api/inventory/reservations/" + UUID.randomUUID() + "/release"))
+                .andExpect(status().isNotFound());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT units_flushed FROM inventory_flush_checkpoint WHERE id = 1", Long.class)).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void saleTheDatabaseCannotCoverFailsItsReservation() {
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(100);
+        // another instance sells 98 of the items this one has counted
+        jdbcTemplate.update("UPDATE inventory_items SET sold_at = CURRENT_TIMESTAMP WHERE product_id = ? AND sold_at IS NULL "
+                + "AND id < ?", productId, productId * 1_000 + 103);
+        ReservationDTO first = inventoryService.reserve(productId, 1);
+        ReservationDTO second = inventoryService.reserve(productId, 3);
+
+        inventoryService.confirm(first.getId());
+        assertThatThrownBy(() -> inventoryService.confirm(second.getId()))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(inventoryService.getReservation(second.getId()))
+                .hasValueSatisfying(failed -> assertThat(failed.getStatus()).isEqualTo(ReservationStatus.FAILED));
+        // the failed sale claimed nothing, and the counter now matches the one item left
+        assertThat(soldUnits()).isEqualTo(104);
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_confirmations WHERE product_id = ?",
+                Integer.class, productId)).isZero();
+    }
+
+    @Test
+    void twoInstancesNeverConfirmMoreThanTheDatabaseHas() throws Exception {
+        // two instances on the same database, each with its own counters and write-behind
+        InventoryWriteBehind firstWriteBehind = writeBehind();
+        InventoryWriteBehind secondWriteBehind = writeBehind();
+        try {
+            List<InventoryService> instances = List.of(service(firstWriteBehind), service(secondWriteBehind));
+            // each counts the 100 unsold items, so together they hold 120 units
+            Map<UUID, InventoryService> held = new LinkedHashMap<>();
+            for (int i = 0; i < 120; i++) {
+                InventoryService instance = instances.get(i % 2);
+                held.put(instance.reserve(productId, 1).getId(), instance);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(32);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ReservationDTO>> confirms = new ArrayList<>();
+            held.forEach((id, instance) -> confirms.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return instance.confirm(id).orElseThrow();
+                } catch (InsufficientStockException e) {
+                    return null;
+                }
+            })));
+            start.countDown();
+            List<ReservationDTO> acknowledged = new ArrayList<>();
+            for (Future<ReservationDTO> confirm : confirms) {
+                ReservationDTO reservation = confirm.get(30, TimeUnit.SECONDS);
+                if (reservation != null) {
+                    acknowledged.add(reservation);
+                }
+            }
+            executor.shutdown();
+
+            // confirms past the timeout are still CONFIRMING; wait for every sale to settle
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (unitsIn(held, ReservationStatus.CONFIRMING) > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(unitsIn(held, ReservationStatus.CONFIRMED)).isEqualTo(100);
+            assertThat(unitsIn(held, ReservationStatus.FAILED)).isEqualTo(20);
+            assertThat(soldUnits()).isEqualTo(105);
+            // a sale acknowledged as CONFIRMED had its items claimed and never turns into a failure
+            assertThat(acknowledged).allSatisfy(reservation -> {
+                assertThat(reservation.getStatus()).isIn(ReservationStatus.CONFIRMED, ReservationStatus.CONFIRMING);
+                if (reservation.isDurable()) {
+                    assertThat(held.get(reservation.getId()).getReservation(reservation.getId()))
+                            .hasValueSatisfying(now -> assertThat(now.getStatus()).isEqualTo(ReservationStatus.CONFIRMED));
+                }
+            });
+            // and both counters come back down to what is left
+            for (InventoryService instance : instances) {
+                instance.resyncAll();
+                assertThat(instance.getStockLevel(productId).getAvailable()).isZero();
+            }
+        } finally {
+            firstWriteBehind.stop();
+            secondWriteBehind.stop();
+        }
+    }
+
+    @Test
+    void confirmationsLeftByAStoppedInstanceAreWritten() throws Exception {
+        jdbcTemplate.update("INSERT INTO inventory_confirmations (reservation_id, product_id, quantity, confirmed_at) "
+                + "VALUES (?, ?, 3, ?)", UUID.randomUUID().toString(), productId, "2024-01-01 00:00:00");
+        // counted as gone before it is written
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(97);
+
+        writeBehind.recoverOrphans();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (soldUnits() < 8 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(soldUnits()).isEqualTo(8);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_confirmations WHERE product_id = ?",
+                Integer.class, productId)).isZero();
+    }
+
+    @Test
+    void unknownProductsAreNotFoundAndGetNoCounter() throws Exception {
+        int unknown = nextProductId.incrementAndGet();
+        int counted = counters();
+
+        assertThatThrownBy(() -> inventoryService.getStockLevel(unknown)).isInstanceOf(ProductNotFoundException.class);
+        mockMvc.perform(get("/api/inventory/" + unknown))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/inventory/" + unknown + "/reservations"))
+                .andExpect(status().isNotFound());
+        assertThat(counters()).isEqualTo(counted);
+    }
+
+    @Test
+    void resyncPicksUpRestocksAndSalesMadeElsewhere() {
+        ReservationDTO held = inventoryService.reserve(productId, 10);
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(90);
+
+        // restocked by another process
+        jdbcTemplate.update("INSERT INTO inventory_items (id, product_id) VALUES (?, ?), (?, ?)",
+                productId * 1_000 + 200, productId, productId * 1_000 + 201, productId);
+        inventoryService.resyncAll();
+        // the held units stay taken
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(92);
+
+        // and sold elsewhere
+        jdbcTemplate.update("UPDATE inventory_items SET sold_at = CURRENT_TIMESTAMP WHERE product_id = ? AND sold_at IS NULL "
+                + "AND id < ?", productId, productId * 1_000 + 50);
+        inventoryService.resyncAll();
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(47);
+
+        inventoryService.release(held.getId());
+        assertThat(inventoryService.getStockLevel(productId).getAvailable()).isEqualTo(57);
+    }
+
+    private InventoryWriteBehind writeBehind() {
+        InventoryWriteBehind instance = new InventoryWriteBehind();
+        ReflectionTestUtils.setField(instance, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(instance, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(instance, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(instance, "batchSize", 500);
+        ReflectionTestUtils.setField(instance, "linger", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(instance, "retryBackoff", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(instance, "orphanAfter", Duration.ofMinutes(5));
+        instance.start();
+        return instance;
+    }
+
+    private InventoryService service(InventoryWriteBehind writeBehind) {
+        InventoryService instance = new InventoryService();
+        ReflectionTestUtils.setField(instance, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(instance, "writeBehind", writeBehind);
+        ReflectionTestUtils.setField(instance, "databaseBulkhead", databaseBulkhead);
+        ReflectionTestUtils.setField(instance, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(instance, "stripes", 8);
+        ReflectionTestUtils.setField(instance, "reservationTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(instance, "confirmTimeout", Duration.ofSeconds(2));
+        instance.init();
+        return instance;
+    }
+
+    private static int unitsIn(Map<UUID, InventoryService> reservations, ReservationStatus status) {
+        int units = 0;
+        for (Map.Entry<UUID, InventoryService> entry : reservations.entrySet()) {
+            ReservationDTO reservation = entry.getValue().getReservation(entry.getKey()).orElseThrow();
+            if (reservation.getStatus() == status) {
+                units += reservation.getQuantity();
+            }
+        }
+        return units;
+    }
+
+    private int counters() {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(inventoryService, "stock")).size();
+    }
+
+    private int soldUnits() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory_items WHERE product_id = ? AND sold_at IS NOT NULL", Integer.class, productId);
+    }
+}
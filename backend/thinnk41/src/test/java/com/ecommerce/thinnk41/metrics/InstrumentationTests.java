@@ -0,0 +1,51 @@
+package com.ecommerce.thinnk41.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class InstrumentationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void responsesCarryTheirSqlStatementCount() throws Exception {
+        mockMvc.perform(get("/api/departments"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementCountHeaderAdvice.HEADER, "1"));
+    }
+
+    @Test
+    void exposesRouteQueryPoolAndHibernateMetricsForPrometheus() throws Exception {
+        mockMvc.perform(get("/api/departments")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").param("size", "5")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/departments\"")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("repository=\"DepartmentRepository\"")
+                .contains("http_server_requests_sql_statements_bucket{")
+                .contains("hikaricp_connections_acquire_seconds")
+                .contains("hibernate_statements_total")
+                .contains("hibernate_entities_loads_total")
+                // per-region second-level cache metrics appear once a region is configured
+                .contains("hibernate_cache_query_requests_total");
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.thinnk41.related;
+
+import com.ecommerce.thinnk41.dto.RelatedProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RelatedProductsIndexTests {
+
+    @Autowired
+    private RelatedProductsIndex relatedProductsIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private int nextId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        nextId = 1;
+        order(1, "Complete", 1, 2, 3);
+        order(2, "Shipped", 1, 2);
+        order(3, "Complete", 1, 4);
+        order(4, "Cancelled", 1, 2);
+        // the same product twice in one order counts once
+        order(5, null, 2, 3, 3);
+    }
+
+    @Test
+    void ranksPartnersByOrdersBoughtTogether() throws Exception {
+        relatedProductsIndex.rebuild();
+
+        List<RelatedProductDTO> related = relatedProductsIndex.related(1, 10);
+        assertThat(related).extracting(RelatedProductDTO::getProductId).containsExactly(2, 3, 4);
+        // 1 is in three orders that were not cancelled, two of them with 2
+        assertThat(related.get(0).getScore()).isCloseTo(2f / 3, within(1e-6f));
+        assertThat(related.get(1).getScore()).isCloseTo(1f / 3, within(1e-6f));
+        // ties go to the lower id
+        assertThat(relatedProductsIndex.related(2, 10)).extracting(RelatedProductDTO::getProductId).containsExactly(1, 3);
+        assertThat(relatedProductsIndex.related(99, 10)).isEmpty();
+
+        mockMvc.perform(get("/api/products/1/related").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].productId").value(2))
+                .andExpect(jsonPath("$[1].productId").value(3));
+        mockMvc.perform(get("/api/products/99/related"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/products/1/related").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void foldsInNewOrderItemsAsARebuildWould() {
+        relatedProductsIndex.rebuild();
+
+        // an item added to an order already counted, a new order and a cancelled item
+        order(3, "Processing", 2);
+        order(6, "Complete", 1, 4, 5);
+        order(7, "Cancelled", 1, 5);
+        assertThat(relatedProductsIndex.catchUp()).isEqualTo(6);
+        assertThat(relatedProductsIndex.catchUp()).isZero();
+
+        assertThat(relatedProductsIndex.related(1, 10)).extracting(RelatedProductDTO::getProductId).containsExactly(2, 4, 3, 5);
+        assertThat(relatedProductsIndex.related(1, 10).get(0).getScore()).isCloseTo(3f / 4, within(1e-6f));
+        assertThat(relatedProductsIndex.related(5, 10)).extracting(RelatedProductDTO::getProductId).containsExactly(1, 4);
+        Map<Integer, List<RelatedProductDTO>> caughtUp = new HashMap<>();
+        for (int product = 1; product <= 5; product++) {
+            caughtUp.put(product, relatedProductsIndex.related(product, 10));
+        }
+
+        relatedProductsIndex.rebuild();
+        for (int product = 1; product <= 5; product++) {
+            assertThat(relatedProductsIndex.related(product, 10)).isEqualTo(caughtUp.get(product));
+        }
+    }
+
+    @Test
+    void parallelCountsMatchASequentialCountAndKeepTheTopK() {
+        Random random = new Random(42);
+        int[][] baskets = new int[2000][];
+        for (int i = 0; i < baskets.length; i++) {
+            // skewed towards low ids, with the odd order larger than max-basket-size
+            baskets[i] = IntStream.range(0, i % 97 == 0 ? 12 : 1 + random.nextInt(4))
+                    .map(n -> (int) Math.abs(random.nextGaussian() * 40))
+                    .toArray();
+        }
+        CoOccurrenceCounts parallel = CoOccurrenceBuilder.count(baskets, 10, 7);
+        CoOccurrenceCounts sequential = new CoOccurrenceCounts(10, 16);
+        for (int[] basket : baskets) {
+            sequential.addBasket(CoOccurrenceBuilder.distinctSorted(basket));
+        }
+        assertThat(parallel.getPairCount()).isEqualTo(sequential.getPairCount());
+        assertThat(parallel.getProductCount()).isEqualTo(sequential.getProductCount());
+        sequential.forEachPair((pair, count) -> assertThat(parallel.count(CoOccurrenceCounts.first(pair), CoOccurrenceCounts.second(pair))).isEqualTo(count));
+
+        int k = 3;
+        RelatedTable table = RelatedTable.build(parallel, k);
+        sequential.forEachProduct((key, orders) -> {
+            int product = (int) key;
+            List<int[]> expected = new ArrayList<>();
+            sequential.forEachProduct((other, ignored) -> {
+                int count = sequential.count(product, (int) other);
+                if (other != key && count > 0) {
+                    expected.add(new int[]{(int) other, count});
+                }
+            });
+            expected.sort(Comparator.<int[]>comparingInt(entry -> -entry[1]).thenComparingInt(entry -> entry[0]));
+            int row = table.find(product);
+            if (expected.isEmpty()) {
+                assertThat(row).isEqualTo(-1);
+                return;
+            }
+            List<Integer> partners = new ArrayList<>();
+            for (int i = table.from(row); i < table.to(row); i++) {
+                partners.add(table.partner(i));
+            }
+            assertThat(partners).isEqualTo(expected.subList(0, Math.min(k, expected.size())).stream().map(entry -> entry[0]).toList());
+            assertThat(table.score(table.from(row))).isCloseTo((float) expected.get(0)[1] / orders, within(1e-6f));
+        });
+    }
+
+    private void order(int orderId, String status, int... products) {
+        for (int product : products) {
+            jdbcTemplate.update("INSERT INTO order_items (id, order_id, user_id, product_id, status) VALUES (?, ?, 1, ?, ?)",
+                    nextId++, orderId, product, status);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.thinnk41.repository;
+
+import com.ecommerce.thinnk41.dto.CursorPageDTO;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the plans of the filtered, sorted listing queries: each one must be answered from one of
+ * the listing indexes (V6, V10), never a scan of the products table. The SQL checked is the SQL
+ * the service actually prepares, first slice and a follow-up slice with its keyset predicate.
+ * <p>
+ * These are H2 plans and only show which index filters the rows. H2 never skips the sort after
+ * an equality prefix, so whether MySQL reads the rows in ORDER BY order (no "Using filesort")
+ * is not checked here and has to be confirmed with EXPLAIN against MySQL.
+ */
+@SpringBootTest
+@Import(SqlRecorder.class)
+class ProductListingQueryPlanTests {
+
+    private static final BigDecimal FIFTY = new BigDecimal("50");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer departmentId;
+
+    @BeforeEach
+    void seedCatalog() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM inventory_items");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        departmentId = departmentRepository.save(new Department(null, "Women", null, null)).getId();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(new Object[]{"Product " + i, "Category " + i % 20, "Brand " + i % 50,
+                    BigDecimal.valueOf(500 + (i * 37) % 20000, 2), "PLAN-" + i, departmentId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, category, brand, retail_price, sku, department_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void categoryUnderAPriceSortedByPriceSeeksTheCategoryPriceIndex() {
+        assertPlans("idx_products_category_price",
+                after -> productService.browseProducts("Category 3", null, null, null, FIFTY, after, "price", "asc", 5));
+    }
+
+    @Test
+    void brandInAPriceRangeSortedByNameFiltersOnTheBrandPriceIndex() {
+        assertPlans("idx_products_brand_price",
+                after -> productService.browseProducts(null, "Brand 7", null, BigDecimal.TEN, FIFTY, after, "name", "asc", 5));
+    }
+
+    @Test
+    void departmentSortedByPriceDescendingSeeksTheDepartmentPriceIndex() {
+        assertPlans("idx_products_department_price",
+                after -> productService.browseProducts(null, null, departmentId, BigDecimal.ONE, null, after, "price", "desc", 5));
+    }
+
+    @Test
+    void priceRangeAloneSeeksThePriceIndex() {
+        assertPlans("idx_products_price",
+                after -> productService.browseProducts(null, null, null, BigDecimal.TEN, FIFTY, after, "price", "asc", 5));
+    }
+
+    @Test
+    void newestInACategoryUsesTheCategoryIdIndex() {
+        assertPlans("idx_products_category_id",
+                after -> productService.browseProducts("Category 3", null, null, null, null, after, "newest", "asc", 5));
+    }
+
+    @Test
+    void newestOfABrandUsesTheBrandIdIndex() {
+        assertPlans("idx_products_brand_id",
+                after -> productService.browseProducts(null, "Brand 7", null, null, null, after, "newest", "asc", 5));
+    }
+
+    @Test
+    void newestInADepartmentUsesTheForeignKeyIndex() {
+        assertPlans("fk_products_department",
+                after -> productService.browseProducts(null, null, departmentId, null, null, after, "newest", "asc", 5));
+    }
+
+    /**
+     * Fetch the first slice and the one after it, and EXPLAIN every products query they prepared
+     */
+    private void assertPlans(String index, Browse browse) {
+        List<String> statements = SqlRecorder.start();
+        try {
+            CursorPageDTO<ProductDTO> first = browse.slice(null);
+            assertThat(first.getNextCursor()).isNotNull();
+            browse.slice(first.getNextCursor());
+        } finally {
+            SqlRecorder.stop();
+        }
+
+        List<String> listings = statements.stream().filter(sql -> sql.contains(" from products ")).toList();
+        assertThat(listings).hasSize(2);
+        for (String sql : listings) {
+            String plan = explain(sql);
+            assertThat(plan).as(sql).doesNotContainIgnoringCase("tableScan").containsIgnoringCase(index);
+        }
+    }
+
+    private String explain(String sql) {
+        // H2 plans parameterised statements without values, as the server-side prepare would
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    @FunctionalInterface
+    private interface Browse {
+        CursorPageDTO<ProductDTO> slice(String after);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.thinnk41.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the SQL Hibernate prepares on the current thread, so tests can EXPLAIN the exact
+ * statements a listing issues. Wraps the application's statement inspector rather than replacing it.
+ */
+@TestConfiguration
+public class SqlRecorder {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlRecorderCustomizer() {
+        return properties -> {
+            Object existing = properties.get(AvailableSettings.STATEMENT_INSPECTOR);
+            StatementInspector delegate = existing instanceof StatementInspector inspector ? inspector : sql -> sql;
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                List<String> recorded = RECORDED.get();
+                if (recorded != null) {
+                    recorded.add(sql);
+                }
+                return delegate.inspect(sql);
+            });
+        };
+    }
+
+    /**
+     * Record the statements prepared on this thread until {@link #stop()}
+     */
+    public static List<String> start() {
+        List<String> recorded = new CopyOnWriteArrayList<>();
+        RECORDED.set(recorded);
+        return recorded;
+    }
+
+    public static void stop() {
+        RECORDED.remove();
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.thinnk41.routing;
+
+import com.ecommerce.thinnk41.admin.AdminKeyFilter;
+import com.ecommerce.thinnk41.cache.ProductCache;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.service.DepartmentService;
+import com.ecommerce.thinnk41.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "catalog.datasource.replicas.urls=" + ReplicaRoutingTests.REPLICA_URL,
+        "catalog.datasource.replicas.health-check-interval=1h"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Product primaryProduct;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM sales_rollups");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        productCache.evictAll();
+        Department primary = departmentRepository.save(new Department(null, "Primary", null, null));
+        Product product = new Product();
+        product.setSku("PRIMARY-1");
+        product.setName("Primary product");
+        product.setRetailPrice(BigDecimal.TEN);
+        product.setDepartment(primary);
+        primaryProduct = productRepository.save(product);
+
+        replica.update("DELETE FROM products");
+        replica.update("DELETE FROM departments");
+        replica.update("INSERT INTO departments (name) VALUES ('Replica')");
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromTheReplica() {
+        double before = replicaReads();
+
+        assertThat(departmentService.getAllDepartments()).extracting(Department::getName).containsExactly("Replica");
+        assertThat(replicaReads()).isGreaterThan(before);
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        departmentService.createOrGetDepartment("Written");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM departments WHERE name = 'Written'", Integer.class))
+                .isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM departments WHERE name = 'Written'", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void cachedLookupsLoadFromThePrimary() {
+        assertThat(productService.getProductDtoById(primaryProduct.getId())).isPresent();
+        assertThat(productService.getProductDtoBySku("PRIMARY-1")).isPresent();
+    }
+
+    @Test
+    void clientsThatWroteReadTheirWritesFromThePrimary() throws Exception {
+        mockMvc.perform(get("/api/departments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.departments[0].name").value("Replica"));
+
+        MvcResult write = mockMvc.perform(post("/api/admin/sales/order-items").header(AdminKeyFilter.ADMIN_KEY_HEADER, "test-admin-key")
+                        .contentType("application/json")
+                        .content("[{\"id\":1,\"orderId\":1,\"userId\":1,\"productId\":" + primaryProduct.getId()
+                                + ",\"status\":\"Complete\",\"createdAt\":\"2024-03-01T10:00:00\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+                .andReturn();
+        Cookie pin = write.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        mockMvc.perform(get("/api/departments").cookie(pin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.departments[0].name").value("Primary"));
+        mockMvc.perform(get("/api/departments")
+                        .cookie(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1))))
+                .andExpect(jsonPath("$.departments[0].name").value("Replica"));
+        // a pin the server could never have set is ignored
+        mockMvc.perform(get("/api/departments")
+                        .cookie(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "99999999999999")))
+                .andExpect(jsonPath("$.departments[0].name").value("Replica"));
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileReplicasAreDown() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1", "sa", "");
+        FlakyDataSource first = new FlakyDataSource("jdbc:h2:mem:routing_replica_1;DB_CLOSE_DELAY=-1");
+        FlakyDataSource second = new FlakyDataSource("jdbc:h2:mem:routing_replica_2;DB_CLOSE_DELAY=-1");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", first);
+        replicas.put("replica-2", second);
+        ReplicaPool pool = new ReplicaPool(replicas, Duration.ofSeconds(1), registry);
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, pool, registry));
+
+        // round-robin across both replicas
+        assertThat(List.of(readDatabase(routing), readDatabase(routing)))
+                .containsExactlyInAnyOrder("ROUTING_REPLICA_1", "ROUTING_REPLICA_2");
+
+        first.down = true;
+        assertThat(readDatabase(routing)).isEqualTo("ROUTING_REPLICA_2");
+        assertThat(readDatabase(routing)).isEqualTo("ROUTING_REPLICA_2");
+        assertThat(pool.healthyCount()).isEqualTo(1);
+
+        second.down = true;
+        assertThat(readDatabase(routing)).isEqualTo("ROUTING_PRIMARY");
+        assertThat(registry.counter("catalog.datasource.connections", "target", "primary", "reason", "fallback").count())
+                .isEqualTo(1);
+
+        first.down = false;
+        pool.checkHealth();
+        assertThat(pool.healthyCount()).isEqualTo(1);
+        assertThat(readDatabase(routing)).isEqualTo("ROUTING_REPLICA_1");
+    }
+
+    private static String readDatabase(DataSource dataSource) throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT DATABASE()", String.class);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private double replicaReads() {
+        return meterRegistry.counter("catalog.datasource.connections", "target", "replica-1", "reason", "read").count();
+    }
+
+    private static final class FlakyDataSource extends DriverManagerDataSource {
+        private volatile boolean down;
+
+        FlakyDataSource(String url) {
+            super(url, "sa", "");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
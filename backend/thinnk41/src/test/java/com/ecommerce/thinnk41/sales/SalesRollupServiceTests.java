@@ -0,0 +1,236 @@
+package com.ecommerce.thinnk41.sales;
+
+import com.ecommerce.thinnk41.admin.AdminKeyFilter;
+import com.ecommerce.thinnk41.dto.SalesRollupDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.OrderItem;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.exception.InvalidRequestException;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "catalog.sales.rollup.chunk-size=7")
+@AutoConfigureMockMvc
+class SalesRollupServiceTests {
+
+    private static final LocalDate FROM = LocalDate.of(2000, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2100, 1, 1);
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Product jeans;
+    private Product shirt;
+    private Department women;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM sales_rollups");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        women = departmentRepository.save(new Department(null, "Women", null, null));
+        Department men = departmentRepository.save(new Department(null, "Men", null, null));
+        jeans = product("JEANS-1", "Jeans", "Levi's", "50.00", "20.00", women);
+        shirt = product("SHIRT-1", "Tops", "Hanes", "12.50", "5.25", men);
+    }
+
+    @Test
+    void appendedItemsAreFoldedIntoRollups() {
+        SalesRollupReport report = salesRollupService.appendOrderItems(List.of(
+                item(1, jeans, 1), item(2, jeans, 1), item(3, shirt, 2)));
+
+        assertThat(report.getOrderItems()).isEqualTo(3);
+        assertThat(pendingOrderItems()).isZero();
+
+        List<SalesRollupDTO> byDepartment = rollups(RollupDimension.DEPARTMENT);
+        SalesRollupDTO womenTotals = find(byDepartment, String.valueOf(women.getId()));
+        assertThat(womenTotals.getLabel()).isEqualTo("Women");
+        assertThat(womenTotals.getUnits()).isEqualTo(2);
+        assertThat(womenTotals.getRevenue()).isEqualByComparingTo("100.00");
+        assertThat(womenTotals.getCost()).isEqualByComparingTo("40.00");
+        assertThat(womenTotals.getMargin()).isEqualByComparingTo("60.00");
+
+        salesRollupService.appendOrderItems(List.of(item(4, shirt, 2)));
+        SalesRollupDTO tops = find(rollups(RollupDimension.CATEGORY), "Tops");
+        assertThat(tops.getUnits()).isEqualTo(2);
+        assertThat(tops.getRevenue()).isEqualByComparingTo("25.00");
+        assertThat(rollups(RollupDimension.DAY)).hasSize(2);
+    }
+
+    @Test
+    void appendingAnExistingItemIsRejected() {
+        salesRollupService.appendOrderItems(List.of(item(1, jeans, 1)));
+
+        assertThatThrownBy(() -> salesRollupService.appendOrderItems(List.of(item(1, jeans, 1))))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(find(rollups(RollupDimension.BRAND), "Levi's").getUnits()).isEqualTo(1);
+    }
+
+    @Test
+    void appendingBelowAnEarlierIdIsCounted() {
+        salesRollupService.appendOrderItems(List.of(item(5, jeans, 1)));
+
+        // id 4 was never appended, and the catch-up has already counted a higher one
+        SalesRollupReport report = salesRollupService.appendOrderItems(List.of(item(4, jeans, 1)));
+
+        assertThat(report.getOrderItems()).isEqualTo(1);
+        assertThat(find(rollups(RollupDimension.BRAND), "Levi's").getUnits()).isEqualTo(2);
+    }
+
+    @Test
+    void idsCommittedOutOfOrderAreCountedOnce() {
+        // the bulk ingestion commits its chunks in whatever order its workers finish
+        insertOrderItem(20, jeans);
+        insertOrderItem(21, shirt);
+        assertThat(salesRollupService.catchUp().getOrderItems()).isEqualTo(2);
+
+        insertOrderItem(10, jeans);
+        insertOrderItem(11, jeans);
+        SalesRollupReport report = salesRollupService.catchUp();
+
+        assertThat(report.getOrderItems()).isEqualTo(2);
+        assertThat(pendingOrderItems()).isZero();
+        assertThat(find(rollups(RollupDimension.BRAND), "Levi's").getUnits()).isEqualTo(3);
+        assertThat(salesRollupService.catchUp().getOrderItems()).isZero();
+
+        // and a backfill agrees
+        List<SalesRollupDTO> incremental = rollups(RollupDimension.BRAND);
+        salesRollupService.backfill();
+        assertThat(rollups(RollupDimension.BRAND)).containsExactlyInAnyOrderElementsOf(incremental);
+    }
+
+    @Test
+    void catchUpAcrossChunksMatchesBackfill() {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            OrderItem item = item(i, i % 3 == 0 ? shirt : jeans, i % 5);
+            if (i % 4 == 0) {
+                item.setStatus(OrderItem.STATUS_RETURNED);
+                item.setReturnedAt(item.getCreatedAt().plusDays(3));
+            }
+            items.add(item);
+        }
+        salesRollupService.appendOrderItems(items);
+        List<SalesRollupDTO> incremental = rollups(RollupDimension.DAY);
+
+        SalesRollupReport backfill = salesRollupService.backfill();
+
+        assertThat(backfill.getOrderItems()).isEqualTo(40);
+        assertThat(pendingOrderItems()).isZero();
+        assertThat(rollups(RollupDimension.DAY)).containsExactlyInAnyOrderElementsOf(incremental);
+        assertThat(incremental.stream().mapToLong(SalesRollupDTO::getReturnedUnits).sum()).isEqualTo(10);
+    }
+
+    @Test
+    void returnsUpdateTheReturnRate() {
+        salesRollupService.appendOrderItems(List.of(item(1, jeans, 1), item(2, jeans, 1)));
+
+        assertThat(salesRollupService.recordReturn(1)).isTrue();
+        assertThat(salesRollupService.recordReturn(1)).isTrue();
+        assertThat(salesRollupService.recordReturn(99)).isFalse();
+
+        SalesRollupDTO levis = find(rollups(RollupDimension.BRAND), "Levi's");
+        assertThat(levis.getReturnedUnits()).isEqualTo(1);
+        assertThat(levis.getReturnRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void endpointsGroupAndFilterRollups() throws Exception {
+        mockMvc.perform(post("/api/admin/sales/order-items").header(AdminKeyFilter.ADMIN_KEY_HEADER, "test-admin-key")
+                        .contentType("application/json")
+                        .content("[{\"id\":1,\"orderId\":1,\"userId\":1,\"productId\":" + jeans.getId()
+                                + ",\"status\":\"Complete\",\"createdAt\":\"2024-03-01T10:00:00\"},"
+                                + "{\"id\":2,\"orderId\":1,\"userId\":1,\"productId\":" + shirt.getId()
+                                + ",\"status\":\"Complete\",\"createdAt\":\"2024-03-02T10:00:00\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderItems").value(2));
+
+        mockMvc.perform(get("/api/sales/rollups").param("groupBy", "brand").param("category", "Jeans"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].key").value("Levi's"))
+                .andExpect(jsonPath("$[0].units").value(1));
+
+        mockMvc.perform(get("/api/sales/rollups").param("groupBy", "day")
+                        .param("from", "2024-03-02").param("to", "2024-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].key").value("2024-03-02"));
+
+        mockMvc.perform(get("/api/sales/rollups").param("groupBy", "colour"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/admin/sales/order-items/42/return").header(AdminKeyFilter.ADMIN_KEY_HEADER, "test-admin-key"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/admin/sales/order-items/1/return").header(AdminKeyFilter.ADMIN_KEY_HEADER, "test-admin-key"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/admin/sales/rollups/backfill"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private void insertOrderItem(int id, Product product) {
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, user_id, product_id, status, created_at) " +
+                "VALUES (?, ?, 1, ?, 'Complete', TIMESTAMP '2024-03-01 10:00:00')", id, id, product.getId());
+    }
+
+    private long pendingOrderItems() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items WHERE rolled_up = FALSE", Long.class);
+    }
+
+    private List<SalesRollupDTO> rollups(RollupDimension groupBy) {
+        return salesRollupService.getRollups(groupBy, FROM, TO, null, null, null, 1000);
+    }
+
+    private static SalesRollupDTO find(List<SalesRollupDTO> rollups, String key) {
+        return rollups.stream().filter(r -> key.equals(r.getKey())).findFirst().orElseThrow();
+    }
+
+    private Product product(String sku, String category, String brand, String retail, String cost, Department department) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setRetailPrice(new BigDecimal(retail));
+        product.setCost(new BigDecimal(cost));
+        product.setDepartment(department);
+        return productRepository.save(product);
+    }
+
+    private static OrderItem item(int id, Product product, int day) {
+        return new OrderItem(id, 1, 1, product.getId(), null, "Complete",
+                LocalDateTime.of(2024, 3, 1 + day, 12, 0), null, null, null);
+    }
+}
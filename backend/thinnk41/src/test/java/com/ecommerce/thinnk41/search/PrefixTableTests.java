@@ -0,0 +1,99 @@
+package com.ecommerce.thinnk41.search;
+
+import com.ecommerce.thinnk41.dto.SuggestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTableTests {
+
+    @Test
+    void completesAnyWordStartHeaviestFirst() {
+        PrefixTable table = PrefixTable.builder()
+                .add(SuggestionType.NAME, "Levi's 501 Original Fit Jeans", 1, 40)
+                .add(SuggestionType.NAME, "Skinny Jeans Stretch Denim", 3, 70)
+                .add(SuggestionType.NAME, "Jersey Knit Top", 4, 5)
+                .add(SuggestionType.BRAND, "Levi's", null, 30)
+                .add(SuggestionType.CATEGORY, "Jeans", null, 110)
+                .build();
+
+        assertThat(table.complete("je", 10)).extracting(SuggestionDTO::getText)
+                .containsExactly("Jeans", "Skinny Jeans Stretch Denim", "Levi's 501 Original Fit Jeans", "Jersey Knit Top");
+        assertThat(table.complete("LEVI'S 5", 10)).extracting(SuggestionDTO::getText)
+                .containsExactly("Levi's 501 Original Fit Jeans");
+        assertThat(table.complete("je", 2)).hasSize(2);
+        assertThat(table.complete("levi", 10)).first()
+                .satisfies(first -> {
+                    assertThat(first.getType()).isEqualTo(SuggestionType.NAME);
+                    assertThat(first.getProductId()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void normalizesAccentsAndRespectsCompletedWords() {
+        PrefixTable table = PrefixTable.builder()
+                .add(SuggestionType.NAME, "Crème Brûlée Sweater", 1, 1)
+                .add(SuggestionType.NAME, "Red Dress", 2, 1)
+                .add(SuggestionType.NAME, "Reddish Scarf", 3, 1)
+                .build();
+
+        assertThat(table.complete("creme bru", 5)).extracting(SuggestionDTO::getText).containsExactly("Crème Brûlée Sweater");
+        assertThat(table.complete("red", 5)).hasSize(2);
+        assertThat(table.complete("red ", 5)).extracting(SuggestionDTO::getText).containsExactly("Red Dress");
+        assertThat(table.complete("  ", 5)).isEmpty();
+        assertThat(table.complete("zz", 5)).isEmpty();
+    }
+
+    @Test
+    void mergesEntriesThatNormalizeAlike() {
+        PrefixTable table = PrefixTable.builder()
+                .add(SuggestionType.BRAND, "Calvin Klein", null, 3)
+                .add(SuggestionType.BRAND, "calvin  klein", null, 4)
+                .add(SuggestionType.NAME, "Calvin Klein", 9, 2)
+                .build();
+
+        List<SuggestionDTO> suggestions = table.complete("calvin", 5);
+        assertThat(suggestions).extracting(SuggestionDTO::getType).containsExactly(SuggestionType.BRAND, SuggestionType.NAME);
+        assertThat(suggestions.get(0).getWeight()).isEqualTo(7);
+    }
+
+    @Test
+    void topKMatchesABruteForceRanking() {
+        Random random = new Random(42);
+        String[] words = {"alpha", "alpine", "beta", "bet", "gamma", "gam", "delta", "del", "epsilon", "eps"};
+        PrefixTable.Builder builder = PrefixTable.builder();
+        List<String> names = new ArrayList<>();
+        List<Long> weights = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+            long weight = random.nextInt(1_000);
+            builder.add(SuggestionType.NAME, name, i, weight);
+            names.add(name);
+            weights.add(weight);
+        }
+        PrefixTable table = builder.build();
+
+        for (String prefix : new String[]{"a", "al", "alp", "be", "bet", "gam", "e", "12", "delta gam"}) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (name.startsWith(prefix) || name.contains(" " + prefix)) {
+                    expected.add(i);
+                }
+            }
+            expected.sort(Comparator.comparing((Integer i) -> -weights.get(i)));
+            List<Long> expectedWeights = expected.stream().limit(20).map(weights::get).collect(Collectors.toList());
+
+            List<SuggestionDTO> actual = table.complete(prefix, 20);
+            assertThat(actual).extracting(SuggestionDTO::getWeight).as(prefix).containsExactlyElementsOf(expectedWeights);
+            assertThat(actual).allSatisfy(suggestion -> assertThat(expected).contains(suggestion.getProductId()));
+        }
+        assertThat(table.footprintBytes()).isPositive();
+    }
+}
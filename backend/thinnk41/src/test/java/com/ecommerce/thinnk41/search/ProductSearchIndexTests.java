@@ -0,0 +1,63 @@
+package com.ecommerce.thinnk41.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTests {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.index(1, "Levi's 501 Original Fit Jeans", "Levi's", "Jeans");
+        index.index(2, "Slim Fit Chino Pants", "Dockers", "Pants");
+        index.index(3, "Skinny Jeans Stretch Denim", "Calvin Klein Jeans", "Jeans");
+        index.index(4, "Jersey Knit Top", "Calvin Klein", "Tops & Tees");
+    }
+
+    @Test
+    void tokenizesCaseAndAccentInsensitively() {
+        assertThat(ProductSearchIndex.tokenize("Crème BRÛLÉE  t-shirt")).containsExactly("creme", "brulee", "t", "shirt");
+    }
+
+    @Test
+    void multipleTermsAreAnded() {
+        assertThat(index.search("fit jeans")).containsExactly(1);
+        assertThat(index.search("calvin klein")).containsExactlyInAnyOrder(3, 4);
+        assertThat(index.search("fit sweater")).isEmpty();
+    }
+
+    @Test
+    void termsMatchAsPrefixesButExactMatchesRankFirst() {
+        // "je" reaches both "jeans" and "jersey"
+        assertThat(index.search("je")).containsExactlyInAnyOrder(1, 3, 4);
+
+        index.index(5, "Woolen Coat", "Acme", "Outerwear");
+        index.index(6, "Wool Coat", "Acme", "Outerwear");
+        assertThat(index.search("wool")).containsExactly(6, 5);
+    }
+
+    @Test
+    void aProductReachedThroughSeveralPrefixTermsIsRankedOnceByItsBestMatch() {
+        index.index(5, "Jean Jersey Jeggings", "Acme", "Leggings");
+        int[] ranked = index.search("jea");
+        assertThat(ranked).containsExactlyInAnyOrder(1, 3, 5);
+        // the brand and category weights make 3 the strongest "jeans" match; 5 only has it in its name
+        assertThat(ranked[0]).isEqualTo(3);
+        assertThat(index.search("je")).containsExactlyInAnyOrder(1, 3, 4, 5);
+    }
+
+    @Test
+    void updatesReplaceAndRemovePostings() {
+        index.index(2, "Slim Fit Cargo Shorts", "Dockers", "Shorts");
+        assertThat(index.search("chino")).isEmpty();
+        assertThat(index.search("cargo")).containsExactly(2);
+
+        index.remove(1);
+        assertThat(index.search("501")).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,192 @@
+package com.ecommerce.thinnk41.snapshot;
+
+import com.ecommerce.thinnk41.cache.ProductCache;
+import com.ecommerce.thinnk41.dto.ProductDTO;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CatalogSnapshotServiceTests {
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    private Department department;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogSnapshotService, "path", directory.resolve("catalog.snapshot"));
+        ReflectionTestUtils.setField(catalogSnapshotService, "catchUpOverlap", Duration.ZERO);
+        jdbcTemplate.update("DELETE FROM order_items");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        productCache.evictAll();
+        department = departmentRepository.save(new Department(null, "Women", "Womenswear", null));
+    }
+
+    @Test
+    void roundTripsProductsThroughTheMappedFile() throws Exception {
+        Path file = directory.resolve("round-trip.snapshot");
+        new CatalogSnapshotWriter(1234L)
+                .addDepartment(7, "Women", null)
+                .addProduct(30, new BigDecimal("12.34"), "Jeans", "Crème Brûlée Jeans", "Levi's", new BigDecimal("59.99"), "SKU-B", 4, 7, 1L)
+                .addProduct(10, null, "Jeans", null, "Levi's", new BigDecimal("0.50"), "SKU-A", null, null, 2L)
+                .addProduct(20, BigDecimal.ONE, "Tops", "Duplicate", null, null, "SKU-B", 1, 7, 3L)
+                .writeTo(file);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        assertThat(snapshot.getVersion()).isEqualTo(1234L);
+        assertThat(snapshot.getProductCount()).isEqualTo(3);
+        assertThat(snapshot.findRowById(15)).isEqualTo(-1);
+        ProductDTO product = snapshot.product(snapshot.findRowById(30), id -> snapshot.department(0));
+        assertThat(product.getName()).isEqualTo("Crème Brûlée Jeans");
+        assertThat(product.getCost()).isEqualByComparingTo("12.34");
+        assertThat(product.getRetailPrice()).isEqualTo(new BigDecimal("59.99"));
+        assertThat(product.getDistributionCenterId()).isEqualTo(4);
+        assertThat(product.getDepartment().getName()).isEqualTo("Women");
+        ProductDTO sparse = snapshot.product(snapshot.findRowById(10), id -> null);
+        assertThat(sparse.getCost()).isNull();
+        assertThat(sparse.getName()).isNull();
+        assertThat(sparse.getDepartment()).isNull();
+        assertThat(sparse.getDistributionCenterId()).isNull();
+        // a duplicated SKU resolves to the lowest id, as the database lookup does
+        assertThat(snapshot.productId(snapshot.findRowBySku("SKU-B"))).isEqualTo(20);
+        assertThat(snapshot.findRowBySku("SKU-C")).isEqualTo(-1);
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThatThrownBy(() -> CatalogSnapshot.open(file)).hasMessageContaining("Not a catalog snapshot");
+    }
+
+    @Test
+    void catchesUpWithChangesMadeWhileTheSnapshotWasOnDisk() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(product("SNAP-" + i, "Product " + i).getId());
+        }
+        jdbcTemplate.update("UPDATE products SET updated_at = TIMESTAMP '2024-01-01 00:00:00'");
+        catalogSnapshotService.write();
+
+        // changes another instance made while this one was down
+        jdbcTemplate.update("UPDATE products SET name = 'Renamed', updated_at = CURRENT_TIMESTAMP WHERE id = ?", ids.get(0));
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", ids.get(1));
+        jdbcTemplate.update("UPDATE departments SET name = 'Ladies' WHERE id = ?", department.getId());
+        Integer created = jdbcTemplate.queryForObject("SELECT MAX(id) FROM products", Integer.class) + 1;
+        jdbcTemplate.update("INSERT INTO products (id, name, sku, department_id) VALUES (?, 'New', 'SNAP-NEW', ?)",
+                created, department.getId());
+
+        catalogSnapshotService.load();
+
+        assertThat(catalogSnapshotService.isLoaded()).isTrue();
+        assertThat(catalogSnapshotService.findById(ids.get(0))).get().extracting(ProductDTO::getName).isEqualTo("Renamed");
+        assertThat(catalogSnapshotService.findById(ids.get(1))).isEmpty();
+        assertThat(catalogSnapshotService.findById(created)).get().extracting(ProductDTO::getSku).isEqualTo("SNAP-NEW");
+        // untouched rows come from the mapping, with the department as it is now
+        ProductDTO untouched = catalogSnapshotService.findById(ids.get(2)).orElseThrow();
+        assertThat(untouched.getName()).isEqualTo("Product 2");
+        assertThat(untouched.getDepartment().getName()).isEqualTo("Ladies");
+        assertThat(catalogSnapshotService.findBySku("SNAP-2")).get().extracting(ProductDTO::getId).isEqualTo(ids.get(2));
+        // SKUs of caught-up products are settled by the database
+        assertThat(catalogSnapshotService.findBySku("SNAP-NEW")).isEmpty();
+
+        List<String> names = new ArrayList<>();
+        catalogSnapshotService.forEachProduct(product -> names.add(product.getName()));
+        assertThat(names).containsExactlyInAnyOrder("Renamed", "Product 2", "Product 3", "Product 4", "New");
+
+        // changes made while running go to the database from then on
+        Product changed = productRepository.findById(ids.get(2)).orElseThrow();
+        changed.setName("Changed");
+        productRepository.save(changed);
+        assertThat(catalogSnapshotService.findById(ids.get(2))).isEmpty();
+        assertThat(productService.getProductDtoById(ids.get(2))).get().extracting(ProductDTO::getName).isEqualTo("Changed");
+        assertThat(productService.getProductDtoById(ids.get(3))).get().extracting(ProductDTO::getName).isEqualTo("Product 3");
+    }
+
+    @Test
+    void refreshDropsProductsChangedElsewhereWhileRunning() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(product("LIVE-" + i, "Product " + i).getId());
+        }
+        jdbcTemplate.update("UPDATE products SET updated_at = TIMESTAMP '2024-01-01 00:00:00'");
+        catalogSnapshotService.write();
+        catalogSnapshotService.load();
+        assertThat(catalogSnapshotService.findById(ids.get(0))).get().extracting(ProductDTO::getName).isEqualTo("Product 0");
+
+        // writes that never raise a local event: another instance, the bulk ingestion, plain SQL
+        jdbcTemplate.update("UPDATE products SET name = 'Renamed', sku = 'LIVE-9', updated_at = CURRENT_TIMESTAMP WHERE id = ?", ids.get(0));
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", ids.get(1));
+        jdbcTemplate.update("UPDATE departments SET name = 'Ladies' WHERE id = ?", department.getId());
+        // still served from the mapping until the next refresh
+        assertThat(catalogSnapshotService.findById(ids.get(1))).isPresent();
+
+        catalogSnapshotService.refresh();
+
+        assertThat(catalogSnapshotService.findById(ids.get(0))).isEmpty();
+        assertThat(catalogSnapshotService.findBySku("LIVE-0")).isEmpty();
+        assertThat(catalogSnapshotService.findBySku("LIVE-9")).isEmpty();
+        assertThat(catalogSnapshotService.findById(ids.get(1))).isEmpty();
+        ProductDTO untouched = catalogSnapshotService.findById(ids.get(2)).orElseThrow();
+        assertThat(untouched.getName()).isEqualTo("Product 2");
+        assertThat(untouched.getDepartment().getName()).isEqualTo("Ladies");
+        assertThat(productService.getProductDtoById(ids.get(0))).get().extracting(ProductDTO::getName).isEqualTo("Renamed");
+        assertThat(productService.getProductDtoById(ids.get(1))).isEmpty();
+
+        // a delete hidden by an insert leaves the count alone, so it waits for the periodic comparison
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", ids.get(2));
+        jdbcTemplate.update("INSERT INTO products (sku, name, retail_price, department_id) VALUES ('LIVE-10', 'Product 10', 10, ?)",
+                department.getId());
+        catalogSnapshotService.refresh();
+        assertThat(catalogSnapshotService.findById(ids.get(2))).isPresent();
+        ReflectionTestUtils.setField(catalogSnapshotService, "comparedAt", 0L);
+        catalogSnapshotService.refresh();
+        assertThat(catalogSnapshotService.findById(ids.get(2))).isEmpty();
+        assertThat(catalogSnapshotService.findById(ids.get(3))).isPresent();
+    }
+
+    private Product product(String sku, String name) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setRetailPrice(BigDecimal.TEN);
+        product.setDepartment(department);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,152 @@
+package com.ecommerce.thinnk41.update;
+
+import com.ecommerce.thinnk41.admin.AdminKeyFilter;
+import com.ecommerce.thinnk41.cache.ProductCache;
+import com.ecommerce.thinnk41.entity.Department;
+import com.ecommerce.thinnk41.entity.Product;
+import com.ecommerce.thinnk41.repository.DepartmentRepository;
+import com.ecommerce.thinnk41.repository.ProductRepository;
+import com.ecommerce.thinnk41.service.ProductService;
+import com.ecommerce.thinnk41.versioning.CatalogVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductUpdateServiceTests {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final String ADMIN_KEY = "test-admin-key";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductUpdateService productUpdateService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Department women;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productUpdateService, "chunkSize", 2);
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM inventory_items");
+        productRepository.deleteAllInBatch();
+        departmentRepository.deleteAllInBatch();
+        productCache.evictAll();
+        women = departmentRepository.save(new Department(null, "Women", null, null));
+    }
+
+    @Test
+    void appliesChangesInChunksAndPublishesThem() throws Exception {
+        Product jeans = product("UPD-1");
+        Product shirt = product("UPD-2");
+        Product coat = product("UPD-3");
+        // cached before the update; the change event has to evict it
+        assertThat(productService.getProductDtoById(jeans.getId())).get()
+                .extracting(dto -> dto.getRetailPrice().toPlainString()).isEqualTo("10.00");
+        long versionBefore = catalogVersions.getProductVersion(jeans.getId());
+
+        String body = String.join("\n",
+                "{\"sku\":\"UPD-1\",\"retailPrice\":12.50}",
+                "{\"id\":" + shirt.getId() + ",\"cost\":3.25,\"department\":\"Outlet\"}",
+                "{\"sku\":\"UPD-MISSING\",\"retailPrice\":1}",
+                "{\"sku\":\"UPD-3\"}",
+                "{\"id\":" + coat.getId() + ",\"retailPrice\":-1}",
+                "{\"id\":" + coat.getId() + ",\"retailPrice\":99.99,\"department\":\"Women\"}");
+        mockMvc.perform(post("/api/admin/products/updates").header(AdminKeyFilter.ADMIN_KEY_HEADER, ADMIN_KEY).contentType(NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(6))
+                .andExpect(jsonPath("$.updated").value(3))
+                .andExpect(jsonPath("$.notFound").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.departmentsCreated").value(1))
+                .andExpect(jsonPath("$.chunks").value(2))
+                .andExpect(jsonPath("$.updatesPerSecond").isNumber())
+                .andExpect(jsonPath("$.problems[0]").value("line 3: no product with sku UPD-MISSING"))
+                .andExpect(jsonPath("$.problems[1]").value("line 4: nothing to change"))
+                .andExpect(jsonPath("$.problems[2]").value("line 5: retailPrice and cost must not be negative"));
+
+        assertThat(productService.getProductDtoById(jeans.getId())).get()
+                .extracting(dto -> dto.getRetailPrice().toPlainString()).isEqualTo("12.50");
+        assertThat(catalogVersions.getProductVersion(jeans.getId())).isGreaterThan(versionBefore);
+        Product updatedShirt = productRepository.findById(shirt.getId()).orElseThrow();
+        assertThat(updatedShirt.getCost()).isEqualByComparingTo("3.25");
+        assertThat(updatedShirt.getRetailPrice()).isEqualByComparingTo("10.00");
+        assertThat(updatedShirt.getDepartment().getName()).isEqualTo("Outlet");
+        Product updatedCoat = productRepository.findById(coat.getId()).orElseThrow();
+        assertThat(updatedCoat.getRetailPrice()).isEqualByComparingTo("99.99");
+        assertThat(updatedCoat.getDepartment().getId()).isEqualTo(women.getId());
+    }
+
+    @Test
+    void stopsAtAMalformedLineKeepingWhatCameBefore() throws Exception {
+        Product jeans = product("UPD-1");
+        Product shirt = product("UPD-2");
+
+        String body = "[{\"id\":" + jeans.getId() + ",\"retailPrice\":5}, {\"id\":\"oops\"}, {\"id\":" + shirt.getId() + ",\"retailPrice\":6}]";
+        mockMvc.perform(post("/api/admin/products/updates").header(AdminKeyFilter.ADMIN_KEY_HEADER, ADMIN_KEY).contentType("application/json").content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("line 2")));
+
+        assertThat(productRepository.findById(jeans.getId()).orElseThrow().getRetailPrice()).isEqualByComparingTo("5");
+        assertThat(productRepository.findById(shirt.getId()).orElseThrow().getRetailPrice()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void refusesUpdatesWithoutAnAdminKey() throws Exception {
+        Product jeans = product("UPD-1");
+        String body = "{\"sku\":\"UPD-1\",\"retailPrice\":1}";
+
+        mockMvc.perform(post("/api/admin/products/updates").contentType(NDJSON).content(body))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/admin/products/updates").header(AdminKeyFilter.ADMIN_KEY_HEADER, "guess")
+                        .contentType(NDJSON).content(body))
+                .andExpect(status().isUnauthorized());
+
+        assertThat(productRepository.findById(jeans.getId()).orElseThrow().getRetailPrice()).isEqualByComparingTo("10.00");
+    }
+
+    private Product product(String sku) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Product " + sku);
+        product.setRetailPrice(new BigDecimal("10.00"));
+        product.setCost(BigDecimal.ONE);
+        product.setDepartment(women);
+        return productRepository.save(product);
+    }
+}